@@ -0,0 +1,48 @@
+package Benchmark;
+
+import Model.ClassGeneration;
+import Model.Evaluation;
+import Model.EvaluationResult;
+import Model.SourceGenerator;
+
+// Times reading the values of a generated file of constants by evaluating its source, against
+// generating a class from them and loading it. That the loaded fields match the evaluated values
+// is checked by ClassGenerationTest.
+// Usage: ClassGenerationLatency [declarations]
+public class ClassGenerationLatency {
+
+    public static void main(String[] args) throws Exception {
+        int declarations = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        String source = SourceGenerator.constants(declarations, 7);
+
+        EvaluationResult result = new Evaluation().evaluate(source);
+        ClassGeneration generation = new ClassGeneration();
+        long evaluate = Long.MAX_VALUE;
+        long generate = Long.MAX_VALUE;
+        long load = Long.MAX_VALUE;
+        for (int run = 0; run < 10; run++) {
+            long start = System.nanoTime();
+            result = new Evaluation().evaluate(source);
+            long evaluated = System.nanoTime();
+            byte[] bytes = generation.generate("generated.Constants", result);
+            long generated = System.nanoTime();
+            new Loader().load("generated.Constants", bytes);
+            long loaded = System.nanoTime();
+            evaluate = Math.min(evaluate, evaluated - start);
+            generate = Math.min(generate, generated - evaluated);
+            load = Math.min(load, loaded - generated);
+        }
+        System.out.printf("%d declarations, best of 10:%n", result.size());
+        System.out.printf("  evaluate source  : %7.2f ms%n", evaluate / 1e6);
+        System.out.printf("  generate class   : %7.2f ms%n", generate / 1e6);
+        System.out.printf("  load and init    : %7.2f ms%n", load / 1e6);
+    }
+
+    // Defines one class and runs its static initializer
+    private static final class Loader extends ClassLoader {
+        Class<?> load(String name, byte[] bytes) throws ClassNotFoundException {
+            defineClass(name, bytes, 0, bytes.length);
+            return Class.forName(name, true, this);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package Benchmark;
+
+import Model.AnalysisResult;
+import Model.LexicalAnalysis;
+import Model.LexicalResult;
+import Model.ResultCodec;
+import Model.SemanticAnalysis;
+import Model.SemanticResult;
+import Model.SourceGenerator;
+import Model.SourceScanner;
+import Model.SyntaxAnalysis;
+import Model.TokenStream;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compares the size and reload time of phase results written through ResultCodec with the
+// same results written as lines of text. ResultCodecTest checks that they round-trip.
+// Usage: CodecReload [lines] [iterations]
+public class CodecReload {
+
+    public static void main(String[] args) throws IOException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Path directory = Files.createTempDirectory("codec");
+        Path binary = directory.resolve("results.bin");
+        Path text = directory.resolve("results.txt");
+        try {
+            String source = SourceGenerator.declarations(lines, 60, 4, 0.01, 42);
+            List<AnalysisResult> results = analyze(source);
+            write(binary, results);
+            writeText(text, results);
+            System.out.printf("Input: %d lines, %d iterations%n", lines, iterations);
+            System.out.printf("text               : %8.1f MB%n", Files.size(text) / (1024.0 * 1024.0));
+            System.out.printf("binary             : %8.1f MB%n", Files.size(binary) / (1024.0 * 1024.0));
+            double textMillis = time(iterations, () -> readText(text));
+            double binaryMillis = time(iterations, () -> ResultCodec.read(map(binary)));
+            double touchedMillis = time(iterations, () -> {
+                for (AnalysisResult result : ResultCodec.read(map(binary))) result.getReport();
+            });
+            System.out.printf("reload text        : %8.1f ms%n", textMillis);
+            System.out.printf("reload binary      : %8.1f ms (%.1f ms formatting every line)%n", binaryMillis, touchedMillis);
+        } finally {
+            Files.deleteIfExists(binary);
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private interface Reload {
+        void run() throws IOException;
+    }
+
+    private static List<AnalysisResult> analyze(String source) {
+        TokenStream tokens = new SourceScanner().scan(source);
+        return List.of(new LexicalAnalysis().analyze(tokens), new SyntaxAnalysis().analyze(tokens),
+                new SemanticAnalysis().analyze(tokens));
+    }
+
+    private static void write(Path file, List<AnalysisResult> results) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ResultCodec.write(channel, results);
+        }
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    // The same results as lines of text: every error, tokenized line and symbol
+    private static void writeText(Path file, List<AnalysisResult> results) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (AnalysisResult result : results) {
+                List<String> lines = new ArrayList<>(result.getErrors());
+                if (result instanceof LexicalResult lexical) lines.addAll(lexical.getTokenizedLines());
+                out.write(lines.size() + "\n");
+                for (String line : lines) out.write(line + "\n");
+                if (result instanceof SemanticResult semantic) {
+                    out.write(semantic.getSymbols().size() + "\n");
+                    for (Map.Entry<String, String> symbol : semantic.getSymbols().entrySet()) {
+                        out.write(symbol.getKey() + " " + symbol.getValue() + "\n");
+                    }
+                }
+            }
+        }
+    }
+
+    private static void readText(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (int r = 0; r < 3; r++) {
+                int n = Integer.parseInt(in.readLine());
+                List<String> lines = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) lines.add(in.readLine());
+            }
+            int n = Integer.parseInt(in.readLine());
+            Map<String, String> symbols = new LinkedHashMap<>(n * 4 / 3 + 16);
+            for (int i = 0; i < n; i++) {
+                String line = in.readLine();
+                int space = line.indexOf(' ');
+                symbols.put(line.substring(0, space), line.substring(space + 1));
+            }
+        }
+    }
+
+    private static double time(int iterations, Reload reload) throws IOException {
+        for (int i = 0; i < iterations; i++) reload.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) reload.run();
+        return (System.nanoTime() - start) / 1e6 / iterations;
+    }
+}
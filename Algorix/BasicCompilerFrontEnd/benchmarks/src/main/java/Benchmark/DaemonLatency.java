@@ -0,0 +1,114 @@
+package Benchmark;
+
+import Model.SourceGenerator;
+import com.compiler.frontend.AnalysisClient;
+import com.compiler.frontend.AnalysisDaemon;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+// Runs an AnalysisDaemon in this JVM, warmed up as it is at start, and times a tree sent as
+// paths, many clients at once, and warm single-file requests on a connection that stays open.
+// That the daemon answers as BatchAnalyzer does is checked by AnalysisDaemonTest.
+// Usage: DaemonLatency [files] [clients] [requests]
+public class DaemonLatency {
+
+    public static void main(String[] args) throws Exception {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int clientCount = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        Path root = Files.createTempDirectory("daemon");
+        Path socket = root.resolve("daemon.sock");
+        try {
+            List<Path> files = new ArrayList<>();
+            for (int i = 0; i < fileCount; i++) {
+                Path file = root.resolve("dir" + i % 10).resolve("file" + i + ".java");
+                Files.createDirectories(file.getParent());
+                Files.writeString(file, SourceGenerator.declarations(40, 60, 3, i % 3 == 0 ? 0.05 : 0, i));
+                files.add(file);
+            }
+            files.sort(null);
+
+            try (AnalysisDaemon daemon = new AnalysisDaemon(socket, 0)) {
+                daemon.warmUp();
+                Thread serving = Thread.ofPlatform().name("daemon").start(() -> {
+                    try {
+                        daemon.serve();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+
+                try (AnalysisClient client = new AnalysisClient(socket)) {
+                    for (String label : List.of("tree as paths", "again, cached")) {
+                        long start = System.nanoTime();
+                        int results = client.analyze(List.of(root), ".java").results().size();
+                        System.out.printf("%-13s: %d files in %.1f ms%n", label, results, (System.nanoTime() - start) / 1e6);
+                    }
+                    concurrent(socket, clientCount, files);
+                    latency(client, files.get(1), requests);
+                }
+                daemon.close();
+                serving.join();
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(root)) {
+                for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    // Each client on its own virtual thread and connection asks for random files
+    private static void concurrent(Path socket, int clientCount, List<Path> files) throws Exception {
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < clientCount; c++) {
+                long seed = c;
+                futures.add(clients.submit(() -> {
+                    Random random = new Random(seed);
+                    try (AnalysisClient client = new AnalysisClient(socket)) {
+                        for (int r = 0; r < 20; r++) {
+                            int from = random.nextInt(files.size());
+                            int to = Math.min(files.size(), from + 1 + random.nextInt(8));
+                            client.analyze(files.subList(from, to), ".java");
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        }
+        System.out.printf("%d clients at once, 20 requests each: %.1f ms%n", clientCount, (System.nanoTime() - start) / 1e6);
+    }
+
+    // Round trips of one file on a connection that stays open, after the daemon has warmed up
+    private static void latency(AnalysisClient client, Path file, int requests) throws IOException {
+        String source = Files.readString(file);
+        for (String mode : List.of("path", "content", "new content")) {
+            long[] times = new long[requests];
+            for (int i = 0; i < requests; i++) {
+                // new content misses the cache, so every request is analyzed
+                String text = mode.equals("new content") ? source + "int extra" + i + " = " + i + ";\n" : source;
+                long start = System.nanoTime();
+                if (mode.equals("path")) client.analyze(List.of(file), ".java");
+                else client.analyzeSources(List.of(file), List.of(text));
+                times[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(times);
+            System.out.printf("warm %-11s: median %.3f ms, p99 %.3f ms, max %.3f ms over %d requests%n", mode,
+                    times[requests / 2] / 1e6, times[requests * 99 / 100] / 1e6, times[requests - 1] / 1e6, requests);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package Benchmark;
+
+import Model.ConstantSource;
+import Model.Evaluation;
+import Model.EvaluationResult;
+import Model.MappedSource;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Evaluates generated files of constant declarations from a MappedSource and reports the
+// time, peak heap and retained size. EvaluationTest checks the values.
+// Usage: java -Xmx1g ... EvaluationThroughput [declarations]
+public class EvaluationThroughput {
+
+    public static void main(String[] args) throws Exception {
+        int declarations = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+
+        System.out.printf("Input: %,d declarations, max heap %d MB%n", declarations, Runtime.getRuntime().maxMemory() >> 20);
+        throughput(declarations, 1000, "reads within 1000 lines");
+        throughput(declarations, Integer.MAX_VALUE, "reads anywhere before");
+    }
+
+    private static void throughput(int declarations, int window, String label) throws IOException {
+        Path file = Files.createTempFile("constants", ".java");
+        try {
+            ConstantSource.write(file, declarations, window, 42);
+            double megabytes = Files.size(file) / (1024.0 * 1024.0);
+            long before = usedAfterGc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) pool.resetPeakUsage();
+
+            long start = System.nanoTime();
+            EvaluationResult result;
+            try (MappedSource source = MappedSource.open(file)) {
+                result = new Evaluation().evaluate(source);
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            long peak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+            }
+            long retained = usedAfterGc() - before;
+            Reference.reachabilityFence(result);
+
+            System.out.printf("%s, %.1f MB:%n", label, megabytes);
+            System.out.printf("  evaluate         : %8d ms (%.0f ns per declaration)%n", millis, millis * 1e6 / declarations);
+            System.out.printf("  peak heap        : %8.1f MB%n", peak / 1048576.0);
+            System.out.printf("  retained result  : %8.1f MB (%.1f bytes per declaration)%n", retained / 1048576.0,
+                    (double) retained / declarations);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,59 @@
+package Benchmark;
+
+import Model.IncrementalAnalysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Times single-line edits on a large buffer, from the edit to its diagnostics. That
+// IncrementalAnalysis agrees with a full analysis is checked by IncrementalAnalysisTest.
+// Usage: IncrementalLatency [largeLines]
+public class IncrementalLatency {
+
+    public static void main(String[] args) {
+        int largeLines = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        timeSingleLineEdits(largeLines, new Random(11));
+    }
+
+    private static void timeSingleLineEdits(int lineCount, Random random) {
+        List<String> lines = new ArrayList<>(List.of(chained(lineCount).split("\n", -1)));
+        IncrementalAnalysis incremental = new IncrementalAnalysis();
+
+        long start = System.nanoTime();
+        incremental.update(String.join("\n", lines));
+        System.out.printf("initial analysis of %d lines: %.1f ms%n", lineCount, (System.nanoTime() - start) / 1e6);
+
+        int rounds = 50;
+        long total = 0;
+        long worst = 0;
+        long rechecked = 0;
+        for (int r = 0; r < rounds; r++) {
+            int i = random.nextInt(lineCount);
+            lines.set(i, "int v" + i + " = " + random.nextInt(1000) + ";");
+            String text = String.join("\n", lines);
+
+            long t0 = System.nanoTime();
+            incremental.update(text);
+            incremental.syntaxResult();
+            incremental.semanticResult();
+            long took = System.nanoTime() - t0;
+            total += took;
+            worst = Math.max(worst, took);
+            rechecked += incremental.getLastRecheckedLines();
+        }
+        System.out.printf("one-line edit to diagnostics: %.2f ms average, %.2f ms worst, %.1f lines re-checked%n",
+                total / 1e6 / rounds, worst / 1e6, (double) rechecked / rounds);
+    }
+
+    // Every declaration after the first few reads two earlier ones
+    private static String chained(int lineCount) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lineCount; i++) {
+            sb.append("int v").append(i).append(" = ");
+            if (i < 2) sb.append(i); else sb.append('v').append(i - 1).append(" + v").append(i / 2);
+            sb.append(";\n");
+        }
+        return sb.toString();
+    }
+}
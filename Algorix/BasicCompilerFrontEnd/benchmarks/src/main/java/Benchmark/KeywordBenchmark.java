@@ -0,0 +1,107 @@
+package Benchmark;
+
+import Model.Keyword;
+import Model.SourceGenerator;
+import Model.SourceScanner;
+import Model.TokenKind;
+import Model.TokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Classifies every identifier of a generated source as a data type, a primitive, a reserved
+// word or a plain name, once by scanning the word arrays the phases used to keep and once
+// through the shared Keyword table. Setup checks that both agree on every identifier.
+// Usage: java -jar target/benchmarks.jar KeywordBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeywordBenchmark {
+
+    private static final String[] DATA_TYPES = {"int", "double", "float", "boolean", "char", "long", "byte", "short", "String"};
+    private static final String[] PRIMITIVES = {"int", "double", "float", "boolean", "char", "long", "byte", "short", "void"};
+    private static final String[] RESERVED = {
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "false", "final", "finally",
+            "float", "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long",
+            "native", "new", "null", "package", "private", "protected", "public", "return", "short", "static",
+            "strictfp", "super", "switch", "synchronized", "this", "throw", "throws", "transient", "true",
+            "try", "void", "volatile", "while"
+    };
+
+    @Param({"100000"})
+    public int lines;
+
+    @Param({"4"})
+    public int complexity;
+
+    private TokenStream tokens;
+    private int[] identifiers;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        tokens = new SourceScanner().scan(SourceGenerator.declarations(lines, 60, complexity, 0.05, 42));
+        int[] found = new int[tokens.size()];
+        int n = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.kind(i) == TokenKind.IDENTIFIER) found[n++] = i;
+        }
+        identifiers = Arrays.copyOf(found, n);
+        for (int i : identifiers) {
+            if (linear(tokens, i) != table(tokens, i)) {
+                throw new IllegalStateException("Lookups disagree on '" + tokens.text(i) + "'");
+            }
+        }
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int sum = 0;
+        for (int i : identifiers) sum += linear(tokens, i);
+        return sum;
+    }
+
+    @Benchmark
+    public int keywordTable() {
+        int sum = 0;
+        for (int i : identifiers) sum += table(tokens, i);
+        return sum;
+    }
+
+    // 1 for a data type, 2 for another primitive, 3 for another reserved word, 0 for a name
+    private static int linear(TokenStream tokens, int i) {
+        if (matchesAny(tokens, i, DATA_TYPES)) return 1;
+        if (matchesAny(tokens, i, PRIMITIVES)) return 2;
+        return matchesAny(tokens, i, RESERVED) ? 3 : 0;
+    }
+
+    private static int table(TokenStream tokens, int i) {
+        Keyword keyword = Keyword.of(tokens, i);
+        if (keyword == null) return 0;
+        if (keyword.isDataType()) return 1;
+        if (keyword.isPrimitive()) return 2;
+        return keyword.isReserved() ? 3 : 0;
+    }
+
+    private static boolean matchesAny(TokenStream tokens, int i, String[] words) {
+        for (String w : words) {
+            if (tokens.textEquals(i, w)) return true;
+        }
+        return false;
+    }
+}
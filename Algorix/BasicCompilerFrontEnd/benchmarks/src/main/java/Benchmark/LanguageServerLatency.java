@@ -0,0 +1,53 @@
+package Benchmark;
+
+import Model.SourceGenerator;
+import com.compiler.frontend.LanguageServer;
+import com.compiler.frontend.LanguageServerClient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Opens a generated file in LanguageServer, sends random ranged edits one at a time and in a
+// burst, and times each change until its diagnostics are published. That the diagnostics
+// match a full analysis is checked by LanguageServerTest.
+// Usage: LanguageServerLatency [lines] [edits]
+public class LanguageServerLatency {
+
+    public static void main(String[] args) throws Exception {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int edits = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        List<String> text = new ArrayList<>(Arrays.asList(SourceGenerator.declarations(lines, 60, 4, 0.0, 3).split("\n", -1)));
+        try (LanguageServerClient client = new LanguageServerClient()) {
+            long start = System.nanoTime();
+            client.open(String.join("\n", text));
+            client.awaitVersion(1);
+            System.out.printf("Input: %d lines, %d edits (debounce %d ms)%n", text.size(), edits, LanguageServer.DEBOUNCE_MILLIS);
+            System.out.printf("open to diagnostics     : %8.1f ms%n", (System.nanoTime() - start) / 1e6);
+
+            Random random = new Random(5);
+            int version = 1;
+            long[] latencies = new long[edits];
+            for (int e = 0; e < edits; e++) {
+                long sent = System.nanoTime();
+                client.change(++version, LanguageServerClient.edit(text, random));
+                client.awaitVersion(version);
+                latencies[e] = System.nanoTime() - sent;
+            }
+            Arrays.sort(latencies);
+            System.out.printf("edit to diagnostics     : %8.1f ms median, %.1f ms p95, %.1f ms worst%n",
+                    latencies[edits / 2] / 1e6, latencies[edits * 95 / 100] / 1e6, latencies[edits - 1] / 1e6);
+
+            // A burst of keystrokes faster than the debounce is analyzed once, at its last version
+            int burst = 20;
+            int skipped = client.skipped();
+            start = System.nanoTime();
+            for (int k = 0; k < burst; k++) client.change(++version, LanguageServerClient.edit(text, random));
+            client.awaitVersion(version);
+            System.out.printf("burst of %d to diagnostics: %6.1f ms, %d intermediate versions published%n",
+                    burst, (System.nanoTime() - start) / 1e6, client.skipped() - skipped);
+        }
+    }
+}
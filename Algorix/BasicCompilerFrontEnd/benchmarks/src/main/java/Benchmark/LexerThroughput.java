@@ -0,0 +1,52 @@
+package Benchmark;
+
+import Model.LexicalAnalysis;
+import Model.SourceGenerator;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Compares the regex lexer with the SourceScanner-based one on the same input, and the
+// latter run sequentially and in parallel chunks, and reports MB/s for each.
+// Usage: LexerThroughput [sizeMB] [iterations] [threads]
+public class LexerThroughput {
+
+    public static void main(String[] args) {
+        int sizeMb = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        String source = SourceGenerator.declarations(sizeMb * 1024 * 1024, 42);
+        double megabytes = source.length() / (1024.0 * 1024.0);
+
+        String expected = new LegacyLexicalAnalysis().analyze(source);
+        String actual = new LexicalAnalysis().analyze(source).getReport();
+        if (!expected.equals(actual)) {
+            System.err.println("Output differs from the legacy lexer");
+            System.exit(1);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        LexicalAnalysis lexical = new LexicalAnalysis();
+
+        System.out.printf("Input: %.1f MB, %d iterations%n", megabytes, iterations);
+        double legacy = measure(megabytes, iterations, () -> new LegacyLexicalAnalysis().analyze(source));
+        double scanner = measure(megabytes, iterations, () -> lexical.analyze(source));
+        double parallel = measure(megabytes, iterations, () -> lexical.analyze(source, pool));
+        pool.shutdown();
+        System.out.printf("legacy regex lexer : %8.1f MB/s%n", legacy);
+        System.out.printf("DFA scanner lexer  : %8.1f MB/s%n", scanner);
+        System.out.printf("parallel (%2d thr)  : %8.1f MB/s%n", threads, parallel);
+        System.out.printf("speedup            : %8.1fx, parallel %.1fx%n", scanner / legacy, parallel / scanner);
+    }
+
+    static double measure(double megabytes, int iterations, Runnable run) {
+        run.run(); // warm-up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return megabytes / (best / 1e9);
+    }
+}
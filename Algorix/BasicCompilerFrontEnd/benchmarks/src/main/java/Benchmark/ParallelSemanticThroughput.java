@@ -0,0 +1,32 @@
+package Benchmark;
+
+import Model.SemanticAnalysis;
+import Model.SourceGenerator;
+import Model.SourceScanner;
+import Model.TokenStream;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Compares the speed of the two-pass parallel semantic analysis with the sequential one.
+// That both report the same is checked by SemanticAnalysisTest.
+// Usage: ParallelSemanticThroughput [lines] [threads] [iterations]
+public class ParallelSemanticThroughput {
+
+    public static void main(String[] args) {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        SemanticAnalysis semantic = new SemanticAnalysis();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        TokenStream tokens = new SourceScanner().scan(SourceGenerator.declarations(lines, 60, 4, 0.01, 42));
+        double megabytes = (tokens.sourceEnd() - tokens.sourceStart()) / (1024.0 * 1024.0);
+        System.out.printf("Input: %d lines, %.1f MB, %d iterations%n", lines, megabytes, iterations);
+        double sequential = LexerThroughput.measure(megabytes, iterations, () -> semantic.analyze(tokens));
+        double parallel = LexerThroughput.measure(megabytes, iterations, () -> semantic.analyze(tokens, pool));
+        pool.shutdown();
+        System.out.printf("sequential         : %8.1f MB/s%n", sequential);
+        System.out.printf("parallel (%2d thr)  : %8.1f MB/s%n", threads, parallel);
+        System.out.printf("speedup            : %8.1fx%n", parallel / sequential);
+    }
+}
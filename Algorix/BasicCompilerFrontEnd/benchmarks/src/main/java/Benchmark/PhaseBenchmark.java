@@ -0,0 +1,105 @@
+package Benchmark;
+
+import Model.LexicalAnalysis;
+import Model.LexicalResult;
+import Model.SemanticAnalysis;
+import Model.SemanticResult;
+import Model.SourceGenerator;
+import Model.SourceScanner;
+import Model.SyntaxAnalysis;
+import Model.SyntaxResult;
+import Model.TokenStream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Each phase on its own over a pre-scanned TokenStream, plus scanning alone and the whole
+// pipeline from a String. The "chars" counter is source chars per second; run with -prof gc
+// for the allocation rate. Usage: java -jar target/benchmarks.jar PhaseBenchmark -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PhaseBenchmark {
+
+    @Param({"100000"})
+    public int lines;
+
+    @Param({"48"})
+    public int lineLength;
+
+    @Param({"0", "4"})
+    public int complexity;
+
+    @Param({"0", "0.05"})
+    public double errorRate;
+
+    private String source;
+    private TokenStream tokens;
+
+    private final SourceScanner scanner = new SourceScanner();
+    private final LexicalAnalysis lexical = new LexicalAnalysis();
+    private final SyntaxAnalysis syntax = new SyntaxAnalysis();
+    private final SemanticAnalysis semantic = new SemanticAnalysis();
+
+    // Source chars consumed, reported by JMH as a rate next to ops/s
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Chars {
+        public long chars;
+    }
+
+    @Setup(Level.Trial)
+    public void generate() {
+        source = SourceGenerator.declarations(lines, lineLength, complexity, errorRate, 42);
+        tokens = scanner.scan(source);
+    }
+
+    @Benchmark
+    public TokenStream scan(Chars counter) {
+        counter.chars += source.length();
+        return scanner.scan(source);
+    }
+
+    @Benchmark
+    public LexicalResult lexical(Chars counter) {
+        counter.chars += source.length();
+        return lexical.analyze(tokens);
+    }
+
+    @Benchmark
+    public SyntaxResult syntax(Chars counter) {
+        counter.chars += source.length();
+        return syntax.analyze(tokens);
+    }
+
+    @Benchmark
+    public SemanticResult semantic(Chars counter) {
+        counter.chars += source.length();
+        return semantic.analyze(tokens);
+    }
+
+    @Benchmark
+    public void pipeline(Chars counter, Blackhole bh) {
+        counter.chars += source.length();
+        LexicalResult lex = lexical.analyze(source);
+        bh.consume(lex);
+        bh.consume(syntax.analyze(lex.getTokens()));
+        bh.consume(semantic.analyze(lex.getTokens()));
+    }
+}
@@ -0,0 +1,46 @@
+package Benchmark;
+
+import Model.LexicalAnalysis;
+import Model.SemanticAnalysis;
+import Model.SourceGenerator;
+import Model.SourceScanner;
+import Model.SyntaxAnalysis;
+import Model.TokenStream;
+
+// Full lexical + syntax + semantic run: the old phases each split and tokenize the
+// String themselves, the new ones share one TokenStream. Usage: PipelineThroughput [sizeMB] [iterations]
+public class PipelineThroughput {
+
+    public static void main(String[] args) {
+        int sizeMb = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        String source = SourceGenerator.declarations(sizeMb * 1024 * 1024, 42);
+        double megabytes = source.length() / (1024.0 * 1024.0);
+
+        if (!legacyPipeline(source).equals(sharedPipeline(source))) {
+            System.err.println("Output differs from the legacy pipeline");
+            System.exit(1);
+        }
+
+        System.out.printf("Input: %.1f MB, %d iterations%n", megabytes, iterations);
+        double legacy = LexerThroughput.measure(megabytes, iterations, () -> legacyPipeline(source));
+        double shared = LexerThroughput.measure(megabytes, iterations, () -> sharedPipeline(source));
+        System.out.printf("per-phase tokenizing : %8.1f MB/s%n", legacy);
+        System.out.printf("shared token stream  : %8.1f MB/s%n", shared);
+        System.out.printf("speedup              : %8.1fx%n", shared / legacy);
+    }
+
+    static String legacyPipeline(String source) {
+        return new LegacyLexicalAnalysis().analyze(source)
+                + new LegacySyntaxAnalysis().analyze(source)
+                + new LegacySemanticAnalysis().analyze(source);
+    }
+
+    static String sharedPipeline(String source) {
+        TokenStream tokens = new SourceScanner().scan(source);
+        return new LexicalAnalysis().analyze(tokens).getReport()
+                + new SyntaxAnalysis().analyze(tokens).getReport()
+                + new SemanticAnalysis().analyze(tokens).getReport();
+    }
+}
@@ -0,0 +1,96 @@
+package Benchmark;
+
+import Model.SymbolTable;
+
+import java.lang.ref.Reference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+// Retained heap and build time of the symbol table SemanticAnalysis used to keep (a
+// LinkedHashMap from String to an enum) against SymbolTable, for the same declarations.
+// Each size is measured after a full GC; a size the heap cannot hold is reported as such.
+// Usage: java -Xmx6g ... SymbolTableMemory [declarations...]
+public class SymbolTableMemory {
+
+    private enum Type { INT, DOUBLE, FLOAT, BOOLEAN, CHAR, LONG, BYTE, SHORT, STRING }
+
+    private static final Type[] TYPES = Type.values();
+
+    public static void main(String[] args) {
+        long[] counts = args.length > 0 ? new long[args.length] : new long[]{1_000_000, 10_000_000, 50_000_000};
+        for (int i = 0; i < args.length; i++) counts[i] = Long.parseLong(args[i]);
+
+        System.out.printf("max heap %d MB%n", Runtime.getRuntime().maxMemory() >> 20);
+        System.out.printf("%12s  %-12s %10s %10s %10s%n", "declarations", "table", "MB", "bytes/decl", "build ms");
+        for (long count : counts) {
+            int n = (int) count;
+            measure("LinkedHashMap", n, () -> buildMap(n));
+            measure("SymbolTable", n, () -> buildTable(n));
+        }
+    }
+
+    private static void measure(String label, int n, Supplier<Object> build) {
+        long before = usedAfterGc();
+        long start = System.nanoTime();
+        Object table;
+        try {
+            table = build.get();
+        } catch (OutOfMemoryError e) {
+            System.out.printf("%,12d  %-12s %10s%n", n, label, "out of memory");
+            return;
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        long retained = usedAfterGc() - before;
+        Reference.reachabilityFence(table);
+        System.out.printf("%,12d  %-12s %10.1f %10.1f %10d%n", n, label, retained / 1048576.0, (double) retained / n, millis);
+    }
+
+    // The names a generated source declares: v0, v1, ... with types in rotation
+    private static Object buildMap(int n) {
+        Map<String, Type> map = new LinkedHashMap<>();
+        char[] name = new char[16];
+        for (int i = 0; i < n; i++) {
+            int length = name(name, i);
+            map.put(new String(name, 0, length), TYPES[i % TYPES.length]);
+        }
+        check(n, id -> map.get("v" + id) == TYPES[id % TYPES.length]);
+        return map;
+    }
+
+    private static Object buildTable(int n) {
+        SymbolTable table = new SymbolTable();
+        char[] name = new char[16];
+        for (int i = 0; i < n; i++) {
+            int length = name(name, i);
+            table.put(name, 0, length, (byte) (i % TYPES.length));
+        }
+        check(n, id -> {
+            int found = table.find("v" + id);
+            return found == id && table.type(found) == id % TYPES.length;
+        });
+        return table;
+    }
+
+    private static int name(char[] buffer, int i) {
+        buffer[0] = 'v';
+        String digits = Integer.toString(i);
+        digits.getChars(0, digits.length(), buffer, 1);
+        return digits.length() + 1;
+    }
+
+    private static void check(int n, IntPredicate found) {
+        Random random = new Random(n);
+        for (int k = 0; k < 1000; k++) {
+            if (!found.test(random.nextInt(n))) throw new IllegalStateException("lookup failed after building " + n);
+        }
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,96 @@
+package Benchmark;
+
+import Controller.BatchAnalyzer;
+import Controller.SourceWatcher;
+import Model.SourceGenerator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Drives a SourceWatcher over a temporary tree, times each save until its change is reported,
+// then measures the watching thread's CPU and the heap over a few idle seconds. What each kind
+// of change reports is checked by SourceWatcherTest.
+// Usage: WatchLatency [files] [debounceMillis] [edits]
+public class WatchLatency {
+
+    public static void main(String[] args) throws Exception {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long debounce = args.length > 1 ? Long.parseLong(args[1]) : 100;
+        int edits = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        Path root = Files.createTempDirectory("watched");
+        try {
+            List<Path> files = new ArrayList<>();
+            for (int i = 0; i < fileCount; i++) {
+                Path file = root.resolve("dir" + i % 10).resolve("file" + i + ".java");
+                Files.createDirectories(file.getParent());
+                Files.writeString(file, SourceGenerator.declarations(50, 3));
+                files.add(file);
+            }
+            BatchAnalyzer analyzer = new BatchAnalyzer(2);
+            BlockingQueue<Long> reported = new LinkedBlockingQueue<>();
+            try (SourceWatcher watcher = new SourceWatcher(root, ".java", debounce, analyzer)) {
+                watcher.seed(analyzer.analyze(BatchAnalyzer.findSources(root, ".java")));
+                Thread thread = new Thread(() -> {
+                    try {
+                        watcher.watch(changes -> reported.add(System.nanoTime()));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "watcher");
+                thread.start();
+
+                // Each edit breaks a random file, or fixes it when it is already broken
+                Random random = new Random(9);
+                long[] latencies = new long[edits];
+                for (int e = 0; e < edits; e++) {
+                    Path file = files.get(random.nextInt(files.size()));
+                    String source = Files.readString(file);
+                    String edited = source.endsWith("int broken = ;\n") ? source.replace("int broken = ;\n", "") : source + "int broken = ;\n";
+                    long saved = System.nanoTime();
+                    Files.writeString(file, edited);
+                    Long at = reported.poll(debounce + 5000, TimeUnit.MILLISECONDS);
+                    if (at == null) throw new IllegalStateException("edit " + e + " was not reported");
+                    latencies[e] = at - saved;
+                }
+                Arrays.sort(latencies);
+                System.out.printf("Input: %d files, %d edits (debounce %d ms)%n", fileCount, edits, debounce);
+                System.out.printf("save to report   : %6.0f ms median, %.0f ms worst%n", latencies[edits / 2] / 1e6, latencies[edits - 1] / 1e6);
+
+                idle(thread);
+                watcher.close();
+                thread.join();
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(root)) {
+                for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+            }
+        }
+    }
+
+    // CPU time of the watching thread and heap over a few idle seconds
+    private static void idle(Thread thread) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heap = memory.getHeapMemoryUsage().getUsed();
+        long cpu = threads.getThreadCpuTime(thread.getId());
+        Thread.sleep(3000);
+        long idleCpu = threads.getThreadCpuTime(thread.getId()) - cpu;
+        System.gc();
+        long heapAfter = memory.getHeapMemoryUsage().getUsed();
+        System.out.printf("idle 3 s         : watcher thread used %.2f ms CPU, heap %+d KB%n", idleCpu / 1e6, (heapAfter - heap) >> 10);
+    }
+}
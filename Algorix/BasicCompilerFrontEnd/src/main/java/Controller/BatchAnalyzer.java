@@ -0,0 +1,283 @@
+package Controller;
+
+import Model.AnalysisResult;
+import Model.LexicalAnalysis;
+import Model.LexicalResult;
+import Model.Limits;
+import Model.MappedSource;
+import Model.Metrics;
+import Model.ResultCache;
+import Model.SemanticAnalysis;
+import Model.SemanticResult;
+import Model.SourceScanner;
+import Model.SyntaxAnalysis;
+import Model.SyntaxResult;
+import Model.TokenStream;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+// Runs the three phases over many files on a fixed pool of worker threads. The analyzers
+// are stateless and shared; each file's results are its own, so workers never contend.
+public class BatchAnalyzer {
+
+    private static final SourceScanner SCANNER = new SourceScanner();
+
+    // The three analyzers for one set of limits
+    private record Phases(Limits limits, LexicalAnalysis lexical, SyntaxAnalysis syntax, SemanticAnalysis semantic) {
+
+        static final Phases DEFAULT = create(Limits.DEFAULT);
+
+        static Phases of(Limits limits) {
+            return limits.equals(Limits.DEFAULT) ? DEFAULT : create(limits);
+        }
+
+        private static Phases create(Limits limits) {
+            return new Phases(limits, new LexicalAnalysis(limits), new SyntaxAnalysis(limits), new SemanticAnalysis(limits));
+        }
+    }
+
+    public enum Status { PASSED, FAILED, SKIPPED }
+
+    public record PhaseResult(String phase, Status status, List<String> errors) {
+    }
+
+    // error is set when the file could not be read; phases is then empty
+    public record FileResult(Path file, long bytes, List<PhaseResult> phases, String error) {
+
+        public boolean isPassed() {
+            if (error != null) return false;
+            for (PhaseResult phase : phases) {
+                if (phase.status() != Status.PASSED) return false;
+            }
+            return true;
+        }
+    }
+
+    private final int threads;
+    private final ResultCache cache;
+    private final Metrics metrics;
+    private final Phases phases;
+
+    public BatchAnalyzer(int threads) {
+        this(threads, null);
+    }
+
+    // Files whose content the cache has seen return its results without being analyzed again;
+    // cache may be null. Large files are always streamed and never cached.
+    public BatchAnalyzer(int threads, ResultCache cache) {
+        this(threads, cache, Metrics.NONE);
+    }
+
+    // Every phase and file is reported to metrics; a cache hit counts as the phase's run
+    public BatchAnalyzer(int threads, ResultCache cache, Metrics metrics) {
+        this(threads, cache, metrics, Limits.DEFAULT);
+    }
+
+    // Every phase is bounded by limits; cached results are keyed by them too
+    public BatchAnalyzer(int threads, ResultCache cache, Metrics metrics, Limits limits) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be at least 1");
+        this.threads = threads;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.phases = Phases.of(limits);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public ResultCache getCache() {
+        return cache;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public Limits getLimits() {
+        return phases.limits();
+    }
+
+    // Regular files under root whose name ends with extension, in a stable order
+    public static List<Path> findSources(Path root, String extension) throws IOException {
+        if (Files.isRegularFile(root)) return List.of(root);
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().endsWith(extension))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    // Results come back in the order of files, whatever order the workers finish in
+    public List<FileResult> analyze(List<Path> files) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<FileResult>> futures = new ArrayList<>(files.size());
+            for (Path file : files) {
+                futures.add(pool.submit(() -> analyzeFile(file, cache, metrics, phases)));
+            }
+            List<FileResult> results = new ArrayList<>(files.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new FileResult(files.get(i), -1, List.of(), String.valueOf(e.getCause())));
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public static FileResult analyzeFile(Path file) {
+        return analyzeFile(file, null, Metrics.NONE);
+    }
+
+    public static FileResult analyzeFile(Path file, ResultCache cache) {
+        return analyzeFile(file, cache, Metrics.NONE);
+    }
+
+    public static FileResult analyzeFile(Path file, ResultCache cache, Metrics metrics) {
+        return analyzeFile(file, cache, metrics, Phases.DEFAULT);
+    }
+
+    // Same gating as the GUI: a phase only runs once the previous one has passed
+    public static FileResult analyzeFile(Path file, ResultCache cache, Metrics metrics, Limits limits) {
+        return analyzeFile(file, cache, metrics, Phases.of(limits));
+    }
+
+    private static FileResult analyzeFile(Path file, ResultCache cache, Metrics metrics, Phases phases) {
+        String name = file.toString();
+        try {
+            long bytes = Files.size(file);
+            Metrics.Timer timer = metrics.file(name, bytes);
+            if (bytes <= MappedSource.LARGE_FILE_BYTES) {
+                return analyzeText(file, new String(Files.readAllBytes(file), StandardCharsets.UTF_8), bytes, cache, metrics, timer,
+                        phases);
+            }
+            LexicalResult lexical = timed(metrics, name, ResultCache.Phase.LEXICAL, bytes, () -> {
+                try (MappedSource source = MappedSource.open(file, phases.limits())) {
+                    return phases.lexical().analyze(source);
+                }
+            });
+            SyntaxResult syntax = null;
+            SemanticResult semantic = null;
+            if (lexical.isPassed()) {
+                syntax = timed(metrics, name, ResultCache.Phase.SYNTAX, bytes, () -> {
+                    try (MappedSource source = MappedSource.open(file, phases.limits())) {
+                        return phases.syntax().analyze(source);
+                    }
+                });
+            }
+            if (syntax != null && syntax.isPassed()) {
+                semantic = timed(metrics, name, ResultCache.Phase.SEMANTIC, bytes, () -> {
+                    try (MappedSource source = MappedSource.open(file, phases.limits())) {
+                        return phases.semantic().analyze(source);
+                    }
+                });
+            }
+            return fileResult(file, bytes, timer, lexical, syntax, semantic);
+        } catch (IOException e) {
+            return new FileResult(file, -1, List.of(), "Error reading file: " + e.getMessage());
+        }
+    }
+
+    // A source that is already in memory, such as one a daemon client sent; file only names it
+    public static FileResult analyzeSource(Path file, String source, ResultCache cache, Metrics metrics) {
+        return analyzeSource(file, source, cache, metrics, Limits.DEFAULT);
+    }
+
+    public static FileResult analyzeSource(Path file, String source, ResultCache cache, Metrics metrics,
+                                           Limits limits) {
+        long bytes = source.getBytes(StandardCharsets.UTF_8).length;
+        try {
+            return analyzeText(file, source, bytes, cache, metrics, metrics.file(file.toString(), bytes),
+                    Phases.of(limits));
+        } catch (IOException e) {
+            return new FileResult(file, -1, List.of(), "Error reading file: " + e.getMessage());
+        }
+    }
+
+    private static FileResult analyzeText(Path file, String source, long bytes, ResultCache cache, Metrics metrics,
+                                          Metrics.Timer timer, Phases phases) throws IOException {
+        String name = file.toString();
+        LexicalResult lexical;
+        SyntaxResult syntax = null;
+        SemanticResult semantic = null;
+        if (cache == null) {
+            LexicalResult lex = timed(metrics, name, ResultCache.Phase.LEXICAL, bytes, () -> phases.lexical().analyze(source));
+            lexical = lex;
+            if (lexical.isPassed()) {
+                syntax = timed(metrics, name, ResultCache.Phase.SYNTAX, bytes, () -> phases.syntax().analyze(lex.getTokens()));
+            }
+            if (syntax != null && syntax.isPassed()) {
+                SyntaxResult parsed = syntax;
+                semantic = timed(metrics, name, ResultCache.Phase.SEMANTIC, bytes, () -> phases.semantic().analyze(parsed.getTree()));
+            }
+        } else {
+            ResultCache.Key key = ResultCache.key(source, phases.limits());
+            LexicalResult lex = timed(metrics, name, ResultCache.Phase.LEXICAL, bytes,
+                    () -> cache.lexical(key, () -> phases.lexical().analyze(source)));
+            lexical = lex;
+            if (lexical.isPassed()) {
+                syntax = timed(metrics, name, ResultCache.Phase.SYNTAX, bytes,
+                        () -> cache.syntax(key, () -> phases.syntax().analyze(tokens(lex, source))));
+            }
+            if (syntax != null && syntax.isPassed()) {
+                // Cached results keep no tokens or tree; the phase that needs them scans again
+                SyntaxResult parsed = syntax;
+                semantic = timed(metrics, name, ResultCache.Phase.SEMANTIC, bytes,
+                        () -> cache.semantic(key, () -> parsed.getTree() != null
+                                ? phases.semantic().analyze(parsed.getTree())
+                                : phases.semantic().analyze(tokens(lex, source))));
+            }
+        }
+        return fileResult(file, bytes, timer, lexical, syntax, semantic);
+    }
+
+    // Phases that did not run are null
+    private static FileResult fileResult(Path file, long bytes, Metrics.Timer timer, LexicalResult lexical,
+                                         SyntaxResult syntax, SemanticResult semantic) {
+        timer.stop(semantic != null ? semantic : syntax != null ? syntax : lexical);
+        List<PhaseResult> phases = List.of(
+                phaseResult("lexical", true, lexical.isPassed(), lexical.getErrors()),
+                phaseResult("syntax", syntax != null, syntax != null && syntax.isPassed(),
+                        syntax != null ? syntax.getErrors() : List.of()),
+                phaseResult("semantic", semantic != null, semantic != null && semantic.isPassed(),
+                        semantic != null ? semantic.getErrors() : List.of()));
+        return new FileResult(file, bytes, phases, null);
+    }
+
+    private interface PhaseRun<R extends AnalysisResult> {
+        R run() throws IOException;
+    }
+
+    private static <R extends AnalysisResult> R timed(Metrics metrics, String file, ResultCache.Phase phase,
+                                                      long bytes, PhaseRun<R> run) throws IOException {
+        Metrics.Timer timer = metrics.phase(file, phase, bytes);
+        R result = run.run();
+        timer.stop(result);
+        return result;
+    }
+
+    private static TokenStream tokens(LexicalResult lexical, String source) {
+        return lexical.getTokens() != null ? lexical.getTokens() : SCANNER.scan(source);
+    }
+
+    private static PhaseResult phaseResult(String phase, boolean ran, boolean passed, List<String> errors) {
+        if (!ran) return new PhaseResult(phase, Status.SKIPPED, List.of());
+        return new PhaseResult(phase, passed ? Status.PASSED : Status.FAILED, errors);
+    }
+}
@@ -0,0 +1,122 @@
+package Controller;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.List;
+
+// Writes batch results as a single JSON document for CI tooling
+public class BatchReport {
+
+    private final Path root;
+    private final List<BatchAnalyzer.FileResult> results;
+    private final int threads;
+    private final long elapsedMillis;
+
+    public BatchReport(Path root, List<BatchAnalyzer.FileResult> results, int threads, long elapsedMillis) {
+        this.root = root;
+        this.results = results;
+        this.threads = threads;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getFailedCount() {
+        int failed = 0;
+        for (BatchAnalyzer.FileResult result : results) {
+            if (!result.isPassed()) failed++;
+        }
+        return failed;
+    }
+
+    public long getTotalBytes() {
+        long total = 0;
+        for (BatchAnalyzer.FileResult result : results) {
+            if (result.bytes() > 0) total += result.bytes();
+        }
+        return total;
+    }
+
+    public void writeJson(Writer out) throws IOException {
+        int failed = getFailedCount();
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"root\": ").append(quote(root.toString())).append(",\n");
+        json.append("  \"threads\": ").append(threads).append(",\n");
+        json.append("  \"elapsedMillis\": ").append(elapsedMillis).append(",\n");
+        json.append("  \"files\": ").append(results.size()).append(",\n");
+        json.append("  \"bytes\": ").append(getTotalBytes()).append(",\n");
+        json.append("  \"passed\": ").append(results.size() - failed).append(",\n");
+        json.append("  \"failed\": ").append(failed).append(",\n");
+        json.append("  \"results\": [");
+
+        for (int i = 0; i < results.size(); i++) {
+            BatchAnalyzer.FileResult result = results.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\"file\": ").append(quote(relative(root, result.file())));
+            json.append(", \"bytes\": ").append(result.bytes());
+            json.append(", \"passed\": ").append(result.isPassed());
+            if (result.error() != null) {
+                json.append(", \"error\": ").append(quote(result.error()));
+            }
+            json.append(", \"phases\": {");
+            List<BatchAnalyzer.PhaseResult> phases = result.phases();
+            for (int p = 0; p < phases.size(); p++) {
+                BatchAnalyzer.PhaseResult phase = phases.get(p);
+                if (p > 0) json.append(", ");
+                json.append(quote(phase.phase())).append(": {\"status\": ")
+                        .append(quote(phase.status().name().toLowerCase()));
+                json.append(", \"errors\": [");
+                for (int e = 0; e < phase.errors().size(); e++) {
+                    if (e > 0) json.append(", ");
+                    json.append(quote(phase.errors().get(e)));
+                }
+                json.append("]}");
+            }
+            json.append("}}");
+
+            // Flush per file so huge reports are not built up in one buffer
+            out.append(json);
+            json.setLength(0);
+        }
+
+        json.append(results.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        out.append(json);
+        out.flush();
+    }
+
+    // file as a path under root with forward slashes, or as given when it is not under root
+    public static String relative(Path root, Path file) {
+        Path base = root.toAbsolutePath().normalize();
+        Path path = file.toAbsolutePath().normalize();
+        return (path.startsWith(base) && !path.equals(base) ? base.relativize(path) : file).toString().replace('\\', '/');
+    }
+
+    static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        quote(sb, s);
+        return sb.toString();
+    }
+
+    // Appends s as a JSON string; the language server's messages are written with it too
+    public static void quote(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < ' ') {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -1,33 +1,43 @@
 package Controller;
 
+import Model.MappedSource;
+
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 
 import javafx.stage.Stage;
 
 public class FileChooser {
-    
+
     public String openFile() {
+        File selectedFile = chooseFile();
+        return selectedFile != null ? readFile(selectedFile) : null;
+    }
+
+    public File chooseFile() {
         javafx.stage.FileChooser fileChooser = new javafx.stage.FileChooser();
         fileChooser.setTitle("Open File");
         fileChooser.getExtensionFilters().addAll(
             new javafx.stage.FileChooser.ExtensionFilter("Java Files", "*.java"),
             new javafx.stage.FileChooser.ExtensionFilter("All Files", "*.*")
         );
-        
-        File selectedFile = fileChooser.showOpenDialog(new Stage());
-        if (selectedFile != null) {
-            try {
-                String content = new String(Files.readAllBytes(Paths.get(selectedFile.getAbsolutePath())));
-                System.out.println("Loaded file: " + selectedFile.getAbsolutePath());
-                return content;
-            } catch (Exception e) {
-                System.err.println("Error reading file: " + e.getMessage());
-                return null;
-            }
+        return fileChooser.showOpenDialog(new Stage());
+    }
+
+    public String readFile(File selectedFile) {
+        try {
+            return new String(Files.readAllBytes(Paths.get(selectedFile.getAbsolutePath())), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            System.err.println("Error reading file: " + e.getMessage());
+            return null;
         }
-        return null;
+    }
+
+    // Large files are not read into memory; the analyzers stream them from disk instead
+    public boolean isLargeFile(File file) {
+        return file.length() > MappedSource.LARGE_FILE_BYTES;
     }
 }
  /*
@@ -0,0 +1,205 @@
+package Controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Re-analyzes the sources under a directory as they change. Events are collected until none
+// has arrived for the debounce window, so a burst of saves is one run. A file whose size and
+// content hash are what they were last time is not analyzed again, and only results that
+// differ from the last ones are reported. The hash is taken a block at a time, so checking a
+// file holds none of it. Between bursts the watching thread blocks on the watch service and
+// holds only a fingerprint and the last result per file.
+public class SourceWatcher implements Closeable {
+
+    // A file's new result, or null as its result when the file was removed
+    public record Change(Path file, BatchAnalyzer.FileResult result) {
+    }
+
+    // Size and the first 128 bits of the SHA-256 of a file's bytes
+    private record Fingerprint(long size, long high, long low) {
+    }
+
+    private static final int HASH_BLOCK = 64 << 10;
+
+    private final Path root;
+    private final String extension;
+    private final long debounceMillis;
+    private final BatchAnalyzer analyzer;
+    private final WatchService service;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Map<Path, Fingerprint> fingerprints = new HashMap<>();
+    private final MessageDigest digest;
+    private final ByteBuffer block = ByteBuffer.allocate(HASH_BLOCK);
+    private final Map<Path, BatchAnalyzer.FileResult> results = new HashMap<>();
+
+    // Watches root and every directory below it, including those created later
+    public SourceWatcher(Path root, String extension, long debounceMillis, BatchAnalyzer analyzer) throws IOException {
+        if (debounceMillis < 0) throw new IllegalArgumentException("debounceMillis must not be negative");
+        this.root = root;
+        this.extension = extension;
+        this.debounceMillis = debounceMillis;
+        this.analyzer = analyzer;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every Java platform has SHA-256", e);
+        }
+        this.service = FileSystems.getDefault().newWatchService();
+        try {
+            if (Files.isDirectory(root)) {
+                registerTree(root);
+            } else {
+                Path directory = root.toAbsolutePath().getParent();
+                directories.put(register(directory), directory);
+            }
+        } catch (IOException e) {
+            service.close();
+            throw e;
+        }
+    }
+
+    // Results of a run that already happened, so the first burst only reports what differs.
+    // Called before watch, on the same thread.
+    public void seed(List<BatchAnalyzer.FileResult> known) {
+        for (BatchAnalyzer.FileResult result : known) {
+            Fingerprint fingerprint = fingerprint(result.file());
+            if (fingerprint != null) fingerprints.put(result.file(), fingerprint);
+            results.put(result.file(), result);
+        }
+    }
+
+    // Reports each burst's changes to listener, on this thread, until close is called
+    public void watch(Consumer<List<Change>> listener) throws InterruptedException {
+        try {
+            while (true) {
+                Set<Path> pending = new LinkedHashSet<>();
+                collect(service.take(), pending);
+                WatchKey next;
+                while ((next = service.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) collect(next, pending);
+                List<Change> changes = analyze(pending);
+                if (!changes.isEmpty()) listener.accept(changes);
+            }
+        } catch (ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        service.close();
+    }
+
+    private void collect(WatchKey key, Set<Path> pending) {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                // Events were lost: look at everything again
+                pending.addAll(results.keySet());
+                try {
+                    pending.addAll(BatchAnalyzer.findSources(root, extension));
+                } catch (IOException e) {
+                    // what can be read is looked at; the rest is reported removed
+                }
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (!Files.isDirectory(root)) {
+                // A single file: nothing else in its directory is of interest
+                if (path.equals(root.toAbsolutePath())) pending.add(root);
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    registerTree(path);
+                    pending.addAll(BatchAnalyzer.findSources(path, extension));
+                } catch (IOException e) {
+                    // gone again already
+                }
+            } else if (path.getFileName().toString().endsWith(extension)) {
+                pending.add(path);
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                for (Path file : results.keySet()) {
+                    if (file.startsWith(path)) pending.add(file);
+                }
+            }
+        }
+        if (!key.reset()) directories.remove(key);
+    }
+
+    // Files whose size or content hash differ are analyzed, on the analyzer's pool
+    private List<Change> analyze(Set<Path> pending) throws InterruptedException {
+        List<Change> changes = new ArrayList<>();
+        List<Path> changed = new ArrayList<>();
+        for (Path file : pending) {
+            if (!Files.isRegularFile(file)) {
+                fingerprints.remove(file);
+                if (results.remove(file) != null) changes.add(new Change(file, null));
+                continue;
+            }
+            Fingerprint fingerprint = fingerprint(file);
+            if (fingerprint != null && fingerprint.equals(fingerprints.get(file))) continue;
+            if (fingerprint != null) fingerprints.put(file, fingerprint);
+            changed.add(file);
+        }
+        if (changed.isEmpty()) return changes;
+        for (BatchAnalyzer.FileResult result : analyzer.analyze(changed)) {
+            BatchAnalyzer.FileResult last = results.put(result.file(), result);
+            if (!sameOutcome(last, result)) changes.add(new Change(result.file(), result));
+        }
+        return changes;
+    }
+
+    private void registerTree(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+                directories.put(register(path), path);
+            }
+        }
+    }
+
+    private WatchKey register(Path directory) throws IOException {
+        return directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    // The file's fingerprint, or null when it cannot be read. Only seed and watch call it, one
+    // after the other, so the digest and block are reused.
+    private Fingerprint fingerprint(Path file) {
+        digest.reset();
+        try (FileChannel channel = FileChannel.open(file)) {
+            long size = 0;
+            for (int n; (n = channel.read(block.clear())) >= 0; ) {
+                size += n;
+                digest.update(block.flip());
+            }
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+            return new Fingerprint(size, hash.getLong(0), hash.getLong(8));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Same errors from the same phases; the size may differ
+    private static boolean sameOutcome(BatchAnalyzer.FileResult last, BatchAnalyzer.FileResult result) {
+        return last != null && last.error() == null && result.error() == null && last.phases().equals(result.phases());
+    }
+}
@@ -0,0 +1,14 @@
+package Model;
+
+import java.util.List;
+
+// What every phase reports, whatever else its result carries
+public interface AnalysisResult {
+
+    boolean isPassed();
+
+    List<String> getErrors();
+
+    // The text shown in the output area
+    String getReport();
+}
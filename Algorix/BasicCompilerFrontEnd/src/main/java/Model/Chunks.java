@@ -0,0 +1,31 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+// Runs one task per chunk of a parallel analysis on a ForkJoinPool and waits for all of them
+final class Chunks {
+
+    // Enough chunks to keep every worker busy when some finish early
+    static final int PER_WORKER = 4;
+
+    private Chunks() {
+    }
+
+    static void forEach(ForkJoinPool pool, int chunks, IntConsumer action) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+        for (int k = 0; k < chunks; k++) {
+            int chunk = k;
+            tasks.add(ForkJoinTask.adapt(() -> action.accept(chunk)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+
+    // Chunk count for n items, each at least minimum items
+    static int count(int n, int parallelism, int minimum) {
+        return Math.max(1, Math.min(n / Math.max(1, minimum), Math.max(1, parallelism) * PER_WORKER));
+    }
+}
@@ -0,0 +1,250 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Writes a JVM class file: a constant pool that shares equal entries, fields with an optional
+// constant value, and methods of straight-line code. Nothing branches, so no method needs
+// stack map frames. Knows no more of the format than ClassGeneration uses.
+final class ClassFileWriter {
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+    static final int ACC_SYNTHETIC = 0x1000;
+
+    // Java 8. From 53 on, a static final field may only be assigned in <clinit> itself, which
+    // would leave no way to split the initialization of a large class across methods.
+    static final int VERSION = 52;
+
+    // Code of one method must stay below 64 KB; the constant pool holds at most 65534 slots
+    static final int MAX_CODE = 65535;
+    static final int MAX_CONSTANTS = 65534;
+
+    // Constant pool tags
+    private static final int UTF8 = 1;
+    private static final int INTEGER = 3;
+    private static final int FLOAT = 4;
+    private static final int LONG = 5;
+    private static final int DOUBLE = 6;
+    private static final int CLASS = 7;
+    private static final int STRING = 8;
+    private static final int FIELDREF = 9;
+    private static final int METHODREF = 10;
+    private static final int NAME_AND_TYPE = 12;
+
+    private final Bytes pool = new Bytes(1024);
+    private final Map<String, Integer> texts = new HashMap<>();       // Utf8 entries by their text
+    private final Map<String, Integer> constants = new HashMap<>();   // the others by tag and content
+    private int poolSlots = 1;                  // slot 0 is never used
+    private final Bytes fields = new Bytes(256);
+    private int fieldCount;
+    private final Bytes methods = new Bytes(256);
+    private int methodCount;
+
+    private final int thisClass;
+    private final int superClass;
+    private int codeName;
+    private int constantValueName;
+
+    // Internal names, such as "java/lang/Object"
+    ClassFileWriter(String name, String superName) {
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+    }
+
+    int thisClass() {
+        return thisClass;
+    }
+
+    int utf8(String s) {
+        Integer known = texts.get(s);
+        if (known != null) return known;
+        int length = utf8Length(s);
+        if (length > 0xFFFF) throw new IllegalStateException("Constant of " + length + " bytes is too long for a class file");
+        int slot = add(1);
+        texts.put(s, slot);
+        pool.u1(UTF8);
+        pool.u2(length);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c != 0 && c < 0x80) {
+                pool.u1(c);
+            } else if (c < 0x800) {
+                pool.u1(0xC0 | c >> 6);
+                pool.u1(0x80 | c & 0x3F);
+            } else {
+                pool.u1(0xE0 | c >> 12);
+                pool.u1(0x80 | c >> 6 & 0x3F);
+                pool.u1(0x80 | c & 0x3F);
+            }
+        }
+        return slot;
+    }
+
+    int integer(int value) {
+        return constant(INTEGER, value, 1);
+    }
+
+    int floating(float value) {
+        return constant(FLOAT, Float.floatToRawIntBits(value), 1);
+    }
+
+    int longValue(long value) {
+        return constant(LONG, value, 2);
+    }
+
+    int doubleValue(double value) {
+        return constant(DOUBLE, Double.doubleToRawLongBits(value), 2);
+    }
+
+    int string(String value) {
+        return reference(STRING, utf8(value), 0);
+    }
+
+    int classRef(String internalName) {
+        return reference(CLASS, utf8(internalName), 0);
+    }
+
+    int fieldRef(int owner, String name, String descriptor) {
+        return reference(FIELDREF, owner, nameAndType(name, descriptor));
+    }
+
+    int methodRef(int owner, String name, String descriptor) {
+        return reference(METHODREF, owner, nameAndType(name, descriptor));
+    }
+
+    // A field initialized from constant, or left at its default when constant is 0
+    void field(int access, String name, String descriptor, int constant) {
+        fields.u2(access);
+        fields.u2(utf8(name));
+        fields.u2(utf8(descriptor));
+        if (constant == 0) {
+            fields.u2(0);
+        } else {
+            fields.u2(1);
+            fields.u2(constantValueName == 0 ? constantValueName = utf8("ConstantValue") : constantValueName);
+            fields.u4(2);
+            fields.u2(constant);
+        }
+        fieldCount++;
+    }
+
+    // A method with neither exception handlers nor attributes
+    void method(int access, String name, String descriptor, Bytes code, int maxStack, int maxLocals) {
+        if (code.size > MAX_CODE) throw new IllegalStateException("Code of " + name + " is " + code.size + " bytes");
+        methods.u2(access);
+        methods.u2(utf8(name));
+        methods.u2(utf8(descriptor));
+        methods.u2(1);
+        methods.u2(codeName == 0 ? codeName = utf8("Code") : codeName);
+        methods.u4(12 + code.size);
+        methods.u2(maxStack);
+        methods.u2(maxLocals);
+        methods.u4(code.size);
+        methods.bytes(code.bytes, 0, code.size);
+        methods.u2(0);
+        methods.u2(0);
+        methodCount++;
+    }
+
+    byte[] toByteArray(int access) {
+        Bytes out = new Bytes(24 + pool.size + fields.size + methods.size);
+        out.u4(0xCAFEBABE);
+        out.u2(0);
+        out.u2(VERSION);
+        out.u2(poolSlots);
+        out.bytes(pool.bytes, 0, pool.size);
+        out.u2(access);
+        out.u2(thisClass);
+        out.u2(superClass);
+        out.u2(0);
+        out.u2(fieldCount);
+        out.bytes(fields.bytes, 0, fields.size);
+        out.u2(methodCount);
+        out.bytes(methods.bytes, 0, methods.size);
+        out.u2(0);
+        return out.size == out.bytes.length ? out.bytes : Arrays.copyOf(out.bytes, out.size);
+    }
+
+    // Length in the modified UTF-8 of class files: NUL takes two bytes, and each half of a
+    // surrogate pair three
+    static int utf8Length(String s) {
+        int length = s.length();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == 0 || c >= 0x80) length += c < 0x800 ? 1 : 2;
+        }
+        return length;
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        return reference(NAME_AND_TYPE, utf8(name), utf8(descriptor));
+    }
+
+    private int constant(int tag, long bits, int slots) {
+        String key = (char) tag + Long.toHexString(bits);
+        Integer known = constants.get(key);
+        if (known != null) return known;
+        int slot = add(slots);
+        constants.put(key, slot);
+        pool.u1(tag);
+        if (slots == 2) pool.u4((int) (bits >>> 32));
+        pool.u4((int) bits);
+        return slot;
+    }
+
+    private int reference(int tag, int first, int second) {
+        String key = (char) tag + Integer.toHexString(first) + ':' + Integer.toHexString(second);
+        Integer known = constants.get(key);
+        if (known != null) return known;
+        int slot = add(1);
+        constants.put(key, slot);
+        pool.u1(tag);
+        pool.u2(first);
+        if (tag == FIELDREF || tag == METHODREF || tag == NAME_AND_TYPE) pool.u2(second);
+        return slot;
+    }
+
+    // Index of a new entry taking slots pool slots
+    private int add(int slots) {
+        if (poolSlots + slots > MAX_CONSTANTS + 1) throw new IllegalStateException("Too many constants for one class");
+        int slot = poolSlots;
+        poolSlots += slots;
+        return slot;
+    }
+
+    // Growable big-endian byte array, also used for the code of a method
+    static final class Bytes {
+        byte[] bytes;
+        int size;
+
+        Bytes(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void u1(int v) {
+            if (size == bytes.length) bytes = Arrays.copyOf(bytes, size * 2);
+            bytes[size++] = (byte) v;
+        }
+
+        void u2(int v) {
+            u1(v >>> 8);
+            u1(v);
+        }
+
+        void u4(int v) {
+            u2(v >>> 16);
+            u2(v);
+        }
+
+        void bytes(byte[] b, int from, int length) {
+            if (size + length > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(size + length, size * 2));
+            System.arraycopy(b, from, bytes, size, length);
+            size += length;
+        }
+    }
+}
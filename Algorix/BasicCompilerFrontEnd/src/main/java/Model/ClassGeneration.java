@@ -0,0 +1,158 @@
+package Model;
+
+import Model.ClassFileWriter.Bytes;
+import Model.SemanticAnalysis.DataType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static Model.ClassFileWriter.ACC_FINAL;
+import static Model.ClassFileWriter.ACC_PRIVATE;
+import static Model.ClassFileWriter.ACC_PUBLIC;
+import static Model.ClassFileWriter.ACC_STATIC;
+import static Model.ClassFileWriter.ACC_SUPER;
+import static Model.ClassFileWriter.ACC_SYNTHETIC;
+
+// Compiles evaluated declarations into a class file. Every variable becomes a public static
+// final field of its type, so loading the class is all it takes to read them, and the JIT
+// folds them like any Java constant. A value is the field's ConstantValue, as javac writes
+// constant fields: the JVM assigns those in one pass over the fields. Storing them with
+// putstatic from <clinit> instead resolves each field by a search over all of them, which
+// grows with the square of their number and takes about a second for 16,000.
+// Only Strings too long for the constant pool are built by <clinit>, from pieces, in
+// declaration order. Each is interned like any String constant, so a field holding one
+// already built reads it from that field. When this code outgrows the 64 KB of one method
+// it is cut into private init$N methods that <clinit> calls in turn. Zeros, false and null
+// are the fields' defaults and need neither. Names and values share the 65534 constant pool
+// slots of one class, which hold about 21,800 distinct long, double or String values.
+// Stateless: each call writes its own class.
+public class ClassGeneration {
+
+    // Opcodes
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int RETURN = 0xB1;
+    private static final int GETSTATIC = 0xB2;
+    private static final int PUTSTATIC = 0xB3;
+    private static final int INVOKEVIRTUAL = 0xB6;
+    private static final int INVOKESTATIC = 0xB8;
+
+    // Chars per piece of a long String: at most three bytes each, so a piece always fits
+    private static final int PIECE = 0xFFFF / 3;
+
+    private static final String[] DESCRIPTORS = new String[DataType.values().length];
+
+    static {
+        DESCRIPTORS[DataType.INT.ordinal()] = "I";
+        DESCRIPTORS[DataType.DOUBLE.ordinal()] = "D";
+        DESCRIPTORS[DataType.FLOAT.ordinal()] = "F";
+        DESCRIPTORS[DataType.BOOLEAN.ordinal()] = "Z";
+        DESCRIPTORS[DataType.CHAR.ordinal()] = "C";
+        DESCRIPTORS[DataType.LONG.ordinal()] = "J";
+        DESCRIPTORS[DataType.BYTE.ordinal()] = "B";
+        DESCRIPTORS[DataType.SHORT.ordinal()] = "S";
+        DESCRIPTORS[DataType.STRING.ordinal()] = "Ljava/lang/String;";
+    }
+
+    // The class file of a public final class named className ("com.example.Limits") holding
+    // the values of result. Throws IllegalArgumentException when result has errors, which it has
+    // for any array declarator, and IllegalStateException when the values do not fit one class
+    // file.
+    public byte[] generate(String className, EvaluationResult result) {
+        if (!result.isPassed()) {
+            throw new IllegalArgumentException("Cannot compile declarations with " + result.getErrors().size() + " errors");
+        }
+        ClassFileWriter writer = new ClassFileWriter(className.replace('.', '/'), "java/lang/Object");
+        Bytes initializer = new Bytes(64);
+        Bytes code = new Bytes(64);
+        int methods = 0;
+        Map<String, Integer> built = new HashMap<>();     // long Strings by the first field holding them
+        for (int id = 0; id < result.size(); id++) {
+            DataType type = result.type(id);
+            String name = result.getName(id);
+            String descriptor = DESCRIPTORS[type.ordinal()];
+            String value = type == DataType.STRING ? result.getString(id) : null;
+            if (value == null || value.length() <= PIECE || ClassFileWriter.utf8Length(value) <= 0xFFFF) {
+                writer.field(ACC_PUBLIC | ACC_STATIC | ACC_FINAL, name, descriptor, constant(writer, result, id, type));
+                continue;
+            }
+            writer.field(ACC_PUBLIC | ACC_STATIC | ACC_FINAL, name, descriptor, 0);
+            Integer first = built.putIfAbsent(value, id);
+            int pieces = first != null ? 1 : (value.length() + PIECE - 1) / PIECE;
+            if (code.size > 0 && code.size + 6 * pieces + 7 > ClassFileWriter.MAX_CODE) {
+                call(writer, initializer, part(writer, methods++, code));
+                code = new Bytes(64);
+            }
+            if (first != null) {
+                code.u1(GETSTATIC);
+                code.u2(writer.fieldRef(writer.thisClass(), result.getName(first), descriptor));
+            } else {
+                for (int from = 0; from < value.length(); from += PIECE) {
+                    ldc(code, writer.string(value.substring(from, Math.min(value.length(), from + PIECE))));
+                    if (from == 0) continue;
+                    code.u1(INVOKEVIRTUAL);
+                    code.u2(writer.methodRef(writer.classRef("java/lang/String"), "concat", "(Ljava/lang/String;)Ljava/lang/String;"));
+                }
+                code.u1(INVOKEVIRTUAL);
+                code.u2(writer.methodRef(writer.classRef("java/lang/String"), "intern", "()Ljava/lang/String;"));
+            }
+            code.u1(PUTSTATIC);
+            code.u2(writer.fieldRef(writer.thisClass(), name, descriptor));
+        }
+        if (methods > 0) {
+            call(writer, initializer, part(writer, methods, code));
+            code = initializer;
+        }
+        if (code.size > 0) {
+            code.u1(RETURN);
+            writer.method(ACC_STATIC, "<clinit>", "()V", code, 2, 0);
+        }
+        return writer.toByteArray(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+    }
+
+    // Pool entry of the value of id, or 0 when it is the field's default
+    private static int constant(ClassFileWriter writer, EvaluationResult result, int id, DataType type) {
+        switch (type) {
+            case BOOLEAN:
+                return result.getBoolean(id) ? writer.integer(1) : 0;
+            case STRING:
+                String value = result.getString(id);
+                return value == null ? 0 : writer.string(value);
+            case LONG:
+                long l = result.getLong(id);
+                return l == 0 ? 0 : writer.longValue(l);
+            case FLOAT:
+                float f = (float) result.getDouble(id);
+                return Float.floatToRawIntBits(f) == 0 ? 0 : writer.floating(f);
+            case DOUBLE:
+                double d = result.getDouble(id);
+                return Double.doubleToRawLongBits(d) == 0 ? 0 : writer.doubleValue(d);
+            default:
+                int i = (int) result.getLong(id);
+                return i == 0 ? 0 : writer.integer(i);
+        }
+    }
+
+    // Adds code as the part-th init method and returns the name it was given
+    private static String part(ClassFileWriter writer, int part, Bytes code) {
+        String name = "init$" + part;
+        code.u1(RETURN);
+        writer.method(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, name, "()V", code, 2, 0);
+        return name;
+    }
+
+    private static void call(ClassFileWriter writer, Bytes code, String method) {
+        code.u1(INVOKESTATIC);
+        code.u2(writer.methodRef(writer.thisClass(), method, "()V"));
+    }
+
+    private static void ldc(Bytes code, int constant) {
+        if (constant < 256) {
+            code.u1(LDC);
+            code.u1(constant);
+        } else {
+            code.u1(LDC_W);
+            code.u2(constant);
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package Model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Recursive-descent parser for declaration files:
+//
+//   statement    := modifier* type declarator (',' declarator)* ';'
+//   type         := name ('.' name)* typeArgs? ('[' ']')*
+//   declarator   := name ('[' ']')* ('=' initializer)?
+//   initializer  := '{' (initializer (',' initializer)* ','?)? '}' | expression
+//
+// The tokens are first cut into statements, at each ';' and at each line break that the
+// next line does not continue (see continues). Each statement is then parsed on its own and
+// reports at most one error; recovery is simply moving on to the next statement, so one
+// linear pass reports every error in the file. Nesting is bounded by maxNesting, which bounds
+// the recursion too; runs of prefix operators and casts are parsed in a loop and do not nest.
+// An instance holds the state of one parse.
+final class DeclarationParser {
+
+    // A line ending in one of these has not finished its statement
+    private static final Set<TokenKind> OPEN_END = EnumSet.of(
+            TokenKind.ASSIGN, TokenKind.EQUAL_EQUAL, TokenKind.NOT_EQUAL, TokenKind.LESS_EQUAL, TokenKind.GREATER_EQUAL,
+            TokenKind.AND_AND, TokenKind.OR_OR, TokenKind.COMMA, TokenKind.DOT, TokenKind.LPAREN, TokenKind.LBRACKET,
+            TokenKind.LBRACE, TokenKind.LESS, TokenKind.GREATER, TokenKind.PLUS, TokenKind.MINUS, TokenKind.STAR,
+            TokenKind.SLASH, TokenKind.PERCENT, TokenKind.BANG, TokenKind.AMP, TokenKind.PIPE, TokenKind.CARET,
+            TokenKind.TILDE, TokenKind.QUESTION, TokenKind.COLON);
+
+    // A line starting with one of these cannot begin a statement of its own
+    private static final Set<TokenKind> OPEN_START = EnumSet.of(
+            TokenKind.ASSIGN, TokenKind.EQUAL_EQUAL, TokenKind.NOT_EQUAL, TokenKind.LESS_EQUAL, TokenKind.GREATER_EQUAL,
+            TokenKind.AND_AND, TokenKind.OR_OR, TokenKind.SEMICOLON, TokenKind.COMMA, TokenKind.DOT, TokenKind.RPAREN,
+            TokenKind.RBRACKET, TokenKind.RBRACE, TokenKind.LESS, TokenKind.GREATER, TokenKind.PLUS, TokenKind.MINUS,
+            TokenKind.STAR, TokenKind.SLASH, TokenKind.PERCENT, TokenKind.AMP, TokenKind.PIPE, TokenKind.CARET,
+            TokenKind.QUESTION, TokenKind.COLON);
+
+    private final int maxNesting;
+
+    private TokenStream tokens;
+    private ParseTree tree;
+    private int pos;
+    private int end;            // the current statement's ';', or its end when it has none
+    private int line;           // the line the current statement starts on
+    private int depth;          // nesting at pos
+    private int deepAt;         // token where nesting passed maxNesting, -1 while it has not
+
+    DeclarationParser(int maxNesting) {
+        this.maxNesting = maxNesting;
+    }
+
+    // True when a line starting with a token of kind next carries on the statement whose last
+    // token so far has kind last, which is null at the start of the input
+    static boolean continues(TokenKind last, TokenKind next) {
+        return last != null && last != TokenKind.SEMICOLON && (OPEN_END.contains(last) || OPEN_START.contains(next));
+    }
+
+    // Index just past the statement starting at token from
+    static int statementEnd(TokenStream tokens, int from) {
+        int n = tokens.size();
+        for (int i = from; i < n; i++) {
+            if (tokens.kind(i) == TokenKind.SEMICOLON) return i + 1;
+            if (i + 1 < n && tokens.line(i + 1) != tokens.line(i) && !continues(tokens.kind(i), tokens.kind(i + 1))) {
+                return i + 1;
+            }
+        }
+        return n;
+    }
+
+    // True when token i starts a statement, so statementEnd returns i for the one before it
+    static boolean startsStatement(TokenStream tokens, int i) {
+        if (i == 0) return true;
+        if (tokens.kind(i - 1) == TokenKind.SEMICOLON) return true;
+        return tokens.line(i) != tokens.line(i - 1) && !continues(tokens.kind(i - 1), tokens.kind(i));
+    }
+
+    static boolean isModifier(TokenStream tokens, int i) {
+        if (tokens.kind(i) != TokenKind.IDENTIFIER) return false;
+        Keyword keyword = Keyword.of(tokens, i);
+        return keyword != null && keyword.isModifier();
+    }
+
+    ParseTree parse(TokenStream tokens) {
+        this.tokens = tokens;
+        tree = new ParseTree(tokens);
+        int n = tokens.size();
+        for (int start = 0; start < n; ) {
+            int stop = statementEnd(tokens, start);
+            statement(start, stop);
+            start = stop;
+        }
+        this.tokens = null;
+        ParseTree result = tree;
+        tree = null;
+        return result;
+    }
+
+    private void statement(int start, int stop) {
+        int s = tree.addStatement(start, stop);
+        if (tokens.kind(stop - 1) != TokenKind.SEMICOLON) {
+            tree.errors().add(Diagnostics.Code.MISSING_SEMICOLON, tokens.line(stop - 1), tokens, stop - 1, stop);
+            return;
+        }
+        pos = start;
+        end = stop - 1;
+        line = tokens.line(start);
+        depth = 0;
+        deepAt = -1;
+        if (!declaration(s)) tree.reject(s);
+    }
+
+    // Parses one ';'-terminated statement; false once its error is recorded
+    private boolean declaration(int s) {
+        int start = pos;
+        if (pos == end) return missing();
+
+        while (pos + 1 < end && isModifier(tokens, pos) && tokens.kind(pos + 1) == TokenKind.IDENTIFIER
+                && !tokens.isGlued(pos + 1)) pos++;
+
+        int typeFrom = pos;
+        if (endsDeclarationPart(pos)) return missing();
+        if (!type() || (pos < end && tokens.isGlued(pos) && !closesType(pos - 1))) {
+            if (deepAt >= 0) return tooDeep(typeFrom);
+            int word = word(typeFrom);
+            if (endsDeclarationPart(word)) return missing();
+            error(Diagnostics.Code.INVALID_TYPE, typeFrom, word).arg(tokens, typeFrom, word);
+            return false;
+        }
+        tree.setType(s, typeFrom, pos);
+        if (endsDeclarationPart(pos)) return missing();
+
+        while (true) {
+            if (!declarator(s, start)) return false;
+            if (pos == end) return true;
+            pos++;      // ','
+        }
+    }
+
+    // Leaves pos at the ',' or ';' after the declarator
+    private boolean declarator(int s, int start) {
+        int name = pos;
+        int word = word(pos);
+        if (word == pos || word > pos + 1 || !isName(pos)) {
+            if (word == pos) return missing();
+            error(Diagnostics.Code.INVALID_NAME, name, word).arg(tokens, name, word);
+            return false;
+        }
+        pos++;
+        while (pos + 1 < end && tokens.kind(pos) == TokenKind.LBRACKET && tokens.kind(pos + 1) == TokenKind.RBRACKET) pos += 2;
+
+        if (pos == end || tokens.kind(pos) == TokenKind.COMMA) {
+            tree.addDeclarator(s, name, pos, pos);
+            return true;
+        }
+        if (tokens.kind(pos) == TokenKind.EQUAL_EQUAL) {
+            error(Diagnostics.Code.EQUALS_FOR_ASSIGN, pos, pos + 1);
+            return false;
+        }
+        if (tokens.kind(pos) != TokenKind.ASSIGN) {
+            int part = pos;
+            while (part < end && tokens.kind(part) != TokenKind.ASSIGN && tokens.kind(part) != TokenKind.EQUAL_EQUAL) part++;
+            if (part < end && tokens.kind(part) == TokenKind.EQUAL_EQUAL) {
+                error(Diagnostics.Code.EQUALS_FOR_ASSIGN, part, part + 1);
+            } else {
+                error(Diagnostics.Code.TOO_MANY_TOKENS, start, part).arg(tokens, start, part);
+            }
+            return false;
+        }
+
+        pos++;
+        int initFrom = pos;
+        if (pos == end || tokens.kind(pos) == TokenKind.COMMA) {
+            error(Diagnostics.Code.EMPTY_ASSIGNMENT, pos - 1, pos);
+            return false;
+        }
+        if (!initializer() || deepAt >= 0 || (pos < end && tokens.kind(pos) != TokenKind.COMMA)) {
+            if (deepAt >= 0) {
+                tooDeep(name);
+            } else if (pos >= end) {
+                error(Diagnostics.Code.INCOMPLETE_INITIALIZER, initFrom, end).arg(tokens, name);
+            } else {
+                tree.errors().add(Diagnostics.Code.UNEXPECTED_TOKEN, tokens.line(pos), tokens, pos, pos + 1)
+                        .arg(tokens, pos).arg(tokens, name);
+            }
+            return false;
+        }
+        tree.addDeclarator(s, name, initFrom, pos);
+        return true;
+    }
+
+    // Records code on the statement's line, pointing at tokens [from, to); arguments follow
+    private Diagnostics error(Diagnostics.Code code, int from, int to) {
+        return tree.errors().add(code, line, tokens, from, to);
+    }
+
+    private boolean missing() {
+        error(Diagnostics.Code.MISSING_TYPE_OR_NAME, end, end + 1);
+        return false;
+    }
+
+    // Points at the token where nesting passed maxNesting, naming the token at what
+    private boolean tooDeep(int what) {
+        tree.errors().add(Diagnostics.Code.NESTING_TOO_DEEP, tokens.line(deepAt), tokens, deepAt, deepAt + 1)
+                .arg(Integer.toString(maxNesting)).arg(tokens, what);
+        return false;
+    }
+
+    // One level deeper; false, for good in this statement, once that is more than maxNesting
+    private boolean enter() {
+        if (deepAt >= 0) return false;
+        if (++depth <= maxNesting) return true;
+        deepAt = pos;
+        return false;
+    }
+
+    // One level back out, passing on whether the nested part parsed
+    private boolean leave(boolean parsed) {
+        depth--;
+        return parsed;
+    }
+
+    // The expression parsers return false with pos on the token that does not fit
+
+    private boolean initializer() {
+        if (!at(TokenKind.LBRACE)) return expression();
+        if (!enter()) return false;
+        pos++;
+        while (!at(TokenKind.RBRACE)) {
+            if (!initializer()) return leave(false);
+            if (!at(TokenKind.COMMA)) break;
+            pos++;
+        }
+        return leave(expect(TokenKind.RBRACE));
+    }
+
+    private boolean expression() {
+        if (!binary()) return false;
+        if (!at(TokenKind.QUESTION)) return true;
+        if (!enter()) return false;
+        pos++;
+        return leave(expression() && expect(TokenKind.COLON) && expression());
+    }
+
+    private boolean binary() {
+        if (!unary()) return false;
+        while (pos < end) {
+            int width = binaryOperatorWidth();
+            if (width == 0) break;
+            pos += width;
+            if (!unary()) return false;
+        }
+        return true;
+    }
+
+    // Tokens taken by the binary operator at pos, 0 if there is none; shifts are glued '<' and '>' runs
+    private int binaryOperatorWidth() {
+        switch (tokens.kind(pos)) {
+            case OR_OR: case AND_AND: case PIPE: case CARET: case AMP: case EQUAL_EQUAL: case NOT_EQUAL:
+            case LESS_EQUAL: case GREATER_EQUAL: case PLUS: case MINUS: case STAR: case SLASH: case PERCENT:
+                return 1;
+            case LESS:
+                return glued(pos + 1, TokenKind.LESS) ? 2 : 1;
+            case GREATER:
+                if (!glued(pos + 1, TokenKind.GREATER)) return 1;
+                return glued(pos + 2, TokenKind.GREATER) ? 3 : 2;
+            default:
+                return 0;
+        }
+    }
+
+    private boolean unary() {
+        do {
+            while (pos < end && isPrefixOperator(tokens.kind(pos))) pos++;
+        } while (at(TokenKind.LPAREN) && cast());
+        return primary() && postfix();
+    }
+
+    // ( type ) followed by an operand; pos moves past the ')' only if it is a cast. Type
+    // arguments that nest too deep in what turns out not to be a cast, such as (a < b < c),
+    // are forgotten with it.
+    private boolean cast() {
+        int open = pos;
+        int openDepth = depth;
+        int openDeepAt = deepAt;
+        pos++;
+        Keyword keyword = at(TokenKind.IDENTIFIER) ? Keyword.of(tokens, pos) : null;
+        boolean primitive = keyword != null && keyword.isPrimitive();
+        if (type() && at(TokenKind.RPAREN) && pos + 1 < end) {
+            TokenKind next = tokens.kind(pos + 1);
+            if (startsOperand(next) && (primitive || (next != TokenKind.PLUS && next != TokenKind.MINUS))) {
+                pos++;
+                return true;
+            }
+        }
+        pos = open;
+        depth = openDepth;
+        deepAt = openDeepAt;
+        return false;
+    }
+
+    private boolean primary() {
+        if (pos >= end) return false;
+        switch (tokens.kind(pos)) {
+            case INT_LITERAL: case FLOAT_LITERAL: case NUMBER_LITERAL: case STRING_LITERAL: case CHAR_LITERAL:
+                pos++;
+                return true;
+            case IDENTIFIER: {
+                Keyword keyword = Keyword.of(tokens, pos);
+                if (keyword == Keyword.NEW) {
+                    pos++;
+                    return creator();
+                }
+                if (keyword != null && keyword.isReserved() && !keyword.isValue()) return false;
+                pos++;
+                return true;
+            }
+            case LPAREN:
+                if (!enter()) return false;
+                pos++;
+                return leave(expression() && expect(TokenKind.RPAREN));
+            default:
+                return false;
+        }
+    }
+
+    // Member access, calls and indexing
+    private boolean postfix() {
+        while (pos < end) {
+            switch (tokens.kind(pos)) {
+                case DOT:
+                    pos++;
+                    if (!at(TokenKind.IDENTIFIER)) return false;
+                    pos++;
+                    break;
+                case LPAREN:
+                    if (!enter()) return false;
+                    pos++;
+                    if (!leave(arguments())) return false;
+                    break;
+                case LBRACKET:
+                    if (!enter()) return false;
+                    pos++;
+                    if (!leave(expression() && expect(TokenKind.RBRACKET))) return false;
+                    break;
+                default:
+                    return true;
+            }
+        }
+        return true;
+    }
+
+    // After the '(': expressions separated by ',' up to the ')'
+    private boolean arguments() {
+        if (at(TokenKind.RPAREN)) {
+            pos++;
+            return true;
+        }
+        while (true) {
+            if (!expression()) return false;
+            if (!at(TokenKind.COMMA)) return expect(TokenKind.RPAREN);
+            pos++;
+        }
+    }
+
+    // After 'new': Type(args), Type[n]..[]..  or  Type[]..{...}
+    private boolean creator() {
+        if (!classType()) return false;
+        if (at(TokenKind.LPAREN)) {
+            if (!enter()) return false;
+            pos++;
+            return leave(arguments());
+        }
+        if (!at(TokenKind.LBRACKET)) return false;
+        if (pos + 1 < end && tokens.kind(pos + 1) == TokenKind.RBRACKET) {
+            dimensions();
+            return at(TokenKind.LBRACE) && initializer();
+        }
+        while (at(TokenKind.LBRACKET) && !(pos + 1 < end && tokens.kind(pos + 1) == TokenKind.RBRACKET)) {
+            if (!enter()) return false;
+            pos++;
+            if (!leave(expression() && expect(TokenKind.RBRACKET))) return false;
+        }
+        dimensions();
+        return true;
+    }
+
+    private boolean type() {
+        if (!classType()) return false;
+        dimensions();
+        return true;
+    }
+
+    // name ('.' name)* typeArgs?
+    private boolean classType() {
+        if (!at(TokenKind.IDENTIFIER) || !isSimpleName(pos)) return false;
+        Keyword keyword = Keyword.of(tokens, pos);
+        if (keyword != null && keyword.isReserved() && !keyword.isPrimitive()) return false;
+        pos++;
+        while (glued(pos, TokenKind.DOT) && pos + 1 < end && tokens.kind(pos + 1) == TokenKind.IDENTIFIER) pos += 2;
+        return !at(TokenKind.LESS) || typeArguments();
+    }
+
+    // '<' (typeArg (',' typeArg)*)? '>', where typeArg is a type or '?' with an optional bound
+    private boolean typeArguments() {
+        if (!enter()) return false;
+        pos++;
+        if (at(TokenKind.GREATER)) {
+            pos++;
+            return leave(true);
+        }
+        while (true) {
+            if (at(TokenKind.QUESTION)) {
+                pos++;
+                Keyword bound = at(TokenKind.IDENTIFIER) ? Keyword.of(tokens, pos) : null;
+                if (bound == Keyword.EXTENDS || bound == Keyword.SUPER) {
+                    pos++;
+                    if (!type()) return leave(false);
+                }
+            } else if (!type()) {
+                return leave(false);
+            }
+            if (!at(TokenKind.COMMA)) return leave(expect(TokenKind.GREATER));
+            pos++;
+        }
+    }
+
+    private void dimensions() {
+        while (pos + 1 < end && tokens.kind(pos) == TokenKind.LBRACKET && tokens.kind(pos + 1) == TokenKind.RBRACKET) pos += 2;
+    }
+
+    // A type ending in '>' or ']' may be glued to the name after it
+    private boolean closesType(int i) {
+        TokenKind kind = tokens.kind(i);
+        return kind == TokenKind.GREATER || kind == TokenKind.RBRACKET;
+    }
+
+    // End of the whitespace-separated word starting at token i. A word also ends before
+    // '=', '==', ',' and '[' so that "x=1" and "x[]" still name x.
+    private int word(int i) {
+        if (endsDeclarationPart(i)) return i;
+        int j = i + 1;
+        while (j < end && tokens.isGlued(j) && !endsDeclarationPart(j) && tokens.kind(j) != TokenKind.LBRACKET) j++;
+        return j;
+    }
+
+    private boolean endsDeclarationPart(int i) {
+        if (i >= end) return true;
+        TokenKind kind = tokens.kind(i);
+        return kind == TokenKind.ASSIGN || kind == TokenKind.EQUAL_EQUAL || kind == TokenKind.COMMA;
+    }
+
+    private boolean isName(int i) {
+        return tokens.kind(i) == TokenKind.IDENTIFIER && isSimpleName(i) && !isReserved(i);
+    }
+
+    // [a-zA-Z_][a-zA-Z0-9_]*
+    private boolean isSimpleName(int i) {
+        for (int k = tokens.offset(i), e = tokens.end(i); k < e; k++) {
+            char c = tokens.charAt(k);
+            boolean letter = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+            if (!letter && (k == tokens.offset(i) || c < '0' || c > '9')) return false;
+        }
+        return true;
+    }
+
+    // Java keywords and literals, which cannot name a variable
+    private boolean isReserved(int i) {
+        Keyword keyword = Keyword.of(tokens, i);
+        return keyword != null && keyword.isReserved();
+    }
+
+    private static boolean isPrefixOperator(TokenKind kind) {
+        return kind == TokenKind.PLUS || kind == TokenKind.MINUS || kind == TokenKind.BANG || kind == TokenKind.TILDE;
+    }
+
+    private static boolean startsOperand(TokenKind kind) {
+        switch (kind) {
+            case IDENTIFIER: case INT_LITERAL: case FLOAT_LITERAL: case NUMBER_LITERAL: case STRING_LITERAL:
+            case CHAR_LITERAL: case LPAREN: case PLUS: case MINUS: case BANG: case TILDE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean at(TokenKind kind) {
+        return pos < end && tokens.kind(pos) == kind;
+    }
+
+    private boolean expect(TokenKind kind) {
+        if (!at(kind)) return false;
+        pos++;
+        return true;
+    }
+
+    private boolean glued(int i, TokenKind kind) {
+        return i < end && tokens.kind(i) == kind && tokens.isGlued(i);
+    }
+}
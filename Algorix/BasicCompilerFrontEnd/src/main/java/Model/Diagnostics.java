@@ -0,0 +1,255 @@
+package Model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Errors of one analysis, stored column-wise like TokenStream: per diagnostic a code, the line
+// it is reported on, the column and length of the text it points at, and its arguments as
+// slices of one shared char buffer. Recording one copies its argument text and allocates
+// nothing once the arrays have grown. As a list it reads as the familiar "Line N: ..."
+// messages, each built only when get asks for it. Filled by the analyzers; read-only once
+// handed out in a result.
+public final class Diagnostics extends AbstractList<String> implements RandomAccess {
+
+    public enum Code {
+        NOT_A_DECLARATION("Only variable declarations are allowed. Found: {0}"),
+        MISSING_SEMICOLON("Variable declaration must end with semicolon"),
+        MISSING_TYPE_OR_NAME("Missing type or variable name"),
+        INVALID_TYPE("Invalid or missing type '{0}'"),
+        INVALID_NAME("Invalid variable name '{0}'"),
+        EQUALS_FOR_ASSIGN("Invalid operator '==' used instead of '='"),
+        TOO_MANY_TOKENS("Too many tokens in declaration part '{0}'"),
+        EMPTY_ASSIGNMENT("Assignment value cannot be empty"),
+        INCOMPLETE_INITIALIZER("Incomplete initializer for '{0}'"),
+        UNEXPECTED_TOKEN("Unexpected '{0}' in initializer of '{1}'"),
+        ALREADY_DECLARED("Variable '{0}' already declared"),
+        UNDEFINED_VARIABLE("Undefined variable '{0}' in '{1}'"),
+        UNVERIFIED_INITIALIZER("Unable to verify initializer for '{0}' as {1}"),
+        LITERAL_MISMATCH("Type mismatch - cannot assign {0} to {1} '{2}'"),
+        EXPRESSION_MISMATCH("Type mismatch - expression is {0} but '{1}' is {2}"),
+        INVALID_CAST("Cannot cast {0} to {1} in '{2}'"),
+        NON_BOOLEAN_CONDITION("Condition of '?:' is {0}, not boolean, in '{1}'"),
+        INVALID_UNARY_OPERAND("Operator '{0}' cannot be applied to {1} in '{2}'"),
+        INVALID_BINARY_OPERANDS("Operator '{0}' cannot be applied to {1} and {2} in '{3}'"),
+        NOT_CONSTANT("Initializer of '{0}' is not a constant expression"),
+        UNEVALUATED_VARIABLE("Variable '{0}' in '{1}' has no value"),
+        VALUE_OUT_OF_RANGE("{0} is out of range for {1} in '{2}'"),
+        ARITHMETIC_OVERFLOW("Operator '{0}' overflows {1} in '{2}'"),
+        DIVISION_BY_ZERO("Division by zero in '{0}'"),
+        LINE_TOO_LONG("Line longer than {0} characters"),
+        NESTING_TOO_DEEP("Nested deeper than {0} levels in '{1}'"),
+        STRING_TOO_LONG("String values exceed {0} characters in '{1}'"),
+        // Text that was already a message, such as one read back from a cache
+        MESSAGE("{0}");
+
+        private static final Code[] VALUES = values();
+
+        private final String template;
+
+        Code(String template) {
+            this.template = template;
+        }
+
+        public String template() {
+            return template;
+        }
+    }
+
+    // No diagnostics; never recorded into
+    static final Diagnostics NONE = new Diagnostics(0);
+
+    private byte[] codes;
+    private int[] lines;
+    private int[] columns;
+    private int[] spans;
+    private int[] argStarts;    // diagnostic i has arguments args[argStarts[i] .. argStarts[i + 1]), two ints each
+    private int size;
+
+    private int[] args;         // start and length in text of each argument
+    private int argInts;
+    private char[] text;
+    private int textLength;
+
+    // Arrays are allocated with the first diagnostic, so an empty one costs next to nothing
+    Diagnostics() {
+        this(0);
+    }
+
+    private Diagnostics(int capacity) {
+        codes = new byte[capacity];
+        lines = new int[capacity];
+        columns = new int[capacity];
+        spans = new int[capacity];
+        argStarts = new int[capacity];
+        args = new int[capacity * 4];
+        text = new char[capacity * 16];
+    }
+
+    // Messages from elsewhere; "Line N: text" keeps N as its line. Empty ones share NONE.
+    static Diagnostics of(List<String> messages) {
+        if (messages.isEmpty()) return NONE;
+        if (messages instanceof Diagnostics diagnostics) return diagnostics;
+        Diagnostics diagnostics = new Diagnostics(messages.size());
+        for (String message : messages) {
+            int end = 5;
+            while (end < message.length() && end < 14 && Character.isDigit(message.charAt(end))) end++;
+            if (message.startsWith("Line ") && end > 5 && message.startsWith(": ", end)) {
+                diagnostics.add(Code.MESSAGE, Integer.parseInt(message, 5, end, 10), 0, 0)
+                        .arg(message, end + 2, message.length());
+            } else {
+                diagnostics.add(Code.MESSAGE, -1, 0, 0).arg(message, 0, message.length());
+            }
+        }
+        return diagnostics;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public Code code(int i) { return Code.VALUES[codes[i]]; }
+
+    public int line(int i) { return lines[i]; }
+
+    // 1-based column of the text diagnostic i points at, or 0 when that text is not on its line
+    public int column(int i) { return columns[i]; }
+
+    // Length in chars of that text, 0 when unknown
+    public int span(int i) { return spans[i]; }
+
+    public int argumentCount(int i) {
+        return (argEnd(i) - argStarts[i]) / 2;
+    }
+
+    public String argument(int i, int k) {
+        int a = argStarts[i] + 2 * k;
+        return new String(text, args[a], args[a + 1]);
+    }
+
+    // "Line N: " and the code's template with its arguments filled in
+    @Override
+    public String get(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+        StringBuilder sb = new StringBuilder(Code.VALUES[codes[i]].template.length() + 48);
+        if (lines[i] >= 0) sb.append("Line ").append(lines[i]).append(": ");
+        return format(i, sb).toString();
+    }
+
+    // The message without its line, for tools that show the position on their own
+    public String message(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+        return format(i, new StringBuilder(Code.VALUES[codes[i]].template.length() + 40)).toString();
+    }
+
+    private StringBuilder format(int i, StringBuilder sb) {
+        String template = Code.VALUES[codes[i]].template;
+        for (int c = 0; c < template.length(); c++) {
+            char ch = template.charAt(c);
+            if (ch == '{' && c + 2 < template.length() && template.charAt(c + 2) == '}') {
+                int a = argStarts[i] + 2 * (template.charAt(c + 1) - '0');
+                sb.append(text, args[a], args[a + 1]);
+                c += 2;
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb;
+    }
+
+    // Rough heap size, for caches that budget memory
+    long estimatedBytes() {
+        return 96L + 21L * codes.length + 4L * args.length + 2L * text.length;
+    }
+
+    // Starts a diagnostic reported on line, pointing at tokens [from, to) when they start on it
+    Diagnostics add(Code code, int line, TokenStream tokens, int from, int to) {
+        if (from >= to || tokens.line(from) != line) return add(code, line, 0, 0);
+        return add(code, line, tokens.column(from), tokens.end(to - 1) - tokens.offset(from));
+    }
+
+    // Starts a diagnostic; its arguments follow with arg, in template order
+    Diagnostics add(Code code, int line, int column, int span) {
+        if (size == codes.length) {
+            int grown = Math.max(16, size * 2);
+            codes = Arrays.copyOf(codes, grown);
+            lines = Arrays.copyOf(lines, grown);
+            columns = Arrays.copyOf(columns, grown);
+            spans = Arrays.copyOf(spans, grown);
+            argStarts = Arrays.copyOf(argStarts, grown);
+        }
+        codes[size] = (byte) code.ordinal();
+        lines[size] = line;
+        columns[size] = column;
+        spans[size] = span;
+        argStarts[size] = argInts;
+        size++;
+        return this;
+    }
+
+    Diagnostics arg(TokenStream tokens, int i) {
+        return arg(tokens.source(), tokens.offset(i), tokens.end(i));
+    }
+
+    // Source text from the start of token from to the end of token to - 1
+    Diagnostics arg(TokenStream tokens, int from, int to) {
+        return arg(tokens.source(), tokens.offset(from), tokens.end(to - 1));
+    }
+
+    Diagnostics arg(char[] source, int from, int to) {
+        int start = reserve(to - from);
+        System.arraycopy(source, from, text, start, to - from);
+        return this;
+    }
+
+    Diagnostics arg(String s) {
+        return arg(s, 0, s.length());
+    }
+
+    Diagnostics arg(String s, int from, int to) {
+        int start = reserve(to - from);
+        s.getChars(from, to, text, start);
+        return this;
+    }
+
+    // Appends every diagnostic of other
+    void append(Diagnostics other) {
+        for (int i = 0; i < other.size; i++) copy(other, i);
+    }
+
+    // Appends diagnostic i of other
+    void copy(Diagnostics other, int i) {
+        add(Code.VALUES[other.codes[i]], other.lines[i], other.columns[i], other.spans[i]);
+        for (int a = other.argStarts[i], end = other.argEnd(i); a < end; a += 2) {
+            arg(other.text, other.args[a], other.args[a] + other.args[a + 1]);
+        }
+    }
+
+    // A copy reported delta lines further down
+    Diagnostics moved(int delta) {
+        if (size == 0 || delta == 0) return this;
+        Diagnostics moved = new Diagnostics(size);
+        moved.append(this);
+        for (int i = 0; i < size; i++) {
+            if (moved.lines[i] >= 0) moved.lines[i] += delta;
+        }
+        return moved;
+    }
+
+    private int argEnd(int i) {
+        return i + 1 < size ? argStarts[i + 1] : argInts;
+    }
+
+    // Room for one more argument of length chars; returns where its text goes
+    private int reserve(int length) {
+        if (argInts + 2 > args.length) args = Arrays.copyOf(args, Math.max(32, args.length * 2));
+        if (textLength + length > text.length) text = Arrays.copyOf(text, Math.max(textLength + length, Math.max(256, text.length * 2)));
+        int start = textLength;
+        args[argInts++] = start;
+        args[argInts++] = length;
+        textLength += length;
+        return start;
+    }
+}
@@ -0,0 +1,779 @@
+package Model;
+
+import Model.SemanticAnalysis.DataType;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+// Computes the values of declarations that passed semantic analysis, folding each initializer
+// the way Java folds constants. Every declared name resolves through a SymbolTable to an id in
+// declaration order, and every id to a slot in the column of its type: long for the integral
+// types and char, double for double and float, boolean, and String. Nodes of an initializer are
+// evaluated bottom-up into per-node columns too, so no value is ever boxed. Unlike Java, int and
+// long arithmetic that overflows is an error, and so is a value that does not fit the byte,
+// short, char or int it is declared as; explicit casts still wrap. String concatenation
+// appends to one builder along a chain, and a call builds at most Limits.maxStringChars chars
+// of Strings, so doubling a String over many declarations fails instead of running away.
+// Stateless: each call evaluates in its own Pass.
+public class Evaluation {
+
+    // Why a node has no value
+    private static final byte NOT_CONSTANT = 0;
+    private static final byte UNDEFINED = 1;
+    private static final byte UNEVALUATED = 2;
+    private static final byte OUT_OF_RANGE = 3;
+    private static final byte OVERFLOW = 4;
+    private static final byte DIVISION_BY_ZERO = 5;
+    private static final byte STRING_TOO_LONG = 6;
+
+    private final SemanticAnalysis declarations;
+    private final SourceScanner scanner = new SourceScanner();
+    private final Limits limits;
+
+    public Evaluation() {
+        this(Limits.DEFAULT);
+    }
+
+    public Evaluation(Limits limits) {
+        this.limits = limits;
+        declarations = new SemanticAnalysis(limits);
+    }
+
+    public EvaluationResult evaluate(String sourceCode) {
+        return evaluate(scanner.scan(sourceCode));
+    }
+
+    public EvaluationResult evaluate(TokenStream tokens) {
+        Pass pass = new Pass(limits);
+        evaluate(pass, tokens);
+        return pass.result();
+    }
+
+    // Chunk by chunk, so only the names and values stay in memory; earlier chunks stay in scope
+    public EvaluationResult evaluate(MappedSource source) throws IOException {
+        Pass pass = new Pass(limits);
+        for (TokenStream chunk = source.nextChunk(); chunk != null; chunk = source.nextChunk()) {
+            evaluate(pass, chunk);
+        }
+        return pass.result();
+    }
+
+    private void evaluate(Pass pass, TokenStream tokens) {
+        pass.tokens = tokens;
+        declarations.declarators(tokens, pass);
+        pass.tokens = null;
+    }
+
+    // Mutable state of a single evaluate call
+    private static final class Pass implements SemanticAnalysis.DeclaratorSink {
+        final Diagnostics errors = new Diagnostics();
+        final SymbolTable symbols = new SymbolTable();
+        int[] slots = new int[64];      // by symbol id; -1 when its initializer has no value
+        long[] longs = new long[64];
+        double[] doubles = new double[16];
+        boolean[] booleans = new boolean[16];
+        String[] strings = new String[16];
+        int longCount;
+        int doubleCount;
+        int booleanCount;
+        int stringCount;
+
+        TokenStream tokens;
+        final Expression expr;
+        final int maxStringChars;
+        long stringBudget;      // chars of Strings this pass may still build
+
+        // Per node of expr: its type and its value in the column of that type, booleans as 0 or 1.
+        // A node without a value carries the failure of node failedAt[n], which is -1 otherwise.
+        byte[] types = new byte[16];
+        long[] longValues = new long[16];
+        double[] doubleValues = new double[16];
+        String[] stringValues = new String[16];
+        StringBuilder[] builders = new StringBuilder[16];  // a concatenation's value until it is read whole
+        int[] failedAt = new int[16];
+        byte[] failures = new byte[16];
+
+        int escapeEnd;          // where the escape read last ends
+
+        // The declarator being evaluated
+        String var;
+        int line;
+        int initFrom;
+        int initTo;
+
+        Pass(Limits limits) {
+            expr = new Expression(limits.maxNesting());
+            maxStringChars = limits.maxStringChars();
+            stringBudget = maxStringChars;
+        }
+
+        @Override
+        public void declarator(DataType type, boolean array, String name, int from, int nameTo, int initFrom, int initTo, int line) {
+            if (symbols.find(name) >= 0) {
+                errors.add(Diagnostics.Code.ALREADY_DECLARED, line, tokens, from, nameTo).arg(name);
+                return;
+            }
+            // Evaluated before the name is declared, so an initializer cannot read its own variable
+            int slot = array ? array(name, from, nameTo, initFrom, initTo, line)
+                    : initFrom < initTo ? initialize(type, name, initFrom, initTo, line) : zero(type);
+            int id = symbols.put(name, (byte) type.ordinal());
+            if (id == slots.length) slots = Arrays.copyOf(slots, id * 2);
+            slots[id] = slot;
+        }
+
+        EvaluationResult result() {
+            return new EvaluationResult(errors, symbols, slots, longs, doubles, booleans, strings);
+        }
+
+        // Slot of the initializer's value, or -1 with the reason recorded
+        private int initialize(DataType type, String name, int from, int to, int line) {
+            var = name;
+            this.line = line;
+            initFrom = from;
+            initTo = to;
+            int root = expr.parse(tokens, from, to);
+            if (root < 0) return expr.deepAt() >= 0 ? tooDeep() : notConstant();
+            if (expr.size() > types.length) grow(expr.size());
+            for (int n = 0; n < expr.size(); n++) node(n);
+            return failedAt[root] >= 0 ? report(failedAt[root]) : assign(type, root);
+        }
+
+        // An array is an object, never a constant: reported at its initializer, or at its name
+        // when it has none
+        private int array(String name, int from, int nameTo, int initFrom, int initTo, int line) {
+            if (initFrom < initTo) errors.add(Diagnostics.Code.NOT_CONSTANT, line, tokens, initFrom, initTo).arg(name);
+            else errors.add(Diagnostics.Code.NOT_CONSTANT, line, tokens, from, nameTo).arg(name);
+            return -1;
+        }
+
+        // Stores node n as a value of the declared type
+        private int assign(DataType type, int n) {
+            DataType value = typeOf(n);
+            if (type.isIntegral()) {
+                if (!value.isIntegral()) return notConstant();
+                long v = longValues[n];
+                if (v != narrow(type, v)) {
+                    errors.add(Diagnostics.Code.VALUE_OUT_OF_RANGE, line, tokens, initFrom, initTo)
+                            .arg(Long.toString(v)).arg(type.spelling()).arg(var);
+                    return -1;
+                }
+                return storeLong(v);
+            }
+            if (type.isFloating()) return value.isNumeric() ? storeDouble(doubleOf(n, type)) : notConstant();
+            if (value != type) return notConstant();
+            return type == DataType.BOOLEAN ? storeBoolean(longValues[n] != 0) : storeString(string(n));
+        }
+
+        private int zero(DataType type) {
+            if (type.isIntegral()) return storeLong(0);
+            if (type.isFloating()) return storeDouble(0);
+            return type == DataType.BOOLEAN ? storeBoolean(false) : storeString(null);
+        }
+
+        private void node(int n) {
+            failedAt[n] = -1;
+            builders[n] = null;
+            switch (expr.kind(n)) {
+                case Expression.LITERAL -> literal(n, expr.token(n));
+                case Expression.NAME -> name(n, expr.token(n));
+                case Expression.UNARY -> unary(n, expr.op(n), expr.left(n));
+                case Expression.BINARY -> binary(n, expr.op(n), expr.left(n), expr.right(n));
+                case Expression.CONDITIONAL -> conditional(n, expr.left(n), expr.right(n), expr.third(n));
+                case Expression.CAST -> cast(n, DataType.from(tokens, expr.token(n)), expr.left(n));
+                default -> fail(n, NOT_CONSTANT);
+            }
+        }
+
+        private void literal(int n, int t) {
+            char[] src = tokens.source();
+            int from = tokens.offset(t);
+            int to = tokens.end(t);
+            switch (tokens.kind(t)) {
+                case INT_LITERAL -> integer(n, DataType.INT, src, from, to);
+                case FLOAT_LITERAL -> floating(n, DataType.DOUBLE, src, from, to);
+                case NUMBER_LITERAL -> {
+                    // Suffixed and hex numbers, typed as SemanticAnalysis types them
+                    char last = src[to - 1];
+                    boolean hex = to - from > 2 && (src[from + 1] | 0x20) == 'x';
+                    if (last == 'L' || last == 'l') integer(n, DataType.LONG, src, from, to - 1);
+                    else if (hex) integer(n, DataType.INT, src, from, to);
+                    else if (last == 'F' || last == 'f') floating(n, DataType.FLOAT, src, from, to);
+                    else if (last == 'D' || last == 'd') floating(n, DataType.DOUBLE, src, from, to);
+                    else fail(n, NOT_CONSTANT);
+                }
+                case CHAR_LITERAL -> {
+                    boolean escaped = src[from + 1] == '\\';
+                    int c = escaped ? escape(src, from + 2, to - 1) : to - from == 3 ? src[from + 1] : -1;
+                    if (c < 0 || (escaped && escapeEnd != to - 1)) fail(n, NOT_CONSTANT);
+                    else setLong(n, DataType.CHAR, c);
+                }
+                case STRING_LITERAL -> string(n, src, from + 1, to - 1);
+                default -> setBoolean(n, Keyword.of(tokens, t) == Keyword.TRUE);
+            }
+        }
+
+        // Decimal, octal with a leading 0, or hex digits in src[from, to), with any suffix cut off.
+        // As in Java, 2147483648 and 9223372036854775808L are only allowed right under a minus.
+        private void integer(int n, DataType type, char[] src, int from, int to) {
+            types[n] = code(type);
+            int radix = 10;
+            if (to - from > 2 && src[from] == '0' && (src[from + 1] | 0x20) == 'x') {
+                radix = 16;
+                from += 2;
+            } else if (to - from > 1 && src[from] == '0') {
+                radix = 8;
+                from++;
+            }
+            int bits = type == DataType.LONG ? 64 : 32;
+            int shift = radix == 16 ? 4 : 3;
+            long limit = type == DataType.LONG ? Long.MAX_VALUE : Integer.MAX_VALUE;
+            if (negated(n)) limit++;
+            long value = 0;
+            for (int i = from; i < to; i++) {
+                int d = Character.digit(src[i], radix);
+                if (d < 0) {
+                    fail(n, NOT_CONSTANT);
+                    return;
+                }
+                // Decimal is bounded by the limit; hex and octal by the bits, which wrap to negative
+                boolean over = radix == 10 ? Long.compareUnsigned(value, Long.divideUnsigned(limit - d, 10)) > 0
+                        : value >>> (bits - shift) != 0;
+                if (over) {
+                    fail(n, OUT_OF_RANGE);
+                    return;
+                }
+                value = value * radix + d;
+            }
+            setLong(n, type, type == DataType.LONG || radix == 10 ? value : (int) value);
+        }
+
+        // Literal n directly follows a unary minus whose operand it is; -(2147483648) is out of
+        // range, as it is in Java
+        private boolean negated(int n) {
+            return n + 1 < expr.size() && expr.kind(n + 1) == Expression.UNARY
+                    && expr.op(n + 1) == Expression.Op.NEG && expr.left(n + 1) == n
+                    && expr.token(n + 1) + 1 == expr.token(n);
+        }
+
+        private void floating(int n, DataType type, char[] src, int from, int to) {
+            types[n] = code(type);
+            double value;
+            try {
+                String text = new String(src, from, to - from);
+                value = type == DataType.FLOAT ? Float.parseFloat(text) : Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                fail(n, NOT_CONSTANT);
+                return;
+            }
+            // As in Java, a literal may not overflow to infinity or round to zero from nonzero digits
+            if (Double.isInfinite(value) || (value == 0 && nonzeroDigits(src, from, to))) fail(n, OUT_OF_RANGE);
+            else setDouble(n, type, value);
+        }
+
+        // A digit other than 0 before the exponent of the decimal literal src[from, to)
+        private static boolean nonzeroDigits(char[] src, int from, int to) {
+            for (int i = from; i < to && (src[i] | 0x20) != 'e'; i++) {
+                if (src[i] >= '1' && src[i] <= '9') return true;
+            }
+            return false;
+        }
+
+        // The text between the quotes at src[from, to), with escapes replaced
+        private void string(int n, char[] src, int from, int to) {
+            int i = from;
+            while (i < to && src[i] != '\\') i++;
+            if (i == to) {
+                setString(n, new String(src, from, to - from));
+                return;
+            }
+            StringBuilder sb = new StringBuilder(to - from).append(src, from, i - from);
+            while (i < to) {
+                char c = src[i++];
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                int e = escape(src, i, to);
+                if (e < 0) {
+                    fail(n, NOT_CONSTANT);
+                    return;
+                }
+                sb.append((char) e);
+                i = escapeEnd;
+            }
+            setString(n, sb.toString());
+        }
+
+        // The char of the escape whose backslash is src[i - 1], read no further than to, or -1;
+        // escapeEnd is then the index after it. As in Java, an octal escape takes up to three
+        // digits while its value stays within \377, and a unicode escape four hex digits.
+        private int escape(char[] src, int i, int to) {
+            escapeEnd = i + 1;
+            if (i >= to) return -1;
+            char c = src[i];
+            if (c >= '0' && c <= '7') {
+                int value = c - '0';
+                int digits = c <= '3' ? 3 : 2;
+                while (escapeEnd < to && escapeEnd - i < digits && src[escapeEnd] >= '0' && src[escapeEnd] <= '7') {
+                    value = value * 8 + src[escapeEnd++] - '0';
+                }
+                return value;
+            }
+            switch (c) {
+                case 'n': return '\n';
+                case 't': return '\t';
+                case 'r': return '\r';
+                case 'b': return '\b';
+                case 'f': return '\f';
+                case 's': return ' ';
+                case '\\': case '\'': case '"': return c;
+                case 'u': {
+                    while (escapeEnd < to && src[escapeEnd] == 'u') escapeEnd++;
+                    if (escapeEnd + 4 > to) return -1;
+                    int value = 0;
+                    for (int k = 0; k < 4; k++) {
+                        int d = Character.digit(src[escapeEnd++], 16);
+                        if (d < 0) return -1;
+                        value = value << 4 | d;
+                    }
+                    return value;
+                }
+                default: return -1;
+            }
+        }
+
+        private void name(int n, int t) {
+            int id = symbols.find(tokens.source(), tokens.offset(t), tokens.end(t));
+            if (id < 0) {
+                fail(n, UNDEFINED);
+                return;
+            }
+            int slot = slots[id];
+            if (slot < 0) {
+                fail(n, UNEVALUATED);
+                return;
+            }
+            DataType type = DataType.of(symbols.type(id));
+            types[n] = code(type);
+            if (type.isIntegral()) longValues[n] = longs[slot];
+            else if (type.isFloating()) doubleValues[n] = doubles[slot];
+            else if (type == DataType.BOOLEAN) longValues[n] = booleans[slot] ? 1 : 0;
+            else stringValues[n] = strings[slot];
+        }
+
+        private void unary(int n, Expression.Op op, int a) {
+            if (carries(n, a)) return;
+            DataType t = typeOf(a);
+            if (op == Expression.Op.NOT) {
+                if (t != DataType.BOOLEAN) fail(n, NOT_CONSTANT);
+                else setBoolean(n, longValues[a] == 0);
+                return;
+            }
+            if (op == Expression.Op.COMPL ? !t.isIntegral() : !t.isNumeric()) {
+                fail(n, NOT_CONSTANT);
+                return;
+            }
+            DataType r = SemanticAnalysis.promote(t, DataType.INT);
+            if (r.isFloating()) {
+                setDouble(n, r, op == Expression.Op.NEG ? -doubleValues[a] : doubleValues[a]);
+                return;
+            }
+            long x = longValues[a];
+            long value = op == Expression.Op.COMPL ? ~x : op == Expression.Op.NEG ? -x : x;
+            // Long.MIN_VALUE negates to itself, which is how the literal -9223372036854775808L reads
+            boolean over = op == Expression.Op.NEG && (r == DataType.INT ? value != (int) value
+                    : x == Long.MIN_VALUE && expr.kind(a) != Expression.LITERAL);
+            if (over) overflow(n, r);
+            else setLong(n, r, value);
+        }
+
+        private void binary(int n, Expression.Op op, int a, int b) {
+            if (op == Expression.Op.AND || op == Expression.Op.OR) {
+                // The right operand only counts when the left does not decide
+                if (carries(n, a)) return;
+                if (typeOf(a) != DataType.BOOLEAN) {
+                    fail(n, NOT_CONSTANT);
+                } else if ((longValues[a] != 0) == (op == Expression.Op.OR)) {
+                    setBoolean(n, op == Expression.Op.OR);
+                } else if (!carries(n, b)) {
+                    if (typeOf(b) != DataType.BOOLEAN) fail(n, NOT_CONSTANT);
+                    else setBoolean(n, longValues[b] != 0);
+                }
+                return;
+            }
+            if (carries(n, a) || carries(n, b)) return;
+            DataType x = typeOf(a);
+            DataType y = typeOf(b);
+            switch (op) {
+                case ADD -> {
+                    if (x == DataType.STRING || y == DataType.STRING) concat(n, a, b);
+                    else arithmetic(n, op, a, b, x, y);
+                }
+                case SUB, MUL, DIV, REM -> arithmetic(n, op, a, b, x, y);
+                case SHL, SHR, USHR -> shift(n, op, a, b, x, y);
+                case LT, GT, LE, GE -> compare(n, op, a, b, x, y);
+                case EQ, NE -> equality(n, op, a, b, x, y);
+                default -> bitwise(n, op, a, b, x, y);
+            }
+        }
+
+        private void arithmetic(int n, Expression.Op op, int a, int b, DataType x, DataType y) {
+            if (!x.isNumeric() || !y.isNumeric()) {
+                fail(n, NOT_CONSTANT);
+                return;
+            }
+            DataType r = SemanticAnalysis.promote(x, y);
+            if (r.isFloating()) {
+                // Float arithmetic done in double and rounded once gives the same result
+                double u = doubleOf(a, r);
+                double v = doubleOf(b, r);
+                setDouble(n, r, switch (op) {
+                    case ADD -> u + v;
+                    case SUB -> u - v;
+                    case MUL -> u * v;
+                    case DIV -> u / v;
+                    default -> u % v;
+                });
+                return;
+            }
+            long u = longValues[a];
+            long v = longValues[b];
+            if ((op == Expression.Op.DIV || op == Expression.Op.REM) && v == 0) {
+                fail(n, DIVISION_BY_ZERO);
+                return;
+            }
+            long value;
+            boolean over;
+            switch (op) {
+                case ADD -> {
+                    value = u + v;
+                    over = ((u ^ value) & (v ^ value)) < 0;
+                }
+                case SUB -> {
+                    value = u - v;
+                    over = ((u ^ v) & (u ^ value)) < 0;
+                }
+                case MUL -> {
+                    value = u * v;
+                    over = Math.multiplyHigh(u, v) != value >> 63;
+                }
+                case DIV -> {
+                    value = u / v;
+                    over = u == Long.MIN_VALUE && v == -1;
+                }
+                default -> {
+                    value = u % v;
+                    over = false;
+                }
+            }
+            // int operands are exact in a long, so an int result out of range overflowed
+            if (over || (r == DataType.INT && value != (int) value)) overflow(n, r);
+            else setLong(n, r, value);
+        }
+
+        private void shift(int n, Expression.Op op, int a, int b, DataType x, DataType y) {
+            if (!x.isIntegral() || !y.isIntegral()) {
+                fail(n, NOT_CONSTANT);
+                return;
+            }
+            DataType r = SemanticAnalysis.promote(x, DataType.INT);
+            long u = longValues[a];
+            int s = (int) longValues[b];
+            if (r == DataType.LONG) {
+                setLong(n, r, op == Expression.Op.SHL ? u << s : op == Expression.Op.SHR ? u >> s : u >>> s);
+            } else {
+                int i = (int) u;
+                setLong(n, r, op == Expression.Op.SHL ? i << s : op == Expression.Op.SHR ? i >> s : i >>> s);
+            }
+        }
+
+        private void compare(int n, Expression.Op op, int a, int b, DataType x, DataType y) {
+            if (!x.isNumeric() || !y.isNumeric()) {
+                fail(n, NOT_CONSTANT);
+                return;
+            }
+            DataType r = SemanticAnalysis.promote(x, y);
+            if (r.isFloating()) {
+                double u = doubleOf(a, r);
+                double v = doubleOf(b, r);
+                setBoolean(n, switch (op) {
+                    case LT -> u < v;
+                    case GT -> u > v;
+                    case LE -> u <= v;
+                    default -> u >= v;
+                });
+            } else {
+                long u = longValues[a];
+                long v = longValues[b];
+                setBoolean(n, switch (op) {
+                    case LT -> u < v;
+                    case GT -> u > v;
+                    case LE -> u <= v;
+                    default -> u >= v;
+                });
+            }
+        }
+
+        private void equality(int n, Expression.Op op, int a, int b, DataType x, DataType y) {
+            boolean equal;
+            if (x.isNumeric() && y.isNumeric()) {
+                DataType r = SemanticAnalysis.promote(x, y);
+                equal = r.isFloating() ? doubleOf(a, r) == doubleOf(b, r) : longValues[a] == longValues[b];
+            } else if (x == DataType.BOOLEAN && y == DataType.BOOLEAN) {
+                equal = longValues[a] == longValues[b];
+            } else if (x == DataType.STRING && y == DataType.STRING) {
+                // Constant strings are interned, so == compares their text
+                equal = Objects.equals(string(a), string(b));
+            } else {
+                fail(n, NOT_CONSTANT);
+                return;
+            }
+            setBoolean(n, equal == (op == Expression.Op.EQ));
+        }
+
+        // & | ^ on two booleans or two integral values
+        private void bitwise(int n, Expression.Op op, int a, int b, DataType x, DataType y) {
+            boolean logical = x == DataType.BOOLEAN && y == DataType.BOOLEAN;
+            if (!logical && (!x.isIntegral() || !y.isIntegral())) {
+                fail(n, NOT_CONSTANT);
+                return;
+            }
+            long u = longValues[a];
+            long v = longValues[b];
+            long value = op == Expression.Op.BIT_AND ? u & v : op == Expression.Op.BIT_OR ? u | v : u ^ v;
+            if (logical) setBoolean(n, value != 0);
+            else setLong(n, SemanticAnalysis.promote(x, y), value);
+        }
+
+        // Only the chosen operand has to have a value
+        private void conditional(int n, int condition, int a, int b) {
+            if (carries(n, condition)) return;
+            if (typeOf(condition) != DataType.BOOLEAN) {
+                fail(n, NOT_CONSTANT);
+                return;
+            }
+            int chosen = longValues[condition] != 0 ? a : b;
+            int other = chosen == a ? b : a;
+            if (carries(n, chosen)) return;
+            DataType t = typeOf(chosen);
+            if (failedAt[other] < 0 && typeOf(other) != t && t.isNumeric() && typeOf(other).isNumeric()) {
+                t = conditionalType(chosen, other);
+            }
+            convert(n, chosen, t);
+        }
+
+        // The type of a conditional on numbers of different types a and b, as JLS 15.25 gives it:
+        // byte and short make short, an int constant that fits the byte, short or char of the
+        // other operand takes that type, and anything else is promoted
+        private DataType conditionalType(int a, int b) {
+            DataType x = typeOf(a);
+            DataType y = typeOf(b);
+            if ((x == DataType.BYTE && y == DataType.SHORT) || (x == DataType.SHORT && y == DataType.BYTE)) {
+                return DataType.SHORT;
+            }
+            if (fitsInto(b, x)) return x;
+            if (fitsInto(a, y)) return y;
+            return SemanticAnalysis.promote(x, y);
+        }
+
+        // Node n is an int whose value type, a byte, short or char, can hold
+        private boolean fitsInto(int n, DataType type) {
+            return typeOf(n) == DataType.INT && (type == DataType.BYTE || type == DataType.SHORT || type == DataType.CHAR)
+                    && narrow(type, longValues[n]) == longValues[n];
+        }
+
+        private void cast(int n, DataType target, int a) {
+            if (carries(n, a)) return;
+            DataType t = typeOf(a);
+            if (t != target && !(t.isNumeric() && target.isNumeric())) fail(n, NOT_CONSTANT);
+            else convert(n, a, target);
+        }
+
+        // Node a's value as type t, which is its own type or, for numbers, any numeric type
+        private void convert(int n, int a, DataType t) {
+            DataType from = typeOf(a);
+            if (t.isFloating()) {
+                setDouble(n, t, doubleOf(a, t));
+            } else if (t.isIntegral()) {
+                double d = doubleValues[a];
+                long v = !from.isFloating() ? longValues[a] : t == DataType.LONG ? (long) d : (int) d;
+                setLong(n, t, narrow(t, v));
+            } else if (t == DataType.BOOLEAN) {
+                setBoolean(n, longValues[a] != 0);
+            } else {
+                setString(n, string(a));
+            }
+        }
+
+        // Node n's numeric value converted to t, a floating type
+        private double doubleOf(int n, DataType t) {
+            if (typeOf(n).isFloating()) return t == DataType.FLOAT ? (float) doubleValues[n] : doubleValues[n];
+            return t == DataType.FLOAT ? (float) longValues[n] : (double) longValues[n];
+        }
+
+        // Appends to the builder of a left operand that is itself a concatenation, which no other
+        // node reads, so a chain a + b + c copies each part once. Every char copied is charged
+        // to the pass's budget.
+        private void concat(int n, int a, int b) {
+            StringBuilder sb = builders[a];
+            builders[a] = null;
+            String left = sb == null ? text(a) : null;
+            String right = text(b);
+            long chars = (left == null ? 0 : left.length()) + right.length();
+            if (chars > stringBudget) {
+                fail(n, STRING_TOO_LONG);
+                return;
+            }
+            stringBudget -= chars;
+            setString(n, null);
+            builders[n] = (sb == null ? new StringBuilder(left) : sb).append(right);
+        }
+
+        // Node n's String value; a concatenation's builder becomes a String once read whole
+        private String string(int n) {
+            if (builders[n] != null) {
+                stringValues[n] = builders[n].toString();
+                builders[n] = null;
+            }
+            return stringValues[n];
+        }
+
+        // Node n's value as string concatenation shows it
+        private String text(int n) {
+            DataType type = typeOf(n);
+            if (type == DataType.STRING) return String.valueOf(string(n));
+            if (type == DataType.FLOAT) return Float.toString((float) doubleValues[n]);
+            if (type == DataType.DOUBLE) return Double.toString(doubleValues[n]);
+            if (type == DataType.BOOLEAN) return longValues[n] != 0 ? "true" : "false";
+            if (type == DataType.CHAR) return String.valueOf((char) longValues[n]);
+            return Long.toString(longValues[n]);
+        }
+
+        // True when node child has no value, which node n then lacks for the same reason
+        private boolean carries(int n, int child) {
+            if (failedAt[child] < 0) return false;
+            failedAt[n] = failedAt[child];
+            return true;
+        }
+
+        private void fail(int n, byte failure) {
+            failedAt[n] = n;
+            failures[n] = failure;
+        }
+
+        private void overflow(int n, DataType type) {
+            types[n] = code(type);
+            fail(n, OVERFLOW);
+        }
+
+        private DataType typeOf(int n) {
+            return DataType.of(types[n]);
+        }
+
+        private void setLong(int n, DataType type, long value) {
+            types[n] = code(type);
+            longValues[n] = value;
+        }
+
+        private void setDouble(int n, DataType type, double value) {
+            types[n] = code(type);
+            doubleValues[n] = type == DataType.FLOAT ? (float) value : value;
+        }
+
+        private void setBoolean(int n, boolean value) {
+            types[n] = code(DataType.BOOLEAN);
+            longValues[n] = value ? 1 : 0;
+        }
+
+        private void setString(int n, String value) {
+            types[n] = code(DataType.STRING);
+            stringValues[n] = value;
+            builders[n] = null;
+        }
+
+        // Records why node origin has no value; always -1
+        private int report(int origin) {
+            int t = expr.token(origin);
+            switch (failures[origin]) {
+                case UNDEFINED -> errors.add(Diagnostics.Code.UNDEFINED_VARIABLE, line, tokens, t, t + 1)
+                        .arg(tokens, t).arg(var);
+                case UNEVALUATED -> errors.add(Diagnostics.Code.UNEVALUATED_VARIABLE, line, tokens, t, t + 1)
+                        .arg(tokens, t).arg(var);
+                case OUT_OF_RANGE -> errors.add(Diagnostics.Code.VALUE_OUT_OF_RANGE, line, tokens, t, t + 1)
+                        .arg(tokens, t).arg(typeOf(origin).spelling()).arg(var);
+                case OVERFLOW -> errors.add(Diagnostics.Code.ARITHMETIC_OVERFLOW, line, tokens, initFrom, initTo)
+                        .arg(expr.op(origin).symbol).arg(typeOf(origin).spelling()).arg(var);
+                case DIVISION_BY_ZERO -> errors.add(Diagnostics.Code.DIVISION_BY_ZERO, line, tokens, initFrom, initTo)
+                        .arg(var);
+                case STRING_TOO_LONG -> errors.add(Diagnostics.Code.STRING_TOO_LONG, line, tokens, initFrom, initTo)
+                        .arg(Integer.toString(maxStringChars)).arg(var);
+                default -> notConstant();
+            }
+            return -1;
+        }
+
+        private int tooDeep() {
+            int t = expr.deepAt();
+            errors.add(Diagnostics.Code.NESTING_TOO_DEEP, line, tokens, t, t + 1)
+                    .arg(Integer.toString(expr.maxNesting())).arg(var);
+            return -1;
+        }
+
+        private int notConstant() {
+            errors.add(Diagnostics.Code.NOT_CONSTANT, line, tokens, initFrom, initTo).arg(var);
+            return -1;
+        }
+
+        private int storeLong(long value) {
+            if (longCount == longs.length) longs = Arrays.copyOf(longs, longCount * 2);
+            longs[longCount] = value;
+            return longCount++;
+        }
+
+        private int storeDouble(double value) {
+            if (doubleCount == doubles.length) doubles = Arrays.copyOf(doubles, doubleCount * 2);
+            doubles[doubleCount] = value;
+            return doubleCount++;
+        }
+
+        private int storeBoolean(boolean value) {
+            if (booleanCount == booleans.length) booleans = Arrays.copyOf(booleans, booleanCount * 2);
+            booleans[booleanCount] = value;
+            return booleanCount++;
+        }
+
+        private int storeString(String value) {
+            if (stringCount == strings.length) strings = Arrays.copyOf(strings, stringCount * 2);
+            strings[stringCount] = value;
+            return stringCount++;
+        }
+
+        // The node columns are scratch, so they are replaced rather than copied
+        private void grow(int nodes) {
+            int size = Math.max(nodes, types.length * 2);
+            types = new byte[size];
+            longValues = new long[size];
+            doubleValues = new double[size];
+            stringValues = new String[size];
+            builders = new StringBuilder[size];
+            failedAt = new int[size];
+            failures = new byte[size];
+        }
+    }
+
+    // Java's narrowing of an integral value to type
+    private static long narrow(DataType type, long value) {
+        switch (type) {
+            case BYTE: return (byte) value;
+            case SHORT: return (short) value;
+            case CHAR: return (char) value;
+            case INT: return (int) value;
+            default: return value;
+        }
+    }
+
+    private static byte code(DataType type) {
+        return (byte) type.ordinal();
+    }
+}
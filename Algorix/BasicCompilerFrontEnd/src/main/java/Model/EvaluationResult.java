@@ -0,0 +1,100 @@
+package Model;
+
+import Model.SemanticAnalysis.DataType;
+
+import java.util.List;
+
+// Immutable outcome of one evaluation. Variables are numbered in declaration order; each id
+// reads its value from the column of its type, and an id whose initializer failed has none.
+public final class EvaluationResult implements AnalysisResult {
+
+    private final List<String> errors;
+    private final SymbolTable symbols;
+    private final int[] slots;
+    private final long[] longs;
+    private final double[] doubles;
+    private final boolean[] booleans;
+    private final String[] strings;
+
+    EvaluationResult(List<String> errors, SymbolTable symbols, int[] slots, long[] longs, double[] doubles,
+                     boolean[] booleans, String[] strings) {
+        this.errors = ResultCodec.readOnly(errors);
+        this.symbols = symbols;
+        this.slots = slots;
+        this.longs = longs;
+        this.doubles = doubles;
+        this.booleans = booleans;
+        this.strings = strings;
+    }
+
+    @Override
+    public boolean isPassed() { return errors.isEmpty(); }
+
+    @Override
+    public List<String> getErrors() { return errors; }
+
+    // Number of declared variables
+    public int size() { return symbols.size(); }
+
+    // Id of the variable, or -1 when nothing declares it
+    public int find(String name) { return symbols.find(name); }
+
+    public String getName(int id) { return symbols.name(id); }
+
+    public String getType(int id) { return type(id).spelling(); }
+
+    public boolean hasValue(int id) { return slots[id] >= 0; }
+
+    // Typed reads: integral and char values as a long, double and float values as a double.
+    // Reading another type, or a variable without a value, throws.
+    public long getLong(int id) { return longs[slot(id, type(id).isIntegral())]; }
+
+    public double getDouble(int id) { return doubles[slot(id, type(id).isFloating())]; }
+
+    public boolean getBoolean(int id) { return booleans[slot(id, type(id) == DataType.BOOLEAN)]; }
+
+    public String getString(int id) { return strings[slot(id, type(id) == DataType.STRING)]; }
+
+    // The value as Java prints it, or null when the variable has none
+    public String getValueText(int id) {
+        if (!hasValue(id)) return null;
+        switch (type(id)) {
+            case BOOLEAN: return String.valueOf(getBoolean(id));
+            case STRING: return String.valueOf(getString(id));
+            case CHAR: return String.valueOf((char) getLong(id));
+            case FLOAT: return Float.toString((float) getDouble(id));
+            case DOUBLE: return Double.toString(getDouble(id));
+            default: return Long.toString(getLong(id));
+        }
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder result = new StringBuilder();
+        if (errors.isEmpty()) {
+            result.append("EVALUATION PASSED\n");
+        } else {
+            result.append("EVALUATION FAILED\n\nErrors:\n");
+            for (String err : errors) result.append(err).append('\n');
+        }
+        if (size() > 0) {
+            result.append("\nValues:\n");
+            for (int id = 0; id < size(); id++) {
+                if (!hasValue(id)) continue;
+                result.append(getType(id)).append(' ').append(getName(id)).append(" = ")
+                        .append(getValueText(id)).append('\n');
+            }
+        }
+        return result.toString();
+    }
+
+    DataType type(int id) {
+        return DataType.of(symbols.type(id));
+    }
+
+    private int slot(int id, boolean typed) {
+        if (!typed) throw new IllegalArgumentException("'" + getName(id) + "' is " + getType(id));
+        if (slots[id] < 0) throw new IllegalStateException("'" + getName(id) + "' has no value");
+        return slots[id];
+    }
+}
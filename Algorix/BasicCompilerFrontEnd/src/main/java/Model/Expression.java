@@ -0,0 +1,306 @@
+package Model;
+
+import java.util.Arrays;
+
+// Initializer expressions parsed by precedence climbing into a flat tree. Each node is a
+// slot across primitive arrays: kind, operator, token and up to three children. Children are
+// always added before their parent, so one forward loop over the nodes visits them bottom-up.
+// Parens, calls, indexing and '?:' nested deeper than maxNesting fail the parse, so the
+// recursion stays bounded; prefix operators and casts are collected in a loop instead.
+// An instance is reused for every initializer of a pass and is not thread-safe.
+final class Expression {
+
+    static final byte LITERAL = 0;      // token is a literal, true or false
+    static final byte NAME = 1;         // token is a variable reference
+    static final byte OPAQUE = 2;       // qualified name, call or index over left: not typed here
+    static final byte UNARY = 3;        // op left
+    static final byte BINARY = 4;       // left op right
+    static final byte CONDITIONAL = 5;  // left ? right : third
+    static final byte CAST = 6;         // (token) left, token being the type name
+
+    enum Op {
+        CONDITIONAL("?:", 1), OR("||", 2), AND("&&", 3), BIT_OR("|", 4), BIT_XOR("^", 5), BIT_AND("&", 6),
+        EQ("==", 7), NE("!=", 7), LT("<", 8), GT(">", 8), LE("<=", 8), GE(">=", 8),
+        SHL("<<", 9), SHR(">>", 9), USHR(">>>", 9), ADD("+", 10), SUB("-", 10),
+        MUL("*", 11), DIV("/", 11), REM("%", 11),
+        NEG("-", 0), POS("+", 0), NOT("!", 0), COMPL("~", 0);
+
+        private static final Op[] VALUES = values();
+
+        final String symbol;
+        final int precedence;
+
+        Op(String symbol, int precedence) {
+            this.symbol = symbol;
+            this.precedence = precedence;
+        }
+    }
+
+    private byte[] kinds = new byte[16];
+    private byte[] ops = new byte[16];
+    private byte[] types = new byte[16];
+    private int[] tokenIndex = new int[16];
+    private int[] left = new int[16];
+    private int[] right = new int[16];
+    private int[] third = new int[16];
+    private int size;
+
+    private final int maxNesting;
+
+    private TokenStream tokens;
+    private int pos;
+    private int end;
+    private int opWidth;
+    private int depth;
+    private int deepAt;
+
+    Expression(int maxNesting) {
+        this.maxNesting = maxNesting;
+    }
+
+    // Root of the expression spanning tokens [from, to), or -1 if they are not exactly one expression
+    int parse(TokenStream tokens, int from, int to) {
+        this.tokens = tokens;
+        pos = from;
+        end = to;
+        size = 0;
+        depth = 0;
+        deepAt = -1;
+        int root = expression(0);
+        this.tokens = null;
+        return root >= 0 && pos == to && deepAt < 0 ? root : -1;
+    }
+
+    int maxNesting() { return maxNesting; }
+
+    // Token where the last parse nested deeper than maxNesting, or -1 if it did not
+    int deepAt() { return deepAt; }
+
+    int size() { return size; }
+
+    byte kind(int n) { return kinds[n]; }
+
+    Op op(int n) { return ops[n] < 0 ? null : Op.VALUES[ops[n]]; }
+
+    int token(int n) { return tokenIndex[n]; }
+
+    int left(int n) { return left[n]; }
+
+    int right(int n) { return right[n]; }
+
+    int third(int n) { return third[n]; }
+
+    // Scratch column for the checker's bottom-up pass
+    byte type(int n) { return types[n]; }
+
+    void setType(int n, byte type) { types[n] = type; }
+
+    private int expression(int minPrecedence) {
+        int node = unary();
+        while (node >= 0 && pos < end) {
+            Op op = binaryOp();
+            if (op == null || op.precedence < minPrecedence) break;
+            int opToken = pos;
+            pos += opWidth;
+            if (op == Op.CONDITIONAL) {
+                if (!enter(opToken)) return -1;
+                int then = expression(0);
+                if (then < 0 || pos >= end || tokens.kind(pos) != TokenKind.COLON) return -1;
+                pos++;
+                // Right-associative: a ? b : c ? d : e
+                int otherwise = expression(op.precedence);
+                if (otherwise < 0) return -1;
+                depth--;
+                node = add(CONDITIONAL, op, opToken, node, then, otherwise);
+            } else {
+                int operand = expression(op.precedence + 1);
+                if (operand < 0) return -1;
+                node = add(BINARY, op, opToken, node, operand, -1);
+            }
+        }
+        return node;
+    }
+
+    // Binary operator at pos, with its width in tokens in opWidth; shifts are glued '<' and '>' runs
+    private Op binaryOp() {
+        opWidth = 1;
+        switch (tokens.kind(pos)) {
+            case OR_OR: return Op.OR;
+            case AND_AND: return Op.AND;
+            case PIPE: return Op.BIT_OR;
+            case CARET: return Op.BIT_XOR;
+            case AMP: return Op.BIT_AND;
+            case EQUAL_EQUAL: return Op.EQ;
+            case NOT_EQUAL: return Op.NE;
+            case LESS_EQUAL: return Op.LE;
+            case GREATER_EQUAL: return Op.GE;
+            case PLUS: return Op.ADD;
+            case MINUS: return Op.SUB;
+            case STAR: return Op.MUL;
+            case SLASH: return Op.DIV;
+            case PERCENT: return Op.REM;
+            case QUESTION: return Op.CONDITIONAL;
+            case LESS:
+                if (!glued(pos + 1, TokenKind.LESS)) return Op.LT;
+                opWidth = 2;
+                return Op.SHL;
+            case GREATER:
+                if (!glued(pos + 1, TokenKind.GREATER)) return Op.GT;
+                if (!glued(pos + 2, TokenKind.GREATER)) {
+                    opWidth = 2;
+                    return Op.SHR;
+                }
+                opWidth = 3;
+                return Op.USHR;
+            default: return null;
+        }
+    }
+
+    // Prefix operators and casts apply innermost first, so their nodes are added walking back
+    // over the prefix tokens: a cast is the three tokens ending in ')', an operator one token
+    private int unary() {
+        int from = pos;
+        while (pos < end) {
+            if (prefixOp(tokens.kind(pos)) != null) pos++;
+            else if (isCast()) pos += 3;
+            else break;
+        }
+        int operand = pos;
+        int node = postfix(primary());
+        for (int k = operand; node >= 0 && k > from; ) {
+            if (tokens.kind(k - 1) == TokenKind.RPAREN) {
+                node = add(CAST, null, k - 2, node, -1, -1);
+                k -= 3;
+            } else {
+                k--;
+                node = add(UNARY, prefixOp(tokens.kind(k)), k, node, -1, -1);
+            }
+        }
+        return node;
+    }
+
+    private static Op prefixOp(TokenKind kind) {
+        return switch (kind) {
+            case MINUS -> Op.NEG;
+            case PLUS -> Op.POS;
+            case BANG -> Op.NOT;
+            case TILDE -> Op.COMPL;
+            default -> null;
+        };
+    }
+
+    // ( type ) followed by an operand
+    private boolean isCast() {
+        return pos + 3 < end && tokens.kind(pos) == TokenKind.LPAREN && tokens.kind(pos + 2) == TokenKind.RPAREN
+                && SemanticAnalysis.DataType.from(tokens, pos + 1) != null && startsOperand(tokens.kind(pos + 3));
+    }
+
+    private int primary() {
+        if (pos >= end) return -1;
+        int t = pos;
+        switch (tokens.kind(t)) {
+            case INT_LITERAL: case FLOAT_LITERAL: case NUMBER_LITERAL: case STRING_LITERAL: case CHAR_LITERAL:
+                pos++;
+                return add(LITERAL, null, t, -1, -1, -1);
+            case IDENTIFIER:
+                pos++;
+                Keyword keyword = Keyword.of(tokens, t);
+                if (keyword == Keyword.TRUE || keyword == Keyword.FALSE) return add(LITERAL, null, t, -1, -1, -1);
+                // A name glued to a following '.' qualifies a member, as in Math.PI; it is not a variable
+                if (glued(pos, TokenKind.DOT)) return add(OPAQUE, null, t, -1, -1, -1);
+                return add(NAME, null, t, -1, -1, -1);
+            case LPAREN: {
+                if (!enter(t)) return -1;
+                pos++;
+                int inner = expression(0);
+                if (inner < 0 || pos >= end || tokens.kind(pos) != TokenKind.RPAREN) return -1;
+                pos++;
+                depth--;
+                return inner;
+            }
+            default:
+                return -1;
+        }
+    }
+
+    // Member access, calls and indexing; their arguments are still parsed so names in them are checked
+    private int postfix(int node) {
+        while (node >= 0 && pos < end) {
+            int t = pos;
+            switch (tokens.kind(t)) {
+                case DOT:
+                    if (t + 1 >= end || tokens.kind(t + 1) != TokenKind.IDENTIFIER) return -1;
+                    pos += 2;
+                    break;
+                case LPAREN:
+                    if (!enter(t)) return -1;
+                    pos++;
+                    if (pos < end && tokens.kind(pos) == TokenKind.RPAREN) {
+                        pos++;
+                        break;
+                    }
+                    while (true) {
+                        if (expression(0) < 0 || pos >= end) return -1;
+                        if (tokens.kind(pos) != TokenKind.COMMA) break;
+                        pos++;
+                    }
+                    if (tokens.kind(pos) != TokenKind.RPAREN) return -1;
+                    pos++;
+                    break;
+                case LBRACKET:
+                    if (!enter(t)) return -1;
+                    pos++;
+                    if (expression(0) < 0 || pos >= end || tokens.kind(pos) != TokenKind.RBRACKET) return -1;
+                    pos++;
+                    break;
+                default:
+                    return node;
+            }
+            if (tokens.kind(t) != TokenKind.DOT) depth--;
+            node = add(OPAQUE, null, t, node, -1, -1);
+        }
+        return node;
+    }
+
+    // One level deeper at token t; false, for the rest of the parse, once that is more than maxNesting
+    private boolean enter(int t) {
+        if (deepAt >= 0) return false;
+        if (++depth <= maxNesting) return true;
+        deepAt = t;
+        return false;
+    }
+
+    private boolean glued(int i, TokenKind kind) {
+        return i < end && tokens.kind(i) == kind && tokens.isGlued(i);
+    }
+
+    private static boolean startsOperand(TokenKind kind) {
+        switch (kind) {
+            case IDENTIFIER: case INT_LITERAL: case FLOAT_LITERAL: case NUMBER_LITERAL: case STRING_LITERAL:
+            case CHAR_LITERAL: case LPAREN: case PLUS: case MINUS: case BANG: case TILDE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private int add(byte kind, Op op, int token, int l, int r, int t) {
+        if (size == kinds.length) {
+            int grown = size * 2;
+            kinds = Arrays.copyOf(kinds, grown);
+            ops = Arrays.copyOf(ops, grown);
+            types = Arrays.copyOf(types, grown);
+            tokenIndex = Arrays.copyOf(tokenIndex, grown);
+            left = Arrays.copyOf(left, grown);
+            right = Arrays.copyOf(right, grown);
+            third = Arrays.copyOf(third, grown);
+        }
+        kinds[size] = kind;
+        ops[size] = op == null ? -1 : (byte) op.ordinal();
+        tokenIndex[size] = token;
+        left[size] = l;
+        right[size] = r;
+        third[size] = t;
+        return size++;
+    }
+}
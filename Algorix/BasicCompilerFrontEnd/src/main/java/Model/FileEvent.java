@@ -0,0 +1,27 @@
+package Model;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Every phase that ran over one file, emitted by RecordingMetrics while a flight recording enables it
+@Name("algorix.File")
+@Label("Analyzed File")
+@Category("Algorix")
+@Description("All phases that ran over one file")
+@StackTrace(false)
+final class FileEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Passed")
+    boolean passed;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+}
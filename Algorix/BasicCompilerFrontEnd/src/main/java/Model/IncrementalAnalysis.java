@@ -0,0 +1,447 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+// Keeps per-line results for an editor buffer. Each update re-lexes only the lines that
+// changed and re-parses and re-checks only the statements on them; later statements are
+// re-checked semantically only if they look up a name whose declaration changed.
+// A statement may continue over several lines, so syntax and semantic results are kept per
+// group: a line that starts a statement, followed by the lines that continue it.
+// Not thread-safe: one instance belongs to one editor.
+public class IncrementalAnalysis {
+
+    private static final int COMPARE_BLOCK = 256;
+
+    private final SourceScanner scanner = new SourceScanner();
+    private final LexicalAnalysis lexical;
+    private final SyntaxAnalysis syntax;
+    private final SemanticAnalysis semantic;
+
+    private static final class Line {
+        final String text;
+        int index;                  // position in the buffer, 0-based
+        int checkedAt;              // 1-based line number the cached messages were produced for
+        boolean queued;
+
+        TokenKind first;            // first and last token kinds, null on a blank line
+        TokenKind last;
+        boolean joins;              // carries on the statement of the line with tokens above
+
+        List<String> tokenizedLines = List.of();
+        Diagnostics lexicalErrors = Diagnostics.NONE;
+        int tokenCount;
+
+        // Results of the line's group; empty unless the line starts one
+        Diagnostics syntaxErrors = Diagnostics.NONE;
+        Diagnostics semanticErrors = Diagnostics.NONE;
+        Map<String, SemanticAnalysis.DataType> declared = Map.of();
+        Set<String> lookups = Set.of();
+
+        Line(String text, int index) {
+            this.text = text;
+            this.index = index;
+        }
+
+        boolean isHead() {
+            return first != null && !joins;
+        }
+    }
+
+    // Lines that successfully declare a name, and lines whose checks looked it up
+    private static final class NameInfo {
+        final List<Line> declarers = new ArrayList<>(1);
+        final Set<Line> readers = new HashSet<>();
+    }
+
+    private final List<Line> lines = new ArrayList<>();
+    private final Map<String, NameInfo> names = new HashMap<>();
+    private String text = "";
+    private int lastRechecked;
+
+    public IncrementalAnalysis() {
+        this(Limits.DEFAULT);
+    }
+
+    public IncrementalAnalysis(Limits limits) {
+        lexical = new LexicalAnalysis(limits);
+        syntax = new SyntaxAnalysis(limits);
+        semantic = new SemanticAnalysis(limits);
+        lines.add(new Line("", 0));
+    }
+
+    private static final int PROGRESS_INTERVAL = 1024;
+
+    // Brings the cached results up to date with text. Only the lines between the common
+    // prefix and suffix of the old and new text are re-analyzed.
+    public void update(String newText) {
+        update(newText, null);
+    }
+
+    // As update(String), reporting re-analyzed lines to progress while it runs
+    public void update(String newText, ProgressListener progress) {
+        update(newText, 0, 0, progress);
+    }
+
+    // As update(String) for a caller that tracks its edits: the first unchangedPrefix and the
+    // last unchangedSuffix chars are known to equal those of the previous text, so only the
+    // part between them is compared
+    public void update(String newText, int unchangedPrefix, int unchangedSuffix) {
+        update(newText, unchangedPrefix, unchangedSuffix, null);
+    }
+
+    private void update(String newText, int unchangedPrefix, int unchangedSuffix, ProgressListener progress) {
+        String oldText = text;
+        int max = Math.min(oldText.length(), newText.length());
+        int prefix = commonPrefix(oldText, newText, Math.min(unchangedPrefix, max), max);
+        if (prefix == oldText.length() && prefix == newText.length()) {
+            lastRechecked = 0;
+            return;
+        }
+        int suffix = commonSuffix(oldText, newText, Math.min(unchangedSuffix, max - prefix), max - prefix);
+
+        // Whole lines [first, oldLast] of the old text become [first, newLast] of the new one
+        int first = countNewlines(oldText, 0, prefix);
+        int oldLast = first + countNewlines(oldText, prefix, oldText.length() - suffix);
+        int newLast = first + countNewlines(newText, prefix, newText.length() - suffix);
+        int start = newText.lastIndexOf('\n', prefix - 1) + 1;
+
+        List<Line> replacement = new ArrayList<>(newLast - first + 1);
+        for (int i = first, from = start; i <= newLast; i++) {
+            int end = newText.indexOf('\n', from);
+            if (end < 0) end = newText.length();
+            replacement.add(new Line(newText.substring(from, end), i));
+            from = end + 1;
+        }
+
+        Set<String> dirty = new HashSet<>();
+        List<Line> removed = lines.subList(first, oldLast + 1);
+        // If the first edited line did not start a group, the group above it loses lines
+        boolean splitsAbove = first > 0 && !removed.get(0).isHead();
+        for (Line line : removed) {
+            dirty.addAll(line.declared.keySet());
+            unregister(line);
+        }
+        removed.clear();
+        lines.addAll(first, replacement);
+        if (oldLast != newLast) {
+            for (int i = newLast + 1; i < lines.size(); i++) lines.get(i).index = i;
+        }
+        text = newText;
+
+        // Lexing and semantic checks each count for half of the work
+        long total = 2L * replacement.size();
+        long done = 0;
+        TokenKind previous = lastKindBefore(first);
+        for (Line line : replacement) {
+            lex(line, previous);
+            if (line.last != null) previous = line.last;
+            if (progress != null && ++done % PROGRESS_INTERVAL == 0) progress.progress(done, total);
+        }
+
+        // The first line with tokens after the edit may start joining its last statement, or stop
+        int after = newLast + 1;
+        while (after < lines.size() && lines.get(after).first == null) after++;
+        if (after < lines.size()) {
+            Line line = lines.get(after);
+            if (line.joins != DeclarationParser.continues(previous, line.first)) lex(line, previous);
+        }
+
+        // Every group overlapping the edited lines is parsed and checked again
+        int from = Math.min(splitsAbove ? first - 1 : first, lines.size() - 1);
+        while (from > 0 && !lines.get(from).isHead()) from--;
+        int to = Math.min(after, lines.size() - 1) + 1;
+        while (to < lines.size() && !lines.get(to).isHead()) to++;
+
+        PriorityQueue<Line> queue = new PriorityQueue<>((a, b) -> Integer.compare(a.index, b.index));
+        for (int i = from; i < to; i++) {
+            Line line = lines.get(i);
+            if (line.isHead()) {
+                relocate(line);
+                line.syntaxErrors = Diagnostics.of(syntax.analyze(scanGroup(line)).getErrors());
+                enqueue(queue, line);
+            } else if (!line.declared.isEmpty() || !line.lookups.isEmpty() || !line.semanticErrors.isEmpty()
+                    || !line.syntaxErrors.isEmpty()) {
+                // Started a group before the edit and now continues another one
+                dirty.addAll(line.declared.keySet());
+                unregister(line);
+                line.declared = Map.of();
+                line.lookups = Set.of();
+                line.syntaxErrors = Diagnostics.NONE;
+                line.semanticErrors = Diagnostics.NONE;
+            }
+        }
+        // Readers of names the removed lines declared now resolve differently
+        for (String name : dirty) {
+            NameInfo info = names.get(name);
+            if (info == null) continue;
+            for (Line reader : info.readers) {
+                if (reader.index >= from) enqueue(queue, reader);
+            }
+        }
+
+        // In line order, so every group is re-checked against settled earlier ones
+        int rechecked = 0;
+        while (!queue.isEmpty()) {
+            Line line = queue.poll();
+            line.queued = false;
+            Map<String, SemanticAnalysis.DataType> before = line.declared;
+            check(line);
+            rechecked++;
+            if (progress != null && ++done % PROGRESS_INTERVAL == 0) progress.progress(Math.min(done, total), total);
+            for (String name : changedNames(before, line.declared)) {
+                NameInfo info = names.get(name);
+                if (info == null) continue;
+                for (Line reader : info.readers) {
+                    if (reader.index > line.index) enqueue(queue, reader);
+                }
+            }
+        }
+        lastRechecked = rechecked;
+        if (progress != null) progress.progress(total, total);
+    }
+
+    // Number of lines semantically re-checked by the last update
+    public int getLastRecheckedLines() {
+        return lastRechecked;
+    }
+
+    public int getLineCount() {
+        return lines.size();
+    }
+
+    public LexicalResult lexicalResult() {
+        Diagnostics errors = new Diagnostics();
+        List<String> tokenizedLines = new ArrayList<>();
+        int tokenCount = 0;
+        for (Line line : lines) {
+            relocate(line);
+            errors.append(line.lexicalErrors);
+            tokenizedLines.addAll(line.tokenizedLines);
+            tokenCount += line.tokenCount;
+        }
+        return new LexicalResult(errors, tokenizedLines, tokenCount, null);
+    }
+
+    public SyntaxResult syntaxResult() {
+        Diagnostics errors = new Diagnostics();
+        for (Line line : lines) {
+            relocate(line);
+            errors.append(line.syntaxErrors);
+        }
+        return new SyntaxResult(errors, null);
+    }
+
+    public SemanticResult semanticResult() {
+        Diagnostics errors = new Diagnostics();
+        Map<String, String> symbols = new LinkedHashMap<>(names.size() * 4 / 3 + 16);
+        for (Line line : lines) {
+            relocate(line);
+            errors.append(line.semanticErrors);
+            for (Map.Entry<String, SemanticAnalysis.DataType> e : line.declared.entrySet()) {
+                symbols.put(e.getKey(), e.getValue().spelling());
+            }
+        }
+        return new SemanticResult(errors, symbols);
+    }
+
+    // Only the errors of phase, without the tokenized lines or symbols of its full result. Lines
+    // that moved are not relocated, which would rebuild their tokenized lines; their errors are
+    // shifted on the way out.
+    public Diagnostics errors(ResultCache.Phase phase) {
+        Diagnostics errors = new Diagnostics();
+        for (Line line : lines) {
+            Diagnostics own = switch (phase) {
+                case LEXICAL -> line.lexicalErrors;
+                case SYNTAX -> line.syntaxErrors;
+                case SEMANTIC -> line.semanticErrors;
+            };
+            if (!own.isEmpty()) errors.append(own.moved(line.index + 1 - line.checkedAt));
+        }
+        return errors;
+    }
+
+    private TokenStream scan(Line line) {
+        char[] src = line.text.toCharArray();
+        return scanner.scan(src, 0, src.length, line.index + 1);
+    }
+
+    // The head's line and the lines up to the next head, as one stream
+    private TokenStream scanGroup(Line head) {
+        int end = head.index + 1;
+        while (end < lines.size() && !lines.get(end).isHead()) end++;
+        if (end == head.index + 1) return scan(head);
+        StringBuilder group = new StringBuilder(head.text);
+        for (int i = head.index + 1; i < end; i++) group.append('\n').append(lines.get(i).text);
+        char[] src = group.toString().toCharArray();
+        return scanner.scan(src, 0, src.length, head.index + 1);
+    }
+
+    // Kind of the last token above line i, or null if there is none
+    private TokenKind lastKindBefore(int i) {
+        for (int k = i - 1; k >= 0; k--) {
+            if (lines.get(k).last != null) return lines.get(k).last;
+        }
+        return null;
+    }
+
+    // Lexical results depend on the line and on the last token above it
+    private void lex(Line line, TokenKind previous) {
+        relocate(line);
+        TokenStream tokens = scan(line);
+        int n = tokens.size();
+        line.first = n == 0 ? null : tokens.kind(0);
+        line.last = n == 0 ? null : tokens.kind(n - 1);
+        line.joins = n > 0 && DeclarationParser.continues(previous, line.first);
+        LexicalResult result = lexical.analyze(tokens, previous);
+        line.tokenizedLines = result.getTokenizedLines();
+        line.lexicalErrors = Diagnostics.of(result.getErrors());
+        line.tokenCount = result.getTokenCount();
+        line.checkedAt = line.index + 1;
+    }
+
+    private void check(Line line) {
+        relocate(line);
+        unregister(line);
+        LineScope scope = new LineScope(line);
+        Diagnostics errors = new Diagnostics();
+        semantic.analyzeStatements(scope, errors, scanGroup(line));
+        line.semanticErrors = Diagnostics.of(errors);
+        line.declared = scope.declared.isEmpty() ? Map.of() : scope.declared;
+        line.lookups = scope.lookups.isEmpty() ? Set.of() : scope.lookups;
+        register(line);
+    }
+
+    // Names resolve to the first line above that declares them, then to this line's own declarations
+    private final class LineScope implements SemanticAnalysis.Scope {
+        final Line line;
+        final Map<String, SemanticAnalysis.DataType> declared = new LinkedHashMap<>();
+        final Set<String> lookups = new HashSet<>();
+
+        LineScope(Line line) {
+            this.line = line;
+        }
+
+        @Override
+        public SemanticAnalysis.DataType lookup(String name) {
+            lookups.add(name);
+            NameInfo info = names.get(name);
+            if (info != null) {
+                Line binding = null;
+                for (Line d : info.declarers) {
+                    if (d.index < line.index && (binding == null || d.index < binding.index)) binding = d;
+                }
+                if (binding != null) return binding.declared.get(name);
+            }
+            return declared.get(name);
+        }
+
+        @Override
+        public void declare(String name, SemanticAnalysis.DataType type) {
+            declared.put(name, type);
+        }
+    }
+
+    private void register(Line line) {
+        for (String name : line.declared.keySet()) {
+            names.computeIfAbsent(name, k -> new NameInfo()).declarers.add(line);
+        }
+        for (String name : line.lookups) {
+            names.computeIfAbsent(name, k -> new NameInfo()).readers.add(line);
+        }
+    }
+
+    private void unregister(Line line) {
+        for (String name : line.declared.keySet()) {
+            NameInfo info = names.get(name);
+            info.declarers.remove(line);
+            if (info.declarers.isEmpty() && info.readers.isEmpty()) names.remove(name);
+        }
+        for (String name : line.lookups) {
+            NameInfo info = names.get(name);
+            info.readers.remove(line);
+            if (info.declarers.isEmpty() && info.readers.isEmpty()) names.remove(name);
+        }
+    }
+
+    private static void enqueue(PriorityQueue<Line> queue, Line line) {
+        if (!line.queued) {
+            line.queued = true;
+            queue.add(line);
+        }
+    }
+
+    private static Set<String> changedNames(Map<String, SemanticAnalysis.DataType> before,
+                                            Map<String, SemanticAnalysis.DataType> after) {
+        if (before.isEmpty() && after.isEmpty()) return Set.of();
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, SemanticAnalysis.DataType> e : before.entrySet()) {
+            if (!Objects.equals(after.get(e.getKey()), e.getValue())) changed.add(e.getKey());
+        }
+        for (String name : after.keySet()) {
+            if (!before.containsKey(name)) changed.add(name);
+        }
+        return changed;
+    }
+
+    // Messages and diagnostics carry line numbers; lines that moved since they were checked get
+    // them shifted. A group's messages may name any of its lines, which all moved together.
+    private static void relocate(Line line) {
+        int now = line.index + 1;
+        if (line.checkedAt == now) return;
+        int delta = now - line.checkedAt;
+        line.tokenizedLines = relocate(line.tokenizedLines, delta);
+        line.lexicalErrors = line.lexicalErrors.moved(delta);
+        line.syntaxErrors = line.syntaxErrors.moved(delta);
+        line.semanticErrors = line.semanticErrors.moved(delta);
+        line.checkedAt = now;
+    }
+
+    private static List<String> relocate(List<String> messages, int delta) {
+        if (messages.isEmpty()) return messages;
+        List<String> moved = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            int end = 5;
+            while (end < message.length() && Character.isDigit(message.charAt(end))) end++;
+            if (!message.startsWith("Line ") || end == 5) {
+                moved.add(message);
+                continue;
+            }
+            moved.add("Line " + (Integer.parseInt(message.substring(5, end)) + delta) + message.substring(end));
+        }
+        return Collections.unmodifiableList(moved);
+    }
+
+    // Blocks are compared with regionMatches, which is vectorized, before narrowing down by char
+    private static int commonPrefix(String a, String b, int from, int max) {
+        int n = from;
+        while (n + COMPARE_BLOCK <= max && a.regionMatches(n, b, n, COMPARE_BLOCK)) n += COMPARE_BLOCK;
+        while (n < max && a.charAt(n) == b.charAt(n)) n++;
+        return n;
+    }
+
+    private static int commonSuffix(String a, String b, int from, int max) {
+        int n = from;
+        while (n + COMPARE_BLOCK <= max
+                && a.regionMatches(a.length() - n - COMPARE_BLOCK, b, b.length() - n - COMPARE_BLOCK, COMPARE_BLOCK)) {
+            n += COMPARE_BLOCK;
+        }
+        while (n < max && a.charAt(a.length() - 1 - n) == b.charAt(b.length() - 1 - n)) n++;
+        return n;
+    }
+
+    // indexOf is vectorized, so this runs well ahead of a loop over charAt
+    private static int countNewlines(String s, int from, int to) {
+        int count = 0;
+        for (int i = s.indexOf('\n', from); i >= 0 && i < to; i = s.indexOf('\n', i + 1)) count++;
+        return count;
+    }
+}
@@ -0,0 +1,104 @@
+package Model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Java's reserved words and the type names the analyzer knows, in one table every phase
+// looks words up in. A word is found from its chars in place. Most names are turned away by
+// their length and first char alone, since few keywords share both; the rest are hashed, and
+// the hash picks the one slot the word can be in, so a lookup compares at most once.
+// HASH_MULTIPLIER was chosen so that no two of these words share a slot; building the table
+// checks that still holds.
+public enum Keyword {
+    ABSTRACT("abstract"), ASSERT("assert"), BOOLEAN("boolean"), BREAK("break"), BYTE("byte"),
+    CASE("case"), CATCH("catch"), CHAR("char"), CLASS("class"), CONST("const"),
+    CONTINUE("continue"), DEFAULT("default"), DO("do"), DOUBLE("double"), ELSE("else"),
+    ENUM("enum"), EXTENDS("extends"), FALSE("false"), FINAL("final"), FINALLY("finally"),
+    FLOAT("float"), FOR("for"), GOTO("goto"), IF("if"), IMPLEMENTS("implements"),
+    IMPORT("import"), INSTANCEOF("instanceof"), INT("int"), INTERFACE("interface"), LONG("long"),
+    NATIVE("native"), NEW("new"), NULL("null"), PACKAGE("package"), PRIVATE("private"),
+    PROTECTED("protected"), PUBLIC("public"), RETURN("return"), SHORT("short"), STATIC("static"),
+    STRICTFP("strictfp"), SUPER("super"), SWITCH("switch"), SYNCHRONIZED("synchronized"), THIS("this"),
+    THROW("throw"), THROWS("throws"), TRANSIENT("transient"), TRUE("true"), TRY("try"),
+    VOID("void"), VOLATILE("volatile"), WHILE("while"),
+    // Not reserved, but a type name to every phase
+    STRING("String");
+
+    // Names a declaration may start with, as the lexical phase reports them
+    private static final Set<Keyword> DATA_TYPES = EnumSet.of(INT, DOUBLE, FLOAT, BOOLEAN, CHAR, LONG, BYTE, SHORT, STRING);
+    private static final Set<Keyword> PRIMITIVES = EnumSet.of(INT, DOUBLE, FLOAT, BOOLEAN, CHAR, LONG, BYTE, SHORT, VOID);
+    private static final Set<Keyword> MODIFIERS = EnumSet.of(PUBLIC, PRIVATE, PROTECTED, STATIC, FINAL, TRANSIENT, VOLATILE);
+    // Keywords that stand for a value in an expression
+    private static final Set<Keyword> VALUES = EnumSet.of(TRUE, FALSE, NULL, THIS, SUPER);
+
+    private static final int HASH_MULTIPLIER = 87;
+    private static final int TABLE_BITS = 8;
+    private static final int MIN_LENGTH = 2;
+    private static final int MAX_LENGTH = 12;
+    private static final Keyword[] TABLE = new Keyword[1 << TABLE_BITS];
+    // Per length, bit c - 'A' is set when a keyword of that length starts with c
+    private static final long[] FIRST_CHARS = new long[MAX_LENGTH + 1];
+
+    static {
+        for (Keyword keyword : values()) {
+            char[] chars = keyword.chars;
+            FIRST_CHARS[chars.length] |= 1L << (chars[0] - 'A');
+            int slot = slot(chars, 0, chars.length);
+            if (TABLE[slot] != null) {
+                throw new IllegalStateException("'" + keyword.spelling + "' and '" + TABLE[slot].spelling + "' share a slot");
+            }
+            TABLE[slot] = keyword;
+        }
+    }
+
+    private final String spelling;
+    private final char[] chars;
+
+    Keyword(String spelling) {
+        this.spelling = spelling;
+        this.chars = spelling.toCharArray();
+    }
+
+    // The keyword spelled by source[offset, offset + length), or null
+    public static Keyword of(char[] source, int offset, int length) {
+        if (length < MIN_LENGTH || length > MAX_LENGTH) return null;
+        char first = source[offset];
+        if (first < 'A' || first > 'z' || (FIRST_CHARS[length] & 1L << (first - 'A')) == 0) return null;
+        Keyword keyword = TABLE[slot(source, offset, length)];
+        if (keyword == null || keyword.chars.length != length) return null;
+        char[] chars = keyword.chars;
+        for (int k = 0; k < length; k++) {
+            if (chars[k] != source[offset + k]) return null;
+        }
+        return keyword;
+    }
+
+    // The keyword that is the text of token i, or null
+    public static Keyword of(TokenStream tokens, int i) {
+        int offset = tokens.offset(i);
+        return of(tokens.source(), offset, tokens.end(i) - offset);
+    }
+
+    public static Keyword of(String s) {
+        return s.length() > MAX_LENGTH ? null : of(s.toCharArray(), 0, s.length());
+    }
+
+    // Fibonacci hashing of a polynomial hash of the chars; the top bits pick the slot
+    private static int slot(char[] source, int offset, int length) {
+        int h = 0;
+        for (int k = 0; k < length; k++) h = h * HASH_MULTIPLIER + source[offset + k];
+        return (h * 0x9E3779B1) >>> (32 - TABLE_BITS);
+    }
+
+    public String spelling() { return spelling; }
+
+    public boolean isReserved() { return this != STRING; }
+
+    public boolean isDataType() { return DATA_TYPES.contains(this); }
+
+    public boolean isPrimitive() { return PRIMITIVES.contains(this); }
+
+    public boolean isModifier() { return MODIFIERS.contains(this); }
+
+    public boolean isValue() { return VALUES.contains(this); }
+}
@@ -1,213 +1,343 @@
 package Model;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
 
+// Holds no per-call state: each analyze call works on its own Pass and returns an
+// immutable result, so one instance can be shared by any number of threads.
 public class LexicalAnalysis {
 
-    private final List<String> errors;   
-    private boolean isValid;
-    private int totalTokenCount;
-    private final List<String> tokenizedLines;
 
-    private final String[] dataTypes = {"int", "double", "float", "boolean", "char", "long", "byte", "short", "String"};
-    private final String assignmentOperators = "=";
-    private final String delimiter = ";";
-    private final String identifierRegex = "[A-Za-z_$][A-Za-z0-9_$]*";
+    // Parallel chunks: small enough to keep every worker busy and bound the token streams
+    // alive at once, large enough that scheduling stays negligible
+    private static final int MIN_CHUNK_CHARS = 1 << 16;
+    private static final int MAX_CHUNK_CHARS = 1 << 22;
+    private static final int BOUNDARY_SEARCH = 4096;
+
+    private final SourceScanner scanner = new SourceScanner();
+    private final SourceScanner legacyScanner = new SourceScanner(true);
+    private final int maxLineLength;
 
     public LexicalAnalysis() {
-        errors = new ArrayList<>();
-        tokenizedLines = new ArrayList<>();
-        isValid = true;
-    }
-    
-    public String analyze(String sourceCode) {
-        errors.clear();
-        isValid = true;
-        totalTokenCount = 0;
-        tokenizedLines.clear();
-        
-        int lineNum = 1;
-
-        for (String codeLine : sourceCode.split("\n")) {
-            String trimmed = codeLine.trim();
-            if (trimmed.isEmpty()) {
-                lineNum++;
-                continue;
+        this(Limits.DEFAULT);
+    }
+
+    public LexicalAnalysis(Limits limits) {
+        maxLineLength = limits.maxLineLength();
+    }
+
+    // Mutable state of a single analyze call
+    private static final class Pass {
+        final Diagnostics errors = new Diagnostics();
+        final List<String> tokenizedLines = new ArrayList<>();
+        final StringBuilder lineBuffer = new StringBuilder();
+        int totalTokenCount;
+        TokenKind previous;     // last token of the previous line, null before the first
+
+        LexicalResult result(TokenStream tokens) {
+            return new LexicalResult(errors, tokenizedLines, totalTokenCount, tokens);
+        }
+    }
+
+    public LexicalResult analyze(String sourceCode) {
+        return analyze(scanner.scan(sourceCode));
+    }
+
+    public LexicalResult analyze(TokenStream tokens) {
+        return analyze(tokens, null);
+    }
+
+    // For tokens that follow earlier lines, whose last token had kind previous
+    LexicalResult analyze(TokenStream tokens, TokenKind previous) {
+        Pass pass = new Pass();
+        pass.previous = previous;
+        analyzeLines(pass, tokens);
+        return pass.result(tokens);
+    }
+
+    // Streams a large file chunk by chunk; the result keeps no token stream for streamed input.
+    // A line too long for the source to hold is reported as one too long to check.
+    public LexicalResult analyze(MappedSource source) throws IOException {
+        Pass pass = new Pass();
+        source.setLongLineListener((line, column, length, last) -> {
+            pass.errors.add(Diagnostics.Code.LINE_TOO_LONG, line, column, length).arg(Integer.toString(maxLineLength));
+            pass.previous = last;
+        });
+        for (TokenStream chunk = source.nextChunk(); chunk != null; chunk = source.nextChunk()) {
+            analyzeLines(pass, chunk);
+        }
+        return pass.result(null);
+    }
+
+    // Lexes chunks of whole lines on pool and merges them in source order, with the same errors,
+    // tokenized lines and token count as analyze(String). Each chunk's tokens are dropped once it
+    // is lexed, so the result keeps no token stream.
+    public LexicalResult analyze(String sourceCode, ForkJoinPool pool) {
+        char[] src = sourceCode.toCharArray();
+        int[] bounds = chunkBounds(src, pool.getParallelism());
+        int chunks = bounds.length - 1;
+        if (chunks < 2) {
+            return analyze(scanner.scan(src, 0, src.length, 1));
+        }
+
+        // A chunk's first line number is one more than the newlines before it
+        int[] firstLines = new int[chunks];
+        Chunks.forEach(pool, chunks - 1, k -> firstLines[k + 1] = countNewlines(src, bounds[k], bounds[k + 1]));
+        firstLines[0] = 1;
+        for (int k = 1; k < chunks; k++) firstLines[k] += firstLines[k - 1];
+
+        Pass[] passes = new Pass[chunks];
+        TokenKind[] firstKinds = new TokenKind[chunks];
+        Chunks.forEach(pool, chunks, k -> {
+            TokenStream tokens = scanner.scan(src, bounds[k], bounds[k + 1], firstLines[k]);
+            Pass pass = new Pass();
+            analyzeLines(pass, tokens);
+            if (tokens.size() > 0) firstKinds[k] = tokens.kind(0);
+            passes[k] = pass;
+        });
+
+        Pass merged = new Pass();
+        for (int k = 0; k < chunks; k++) {
+            Pass pass = passes[k];
+            // Each chunk was lexed as if it started the file; one whose first line carries on
+            // the statement before it is lexed again knowing so
+            if (DeclarationParser.continues(merged.previous, firstKinds[k])) {
+                pass = new Pass();
+                pass.previous = merged.previous;
+                analyzeLines(pass, scanner.scan(src, bounds[k], bounds[k + 1], firstLines[k]));
             }
-            if (!isVariableDeclaration(trimmed, lineNum)) {
-                isValid = false;
-                errors.add("Line " + lineNum + ": Only variable declarations are allowed. Found: " + trimmed);
+            merged.errors.append(pass.errors);
+            merged.tokenizedLines.addAll(pass.tokenizedLines);
+            merged.totalTokenCount += pass.totalTokenCount;
+            if (pass.previous != null) merged.previous = pass.previous;
+        }
+        return merged.result(null);
+    }
+
+    // Chunk k is [bounds[k], bounds[k + 1]); every inner bound starts a line
+    private static int[] chunkBounds(char[] src, int parallelism) {
+        int n = src.length;
+        int target = Math.max(MIN_CHUNK_CHARS,
+                Math.min(MAX_CHUNK_CHARS, n / (Math.max(1, parallelism) * Chunks.PER_WORKER) + 1));
+        int[] bounds = new int[16];
+        int count = 1;
+        int from = 0;
+        while (from < n) {
+            int end = from + target < n ? nextBoundary(src, from + target, n) : n;
+            if (count == bounds.length) bounds = Arrays.copyOf(bounds, count * 2);
+            bounds[count++] = end;
+            from = end;
+        }
+        return Arrays.copyOf(bounds, count);
+    }
+
+    // Start of the first line from i on that follows a line ending in ';', looking a little way
+    // ahead; failing that, the start of the next line, or n when there is none
+    private static int nextBoundary(char[] src, int i, int n) {
+        int nextLine = -1;
+        for (int j = i; j < n; j++) {
+            if (src[j] != '\n') continue;
+            if (nextLine < 0) nextLine = j + 1;
+            int k = j - 1;
+            while (k >= 0 && src[k] <= ' ' && src[k] != '\n') k--;
+            if (k >= 0 && src[k] == ';') return j + 1;
+            if (j - i >= BOUNDARY_SEARCH) break;
+        }
+        return nextLine < 0 ? n : nextLine;
+    }
+
+    private static int countNewlines(char[] src, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (src[i] == '\n') count++;
+        }
+        return count;
+    }
+
+    private void analyzeLines(Pass pass, TokenStream tokens) {
+        int n = tokens.size();
+        int from = 0;
+
+        // Blank lines produce no tokens, so each run of tokens sharing a line is one trimmed source line
+        while (from < n) {
+            int lineNum = tokens.line(from);
+            int to = from + 1;
+            while (to < n && tokens.line(to) == lineNum) to++;
+
+            // A line too long to check is only reported; one that carries on the previous line's
+            // statement is checked as part of it
+            if (tokens.end(to - 1) - tokens.offset(from) > maxLineLength) {
+                pass.errors.add(Diagnostics.Code.LINE_TOO_LONG, lineNum, tokens, from, to)
+                        .arg(Integer.toString(maxLineLength));
+            } else if (DeclarationParser.continues(pass.previous, tokens.kind(from))) {
+                pass.tokenizedLines.add(categorizeLexemes(pass, tokens, from, to, lineNum));
+            } else if (!isVariableDeclaration(pass, tokens, from, to, lineNum)) {
+                pass.errors.add(Diagnostics.Code.NOT_A_DECLARATION, lineNum, tokens, from, to)
+                        .arg(tokens.source(), tokens.offset(from), tokens.end(to - 1));
             }
-            lineNum++;
+            pass.previous = tokens.kind(to - 1);
+            from = to;
         }
-        
-        return generateResult();
     }
-    
-    private boolean isVariableDeclaration(String line, int lineNum) {   
-        if (!line.contains(";") && !line.contains("=")) {
-            return false;   
+
+    private boolean isVariableDeclaration(Pass pass, TokenStream tokens, int from, int to, int lineNum) {
+        if (!containsSemicolonOrEquals(tokens, from, to)) {
+            return false;
         }
 
         // Tokenize and categorize lexemes for this line
-        String lineTokens = categorizeLexemes(line, lineNum);
-        tokenizedLines.add(lineTokens);
-        
-        String[] tokens = line.split("\\s+"); 
-        
-        if (tokens.length == 0) {
+        String lineTokens = categorizeLexemes(pass, tokens, from, to, lineNum);
+        pass.tokenizedLines.add(lineTokens);
+
+        // The first whitespace-separated word must be exactly a data type
+        if (from + 1 < to && tokens.isGlued(from + 1)) {
             return false;
         }
-        
-        for (String type : dataTypes) {
-            if (tokens[0].equals(type)) { 
-                return true;
+        return isDataType(tokens, from);
+    }
+
+    private boolean containsSemicolonOrEquals(TokenStream tokens, int from, int to) {
+        for (int i = from; i < to; i++) {
+            switch (tokens.kind(i)) {
+                case SEMICOLON: case ASSIGN: case EQUAL_EQUAL: case NOT_EQUAL: case LESS_EQUAL: case GREATER_EQUAL:
+                    return true;
+                case STRING_LITERAL: case CHAR_LITERAL:
+                    for (int k = tokens.offset(i), end = tokens.end(i); k < end; k++) {
+                        char c = tokens.charAt(k);
+                        if (c == ';' || c == '=') return true;
+                    }
+                    break;
+                default:
+                    break;
             }
         }
         return false;
     }
-    
-    private String categorizeLexemes(String line, int lineNum) {
-        // Normalize quotes
-        line = line.replace('"', '"').replace('"', '"');
-        
-        // Pattern to extract tokens (strings in quotes or non-whitespace)
-        Pattern p = Pattern.compile("\"[^\"]*\"|\\S+");
-        Matcher m = p.matcher(line);
-        
-        List<String> tokens = new ArrayList<>();
-        while (m.find()) {
-            tokens.add(m.group());
-        }
-        
-        List<String> lexemeCategories = new ArrayList<>();
-        boolean expectIdentifier = false;
+
+    private String categorizeLexemes(Pass pass, TokenStream tokens, int from, int to, int lineNum) {
+        // Lexemes are whitespace-separated words, except that a quoted string at the start of a
+        // word stands on its own. Lines whose quotes the scanner reads differently are rescanned
+        // with the legacy quoting rules so the categories stay exactly as before.
+        if (needsLegacyQuoting(tokens, from, to)) {
+            tokens = legacyScanner.scan(tokens.source(), tokens.offset(from), tokens.end(to - 1), lineNum);
+            from = 0;
+            to = tokens.size();
+        }
+
+        StringBuilder lexemeCategories = pass.lineBuffer;
+        lexemeCategories.setLength(0);
         int lineTokenCount = 0;
-        
-        for (String token : tokens) {
-            boolean hadDelimiter = token.endsWith(delimiter);
-            String t = token;
-            
-            // Remove trailing delimiters
-            if (hadDelimiter) {
-                while (t.endsWith(delimiter)) {
-                    t = t.substring(0, t.length() - 1);
-                }
+
+        int start = from;
+        while (start < to) {
+            int end = start + 1;
+            if (tokens.kind(start) != TokenKind.STRING_LITERAL) {
+                while (end < to && tokens.isGlued(end)) end++;
             }
-            
-            if (t.isEmpty()) {
-                lexemeCategories.add("<delimiter>");
+
+            // Remove trailing delimiters
+            int valueEnd = end;
+            while (valueEnd > start && tokens.kind(valueEnd - 1) == TokenKind.SEMICOLON) valueEnd--;
+            boolean hadDelimiter = valueEnd < end;
+
+            String category = categorize(tokens, start, valueEnd);
+            if (category != null) {
+                append(lexemeCategories, category);
                 lineTokenCount++;
-                expectIdentifier = false;
-                continue;
             }
-            
-            // Check for data types
-            boolean matched = false;
-            for (String dt : dataTypes) {
-                if (t.equals(dt)) {
-                    lexemeCategories.add("<data_type>");
-                    lineTokenCount++;
-                    expectIdentifier = true;
-                    matched = true;
-                    break;
-                }
-            }
-            
-            if (matched) {
-                if (hadDelimiter) {
-                    lexemeCategories.add("<delimiter>");
-                    lineTokenCount++;
-                    expectIdentifier = false;
-                }
-                continue;
-            }
-            
-            // Check for identifier after data type
-            if (expectIdentifier) {
-                if (t.matches(identifierRegex)) {
-                    lexemeCategories.add("<identifier>");
-                    lineTokenCount++;
-                    expectIdentifier = false;
-                    if (hadDelimiter) {
-                        lexemeCategories.add("<delimiter>");
-                        lineTokenCount++;
-                    }
-                    continue;
-                } else {
-                    expectIdentifier = false;
-                }
-            }
-            
-            // Check for assignment operators
-    
-        if(t.equals(assignmentOperators)){
-            lexemeCategories.add("<assignment_operator>");
-            lineTokenCount++;
             if (hadDelimiter) {
-                lexemeCategories.add("<delimiter>");
+                append(lexemeCategories, "<delimiter>");
                 lineTokenCount++;
-                expectIdentifier = false;
             }
-            continue; // Skip to next token
-
+            start = end;
         }
 
-            if (t.matches("[+-]?\\d+(\\.\\d+)?")) { 
-                lexemeCategories.add("<value>");
-                lineTokenCount++;
-            } else if (t.matches("\".*\"")) { 
-                lexemeCategories.add("<value>");
-                lineTokenCount++;
-            } else if (t.matches(identifierRegex)) {
-                lexemeCategories.add("<identifier>");
-                lineTokenCount++;
+        pass.totalTokenCount += lineTokenCount;
+        return "Line " + lineNum + " (" + lineTokenCount + " tokens): " + lexemeCategories;
+    }
+
+    private String categorize(TokenStream tokens, int start, int end) {
+        int count = end - start;
+        if (count == 1) {
+            switch (tokens.kind(start)) {
+                case IDENTIFIER:
+                    return isDataType(tokens, start) ? "<data_type>" : "<identifier>";
+                case ASSIGN:
+                    return "<assignment_operator>";
+                case INT_LITERAL:
+                    return "<value>";
+                case FLOAT_LITERAL:
+                    return hasExponent(tokens, start) ? null : "<value>";
+                case STRING_LITERAL:
+                    return hasLineTerminator(tokens, start) ? null : "<value>";
+                default:
+                    return null;
             }
-            
-            if (hadDelimiter) {
-                lexemeCategories.add("<delimiter>");
-                lineTokenCount++;
-                expectIdentifier = false;
+        }
+        if (count == 2) {
+            // Signed number: [+-]?\d+(\.\d+)?
+            TokenKind sign = tokens.kind(start);
+            TokenKind number = tokens.kind(start + 1);
+            if ((sign == TokenKind.PLUS || sign == TokenKind.MINUS)
+                    && (number == TokenKind.INT_LITERAL
+                        || (number == TokenKind.FLOAT_LITERAL && !hasExponent(tokens, start + 1)))) {
+                return "<value>";
             }
         }
-        
-        totalTokenCount += lineTokenCount;
-        return "Line " + lineNum + " (" + lineTokenCount + " tokens): " + String.join(" ", lexemeCategories);
-    }
-    
-    private String generateResult() {
-        StringBuilder result = new StringBuilder();
-        
-        if (isValid && errors.isEmpty()) {
-            result.append("LEXICAL ANALYSIS PASSED\n\n");
-            result.append("Total tokens found: ").append(totalTokenCount).append("\n\n");
-            
-            for (String tokenizedLine : tokenizedLines) {
-                result.append(tokenizedLine).append("\n");
+        return null;
+    }
+
+    private boolean isDataType(TokenStream tokens, int i) {
+        if (tokens.kind(i) != TokenKind.IDENTIFIER) {
+            return false;
+        }
+        Keyword keyword = Keyword.of(tokens, i);
+        return keyword != null && keyword.isDataType();
+    }
+
+    private boolean needsLegacyQuoting(TokenStream tokens, int from, int to) {
+        for (int i = from; i < to; i++) {
+            TokenKind kind = tokens.kind(i);
+            if (kind == TokenKind.OTHER && tokens.charAt(tokens.offset(i)) == '"') {
+                return true;
             }
-        } else {
-            result.append("LEXICAL ANALYSIS FAILED\n\n");
-            result.append("Errors:\n");
-            for (String error : errors) {
-                result.append(error).append("\n");
+            if (kind != TokenKind.STRING_LITERAL) {
+                continue;
+            }
+            // The old lexer ended a string at the first quote and split glued strings at whitespace
+            boolean glued = i > from && tokens.isGlued(i);
+            for (int k = tokens.offset(i) + 1, close = tokens.end(i) - 1; k < close; k++) {
+                char c = tokens.charAt(k);
+                if (c == '"' || (glued && c <= ' ')) {
+                    return true;
+                }
             }
         }
-        
-        return result.toString();
+        return false;
     }
-    
-    public boolean isPassed() {
-        return isValid && errors.isEmpty();
+
+    private boolean hasExponent(TokenStream tokens, int i) {
+        for (int k = tokens.offset(i), end = tokens.end(i); k < end; k++) {
+            char c = tokens.charAt(k);
+            if (c == 'e' || c == 'E') return true;
+        }
+        return false;
     }
-    
-    public int getTokenCount() {
-        return totalTokenCount;
+
+    // Mirrors "." in the old ".*" string check, which does not match line terminators
+    private boolean hasLineTerminator(TokenStream tokens, int i) {
+        for (int k = tokens.offset(i), end = tokens.end(i); k < end; k++) {
+            char c = tokens.charAt(k);
+            if (c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') return true;
+        }
+        return false;
     }
-    
-    public List<String> getTokenizedLines() {
-        return new ArrayList<>(tokenizedLines);
+
+    private static void append(StringBuilder sb, String category) {
+        if (sb.length() > 0) sb.append(' ');
+        sb.append(category);
     }
 }
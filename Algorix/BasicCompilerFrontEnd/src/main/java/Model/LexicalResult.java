@@ -0,0 +1,65 @@
+package Model;
+
+import java.util.List;
+
+// Immutable outcome of one lexical analysis
+public final class LexicalResult implements AnalysisResult {
+
+    private final List<String> errors;
+    private final List<String> tokenizedLines;
+    private final int tokenCount;
+    private final TokenStream tokens;
+
+    // The lists are owned by the finished pass and are never modified afterwards
+    LexicalResult(List<String> errors, List<String> tokenizedLines, int tokenCount, TokenStream tokens) {
+        this.errors = ResultCodec.readOnly(errors);
+        this.tokenizedLines = ResultCodec.readOnly(tokenizedLines);
+        this.tokenCount = tokenCount;
+        this.tokens = tokens;
+    }
+
+    @Override
+    public boolean isPassed() {
+        return errors.isEmpty();
+    }
+
+    @Override
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    public List<String> getTokenizedLines() {
+        return tokenizedLines;
+    }
+
+    // The analyzed token stream, for the syntax and semantic phases; null for streamed or incremental input
+    public TokenStream getTokens() {
+        return tokens;
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder result = new StringBuilder();
+
+        if (isPassed()) {
+            result.append("LEXICAL ANALYSIS PASSED\n\n");
+            result.append("Total tokens found: ").append(tokenCount).append("\n\n");
+
+            for (String tokenizedLine : tokenizedLines) {
+                result.append(tokenizedLine).append("\n");
+            }
+        } else {
+            result.append("LEXICAL ANALYSIS FAILED\n\n");
+            result.append("Errors:\n");
+            for (String error : errors) {
+                result.append(error).append("\n");
+            }
+        }
+
+        return result.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package Model;
+
+// Bounds on what the analyzers accept, so that no source costs more than time linear in its
+// length, whatever it holds. A line longer than maxLineLength chars is a lexical error. Parens,
+// calls, indexing, array braces, type arguments and '?:' nested deeper than maxNesting are a
+// syntax error, which also bounds the parsers' recursion. Evaluation builds at most
+// maxStringChars chars of String values per call, however the initializers combine them.
+public record Limits(int maxLineLength, int maxNesting, int maxStringChars) {
+
+    public static final Limits DEFAULT = new Limits(1 << 20, 256, 1 << 24);
+
+    public Limits {
+        if (maxLineLength < 1) throw new IllegalArgumentException("maxLineLength must be at least 1");
+        if (maxNesting < 1) throw new IllegalArgumentException("maxNesting must be at least 1");
+        if (maxStringChars < 0) throw new IllegalArgumentException("maxStringChars must not be negative");
+    }
+}
@@ -0,0 +1,345 @@
+package Model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Streams a source file to the analyzers as scanned chunks of whole statements. The file is
+// memory-mapped a window at a time and decoded incrementally, so only the current
+// window (off-heap) and one chunk of chars are held at once, whatever the file size.
+// A chunk grows to hold a long statement, up to the chunk size plus two maximum line lengths.
+// A line that does not fit then is longer than Limits.maxLineLength: it is skipped and told to
+// the LongLineListener instead. Only a statement of many lines that does not fit is split.
+public class MappedSource implements Closeable {
+
+    // Files larger than this are streamed rather than read into memory whole
+    public static final long LARGE_FILE_BYTES = 8L << 20;
+    public static final int DEFAULT_CHUNK_CHARS = 1 << 20;
+    private static final long WINDOW_BYTES = 64L << 20;
+
+    // Chars kept from the end of a skipped line to find its last token
+    private static final int TAIL_CHARS = 64;
+
+    // Told of each line skipped for being longer than maxLineLength, before the chunk after it
+    // is returned: where its text starts and ends, and the kind of its last token
+    @FunctionalInterface
+    public interface LongLineListener {
+        void longLine(int line, int column, int length, TokenKind last);
+    }
+
+    private final FileChannel channel;
+    private final long size;
+    private final int chunkChars;
+    private final int maxChars;
+    private final int maxLineLength;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final SourceScanner scanner = new SourceScanner();
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private boolean endOfInput;
+
+    private char[] chars;
+    private int charCount;      // decoded chars in 'chars'
+    private int carryStart;     // start of the partial line left over from the previous chunk
+    private int nextLine = 1;
+
+    // State of the partial line at the front of 'chars' once it filled the whole buffer
+    private long lineShift;     // its leading blanks dropped to make room
+    private boolean blankTail;  // its text is followed by more than maxLineLength blanks, one kept
+    private long tailGap;       // how many of those blanks were dropped
+    private final char[] tail = new char[TAIL_CHARS];
+    private int tailLength;
+
+    private ProgressListener progressListener;
+    private LongLineListener longLineListener;
+
+    private MappedSource(FileChannel channel, int chunkChars, Limits limits) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.chunkChars = chunkChars;
+        this.maxChars = (int) Math.min(Integer.MAX_VALUE - 8, chunkChars + 2L * limits.maxLineLength());
+        this.maxLineLength = limits.maxLineLength();
+        this.chars = new char[chunkChars];
+    }
+
+    public static MappedSource open(Path path) throws IOException {
+        return open(path, DEFAULT_CHUNK_CHARS, Limits.DEFAULT);
+    }
+
+    public static MappedSource open(Path path, int chunkChars) throws IOException {
+        return open(path, chunkChars, Limits.DEFAULT);
+    }
+
+    public static MappedSource open(Path path, Limits limits) throws IOException {
+        return open(path, DEFAULT_CHUNK_CHARS, limits);
+    }
+
+    public static MappedSource open(Path path, int chunkChars, Limits limits) throws IOException {
+        if (chunkChars < 1) throw new IllegalArgumentException("chunkChars must be at least 1");
+        return new MappedSource(FileChannel.open(path, StandardOpenOption.READ), chunkChars, limits);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    // Bytes decoded so far
+    public long position() {
+        return windowStart + (window != null ? window.position() : 0);
+    }
+
+    // Called with position() and size() after each chunk is read
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public void setLongLineListener(LongLineListener longLineListener) {
+        this.longLineListener = longLineListener;
+    }
+
+    // Chars the buffer holds now, for tests of its bound
+    int capacity() {
+        return chars.length;
+    }
+
+    // Scans the next run of complete statements, or returns null at the end of the file.
+    // The returned stream shares this source's buffer and is only valid until the next call.
+    // An interrupted reader gets an InterruptedIOException, which is how a cancelled run stops.
+    public TokenStream nextChunk() throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Reading was interrupted");
+        }
+
+        // Move the unfinished line from the previous chunk to the front, into a buffer of the
+        // usual size again once a chunk that needed a larger one is gone
+        int carried = charCount - carryStart;
+        char[] front = chars.length > chunkChars && carried < chunkChars ? new char[chunkChars] : chars;
+        System.arraycopy(chars, carryStart, front, 0, carried);
+        chars = front;
+        charCount = carried;
+        carryStart = 0;
+
+        while (true) {
+            int filled = charCount;
+            fill();
+            if (blankTail && !blankTailEnds(filled)) {
+                carried = 0;
+                continue;
+            }
+            int boundary = lastBoundary(carried);
+            if (boundary >= 0) {
+                return emit(boundary + 1);
+            }
+            if (endOfInput) {
+                return charCount > 0 ? emit(charCount) : null;
+            }
+            carried = charCount;
+            if (chars.length < maxChars) {
+                // A single statement longer than the buffer: grow it and keep decoding
+                chars = Arrays.copyOf(chars, (int) Math.min(maxChars, 2L * chars.length));
+                continue;
+            }
+            // Full at the cap: hand over the lines before the last one, where a statement starts
+            // if any does, which leaves the last line room to end in
+            int lastNewline = charCount - 1;
+            while (lastNewline >= 0 && chars[lastNewline] != '\n') lastNewline--;
+            if (lastNewline >= 0) {
+                return emit(statementStart(lastNewline + 1));
+            }
+            carried = 0;
+            makeRoom();
+        }
+    }
+
+    // The start of the last line before limit on which a statement starts, by the parser's
+    // rule; limit when no line after the first one does
+    private int statementStart(int limit) {
+        TokenStream tokens = scanner.scan(chars, 0, limit, nextLine);
+        for (int i = tokens.size() - 1; i > 0; i--) {
+            if (tokens.line(i) != tokens.line(i - 1) && !DeclarationParser.continues(tokens.kind(i - 1), tokens.kind(i))) {
+                int start = tokens.offset(i);
+                while (chars[start - 1] != '\n') start--;
+                return start;
+            }
+        }
+        return limit;
+    }
+
+    // The buffer holds nothing but the start of one line. Drops its leading blanks, or all but
+    // one of its trailing blanks, or skips it when its text is already too long.
+    private void makeRoom() throws IOException {
+        int first = 0;
+        while (first < charCount && chars[first] <= ' ') first++;
+        if (first == charCount) {
+            lineShift += charCount;
+            charCount = 0;
+            return;
+        }
+        int last = charCount - 1;
+        while (chars[last] <= ' ') last--;
+        if (last - first >= maxLineLength) {
+            skipLine(lineShift + first + 1, lineShift + last + 1, lineShift, charCount);
+        } else if (first > 0) {
+            System.arraycopy(chars, first, chars, 0, charCount - first);
+            charCount -= first;
+            lineShift += first;
+        } else {
+            // The blanks after the text are more than maxLineLength (the buffer holds the text,
+            // them and at least one more line's worth), so more text on the line is too long
+            tailGap = charCount - (last + 2);
+            charCount = last + 2;
+            blankTail = true;
+        }
+    }
+
+    // Looks at the chars decoded after a blank tail: true once the line ends, false when they
+    // were more blanks, dropped, or text, which makes the line too long and skipped
+    private boolean blankTailEnds(int from) throws IOException {
+        int k = from;
+        while (k < charCount && chars[k] <= ' ' && chars[k] != '\n') k++;
+        if (k < charCount && chars[k] == '\n') {
+            blankTail = false;
+            return true;
+        }
+        if (k == charCount) {
+            tailGap += charCount - from;
+            charCount = from;
+            if (!endOfInput) return false;
+            blankTail = false;
+            return true;
+        }
+        skipLine(lineShift + 1, lineShift + from - 1, lineShift + tailGap, from);
+        return false;
+    }
+
+    // Reads on to the end of the line at the front of the buffer, keeping none of it but its
+    // last few chars, and tells the listener. column and end are the line's text so far; the
+    // chars from 'from' on are at offset base + index in the line.
+    private void skipLine(long column, long end, long base, int from) throws IOException {
+        tailLength = 0;
+        while (true) {
+            int k = from;
+            while (k < charCount && chars[k] != '\n') {
+                if (chars[k] > ' ') end = base + k + 1;
+                k++;
+            }
+            keepTail(k);
+            if (k < charCount || endOfInput) {
+                if (longLineListener != null) {
+                    longLineListener.longLine(nextLine, (int) Math.min(Integer.MAX_VALUE, column),
+                            (int) Math.min(Integer.MAX_VALUE, end - column + 1), lastTailKind());
+                }
+                if (k < charCount) {
+                    System.arraycopy(chars, k + 1, chars, 0, charCount - (k + 1));
+                    charCount -= k + 1;
+                    nextLine++;
+                } else {
+                    charCount = 0;
+                }
+                lineShift = 0;
+                tailGap = 0;
+                blankTail = false;
+                return;
+            }
+            base += charCount;
+            charCount = 0;
+            from = 0;
+            fill();
+        }
+    }
+
+    // Keeps the last TAIL_CHARS chars of the skipped line's text up to chars[to]; a run of
+    // blanks after it only adds one blank
+    private void keepTail(int to) {
+        int end = to;
+        while (end > 0 && chars[end - 1] <= ' ') end--;
+        if (end < to) end++;
+        if (end == 1 && chars[0] <= ' ' && tailLength > 0 && tail[tailLength - 1] <= ' ') return;
+        int n = Math.min(end, TAIL_CHARS);
+        int kept = Math.min(tailLength, TAIL_CHARS - n);
+        System.arraycopy(tail, tailLength - kept, tail, 0, kept);
+        System.arraycopy(chars, end - n, tail, kept, n);
+        tailLength = kept + n;
+    }
+
+    // Scanned from the first blank inside the tail's text, so that no token is cut, when there
+    // is one
+    private TokenKind lastTailKind() {
+        int end = tailLength;
+        while (end > 0 && tail[end - 1] <= ' ') end--;
+        int from = 0;
+        while (from < end && tail[from] > ' ') from++;
+        if (from == end) from = 0;
+        TokenStream tokens = scanner.scan(tail, from, end, 1);
+        return tokens.size() > 0 ? tokens.kind(tokens.size() - 1) : null;
+    }
+
+    // The last newline from 'from' on closing a line that ends in ';', or -1. A line that ends
+    // otherwise may be carried on by the next one, so cutting there could split a statement.
+    private int lastBoundary(int from) {
+        for (int i = charCount - 1; i >= from; i--) {
+            if (chars[i] != '\n') continue;
+            int j = i - 1;
+            while (j >= 0 && chars[j] <= ' ' && chars[j] != '\n') j--;
+            if (j >= 0 && chars[j] == ';') return i;
+        }
+        return -1;
+    }
+
+    private TokenStream emit(int end) {
+        TokenStream chunk = scanner.scan(chars, 0, end, nextLine);
+        nextLine += chunk.lineCount() - (end > 0 && chars[end - 1] == '\n' ? 1 : 0);
+        carryStart = end;
+        lineShift = 0;
+        if (progressListener != null) progressListener.progress(position(), size);
+        return chunk;
+    }
+
+    // Decodes bytes until the char buffer is full or the file ends
+    private void fill() throws IOException {
+        CharBuffer out = CharBuffer.wrap(chars, charCount, chars.length - charCount);
+        while (out.hasRemaining() && !endOfInput) {
+            ByteBuffer in = currentWindow();
+            boolean last = windowStart + in.limit() == size;
+            CoderResult result = decoder.decode(in, out, last);
+            if (result.isOverflow()) break;
+            if (last && !in.hasRemaining()) {
+                decoder.flush(out);
+                endOfInput = true;
+            } else if (result.isUnderflow()) {
+                // Window used up, or only part of a multi-byte sequence left: remap from here
+                windowStart += in.position();
+                window = null;
+            }
+        }
+        charCount = out.position();
+    }
+
+    private ByteBuffer currentWindow() throws IOException {
+        if (window == null) {
+            long length = Math.min(WINDOW_BYTES, size - windowStart);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+        }
+        return window;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
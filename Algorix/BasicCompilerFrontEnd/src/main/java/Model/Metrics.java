@@ -0,0 +1,33 @@
+package Model;
+
+// Where analysis runs report what they did. Each phase and each file is timed from a start to
+// a stop; the stop reads the counters off the result. NONE ignores everything and hands out
+// one shared timer, so instrumented code costs a virtual call when metrics are off.
+public interface Metrics {
+
+    enum Counter { BYTES, TOKENS, LINES, DECLARATIONS, ERRORS, SYMBOLS }
+
+    interface Timer {
+        // result is the phase's result, or for a file the last phase that ran, which decides whether it passed
+        void stop(AnalysisResult result);
+    }
+
+    Timer IGNORED = result -> { };
+
+    Metrics NONE = new Metrics() {
+        @Override
+        public Timer phase(String file, ResultCache.Phase phase, long bytes) {
+            return IGNORED;
+        }
+
+        @Override
+        public Timer file(String file, long bytes) {
+            return IGNORED;
+        }
+    };
+
+    // bytes is the size of the source: of the file, or in chars for text held in memory
+    Timer phase(String file, ResultCache.Phase phase, long bytes);
+
+    Timer file(String file, long bytes);
+}
@@ -0,0 +1,110 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Flat parse tree of a declaration file, stored column-wise like TokenStream. Statement s
+// spans tokens [start(s), end(s)), its ';' included. A statement that parsed as a declaration
+// has a type, tokens [typeFrom(s), typeTo(s)), and declarators [declaratorFrom(s), declaratorTo(s)),
+// each with its name token and the tokens of its initializer. Statements with a syntax error
+// keep only their span. Built by DeclarationParser; read-only once returned.
+public final class ParseTree {
+
+    private final TokenStream tokens;
+    private final Diagnostics errors = new Diagnostics();
+
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int[] typeFroms = new int[16];
+    private int[] typeTos = new int[16];
+    private int[] declaratorFroms = new int[16];
+    private int[] declaratorTos = new int[16];
+    private int statements;
+
+    private int[] names = new int[16];
+    private int[] initFroms = new int[16];
+    private int[] initTos = new int[16];
+    private int declarators;
+
+    ParseTree(TokenStream tokens) {
+        this.tokens = tokens;
+    }
+
+    public TokenStream tokens() { return tokens; }
+
+    public List<String> getErrors() { return errors; }
+
+    public int statementCount() { return statements; }
+
+    public int start(int s) { return starts[s]; }
+
+    public int end(int s) { return ends[s]; }
+
+    public boolean isDeclaration(int s) { return declaratorTos[s] > declaratorFroms[s]; }
+
+    public int typeFrom(int s) { return typeFroms[s]; }
+
+    public int typeTo(int s) { return typeTos[s]; }
+
+    public int declaratorFrom(int s) { return declaratorFroms[s]; }
+
+    public int declaratorTo(int s) { return declaratorTos[s]; }
+
+    public int declaratorCount() { return declarators; }
+
+    // Name token of declarator d
+    public int name(int d) { return names[d]; }
+
+    // Initializer tokens of declarator d; the range is empty when it has none
+    public int initializerFrom(int d) { return initFroms[d]; }
+
+    public int initializerTo(int d) { return initTos[d]; }
+
+    Diagnostics errors() {
+        return errors;
+    }
+
+    int addStatement(int start, int end) {
+        if (statements == starts.length) {
+            int grown = statements * 2;
+            starts = Arrays.copyOf(starts, grown);
+            ends = Arrays.copyOf(ends, grown);
+            typeFroms = Arrays.copyOf(typeFroms, grown);
+            typeTos = Arrays.copyOf(typeTos, grown);
+            declaratorFroms = Arrays.copyOf(declaratorFroms, grown);
+            declaratorTos = Arrays.copyOf(declaratorTos, grown);
+        }
+        starts[statements] = start;
+        ends[statements] = end;
+        typeFroms[statements] = start;
+        typeTos[statements] = start;
+        declaratorFroms[statements] = declarators;
+        declaratorTos[statements] = declarators;
+        return statements++;
+    }
+
+    void setType(int s, int from, int to) {
+        typeFroms[s] = from;
+        typeTos[s] = to;
+    }
+
+    void addDeclarator(int s, int name, int initFrom, int initTo) {
+        if (declarators == names.length) {
+            int grown = declarators * 2;
+            names = Arrays.copyOf(names, grown);
+            initFroms = Arrays.copyOf(initFroms, grown);
+            initTos = Arrays.copyOf(initTos, grown);
+        }
+        names[declarators] = name;
+        initFroms[declarators] = initFrom;
+        initTos[declarators] = initTo;
+        declaratorTos[s] = ++declarators;
+    }
+
+    // Drops what a statement recorded before it failed, leaving only its span
+    void reject(int s) {
+        declarators = declaratorFroms[s];
+        declaratorTos[s] = declarators;
+        typeTos[s] = typeFroms[s];
+    }
+}
@@ -0,0 +1,45 @@
+package Model;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// One phase over one source, emitted by RecordingMetrics while a flight recording enables it
+@Name("algorix.Phase")
+@Label("Analysis Phase")
+@Category("Algorix")
+@Description("One analysis phase over one source")
+@StackTrace(false)
+final class PhaseEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Passed")
+    boolean passed;
+
+    @Label("Source Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Tokens")
+    long tokens;
+
+    @Label("Lines")
+    long lines;
+
+    @Label("Declarations")
+    long declarations;
+
+    @Label("Errors")
+    long errors;
+
+    @Label("Symbols")
+    long symbols;
+}
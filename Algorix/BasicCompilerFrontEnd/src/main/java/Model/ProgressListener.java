@@ -0,0 +1,7 @@
+package Model;
+
+// Receives how much of a long-running analysis is done, e.g. bytes read or lines checked
+@FunctionalInterface
+public interface ProgressListener {
+    void progress(long done, long total);
+}
@@ -0,0 +1,123 @@
+package Model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Metrics that are kept: per phase the runs, the time spent and the sum of each counter, and
+// per file the count and time. Every phase and file is also emitted as a flight recorder event
+// (algorix.Phase, algorix.File) while a recording enables them. Counters a result cannot
+// supply stay 0: declarations need the parse tree, which streamed and cached results drop.
+// Safe for use from many threads.
+public final class RecordingMetrics implements Metrics {
+
+    private static final ResultCache.Phase[] PHASES = ResultCache.Phase.values();
+    private static final Counter[] COUNTERS = Counter.values();
+
+    private final LongAdder[] runs = adders(PHASES.length);
+    private final LongAdder[] nanos = adders(PHASES.length);
+    private final LongAdder[] counters = adders(PHASES.length * COUNTERS.length);
+    private final LongAdder files = new LongAdder();
+    private final LongAdder failedFiles = new LongAdder();
+    private final LongAdder fileNanos = new LongAdder();
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) adders[i] = new LongAdder();
+        return adders;
+    }
+
+    @Override
+    public Timer phase(String file, ResultCache.Phase phase, long bytes) {
+        PhaseEvent event = new PhaseEvent();
+        event.begin();
+        long start = System.nanoTime();
+        return result -> {
+            long elapsed = System.nanoTime() - start;
+            int p = phase.ordinal();
+            runs[p].increment();
+            nanos[p].add(elapsed);
+            long tokens = 0, lines = 0, declarations = 0, symbols = 0;
+            if (result instanceof LexicalResult lexical) {
+                tokens = lexical.getTokenCount();
+                lines = lexical.getTokenizedLines().size();
+            } else if (result instanceof SyntaxResult syntax && syntax.getTree() != null) {
+                declarations = syntax.getTree().declaratorCount();
+            } else if (result instanceof SemanticResult semantic) {
+                symbols = semantic.getSymbols().size();
+            }
+            long errors = result.getErrors().size();
+            add(p, Counter.BYTES, bytes);
+            add(p, Counter.TOKENS, tokens);
+            add(p, Counter.LINES, lines);
+            add(p, Counter.DECLARATIONS, declarations);
+            add(p, Counter.ERRORS, errors);
+            add(p, Counter.SYMBOLS, symbols);
+
+            if (event.shouldCommit()) {
+                event.file = file;
+                event.phase = phase.name();
+                event.passed = result.isPassed();
+                event.bytes = bytes;
+                event.tokens = tokens;
+                event.lines = lines;
+                event.declarations = declarations;
+                event.errors = errors;
+                event.symbols = symbols;
+                event.commit();
+            }
+        };
+    }
+
+    @Override
+    public Timer file(String file, long bytes) {
+        FileEvent event = new FileEvent();
+        event.begin();
+        long start = System.nanoTime();
+        return result -> {
+            files.increment();
+            if (!result.isPassed()) failedFiles.increment();
+            fileNanos.add(System.nanoTime() - start);
+            if (event.shouldCommit()) {
+                event.file = file;
+                event.passed = result.isPassed();
+                event.bytes = bytes;
+                event.commit();
+            }
+        };
+    }
+
+    private void add(int phase, Counter counter, long value) {
+        if (value != 0) counters[phase * COUNTERS.length + counter.ordinal()].add(value);
+    }
+
+    public long get(ResultCache.Phase phase, Counter counter) {
+        return counters[phase.ordinal() * COUNTERS.length + counter.ordinal()].sum();
+    }
+
+    public long getRuns(ResultCache.Phase phase) { return runs[phase.ordinal()].sum(); }
+
+    public long getNanos(ResultCache.Phase phase) { return nanos[phase.ordinal()].sum(); }
+
+    public long getFiles() { return files.sum(); }
+
+    public long getFailedFiles() { return failedFiles.sum(); }
+
+    public long getFileNanos() { return fileNanos.sum(); }
+
+    // One row per phase, then the files; times are summed over threads, so they can exceed the wall clock
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("%-9s %6s %10s %9s %8s %12s %10s %12s %9s %10s%n",
+                "phase", "runs", "ms", "KB", "MB/s", "tokens", "lines", "declarations", "errors", "symbols"));
+        for (ResultCache.Phase phase : PHASES) {
+            double millis = getNanos(phase) / 1e6;
+            long bytes = get(phase, Counter.BYTES);
+            sb.append(String.format("%-9s %6d %10.1f %9d %8.1f %12d %10d %12d %9d %10d%n",
+                    phase.name().toLowerCase(), getRuns(phase), millis, bytes >> 10,
+                    millis > 0 ? bytes / 1048.576 / millis : 0.0,
+                    get(phase, Counter.TOKENS), get(phase, Counter.LINES), get(phase, Counter.DECLARATIONS),
+                    get(phase, Counter.ERRORS), get(phase, Counter.SYMBOLS)));
+        }
+        sb.append(String.format("%-9s %6d %10.1f %d failed", "files", getFiles(), getFileNanos() / 1e6, getFailedFiles()));
+        return sb.toString();
+    }
+}
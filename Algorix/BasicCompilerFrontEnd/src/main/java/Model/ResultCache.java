@@ -0,0 +1,427 @@
+package Model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Phase results of sources seen before, keyed by a 128-bit hash of the source text seeded
+// with the analyzer version and the limits it ran under. An in-memory tier keeps the most recently used entries within
+// a byte budget; an optional directory keeps entries across runs, one file each, written once
+// the entry's last phase is put. Opening the directory deletes the least recently used files
+// beyond its own budget, so it grows by at most one run's new entries past it. Results are
+// stored without their token stream or parse tree. Safe for use from many threads.
+public final class ResultCache {
+
+    // Part of every key: change it whenever any phase reports differently for the same source
+    public static final String ANALYZER_VERSION = "frontend-3";
+
+    public static final long DEFAULT_MEMORY_BYTES = 64L << 20;
+    public static final long DEFAULT_DISK_BYTES = 1L << 30;
+
+    public enum Phase { LEXICAL, SYNTAX, SEMANTIC }
+
+    public record Key(long high, long low) {
+        @Override
+        public String toString() {
+            return String.format("%016x%016x", high, low);
+        }
+    }
+
+    private static final int ENTRY_BYTES = 96;
+    private static final int STRING_BYTES = 48;
+    private static final int SYMBOL_BYTES = 32;
+    private static final int HASH_BLOCK = 8192;
+    private static final int DISK_LOCKS = 64;
+    // Temporary files older than this were left by a run that died while writing
+    private static final long STALE_TEMP_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    // Results of one source, by phase; bytes is their estimated heap size
+    private static final class Entry {
+        final AnalysisResult[] results = new AnalysisResult[Phase.values().length];
+        long bytes = ENTRY_BYTES;
+    }
+
+    private final long maxBytes;
+    private final Path directory;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    // Phases put for keys whose last phase has not come yet, written to disk along with it
+    private final ConcurrentHashMap<Key, Entry> pending = new ConcurrentHashMap<>();
+    // Writes of one key's file are serialized by the lock its hash picks
+    private final Object[] diskLocks = new Object[DISK_LOCKS];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Memory only
+    public ResultCache(long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    private ResultCache(long maxBytes, Path directory) {
+        if (maxBytes < 0) throw new IllegalArgumentException("maxBytes must not be negative");
+        this.maxBytes = maxBytes;
+        this.directory = directory;
+        for (int i = 0; i < DISK_LOCKS; i++) diskLocks[i] = new Object();
+    }
+
+    // Also keeps entries under directory, which is created if missing, within DEFAULT_DISK_BYTES
+    public static ResultCache open(long maxBytes, Path directory) throws IOException {
+        return open(maxBytes, directory, DEFAULT_DISK_BYTES);
+    }
+
+    // Also keeps entries under directory, first deleting the least recently used files while
+    // they take more than maxDiskBytes. Writing a file or reading it on a hit counts as a use.
+    public static ResultCache open(long maxBytes, Path directory, long maxDiskBytes) throws IOException {
+        if (maxDiskBytes < 0) throw new IllegalArgumentException("maxDiskBytes must not be negative");
+        Files.createDirectories(directory);
+        prune(directory, maxDiskBytes);
+        return new ResultCache(maxBytes, directory);
+    }
+
+    public static Key key(String source) {
+        return key(source, Limits.DEFAULT);
+    }
+
+    // MurmurHash3 x64/128 of the source's UTF-16 code units, seeded with the analyzer version
+    // and limits: the same source under other limits may report differently, so it gets
+    // another key. mix is a bijection, so no two limits share a seed.
+    // The chars are copied out a block at a time, which is much faster than charAt.
+    public static Key key(String source, Limits limits) {
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        long version = ANALYZER_VERSION.hashCode() & 0xFFFFFFFFL;
+        long h1 = version ^ mix((long) limits.maxLineLength() << 32 | limits.maxNesting());
+        long h2 = version ^ mix(limits.maxStringChars());
+        int n = source.length();
+        char[] block = new char[Math.min(n, HASH_BLOCK)];
+        int i = 0;
+        while (n - i >= 8) {
+            int count = Math.min(HASH_BLOCK, (n - i) & ~7);
+            source.getChars(i, i + count, block, 0);
+            for (int j = 0; j < count; j += 8) {
+                long k1 = pack(block, j, 4);
+                long k2 = pack(block, j + 4, 4);
+                k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+                h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52dce729;
+                k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+                h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495ab5;
+            }
+            i += count;
+        }
+        if (i < n) {
+            int tail = n - i;
+            source.getChars(i, n, block, 0);
+            long k1 = pack(block, 0, Math.min(tail, 4));
+            if (tail > 4) {
+                long k2 = pack(block, 4, tail - 4);
+                k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+            }
+            k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+        }
+        long length = 2L * n;
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = mix(h1);
+        h2 = mix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new Key(h1, h2);
+    }
+
+    // Up to four chars from i, little-endian
+    private static long pack(char[] chars, int i, int count) {
+        if (count == 4) {
+            return chars[i] | (long) chars[i + 1] << 16 | (long) chars[i + 2] << 32 | (long) chars[i + 3] << 48;
+        }
+        long k = 0;
+        for (int j = count - 1; j >= 0; j--) k = k << 16 | chars[i + j];
+        return k;
+    }
+
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    // The stored result, or null on a miss. A hit on disk is promoted to memory.
+    public AnalysisResult get(Key key, Phase phase) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.results[phase.ordinal()] != null) {
+                hits.increment();
+                return entry.results[phase.ordinal()];
+            }
+        }
+        if (directory != null) {
+            Entry stored = read(key);
+            if (stored != null && stored.results[phase.ordinal()] != null) {
+                synchronized (entries) {
+                    for (Phase p : Phase.values()) {
+                        if (stored.results[p.ordinal()] != null) store(key, p, stored.results[p.ordinal()]);
+                    }
+                }
+                touch(key);
+                diskHits.increment();
+                return stored.results[phase.ordinal()];
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    // The last phase of an entry is SEMANTIC or one that failed, after which BatchAnalyzer runs
+    // no other. Earlier phases wait in pending until it comes, and are added to pending before
+    // memory, so a thread that finds them in memory and puts the last phase writes them too.
+    public void put(Key key, Phase phase, AnalysisResult result) {
+        AnalysisResult stripped = strip(phase, result);
+        boolean last = phase == Phase.SEMANTIC || !result.isPassed();
+        if (directory != null && !last) {
+            pending.compute(key, (k, entry) -> {
+                if (entry == null) entry = new Entry();
+                entry.results[phase.ordinal()] = stripped;
+                return entry;
+            });
+        }
+        synchronized (entries) {
+            store(key, phase, stripped);
+        }
+        if (directory == null || !last) return;
+
+        Entry earlier = pending.remove(key);
+        synchronized (diskLocks[(int) key.low() & (DISK_LOCKS - 1)]) {
+            // The file keeps phases another thread or an earlier run stored
+            Entry stored = read(key);
+            if (stored == null) stored = new Entry();
+            if (earlier != null) {
+                for (int p = 0; p < stored.results.length; p++) {
+                    if (earlier.results[p] != null) stored.results[p] = earlier.results[p];
+                }
+            }
+            stored.results[phase.ordinal()] = stripped;
+            write(key, stored);
+        }
+    }
+
+    public LexicalResult lexical(Key key, Supplier<LexicalResult> analysis) {
+        return (LexicalResult) get(key, Phase.LEXICAL, analysis);
+    }
+
+    public SyntaxResult syntax(Key key, Supplier<SyntaxResult> analysis) {
+        return (SyntaxResult) get(key, Phase.SYNTAX, analysis);
+    }
+
+    public SemanticResult semantic(Key key, Supplier<SemanticResult> analysis) {
+        return (SemanticResult) get(key, Phase.SEMANTIC, analysis);
+    }
+
+    // A miss runs the analysis and caches what it returns, which is handed back as it is
+    private AnalysisResult get(Key key, Phase phase, Supplier<? extends AnalysisResult> analysis) {
+        AnalysisResult result = get(key, phase);
+        if (result != null) return result;
+        result = analysis.get();
+        put(key, phase, result);
+        return result;
+    }
+
+    public long getHits() { return hits.sum() + diskHits.sum(); }
+
+    public long getDiskHits() { return diskHits.sum(); }
+
+    public long getMisses() { return misses.sum(); }
+
+    public long getEvictions() { return evictions.sum(); }
+
+    public long getMemoryBytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    public int getMemoryEntries() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits (%d from disk), %d misses, %d evictions, %d entries, %d KB in memory",
+                getHits(), getDiskHits(), getMisses(), getEvictions(), getMemoryEntries(), getMemoryBytes() >> 10);
+    }
+
+    // Caller holds the entries lock
+    private void store(Key key, Phase phase, AnalysisResult result) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(key, entry);
+            bytes += entry.bytes;
+        }
+        AnalysisResult old = entry.results[phase.ordinal()];
+        long delta = estimate(result) - (old == null ? 0 : estimate(old));
+        entry.results[phase.ordinal()] = result;
+        entry.bytes += delta;
+        bytes += delta;
+
+        // An entry larger than the whole budget is dropped alone; otherwise least recently used first
+        if (entry.bytes > maxBytes) {
+            entries.remove(key);
+            bytes -= entry.bytes;
+            evictions.increment();
+            return;
+        }
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static AnalysisResult strip(Phase phase, AnalysisResult result) {
+        switch (phase) {
+            case LEXICAL: {
+                LexicalResult lexical = (LexicalResult) result;
+                if (lexical.getTokens() == null) return lexical;
+                return new LexicalResult(lexical.getErrors(), lexical.getTokenizedLines(), lexical.getTokenCount(), null);
+            }
+            case SYNTAX: {
+                SyntaxResult syntax = (SyntaxResult) result;
+                return syntax.getTree() == null ? syntax : new SyntaxResult(syntax.getErrors(), null);
+            }
+            default:
+                return (SemanticResult) result;
+        }
+    }
+
+    private static long estimate(AnalysisResult result) {
+        long size = estimate(result.getErrors());
+        if (result instanceof LexicalResult lexical) size += estimate(lexical.getTokenizedLines());
+        if (result instanceof SemanticResult semantic) size += (long) SYMBOL_BYTES * semantic.getSymbols().size();
+        return size;
+    }
+
+    // Lists read from disk and diagnostics are sized without formatting their messages
+    private static long estimate(List<String> strings) {
+        long encoded = ResultCodec.encodedBytes(strings);
+        if (encoded >= 0) return encoded;
+        long size = 16L + 8L * strings.size();
+        for (String s : strings) size += STRING_BYTES + s.length();
+        return size;
+    }
+
+    private Path file(Key key) {
+        return directory.resolve(key + ".result");
+    }
+
+    // The stored results of key, or null when there are none or the file is damaged. The file is
+    // mapped and its results read through the mapping, so lists are decoded only when used.
+    private Entry read(Key key) {
+        Path file = file(key);
+        if (!Files.exists(file)) return null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Entry entry = new Entry();
+            for (AnalysisResult result : ResultCodec.read(buffer)) {
+                Phase phase = result instanceof LexicalResult ? Phase.LEXICAL
+                        : result instanceof SyntaxResult ? Phase.SYNTAX : Phase.SEMANTIC;
+                entry.results[phase.ordinal()] = result;
+            }
+            return entry;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // A disk hit makes the file the most recently used
+    private void touch(Key key) {
+        try {
+            Files.setLastModifiedTime(file(key), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // deleted meanwhile; the entry was read anyway
+        }
+    }
+
+    // Deletes temporary files left by runs that died, then the least recently used entries
+    // while they take more than maxDiskBytes
+    private static void prune(Path directory, long maxDiskBytes) throws IOException {
+        record Stored(Path file, long bytes, long used) {}
+        List<Stored> stored = new ArrayList<>();
+        long total = 0;
+        long staleBefore = System.currentTimeMillis() - STALE_TEMP_MILLIS;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (!attributes.isRegularFile()) continue;
+                    long used = attributes.lastModifiedTime().toMillis();
+                    if (name.endsWith(".tmp") && used < staleBefore) {
+                        Files.deleteIfExists(file);
+                    } else if (name.endsWith(".result")) {
+                        stored.add(new Stored(file, attributes.size(), used));
+                        total += attributes.size();
+                    }
+                } catch (IOException e) {
+                    // deleted meanwhile by another run
+                }
+            }
+        }
+        if (total <= maxDiskBytes) return;
+        stored.sort(Comparator.comparingLong(Stored::used));
+        for (Stored entry : stored) {
+            if (total <= maxDiskBytes) break;
+            Files.deleteIfExists(entry.file());
+            total -= entry.bytes();
+        }
+    }
+
+    // Written to a temporary file and moved into place, so readers never see half an entry
+    private void write(Key key, Entry entry) {
+        Path target = file(key);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, key.toString(), ".tmp");
+            List<AnalysisResult> results = new ArrayList<>(Phase.values().length);
+            for (AnalysisResult result : entry.results) if (result != null) results.add(result);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ResultCodec.write(channel, results);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The disk tier is best effort; the result is still cached in memory
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,573 @@
+package Model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+// Compact binary form of phase results and token streams. Integers are unsigned LEB128
+// varints, line numbers are stored as deltas, and every other piece of text is an index
+// into a table of distinct UTF-8 strings written once up front:
+//
+//   results  "ALRB" version  strings  count  (tag result)*
+//   lexical  tokenCount  messages(errors)  lines(tokenizedLines)
+//   syntax   messages(errors)
+//   semantic messages(errors)  count  (name type)*              the map is built when first used
+//   messages count  (text<<1 | 1, lineDelta  |  text<<1)*       "Line N: text" or any text
+//   lines    count  (categories<<1 | 1, lineDelta, category*  |  text<<1)*
+//   tokens   "ALTK" version  firstLine  chars  utf8Length utf8  count  (kind gap length lineDelta)*
+//
+// Reading works on any ByteBuffer, typically a mapped file, without copying it: message and
+// line lists are views that format an entry from the buffer when it is asked for.
+public final class ResultCodec {
+
+    private static final int RESULTS_MAGIC = 0x414C5242;    // "ALRB"
+    private static final int TOKENS_MAGIC = 0x414C544B;     // "ALTK"
+    private static final byte VERSION = 1;
+
+    private static final byte LEXICAL = 0;
+    private static final byte SYNTAX = 1;
+    private static final byte SEMANTIC = 2;
+
+    private ResultCodec() {
+    }
+
+    public static void write(WritableByteChannel channel, List<? extends AnalysisResult> results) throws IOException {
+        Output body = new Output();
+        Strings strings = new Strings();
+        body.varint(results.size());
+        for (AnalysisResult result : results) {
+            if (result instanceof LexicalResult lexical) {
+                body.put(LEXICAL);
+                body.varint(lexical.getTokenCount());
+                writeMessages(body, strings, lexical.getErrors());
+                writeLines(body, strings, lexical.getTokenizedLines());
+            } else if (result instanceof SyntaxResult syntax) {
+                body.put(SYNTAX);
+                writeMessages(body, strings, syntax.getErrors());
+            } else if (result instanceof SemanticResult semantic) {
+                body.put(SEMANTIC);
+                writeMessages(body, strings, semantic.getErrors());
+                body.varint(semantic.getSymbols().size());
+                for (Map.Entry<String, String> symbol : semantic.getSymbols().entrySet()) {
+                    body.varint(strings.id(symbol.getKey()));
+                    body.varint(strings.id(symbol.getValue()));
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown result type " + result.getClass().getName());
+            }
+        }
+
+        Output head = new Output();
+        head.putInt(RESULTS_MAGIC);
+        head.put(VERSION);
+        strings.write(head);
+        writeFully(channel, head.buffer(), body.buffer());
+    }
+
+    // Results in the order they were written; they read from buffer, which must not change
+    public static List<AnalysisResult> read(ByteBuffer buffer) throws IOException {
+        Input in = new Input(buffer);
+        try {
+            if (in.getInt() != RESULTS_MAGIC || in.get() != VERSION) throw new IOException("Not an encoded result");
+            Table table = new Table(in);
+            int count = in.count(1);
+            List<AnalysisResult> results = new ArrayList<>(count);
+            for (int r = 0; r < count; r++) {
+                byte tag = in.get();
+                switch (tag) {
+                    case LEXICAL -> {
+                        int tokenCount = in.varint();
+                        List<String> errors = readMessages(in, table);
+                        results.add(new LexicalResult(errors, readLines(in, table), tokenCount, null));
+                    }
+                    case SYNTAX -> results.add(new SyntaxResult(readMessages(in, table), null));
+                    case SEMANTIC -> {
+                        List<String> errors = readMessages(in, table);
+                        int n = in.count(2);
+                        int[] symbols = new int[2 * n];
+                        for (int i = 0; i < symbols.length; i++) symbols[i] = in.varint();
+                        results.add(new SemanticResult(errors, new Symbols(table, symbols)));
+                    }
+                    default -> throw new IOException("Unknown result tag " + tag);
+                }
+            }
+            return results;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated or damaged result", e);
+        }
+    }
+
+    // The tokens with the source text they index, relative to its first char
+    public static void writeTokens(WritableByteChannel channel, TokenStream tokens) throws IOException {
+        int base = tokens.sourceStart();
+        byte[] text = new String(tokens.source(), base, tokens.sourceEnd() - base).getBytes(StandardCharsets.UTF_8);
+
+        Output head = new Output();
+        head.putInt(TOKENS_MAGIC);
+        head.put(VERSION);
+        head.varint(tokens.firstLine());
+        head.varint(tokens.sourceEnd() - base);
+        head.varint(text.length);
+
+        Output body = new Output();
+        int n = tokens.size();
+        body.varint(n);
+        int end = base;
+        int line = tokens.firstLine();
+        for (int i = 0; i < n; i++) {
+            body.put((byte) tokens.kind(i).ordinal());
+            body.varint(tokens.offset(i) - end);
+            body.varint(tokens.length(i));
+            body.varint(tokens.line(i) - line);
+            end = tokens.end(i);
+            line = tokens.line(i);
+        }
+        writeFully(channel, head.buffer(), ByteBuffer.wrap(text), body.buffer());
+    }
+
+    // The source is decoded straight from the buffer into the stream's char array
+    public static TokenStream readTokens(ByteBuffer buffer) throws IOException {
+        Input in = new Input(buffer);
+        try {
+            if (in.getInt() != TOKENS_MAGIC || in.get() != VERSION) throw new IOException("Not an encoded token stream");
+            int firstLine = in.varint();
+            int chars = in.varint();
+            int bytes = in.count(1);
+            char[] source = new char[chars];
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            CharBuffer out = CharBuffer.wrap(source);
+            if (decoder.decode(in.slice(bytes), out, true).isError() || out.hasRemaining()) {
+                throw new IOException("Damaged token stream source");
+            }
+
+            TokenStream tokens = new TokenStream(source, 0, chars, firstLine);
+            tokens.addLineStart(0);
+            for (int i = 0; i < chars; i++) {
+                if (source[i] == '\n') tokens.addLineStart(i + 1);
+            }
+            int n = in.count(4);
+            int end = 0;
+            int line = firstLine;
+            for (int i = 0; i < n; i++) {
+                TokenKind kind = TokenKind.VALUES[in.get()];
+                int offset = end + in.varint();
+                int length = in.varint();
+                line += in.varint();
+                if (offset + length > chars) throw new IOException("Token outside the source");
+                tokens.add(kind, offset, length, line);
+                end = offset + length;
+            }
+            return tokens;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | CharacterCodingException e) {
+            throw new IOException("Truncated or damaged token stream", e);
+        }
+    }
+
+    // Lists this codec reads, and diagnostics, are already read-only views
+    static List<String> readOnly(List<String> list) {
+        return list instanceof Messages || list instanceof Lines || list instanceof Diagnostics
+                ? list : Collections.unmodifiableList(list);
+    }
+
+    // Bytes of the buffer a list read by this codec refers to, or the size of diagnostics,
+    // without formatting any message; -1 for any other list
+    static long encodedBytes(List<String> list) {
+        if (list instanceof Messages messages) return messages.encodedBytes;
+        if (list instanceof Lines lines) return lines.encodedBytes;
+        if (list instanceof Diagnostics diagnostics) return diagnostics.estimatedBytes();
+        return -1;
+    }
+
+    // "Line N: text" keeps N as a delta from the message before and interns only the text
+    private static void writeMessages(Output out, Strings strings, List<String> messages) {
+        out.varint(messages.size());
+        int previous = 0;
+        for (String message : messages) {
+            int colon = lineEnd(message);
+            if (colon > 0 && message.startsWith(": ", colon)) {
+                int line = Integer.parseInt(message, 5, colon, 10);
+                out.varint(strings.id(message.substring(colon + 2)) << 1 | 1);
+                out.zigzag(line - previous);
+                previous = line;
+            } else {
+                out.varint(strings.id(message) << 1);
+            }
+        }
+    }
+
+    private static List<String> readMessages(Input in, Table table) {
+        int n = in.count(1);
+        int start = in.position();
+        int[] texts = new int[n];
+        int[] lines = new int[n];
+        int previous = 0;
+        for (int i = 0; i < n; i++) {
+            int head = in.varint();
+            texts[i] = head;
+            if ((head & 1) != 0) {
+                previous += in.zigzag();
+                lines[i] = previous;
+            }
+        }
+        return new Messages(table, texts, lines, in.position() - start);
+    }
+
+    // "Line N (K tokens): c1 ... cK" keeps N as a delta and each category as a string id;
+    // any line not in exactly that shape is stored whole
+    private static void writeLines(Output out, Strings strings, List<String> tokenizedLines) {
+        out.varint(tokenizedLines.size());
+        int previous = 0;
+        List<String> categories = new ArrayList<>();
+        for (String text : tokenizedLines) {
+            int line = parseLine(text, categories);
+            if (line < 0) {
+                out.varint(strings.id(text) << 1);
+                continue;
+            }
+            out.varint(categories.size() << 1 | 1);
+            out.zigzag(line - previous);
+            previous = line;
+            for (String category : categories) out.varint(strings.id(category));
+        }
+    }
+
+    private static List<String> readLines(Input in, Table table) {
+        int n = in.count(1);
+        int start = in.position();
+        int[] heads = new int[n];
+        int[] lines = new int[n];
+        int[] categoryEnds = new int[n];
+        int[] categories = new int[16];
+        int count = 0;
+        int previous = 0;
+        for (int i = 0; i < n; i++) {
+            int head = in.varint();
+            heads[i] = head;
+            if ((head & 1) != 0) {
+                previous += in.zigzag();
+                lines[i] = previous;
+                int k = head >>> 1;
+                if (count + k > categories.length) categories = Arrays.copyOf(categories, Math.max(count + k, categories.length * 2));
+                for (int j = 0; j < k; j++) categories[count++] = in.varint();
+            }
+            categoryEnds[i] = count;
+        }
+        return new Lines(table, heads, lines, categoryEnds, categories, in.position() - start);
+    }
+
+    // Line number of a "Line N (K tokens): ..." line with its categories in out, or -1
+    private static int parseLine(String text, List<String> out) {
+        out.clear();
+        int lineEnd = lineEnd(text);
+        if (lineEnd < 0 || !text.startsWith(" (", lineEnd)) return -1;
+        int countEnd = lineEnd + 2;
+        while (countEnd < text.length() && Character.isDigit(text.charAt(countEnd))) countEnd++;
+        if (countEnd == lineEnd + 2 || !text.startsWith(" tokens): ", countEnd)) return -1;
+        int line = Integer.parseInt(text, 5, lineEnd, 10);
+        int count = Integer.parseInt(text, lineEnd + 2, countEnd, 10);
+        int from = countEnd + " tokens): ".length();
+        while (from < text.length()) {
+            int space = text.indexOf(' ', from);
+            int to = space < 0 ? text.length() : space;
+            if (to == from) return -1;
+            out.add(text.substring(from, to));
+            from = space < 0 ? text.length() : space + 1;
+            if (space == text.length() - 1) return -1;
+        }
+        return out.size() == count && line >= 0 ? line : -1;
+    }
+
+    // End of N in a text starting "Line N" with N a plain decimal int, or -1
+    private static int lineEnd(String text) {
+        if (!text.startsWith("Line ")) return -1;
+        int end = 5;
+        while (end < text.length() && end < 14 && text.charAt(end) >= '0' && text.charAt(end) <= '9') end++;
+        if (end == 5 || (end > 6 && text.charAt(5) == '0')) return -1;
+        if (end == text.length() || Character.isDigit(text.charAt(end))) return -1;
+        return end;
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer... buffers) throws IOException {
+        for (ByteBuffer buffer : buffers) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    // "Line N: text" messages, formatted from the table on demand
+    private static final class Messages extends AbstractList<String> implements RandomAccess {
+        final Table table;
+        final int[] texts;
+        final int[] lines;
+        final long encodedBytes;
+
+        Messages(Table table, int[] texts, int[] lines, long encodedBytes) {
+            this.table = table;
+            this.texts = texts;
+            this.lines = lines;
+            this.encodedBytes = encodedBytes + 8L * texts.length;
+        }
+
+        @Override
+        public String get(int i) {
+            String text = table.get(texts[i] >>> 1);
+            return (texts[i] & 1) != 0 ? "Line " + lines[i] + ": " + text : text;
+        }
+
+        @Override
+        public int size() {
+            return texts.length;
+        }
+    }
+
+    // Tokenized lines, rebuilt from their line number and category ids on demand
+    private static final class Lines extends AbstractList<String> implements RandomAccess {
+        final Table table;
+        final int[] heads;
+        final int[] lines;
+        final int[] categoryEnds;
+        final int[] categories;
+        final long encodedBytes;
+
+        Lines(Table table, int[] heads, int[] lines, int[] categoryEnds, int[] categories, long encodedBytes) {
+            this.table = table;
+            this.heads = heads;
+            this.lines = lines;
+            this.categoryEnds = categoryEnds;
+            this.categories = categories;
+            this.encodedBytes = encodedBytes + 12L * heads.length + 4L * (heads.length == 0 ? 0 : categoryEnds[heads.length - 1]);
+        }
+
+        @Override
+        public String get(int i) {
+            if ((heads[i] & 1) == 0) return table.get(heads[i] >>> 1);
+            int from = i == 0 ? 0 : categoryEnds[i - 1];
+            int to = categoryEnds[i];
+            StringBuilder sb = new StringBuilder(24 + 16 * (to - from));
+            sb.append("Line ").append(lines[i]).append(" (").append(to - from).append(" tokens): ");
+            for (int k = from; k < to; k++) {
+                if (k > from) sb.append(' ');
+                sb.append(table.get(categories[k]));
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public int size() {
+            return heads.length;
+        }
+    }
+
+    // Name and type ids of the symbols in declaration order; the map itself is built the first
+    // time anything but its size is asked for
+    private static final class Symbols extends AbstractMap<String, String> {
+        final Table table;
+        final int[] ids;
+        private Map<String, String> map;
+
+        Symbols(Table table, int[] ids) {
+            this.table = table;
+            this.ids = ids;
+        }
+
+        @Override
+        public int size() {
+            return ids.length / 2;
+        }
+
+        @Override
+        public String get(Object name) {
+            return map().get(name);
+        }
+
+        @Override
+        public boolean containsKey(Object name) {
+            return map().containsKey(name);
+        }
+
+        @Override
+        public Set<Map.Entry<String, String>> entrySet() {
+            return map().entrySet();
+        }
+
+        private synchronized Map<String, String> map() {
+            if (map == null) {
+                Map<String, String> built = new LinkedHashMap<>(ids.length * 2 / 3 + 16);
+                for (int i = 0; i < ids.length; i += 2) built.put(table.get(ids[i]), table.get(ids[i + 1]));
+                map = Collections.unmodifiableMap(built);
+            }
+            return map;
+        }
+    }
+
+    // Distinct strings of a result being written, numbered in first-use order
+    private static final class Strings {
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+
+        int id(String s) {
+            Integer id = ids.get(s);
+            if (id != null) return id;
+            ids.put(s, values.size());
+            values.add(s);
+            return values.size() - 1;
+        }
+
+        void write(Output out) {
+            out.varint(values.size());
+            for (String s : values) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.varint(bytes.length);
+                out.put(bytes);
+            }
+        }
+    }
+
+    // The string table of a buffer being read: each entry is decoded the first time it is used.
+    // Racing readers may both decode an entry, which is harmless as Strings are immutable.
+    private static final class Table {
+        final ByteBuffer buffer;
+        final int[] offsets;
+        final int[] lengths;
+        final String[] decoded;
+
+        Table(Input in) {
+            buffer = in.buffer;
+            int n = in.count(1);
+            offsets = new int[n];
+            lengths = new int[n];
+            decoded = new String[n];
+            for (int i = 0; i < n; i++) {
+                lengths[i] = in.count(1);
+                offsets[i] = in.position();
+                in.skip(lengths[i]);
+            }
+        }
+
+        String get(int id) {
+            String s = decoded[id];
+            if (s == null) {
+                byte[] bytes = new byte[lengths[id]];
+                buffer.get(offsets[id], bytes);
+                decoded[id] = s = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return s;
+        }
+    }
+
+    // Growable byte array with varint writers
+    private static final class Output {
+        byte[] bytes = new byte[256];
+        int size;
+
+        void put(byte b) {
+            if (size == bytes.length) bytes = Arrays.copyOf(bytes, size * 2);
+            bytes[size++] = b;
+        }
+
+        void put(byte[] b) {
+            if (size + b.length > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(size + b.length, size * 2));
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+
+        void putInt(int v) {
+            put((byte) (v >>> 24));
+            put((byte) (v >>> 16));
+            put((byte) (v >>> 8));
+            put((byte) v);
+        }
+
+        void varint(int v) {
+            while ((v & ~0x7F) != 0) {
+                put((byte) (v & 0x7F | 0x80));
+                v >>>= 7;
+            }
+            put((byte) v);
+        }
+
+        void zigzag(int v) {
+            varint(v << 1 ^ v >> 31);
+        }
+
+        ByteBuffer buffer() {
+            return ByteBuffer.wrap(bytes, 0, size);
+        }
+    }
+
+    // Absolute reads from a buffer whose position and limit are left alone
+    private static final class Input {
+        final ByteBuffer buffer;
+        int position;
+        final int limit;
+
+        Input(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.position = buffer.position();
+            this.limit = buffer.limit();
+        }
+
+        int position() {
+            return position;
+        }
+
+        byte get() {
+            if (position >= limit) throw new BufferUnderflowException();
+            return buffer.get(position++);
+        }
+
+        int getInt() {
+            return (get() & 0xFF) << 24 | (get() & 0xFF) << 16 | (get() & 0xFF) << 8 | get() & 0xFF;
+        }
+
+        int varint() {
+            int v = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = get();
+                v |= (b & 0x7F) << shift;
+                if (b >= 0) return v;
+            }
+            throw new IndexOutOfBoundsException("Varint too long");
+        }
+
+        int zigzag() {
+            int v = varint();
+            return v >>> 1 ^ -(v & 1);
+        }
+
+        // A count or length, which cannot exceed the bytes left at minBytes each
+        int count(int minBytes) {
+            int n = varint();
+            if (n < 0 || (long) n * minBytes > limit - position) throw new IndexOutOfBoundsException("Bad count " + n);
+            return n;
+        }
+
+        void skip(int n) {
+            position += n;
+        }
+
+        ByteBuffer slice(int n) {
+            ByteBuffer slice = buffer.slice(position, n);
+            position += n;
+            return slice;
+        }
+    }
+}
@@ -1,231 +1,953 @@
 package Model;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.EnumSet;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
 
+// Stateless: the symbol table and errors of each call live in its own Pass, so one
+// instance can serve many threads
 public class SemanticAnalysis {
 
-    private final List<String> errors;
-    private final Map<String, DataType> declaredVariables;
-
-    private enum DataType {
+    enum DataType {
         INT, DOUBLE, FLOAT, BOOLEAN, CHAR, LONG, BYTE, SHORT, STRING;
 
-        private static final Map<String, DataType> MAP = new LinkedHashMap<>();
+        private static final DataType[] VALUES = values();
+        private static final String[] SPELLINGS = new String[values().length];
+        private static final DataType[] BY_KEYWORD = new DataType[Keyword.values().length];
         private static final Set<DataType> INTEGRAL = EnumSet.of(INT, LONG, BYTE, SHORT, CHAR);
         private static final Set<DataType> NUMERIC = EnumSet.of(INT, LONG, BYTE, SHORT, CHAR, DOUBLE, FLOAT);
 
         static {
-            for (DataType t : values()) MAP.put(t.name().toLowerCase(), t);
-            MAP.put("String", STRING);
+            for (DataType t : values()) {
+                SPELLINGS[t.ordinal()] = t == STRING ? "String" : t.name().toLowerCase();
+                BY_KEYWORD[Keyword.of(SPELLINGS[t.ordinal()]).ordinal()] = t;
+            }
         }
 
-        static DataType from(String s) { return MAP.get(s); }
+        static DataType of(byte ordinal) { return VALUES[ordinal]; }
+
+        static DataType from(TokenStream tokens, int i) {
+            if (tokens.kind(i) != TokenKind.IDENTIFIER) return null;
+            Keyword keyword = Keyword.of(tokens, i);
+            return keyword == null ? null : BY_KEYWORD[keyword.ordinal()];
+        }
         boolean isIntegral() { return INTEGRAL.contains(this); }
         boolean isNumeric() { return NUMERIC.contains(this); }
         boolean isFloating() { return this == DOUBLE || this == FLOAT; }
+        String spelling() { return SPELLINGS[ordinal()]; }
+    }
+
+    private static final String[] TYPE_NAMES = new String[DataType.VALUES.length];
+
+    static {
+        for (DataType t : DataType.VALUES) TYPE_NAMES[t.ordinal()] = t.spelling();
     }
 
-    private static final Pattern DECL_LINE = Pattern.compile(
-        "^\\s*(?:(?:public|private|protected|static|final|transient|volatile)\\s+)*" +
-        "(int|double|float|boolean|char|long|byte|short|String)(?:\\s*\\[\\s*\\])*\\s+(.+);\\s*$");
-    private static final Pattern VAR_NAME = Pattern.compile("^[a-zA-Z_][a-zA-Z0-9_]*$");
-    private static final Pattern INT_LIT = Pattern.compile("^[+-]?\\d+$");
-    private static final Pattern FLOAT_LIT = Pattern.compile("^[+-]?\\d+\\.\\d+(?:[eE][+-]?\\d+)?$");
-    private static final Pattern SCI_NOT = Pattern.compile("^[+-]?\\d+(?:\\.\\d+)?[eE][+-]?\\d+$");
-    private static final Pattern CHAR_LIT = Pattern.compile("^'.'$");
-    private static final Pattern STR_LIT = Pattern.compile("^\".*\"$");
-    private static final Pattern BOOL_LIT = Pattern.compile("^(?:true|false)$");
+    // Symbol table seen by the checks. A whole-file Pass keeps a SymbolTable; incremental
+    // analysis resolves names by line position instead.
+    interface Scope {
+        DataType lookup(String name);
+        void declare(String name, DataType type);
+
+        // The identifier token i, looked up without copying its text
+        default DataType lookup(TokenStream tokens, int i) { return lookup(tokens.text(i)); }
+    }
+
+    // Mutable state of a single analyze call
+    private static final class Pass implements Scope {
+        final Diagnostics errors = new Diagnostics();
+        final SymbolTable symbols;
+
+        Pass() {
+            this(16);
+        }
+
+        Pass(int expectedSymbols) {
+            symbols = new SymbolTable(expectedSymbols);
+        }
+
+        @Override
+        public DataType lookup(String name) {
+            int id = symbols.find(name);
+            return id < 0 ? null : DataType.of(symbols.type(id));
+        }
+
+        @Override
+        public DataType lookup(TokenStream tokens, int i) {
+            int id = symbols.find(tokens.source(), tokens.offset(i), tokens.end(i));
+            return id < 0 ? null : DataType.of(symbols.type(id));
+        }
+
+        @Override
+        public void declare(String name, DataType type) { symbols.put(name, (byte) type.ordinal()); }
+
+        SemanticResult result() {
+            return new SemanticResult(errors, symbols.asMap(TYPE_NAMES));
+        }
+    }
+
+    // Receives the declarators of each statement in source order, before any of them is checked.
+    // The name is tokens [from, nameTo) and the initializer [initFrom, initTo); array is true when
+    // brackets follow the type or the name, and type is then the type of the elements.
+    interface DeclaratorSink {
+        void declarator(DataType type, boolean array, String name, int from, int nameTo, int initFrom, int initTo, int line);
+    }
+
+    // Parallel chunks smaller than this cost more to schedule than to check
+    private static final int MIN_CHUNK_TOKENS = 1 << 15;
+    private static final int MIN_CHUNK_STATEMENTS = 1 << 12;
+
+    private final SourceScanner scanner = new SourceScanner();
+    private final int maxNesting;
 
     public SemanticAnalysis() {
-        errors = new ArrayList<>();
-        declaredVariables = new LinkedHashMap<>();
+        this(Limits.DEFAULT);
+    }
+
+    public SemanticAnalysis(Limits limits) {
+        maxNesting = limits.maxNesting();
     }
 
-    public String analyze(String sourceCode) {
-        errors.clear();
-        declaredVariables.clear();
-        String[] lines = sourceCode.split("\\r?\\n");
+    public SemanticResult analyze(String sourceCode) {
+        return analyze(scanner.scan(sourceCode));
+    }
 
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i].trim();
-            if (line.isEmpty()) continue;
+    public SemanticResult analyze(TokenStream tokens) {
+        Pass pass = new Pass();
+        analyzeStatements(pass, pass.errors, tokens);
+        return pass.result();
+    }
 
-            Matcher m = DECL_LINE.matcher(line);
-            if (m.matches()) {
-                analyzeDeclaration(m.group(1), m.group(2), i + 1);
-            }
+    // Reuses the statements the syntax phase already found
+    public SemanticResult analyze(ParseTree tree) {
+        Pass pass = new Pass();
+        TokenStream tokens = tree.tokens();
+        DeclaratorSink sink = checker(pass, pass.errors, tokens);
+        for (int s = 0; s < tree.statementCount(); s++) {
+            int from = tree.start(s);
+            matchDeclaration(sink, tokens, from, tree.end(s), tokens.line(from));
         }
+        return pass.result();
+    }
 
-        StringBuilder result = new StringBuilder();
-        if (errors.isEmpty()) {
-            result.append("SEMANTIC ANALYSIS PASSED\n");
-        } else {
-            result.append("SEMANTIC ANALYSIS FAILED\n\nErrors:\n");
-            for (String err : errors) result.append(err).append('\n');
+    // Declarations seen in earlier chunks stay in scope for later ones
+    public SemanticResult analyze(MappedSource source) throws IOException {
+        Pass pass = new Pass();
+        for (TokenStream chunk = source.nextChunk(); chunk != null; chunk = source.nextChunk()) {
+            analyzeStatements(pass, pass.errors, chunk);
         }
-        return result.toString();
+        return pass.result();
+    }
+
+    // Statements are cut where the parser cuts them; messages carry the line each one starts on
+    void analyzeStatements(Scope scope, Diagnostics errors, TokenStream tokens) {
+        declarators(tokens, checker(scope, errors, tokens));
     }
 
-    public boolean isPassed() { return errors.isEmpty(); }
+    // Every declarator of the statements in tokens, unchecked, for phases that run after this one
+    void declarators(TokenStream tokens, DeclaratorSink sink) {
+        int n = tokens.size();
+        for (int from = 0; from < n; ) {
+            int to = DeclarationParser.statementEnd(tokens, from);
+            matchDeclaration(sink, tokens, from, to, tokens.line(from));
+            from = to;
+        }
+    }
 
-    private void analyzeDeclaration(String typeStr, String varList, int line) {
-        DataType type = DataType.from(typeStr);
-        for (String part : splitCommas(varList)) {
-            part = part.trim();
+    // Checks each declarator as soon as it is found
+    private DeclaratorSink checker(Scope scope, Diagnostics errors, TokenStream tokens) {
+        Expression expr = new Expression(maxNesting);
+        Report report = new Report(errors, tokens);
+        return (type, array, name, from, nameTo, initFrom, initTo, line) ->
+                checkDeclarator(scope, expr, report, type, name, from, nameTo, initFrom, initTo, line);
+    }
 
-            int eq = findEquals(part);
-            String name = (eq >= 0 ? part.substring(0, eq) : part).replaceAll("\\[\\s*\\]", "").trim();
-            String init = eq >= 0 ? part.substring(eq + 1).replace(";", "").trim() : null;
+    // Same errors and symbols as analyze(TokenStream), from two passes over chunks of statements
+    public SemanticResult analyze(TokenStream tokens, ForkJoinPool pool) {
+        int[] bounds = statementBounds(tokens, pool.getParallelism());
+        int chunks = bounds.length - 1;
+        if (chunks < 2) return analyze(tokens);
+        return analyzeParallel(tokens, pool, chunks, (k, sink) -> {
+            for (int from = bounds[k]; from < bounds[k + 1]; ) {
+                int to = DeclarationParser.statementEnd(tokens, from);
+                matchDeclaration(sink, tokens, from, to, tokens.line(from));
+                from = to;
+            }
+        });
+    }
 
-            if (declaredVariables.containsKey(name)) {
-                errors.add("Line " + line + ": Variable '" + name + "' already declared");
-                continue;
+    // Same errors and symbols as analyze(ParseTree), over chunks of its statements
+    public SemanticResult analyze(ParseTree tree, ForkJoinPool pool) {
+        int statements = tree.statementCount();
+        int chunks = Chunks.count(statements, pool.getParallelism(), MIN_CHUNK_STATEMENTS);
+        if (chunks < 2) return analyze(tree);
+        TokenStream tokens = tree.tokens();
+        return analyzeParallel(tokens, pool, chunks, (k, sink) -> {
+            int end = (int) ((long) statements * (k + 1) / chunks);
+            for (int s = (int) ((long) statements * k / chunks); s < end; s++) {
+                int from = tree.start(s);
+                matchDeclaration(sink, tokens, from, tree.end(s), tokens.line(from));
             }
-            if (init != null && !init.isEmpty()) {
-                String err = checkType(type, init, name, line);
-                if (err != null) {
-                    errors.add(err);
-                    continue;
+        });
+    }
+
+    // Feeds the declarators of chunk k, in source order, to sink
+    private interface ChunkSource {
+        void collect(int chunk, DeclaratorSink sink);
+    }
+
+    // A declarator succeeds unless its name is already declared or its initializer fails, and
+    // only declarators that succeeded are in scope afterwards. Pass 1 collects every declarator
+    // and indexes each name's first one. Pass 2 checks them all in parallel, assuming the first
+    // declarator of each name succeeded; that holds for every name whose first declarator did.
+    // The merge walks the declarators in order and checks again only those that resolved a
+    // name whose first declarator failed, this time against the declarators that succeeded.
+    private SemanticResult analyzeParallel(TokenStream tokens, ForkJoinPool pool, int chunks, ChunkSource source) {
+        Declarators[] parts = new Declarators[chunks];
+        Chunks.forEach(pool, chunks, k -> {
+            Declarators part = new Declarators();
+            source.collect(k, part);
+            parts[k] = part;
+        });
+
+        int[] bases = new int[chunks + 1];
+        for (int k = 0; k < chunks; k++) bases[k + 1] = bases[k] + parts[k].size;
+        int total = bases[chunks];
+        byte[] types = new byte[total];
+        DeclarationIndex index = new DeclarationIndex();
+        Chunks.forEach(pool, chunks, k -> {
+            Declarators part = parts[k];
+            for (int i = 0; i < part.size; i++) {
+                types[bases[k] + i] = part.types[i];
+                index.add(part.names[i], bases[k] + i);
+            }
+        });
+        index.seal();
+
+        // Declarator g of chunk k failed with error errorAt[g] of parts[k].errors, or passed when -1
+        int[] errorAt = new int[total];
+        boolean[] declared = new boolean[total];
+        Chunks.forEach(pool, chunks, k -> {
+            Declarators part = parts[k];
+            Speculation scope = new Speculation(index, types, part);
+            Expression expr = new Expression(maxNesting);
+            Report report = new Report(part.errors, tokens);
+            part.lookupEnds = new int[part.size];
+            for (int i = 0; i < part.size; i++) {
+                int g = bases[k] + i;
+                scope.declarator = g;
+                scope.declared = false;
+                errorAt[g] = check(scope, expr, report, part, i) ? part.errors.size() - 1 : -1;
+                declared[g] = scope.declared;
+                part.lookupEnds[i] = part.lookups;
+            }
+        });
+
+        Pass pass = new Pass(index.size());
+        Settled scope = new Settled(index, types);
+        Expression expr = new Expression(maxNesting);
+        Report report = new Report(pass.errors, tokens);
+        for (int k = 0; k < chunks; k++) {
+            Declarators part = parts[k];
+            for (int i = 0, lookup = 0; i < part.size; i++) {
+                int g = bases[k] + i;
+                // The first name a declarator resolves is its own
+                int name = part.lookupIds[lookup];
+                boolean stale = false;
+                for (; lookup < part.lookupEnds[i]; lookup++) {
+                    int first = index.first(part.lookupIds[lookup]);
+                    if (first < g && !declared[first]) stale = true;
+                }
+                if (stale) {
+                    scope.declared = false;
+                    check(scope, expr, report, part, i);
+                    declared[g] = scope.declared;
+                } else if (errorAt[g] >= 0) {
+                    pass.errors.copy(part.errors, errorAt[g]);
+                }
+                if (declared[g]) {
+                    scope.firstDeclared[name] = g;
+                    pass.symbols.put(part.names[i], part.types[i]);
                 }
             }
-            declaredVariables.put(name, type);
         }
+        return pass.result();
     }
 
-    private String checkType(DataType declared, String expr, String var, int line) {
-        expr = expr.trim();
-        while (expr.startsWith("(") && expr.endsWith(")")) 
-            expr = expr.substring(1, expr.length() - 1).trim();
+    private boolean check(Scope scope, Expression expr, Report report, Declarators part, int i) {
+        return checkDeclarator(scope, expr, report, DataType.of(part.types[i]), part.names[i],
+                part.froms[i], part.nameTos[i], part.initFroms[i], part.initTos[i], part.lines[i]);
+    }
 
-        // Single literals
-        if (STR_LIT.matcher(expr).matches())
-            return declared != DataType.STRING ? err(line, "String literal", declared, var) : null;
-        if (CHAR_LIT.matcher(expr).matches())
-            return declared != DataType.CHAR ? err(line, "char literal", declared, var) : null;
-        if (BOOL_LIT.matcher(expr).matches())
-            return declared != DataType.BOOLEAN ? err(line, "boolean literal", declared, var) : null;
-        if (INT_LIT.matcher(expr).matches())
-            return !declared.isNumeric() ? err(line, "integer literal", declared, var) : null;
-        if (FLOAT_LIT.matcher(expr).matches() || SCI_NOT.matcher(expr).matches()) {
-            if (declared.isFloating()) return null;
-            return err(line, declared.isIntegral() ? "floating literal to integral type" : "floating literal", declared, var);
+    // Chunk k holds the statements starting in tokens [bounds[k], bounds[k + 1])
+    private static int[] statementBounds(TokenStream tokens, int parallelism) {
+        int n = tokens.size();
+        int chunks = Chunks.count(n, parallelism, MIN_CHUNK_TOKENS);
+        int[] bounds = new int[chunks + 1];
+        bounds[chunks] = n;
+        for (int k = 1; k < chunks; k++) {
+            int i = Math.max(bounds[k - 1], (int) ((long) n * k / chunks));
+            while (i < n && !DeclarationParser.startsStatement(tokens, i)) i++;
+            bounds[k] = i;
         }
+        return bounds;
+    }
 
-        // Complex expressions
-        boolean hasStr = false, hasFloat = false, hasInt = false, hasBool = false;
-        for (String tok : tokenize(expr)) {
-            if (tok.isEmpty()) continue;
-            if (STR_LIT.matcher(tok).matches()) { hasStr = true; continue; }
-            if (CHAR_LIT.matcher(tok).matches() || INT_LIT.matcher(tok).matches()) { hasInt = true; continue; }
-            if (BOOL_LIT.matcher(tok).matches()) { hasBool = true; continue; }
-            if (FLOAT_LIT.matcher(tok).matches() || SCI_NOT.matcher(tok).matches()) { hasFloat = true; continue; }
+    // Declarators of one chunk in source order, stored column-wise, with the names each
+    // resolved in pass 2: declarator i looked up lookupIds[lookupEnds[i - 1], lookupEnds[i]).
+    // Pass 2 records their errors in errors.
+    private static final class Declarators implements DeclaratorSink {
+        String[] names = new String[64];
+        byte[] types = new byte[64];
+        int[] froms = new int[64];
+        int[] nameTos = new int[64];
+        int[] initFroms = new int[64];
+        int[] initTos = new int[64];
+        int[] lines = new int[64];
+        int size;
 
-            if (VAR_NAME.matcher(tok).matches()) {
-                DataType ref = declaredVariables.get(tok);
-                if (ref == null) return "Line " + line + ": Undefined variable '" + tok + "' in '" + var + "'";
-                if (ref == DataType.STRING) hasStr = true;
-                else if (ref.isFloating()) hasFloat = true;
-                else if (ref.isIntegral()) hasInt = true;
-                else if (ref == DataType.BOOLEAN) hasBool = true;
+        int[] lookupEnds;
+        int[] lookupIds = new int[64];
+        int lookups;
+        final Diagnostics errors = new Diagnostics();
+
+        @Override
+        public void declarator(DataType type, boolean array, String name, int from, int nameTo, int initFrom, int initTo, int line) {
+            if (size == names.length) {
+                int grown = size * 2;
+                names = Arrays.copyOf(names, grown);
+                types = Arrays.copyOf(types, grown);
+                froms = Arrays.copyOf(froms, grown);
+                nameTos = Arrays.copyOf(nameTos, grown);
+                initFroms = Arrays.copyOf(initFroms, grown);
+                initTos = Arrays.copyOf(initTos, grown);
+                lines = Arrays.copyOf(lines, grown);
             }
+            names[size] = name;
+            types[size] = (byte) type.ordinal();
+            froms[size] = from;
+            nameTos[size] = nameTo;
+            initFroms[size] = initFrom;
+            initTos[size] = initTo;
+            lines[size] = line;
+            size++;
         }
 
-        DataType exprType = hasStr ? DataType.STRING : hasFloat ? DataType.DOUBLE : hasInt ? DataType.INT : hasBool ? DataType.BOOLEAN : null;
-        
-        if (exprType == DataType.STRING)
-            return declared != DataType.STRING ? exprErr(line, "String", declared, var) : null;
-        if (exprType == DataType.BOOLEAN)
-            return declared != DataType.BOOLEAN ? exprErr(line, "boolean", declared, var) : null;
-        if (exprType == DataType.DOUBLE)
-            return !declared.isFloating() ? exprErr(line, "floating type", declared, var) : null;
-        if (exprType == DataType.INT)
-            return !declared.isNumeric() ? exprErr(line, "integral type", declared, var) : null;
+        void lookup(int name) {
+            if (lookups == lookupIds.length) lookupIds = Arrays.copyOf(lookupIds, lookups * 2);
+            lookupIds[lookups++] = name;
+        }
+    }
 
-        if (declared == DataType.STRING || declared == DataType.BOOLEAN || declared == DataType.CHAR)
-            return "Line " + line + ": Unable to verify initializer for '" + var + "' as " + declared;
-        return null;
+    // Every declared name with the index of its first declarator. Names hash to one of STRIPES
+    // symbol tables, each filled under its own lock; once sealed, names have dense ids and
+    // the index is read without locking.
+    private static final class DeclarationIndex {
+        private static final int STRIPES = 64;
+
+        private final SymbolTable[] tables = new SymbolTable[STRIPES];
+        private final int[][] stripeFirsts = new int[STRIPES][];
+        private final int[] bases = new int[STRIPES + 1];
+        private int[] firsts;
+
+        DeclarationIndex() {
+            for (int s = 0; s < STRIPES; s++) {
+                tables[s] = new SymbolTable();
+                stripeFirsts[s] = new int[16];
+            }
+        }
+
+        void add(String name, int declarator) {
+            int s = stripe(name.hashCode());
+            SymbolTable table = tables[s];
+            synchronized (table) {
+                int before = table.size();
+                int id = table.put(name, (byte) 0);
+                int[] first = stripeFirsts[s];
+                if (id == first.length) stripeFirsts[s] = first = Arrays.copyOf(first, id * 2);
+                first[id] = table.size() > before ? declarator : Math.min(first[id], declarator);
+            }
+        }
+
+        void seal() {
+            for (int s = 0; s < STRIPES; s++) bases[s + 1] = bases[s] + tables[s].size();
+            firsts = new int[bases[STRIPES]];
+            for (int s = 0; s < STRIPES; s++) {
+                System.arraycopy(stripeFirsts[s], 0, firsts, bases[s], tables[s].size());
+            }
+        }
+
+        int size() {
+            return firsts.length;
+        }
+
+        // Dense id of the name, or -1 when no declarator declares it
+        int find(String name) {
+            int s = stripe(name.hashCode());
+            int id = tables[s].find(name);
+            return id < 0 ? -1 : bases[s] + id;
+        }
+
+        int find(char[] src, int from, int to) {
+            int h = 0;
+            for (int i = from; i < to; i++) h = 31 * h + src[i];
+            int s = stripe(h);
+            int id = tables[s].find(src, from, to);
+            return id < 0 ? -1 : bases[s] + id;
+        }
+
+        int first(int name) {
+            return firsts[name];
+        }
+
+        // Top bits of String.hashCode, so both lookups agree; the tables hash names their own way
+        private static int stripe(int h) {
+            return (h * 0x9E3779B9) >>> 26;
+        }
     }
 
-    private String err(int line, String lit, DataType type, String var) {
-        return "Line " + line + ": Type mismatch - cannot assign " + lit + " to " + type + " '" + var + "'";
+    // Pass 2: a name resolves to its first declarator if that comes before the one being checked
+    private static final class Speculation implements Scope {
+        final DeclarationIndex index;
+        final byte[] types;
+        final Declarators part;
+        int declarator;
+        boolean declared;
+
+        Speculation(DeclarationIndex index, byte[] types, Declarators part) {
+            this.index = index;
+            this.types = types;
+            this.part = part;
+        }
+
+        @Override
+        public DataType lookup(String name) { return resolve(index.find(name)); }
+
+        @Override
+        public DataType lookup(TokenStream tokens, int i) {
+            return resolve(index.find(tokens.source(), tokens.offset(i), tokens.end(i)));
+        }
+
+        private DataType resolve(int name) {
+            if (name < 0) return null;
+            part.lookup(name);
+            int first = index.first(name);
+            return first < declarator ? DataType.of(types[first]) : null;
+        }
+
+        @Override
+        public void declare(String name, DataType type) { declared = true; }
     }
 
-    private String exprErr(int line, String exprType, DataType type, String var) {
-        return "Line " + line + ": Type mismatch - expression is " + exprType + " but '" + var + "' is " + type;
+    // Merge: a name resolves to the first declarator so far that succeeded
+    private static final class Settled implements Scope {
+        final DeclarationIndex index;
+        final byte[] types;
+        final int[] firstDeclared;
+        boolean declared;
+
+        Settled(DeclarationIndex index, byte[] types) {
+            this.index = index;
+            this.types = types;
+            this.firstDeclared = new int[index.size()];
+            Arrays.fill(firstDeclared, -1);
+        }
+
+        @Override
+        public DataType lookup(String name) { return resolve(index.find(name)); }
+
+        @Override
+        public DataType lookup(TokenStream tokens, int i) {
+            return resolve(index.find(tokens.source(), tokens.offset(i), tokens.end(i)));
+        }
+
+        private DataType resolve(int name) {
+            if (name < 0 || firstDeclared[name] < 0) return null;
+            return DataType.of(types[firstDeclared[name]]);
+        }
+
+        @Override
+        public void declare(String name, DataType type) { declared = true; }
     }
 
-    private List<String> splitCommas(String s) {
-        List<String> parts = new ArrayList<>();
-        StringBuilder cur = new StringBuilder();
-        boolean inStr = false, inChr = false, esc = false;
-        
-        for (char c : s.toCharArray()) {
-            if (esc) { cur.append(c); esc = false; continue; }
-            if (c == '\\') { esc = true; cur.append(c); continue; }
-            if (c == '"' && !inChr) { inStr = !inStr; cur.append(c); continue; }
-            if (c == '\'' && !inStr) { inChr = !inChr; cur.append(c); continue; }
-            if (c == ',' && !inStr && !inChr) { parts.add(cur.toString()); cur.setLength(0); continue; }
-            cur.append(c);
+    // [modifiers] type ([])* declarators ;  -- statements of any other shape are not checked
+    private void matchDeclaration(DeclaratorSink sink, TokenStream tokens, int from, int to, int line) {
+        int semi = to - 1;
+        if (tokens.kind(semi) != TokenKind.SEMICOLON) return;
+
+        int i = from;
+        while (i + 1 < semi && DeclarationParser.isModifier(tokens, i) && !tokens.isGlued(i + 1)) i++;
+        DataType type = DataType.from(tokens, i);
+        if (type == null) return;
+
+        // Brackets are taken greedily, but the declarators must be separated from them by whitespace
+        int pairs = 0;
+        for (int j = i + 1; j + 1 < semi && tokens.kind(j) == TokenKind.LBRACKET
+                && tokens.kind(j + 1) == TokenKind.RBRACKET; j += 2) pairs++;
+        for (; pairs >= 0; pairs--) {
+            int start = i + 1 + 2 * pairs;
+            if (start < semi && !tokens.isGlued(start)) {
+                analyzeDeclaration(sink, tokens, type, pairs > 0, start, semi, line);
+                return;
+            }
+            if (start == semi && tokens.offset(semi) - tokens.end(start - 1) >= 2) {
+                // Only whitespace before the ';': one declarator with an empty name
+                analyzeDeclaration(sink, tokens, type, false, semi, semi, line);
+                return;
+            }
         }
-        if (cur.length() > 0) parts.add(cur.toString());
-        return parts;
     }
 
-    private int findEquals(String s) {
-        boolean inStr = false, inChr = false, esc = false;
+    // Declarators are separated by the commas outside parentheses and braces, so a call's
+    // arguments or an array initializer stay in the initializer they belong to
+    private void analyzeDeclaration(DeclaratorSink sink, TokenStream tokens, DataType type, boolean array,
+                                    int from, int to, int line) {
+        int start = from;
+        int depth = 0;
+        for (int i = from; i <= to; i++) {
+            if (i < to) {
+                TokenKind kind = tokens.kind(i);
+                if (kind == TokenKind.LPAREN || kind == TokenKind.LBRACE) depth++;
+                else if ((kind == TokenKind.RPAREN || kind == TokenKind.RBRACE) && depth > 0) depth--;
+                if (kind != TokenKind.COMMA || depth > 0) continue;
+            }
+            // A trailing comma directly before the ';' does not open another declarator
+            if (i == to && start == to && start > from && tokens.end(to - 1) == tokens.offset(to)) break;
+            analyzeDeclarator(sink, tokens, type, array, start, i, line);
+            start = i + 1;
+        }
+    }
+
+    private void analyzeDeclarator(DeclaratorSink sink, TokenStream tokens, DataType type, boolean array,
+                                   int from, int to, int line) {
+        int eq = findEquals(tokens, from, to);
+        String name;
+        int initFrom;
+        int nameTo = eq < 0 ? to : eq;
+        if (eq < 0) {
+            name = declaratorName(tokens, from, to, to == from ? 0 : tokens.end(to - 1));
+            initFrom = to;
+        } else if (tokens.kind(eq) == TokenKind.EQUAL_EQUAL) {
+            // The initializer keeps the second '='
+            name = declaratorName(tokens, from, eq, tokens.offset(eq));
+            initFrom = eq;
+        } else {
+            // '=', or the '=' that ends '!=', '<=' or '>='
+            int eqChar = tokens.end(eq) - 1;
+            name = declaratorName(tokens, from, eqChar == tokens.offset(eq) ? eq : eq + 1, eqChar);
+            initFrom = eq + 1;
+        }
+
+        // Initializer tokens, without stray semicolons at either end
+        int initTo = to;
+        while (initFrom < initTo && tokens.kind(initFrom) == TokenKind.SEMICOLON) initFrom++;
+        while (initTo > initFrom && tokens.kind(initTo - 1) == TokenKind.SEMICOLON) initTo--;
+        for (int i = from; i < nameTo && !array; i++) array = tokens.kind(i) == TokenKind.LBRACKET;
+        sink.declarator(type, array, name, from, nameTo, initFrom, initTo, line);
+    }
+
+    // Declares the name unless it fails a check; true when it failed and the error is recorded
+    private boolean checkDeclarator(Scope scope, Expression expr, Report report, DataType type, String name,
+                                    int from, int nameTo, int initFrom, int initTo, int line) {
+        report.start(name, line, initFrom, initTo);
+        if (scope.lookup(name) != null) {
+            report.errors.add(Diagnostics.Code.ALREADY_DECLARED, line, report.tokens, from, nameTo).arg(name);
+            return true;
+        }
+        if (initFrom < initTo && checkType(scope, expr, report, type, report.tokens, initFrom, initTo)) return true;
+        scope.declare(name, type);
+        return false;
+    }
+
+    // Records the errors of the declarator being checked, reported on its statement's line and
+    // pointing at its initializer unless a token is more precise. Each method returns true so
+    // a check can fail in one step. Reused for every declarator of a pass.
+    private static final class Report {
+        final Diagnostics errors;
+        final TokenStream tokens;
+        String var;
+        int line;
+        int initFrom;
+        int initTo;
+
+        Report(Diagnostics errors, TokenStream tokens) {
+            this.errors = errors;
+            this.tokens = tokens;
+        }
+
+        void start(String var, int line, int initFrom, int initTo) {
+            this.var = var;
+            this.line = line;
+            this.initFrom = initFrom;
+            this.initTo = initTo;
+        }
+
+        boolean literal(String literal, DataType type) {
+            errors.add(Diagnostics.Code.LITERAL_MISMATCH, line, tokens, initFrom, initTo)
+                    .arg(literal).arg(type.name()).arg(var);
+            return true;
+        }
+
+        boolean expression(String exprType, DataType type) {
+            errors.add(Diagnostics.Code.EXPRESSION_MISMATCH, line, tokens, initFrom, initTo)
+                    .arg(exprType).arg(var).arg(type.name());
+            return true;
+        }
+
+        boolean unverified(DataType type) {
+            errors.add(Diagnostics.Code.UNVERIFIED_INITIALIZER, line, tokens, initFrom, initTo).arg(var).arg(type.name());
+            return true;
+        }
+
+        boolean tooDeep(Expression expr) {
+            errors.add(Diagnostics.Code.NESTING_TOO_DEEP, line, tokens, expr.deepAt(), expr.deepAt() + 1)
+                    .arg(Integer.toString(expr.maxNesting())).arg(var);
+            return true;
+        }
+
+        boolean undefined(int token) {
+            errors.add(Diagnostics.Code.UNDEFINED_VARIABLE, line, tokens, token, token + 1).arg(tokens, token).arg(var);
+            return true;
+        }
+
+        // Node n of expr has an operand of the wrong type
+        boolean operand(Expression expr, int n) {
+            switch (expr.kind(n)) {
+                case Expression.CAST ->
+                        errors.add(Diagnostics.Code.INVALID_CAST, line, tokens, initFrom, initTo)
+                                .arg(typeName(expr, expr.left(n))).arg(tokens, expr.token(n)).arg(var);
+                case Expression.CONDITIONAL ->
+                        errors.add(Diagnostics.Code.NON_BOOLEAN_CONDITION, line, tokens, initFrom, initTo)
+                                .arg(typeName(expr, expr.left(n))).arg(var);
+                case Expression.UNARY ->
+                        errors.add(Diagnostics.Code.INVALID_UNARY_OPERAND, line, tokens, initFrom, initTo)
+                                .arg(expr.op(n).symbol).arg(typeName(expr, expr.left(n))).arg(var);
+                default ->
+                        errors.add(Diagnostics.Code.INVALID_BINARY_OPERANDS, line, tokens, initFrom, initTo)
+                                .arg(expr.op(n).symbol).arg(typeName(expr, expr.left(n)))
+                                .arg(typeName(expr, expr.right(n))).arg(var);
+            }
+            return true;
+        }
+    }
+
+    // Name in tokens [from, to), which end at source offset end; array brackets are dropped
+    private String declaratorName(TokenStream tokens, int from, int to, int end) {
+        if (from == to) return "";
+        if (tokens.kind(from) == TokenKind.IDENTIFIER) {
+            int i = from + 1;
+            while (i + 1 < to && tokens.kind(i) == TokenKind.LBRACKET && tokens.kind(i + 1) == TokenKind.RBRACKET) i += 2;
+            // With only whitespace between the tokens and up to end, the pattern leaves just the name
+            if (i == to && onlySpaces(tokens, from, to, end)) return tokens.text(from);
+        }
+        return tokens.text(tokens.offset(from), end).replaceAll("\\[\\s*\\]", "").trim();
+    }
+
+    // True when the source outside tokens [from, to), up to offset end, is all \s whitespace
+    private static boolean onlySpaces(TokenStream tokens, int from, int to, int end) {
+        for (int i = from + 1; i <= to; i++) {
+            int stop = i < to ? tokens.offset(i) : end;
+            for (int k = tokens.end(i - 1); k < stop; k++) {
+                char c = tokens.charAt(k);
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\u000B' && c != '\f' && c != '\r') return false;
+            }
+        }
+        return true;
+    }
+
+    // First top-level '=' (outside parentheses), or -1
+    private int findEquals(TokenStream tokens, int from, int to) {
         int paren = 0;
-        for (int i = 0; i < s.length(); i++) {
-            char c = s.charAt(i);
-            if (esc) { esc = false; continue; }
-            if (c == '\\') { esc = true; continue; }
-            if (c == '"' && !inChr) { inStr = !inStr; continue; }
-            if (c == '\'' && !inStr) { inChr = !inChr; continue; }
-            if (!inStr && !inChr) {
-                if (c == '(') paren++;
-                else if (c == ')' && paren > 0) paren--;
-                else if (c == '=' && paren == 0) return i;
+        for (int i = from; i < to; i++) {
+            switch (tokens.kind(i)) {
+                case LPAREN: paren++; break;
+                case RPAREN: if (paren > 0) paren--; break;
+                case ASSIGN: case EQUAL_EQUAL: case NOT_EQUAL: case LESS_EQUAL: case GREATER_EQUAL:
+                    if (paren == 0) return i;
+                    break;
+                default: break;
             }
         }
         return -1;
     }
 
-    private List<String> tokenize(String expr) {
-        List<String> tokens = new ArrayList<>();
-        StringBuilder cur = new StringBuilder();
-        boolean inStr = false, inChr = false, esc = false;
+    private static final byte UNKNOWN = -1;
+    private static final byte INVALID = -2;
+
+    private boolean checkType(Scope scope, Expression expr, Report report, DataType declared, TokenStream tokens, int from, int to) {
+        int root = expr.parse(tokens, from, to);
+        if (root < 0) {
+            return expr.deepAt() >= 0 ? report.tooDeep(expr) : classifyTokens(scope, report, declared, tokens, from, to);
+        }
+
+        // Single literals, optionally signed numbers
+        int leaf = root;
+        if (expr.kind(root) == Expression.UNARY && (expr.op(root) == Expression.Op.NEG || expr.op(root) == Expression.Op.POS)
+                && expr.kind(expr.left(root)) == Expression.LITERAL && tokens.isGlued(expr.token(expr.left(root)))) {
+            leaf = expr.left(root);
+        }
+        if (expr.kind(leaf) == Expression.LITERAL) {
+            TokenKind literal = tokens.kind(expr.token(leaf));
+            boolean signed = leaf != root;
+            if (!signed && literal == TokenKind.STRING_LITERAL)
+                return declared != DataType.STRING && report.literal("String literal", declared);
+            if (!signed && literal == TokenKind.CHAR_LITERAL)
+                return declared != DataType.CHAR && report.literal("char literal", declared);
+            if (!signed && literal == TokenKind.IDENTIFIER)
+                return declared != DataType.BOOLEAN && report.literal("boolean literal", declared);
+            if (literal == TokenKind.INT_LITERAL)
+                return !declared.isNumeric() && report.literal("integer literal", declared);
+            if (literal == TokenKind.FLOAT_LITERAL) {
+                if (declared.isFloating()) return false;
+                return report.literal(declared.isIntegral() ? "floating literal to integral type" : "floating literal", declared);
+            }
+        }
+
+        if (typeNodes(scope, expr, report, tokens)) return true;
+
+        DataType exprType = expr.type(root) < 0 ? null : DataType.of(expr.type(root));
+        if (exprType == DataType.STRING)
+            return declared != DataType.STRING && report.expression("String", declared);
+        if (exprType == DataType.BOOLEAN)
+            return declared != DataType.BOOLEAN && report.expression("boolean", declared);
+        if (exprType != null && exprType.isFloating())
+            return !declared.isFloating() && report.expression("floating type", declared);
+        if (exprType != null && exprType.isIntegral())
+            return !declared.isNumeric() && report.expression("integral type", declared);
+
+        if (declared == DataType.STRING || declared == DataType.BOOLEAN || declared == DataType.CHAR)
+            return report.unverified(declared);
+        return false;
+    }
+
+    // Types every node bottom-up. The first undefined name wins over operand errors, as names
+    // are reported in source order; false means the root's type is in expr.
+    private boolean typeNodes(Scope scope, Expression expr, Report report, TokenStream tokens) {
+        int invalid = -1;
+        for (int n = 0; n < expr.size(); n++) {
+            byte type;
+            switch (expr.kind(n)) {
+                case Expression.LITERAL -> type = literalType(tokens, expr.token(n));
+                case Expression.NAME -> {
+                    DataType ref = scope.lookup(tokens, expr.token(n));
+                    if (ref == null) return report.undefined(expr.token(n));
+                    type = (byte) ref.ordinal();
+                }
+                case Expression.UNARY -> type = unaryType(expr.op(n), typeOf(expr, expr.left(n)));
+                case Expression.BINARY -> type = binaryType(expr.op(n), typeOf(expr, expr.left(n)), typeOf(expr, expr.right(n)));
+                case Expression.CONDITIONAL -> type = conditionalType(typeOf(expr, expr.left(n)),
+                        typeOf(expr, expr.right(n)), typeOf(expr, expr.third(n)));
+                case Expression.CAST -> type = castType(DataType.from(tokens, expr.token(n)), typeOf(expr, expr.left(n)));
+                default -> type = UNKNOWN;
+            }
+            if (type == INVALID) {
+                if (invalid < 0) invalid = n;
+                type = UNKNOWN;
+            }
+            expr.setType(n, type);
+        }
+        return invalid >= 0 && report.operand(expr, invalid);
+    }
+
+    private static DataType typeOf(Expression expr, int n) {
+        return expr.type(n) < 0 ? null : DataType.of(expr.type(n));
+    }
+
+    private static byte code(DataType type) {
+        return (byte) type.ordinal();
+    }
 
-        for (char c : expr.toCharArray()) {
-            if (esc) { cur.append(c); esc = false; continue; }
-            if (c == '\\') { esc = true; cur.append(c); continue; }
-            if (c == '"' && !inChr) {
-                cur.append(c);
-                inStr = !inStr;
-                if (!inStr) { tokens.add(cur.toString()); cur.setLength(0); }
-                continue;
+    private byte literalType(TokenStream tokens, int i) {
+        switch (tokens.kind(i)) {
+            case INT_LITERAL: return code(DataType.INT);
+            case FLOAT_LITERAL: return code(DataType.DOUBLE);
+            case STRING_LITERAL: return code(DataType.STRING);
+            case CHAR_LITERAL: return code(DataType.CHAR);
+            case IDENTIFIER: return code(DataType.BOOLEAN);
+            case NUMBER_LITERAL: {
+                // Hex and suffixed numbers: 0x1F, 10L, 1.5f, 2d
+                char last = tokens.charAt(tokens.end(i) - 1);
+                boolean hex = tokens.length(i) > 2 && (tokens.charAt(tokens.offset(i) + 1) | 0x20) == 'x';
+                if (last == 'L' || last == 'l') return code(DataType.LONG);
+                if (hex) return code(DataType.INT);
+                if (last == 'F' || last == 'f') return code(DataType.FLOAT);
+                if (last == 'D' || last == 'd') return code(DataType.DOUBLE);
+                return UNKNOWN;
             }
-            if (c == '\'' && !inStr) {
-                cur.append(c);
-                inChr = !inChr;
-                if (!inChr) { tokens.add(cur.toString()); cur.setLength(0); }
-                continue;
+            default: return UNKNOWN;
+        }
+    }
+
+    // Operand types may be null when not known; a known operand of the wrong kind is INVALID
+    private static byte unaryType(Expression.Op op, DataType a) {
+        switch (op) {
+            case NOT:
+                if (a != null && a != DataType.BOOLEAN) return INVALID;
+                return code(DataType.BOOLEAN);
+            case COMPL:
+                if (a != null && !a.isIntegral()) return INVALID;
+                return a == null ? UNKNOWN : code(promote(a, DataType.INT));
+            default:
+                if (a != null && !a.isNumeric()) return INVALID;
+                return a == null ? UNKNOWN : code(promote(a, DataType.INT));
+        }
+    }
+
+    private static byte binaryType(Expression.Op op, DataType a, DataType b) {
+        switch (op) {
+            case ADD:
+                if (a == DataType.STRING || b == DataType.STRING) return code(DataType.STRING);
+                return arithmetic(a, b);
+            case SUB: case MUL: case DIV: case REM:
+                return arithmetic(a, b);
+            case SHL: case SHR: case USHR:
+                if ((a != null && !a.isIntegral()) || (b != null && !b.isIntegral())) return INVALID;
+                return a == null ? UNKNOWN : code(promote(a, DataType.INT));
+            case LT: case GT: case LE: case GE:
+                if ((a != null && !a.isNumeric()) || (b != null && !b.isNumeric())) return INVALID;
+                return code(DataType.BOOLEAN);
+            case EQ: case NE:
+                if (a != null && b != null && a != b && !(a.isNumeric() && b.isNumeric())) return INVALID;
+                return code(DataType.BOOLEAN);
+            case AND: case OR:
+                if ((a != null && a != DataType.BOOLEAN) || (b != null && b != DataType.BOOLEAN)) return INVALID;
+                return code(DataType.BOOLEAN);
+            default: {
+                // & | ^ take two booleans or two integral values
+                if ((a != null && a != DataType.BOOLEAN && !a.isIntegral()) || (b != null && b != DataType.BOOLEAN && !b.isIntegral()))
+                    return INVALID;
+                if (a == null || b == null) return UNKNOWN;
+                if (a == DataType.BOOLEAN && b == DataType.BOOLEAN) return code(DataType.BOOLEAN);
+                if (a == DataType.BOOLEAN || b == DataType.BOOLEAN) return INVALID;
+                return code(promote(a, b));
             }
-            if (inStr || inChr) { cur.append(c); continue; }
+        }
+    }
+
+    private static byte arithmetic(DataType a, DataType b) {
+        if ((a != null && !a.isNumeric()) || (b != null && !b.isNumeric())) return INVALID;
+        return a == null || b == null ? UNKNOWN : code(promote(a, b));
+    }
+
+    private static byte conditionalType(DataType condition, DataType a, DataType b) {
+        if (condition != null && condition != DataType.BOOLEAN) return INVALID;
+        if (a == null || b == null) return UNKNOWN;
+        if (a == b) return code(a);
+        return a.isNumeric() && b.isNumeric() ? code(promote(a, b)) : UNKNOWN;
+    }
+
+    private static byte castType(DataType target, DataType a) {
+        if (a != null && a != target && !(a.isNumeric() && target.isNumeric())) return INVALID;
+        return code(target);
+    }
+
+    // Binary numeric promotion; pass INT as b for the unary one. Evaluation promotes by it too.
+    static DataType promote(DataType a, DataType b) {
+        if (a == DataType.DOUBLE || b == DataType.DOUBLE) return DataType.DOUBLE;
+        if (a == DataType.FLOAT || b == DataType.FLOAT) return DataType.FLOAT;
+        if (a == DataType.LONG || b == DataType.LONG) return DataType.LONG;
+        return DataType.INT;
+    }
+
+    private static String typeName(Expression expr, int n) {
+        DataType type = typeOf(expr, n);
+        return type == null ? "an unresolved type" : type.spelling();
+    }
+
+    // Initializers that are not a single expression, such as array initializers, keep the
+    // token-based classification
+    private boolean classifyTokens(Scope scope, Report report, DataType declared, TokenStream tokens, int from, int to) {
+        while (to - from >= 2 && tokens.kind(from) == TokenKind.LPAREN && tokens.kind(to - 1) == TokenKind.RPAREN) {
+            from++;
+            to--;
+        }
 
-            if (Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '+' || c == '-') {
-                cur.append(c);
-            } else if (cur.length() > 0) {
-                tokens.add(cur.toString());
-                cur.setLength(0);
+        // Single literals
+        if (from < to) {
+            char[] src = tokens.source();
+            int start = tokens.offset(from);
+            int end = tokens.end(to - 1);
+            if (end - start >= 2 && src[start] == '"' && src[end - 1] == '"')
+                return declared != DataType.STRING && report.literal("String literal", declared);
+            if (end - start == 3 && src[start] == '\'' && src[end - 1] == '\'')
+                return declared != DataType.CHAR && report.literal("char literal", declared);
+            TokenKind literal = singleLiteral(tokens, from, to);
+            if (literal == TokenKind.IDENTIFIER)
+                return declared != DataType.BOOLEAN && report.literal("boolean literal", declared);
+            if (literal == TokenKind.INT_LITERAL)
+                return !declared.isNumeric() && report.literal("integer literal", declared);
+            if (literal == TokenKind.FLOAT_LITERAL) {
+                if (declared.isFloating()) return false;
+                return report.literal(declared.isIntegral() ? "floating literal to integral type" : "floating literal", declared);
+            }
+        }
+
+        // Complex expressions
+        boolean hasStr = false, hasFloat = false, hasInt = false, hasBool = false;
+        for (int i = from; i < to; i++) {
+            switch (tokens.kind(i)) {
+                case STRING_LITERAL: hasStr = true; break;
+                case CHAR_LITERAL: case INT_LITERAL: hasInt = true; break;
+                case FLOAT_LITERAL: hasFloat = true; break;
+                case IDENTIFIER: {
+                    if (isBooleanLiteral(tokens, i)) { hasBool = true; break; }
+                    // Qualified names such as Math.PI are not variable references
+                    if (isQualified(tokens, i, from, to)) break;
+                    DataType ref = scope.lookup(tokens, i);
+                    if (ref == null) return report.undefined(i);
+                    if (ref == DataType.STRING) hasStr = true;
+                    else if (ref.isFloating()) hasFloat = true;
+                    else if (ref.isIntegral()) hasInt = true;
+                    else if (ref == DataType.BOOLEAN) hasBool = true;
+                    break;
+                }
+                default: break;
             }
         }
-        if (cur.length() > 0) tokens.add(cur.toString());
-        return tokens;
+
+        DataType exprType = hasStr ? DataType.STRING : hasFloat ? DataType.DOUBLE : hasInt ? DataType.INT : hasBool ? DataType.BOOLEAN : null;
+
+        if (exprType == DataType.STRING)
+            return declared != DataType.STRING && report.expression("String", declared);
+        if (exprType == DataType.BOOLEAN)
+            return declared != DataType.BOOLEAN && report.expression("boolean", declared);
+        if (exprType == DataType.DOUBLE)
+            return !declared.isFloating() && report.expression("floating type", declared);
+        if (exprType == DataType.INT)
+            return !declared.isNumeric() && report.expression("integral type", declared);
+
+        if (declared == DataType.STRING || declared == DataType.BOOLEAN || declared == DataType.CHAR)
+            return report.unverified(declared);
+        return false;
+    }
+
+    // Kind of the literal when [from, to) is exactly one, optionally signed for numbers.
+    // Boolean literals are reported as IDENTIFIER; anything else is null.
+    private TokenKind singleLiteral(TokenStream tokens, int from, int to) {
+        if (to - from == 1) {
+            TokenKind kind = tokens.kind(from);
+            if (kind == TokenKind.IDENTIFIER) return isBooleanLiteral(tokens, from) ? kind : null;
+            return kind == TokenKind.INT_LITERAL || kind == TokenKind.FLOAT_LITERAL ? kind : null;
+        }
+        if (to - from == 2 && tokens.isGlued(from + 1)) {
+            TokenKind sign = tokens.kind(from);
+            TokenKind kind = tokens.kind(from + 1);
+            if ((sign == TokenKind.PLUS || sign == TokenKind.MINUS)
+                    && (kind == TokenKind.INT_LITERAL || kind == TokenKind.FLOAT_LITERAL)) return kind;
+        }
+        return null;
+    }
+
+    private boolean isBooleanLiteral(TokenStream tokens, int i) {
+        Keyword keyword = Keyword.of(tokens, i);
+        return keyword == Keyword.TRUE || keyword == Keyword.FALSE;
     }
+
+    private boolean isQualified(TokenStream tokens, int i, int from, int to) {
+        return (i + 1 < to && tokens.kind(i + 1) == TokenKind.DOT && tokens.isGlued(i + 1))
+            || (i > from && tokens.kind(i - 1) == TokenKind.DOT && tokens.isGlued(i));
+    }
+
 }
@@ -0,0 +1,38 @@
+package Model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Immutable outcome of one semantic analysis
+public final class SemanticResult implements AnalysisResult {
+
+    private final List<String> errors;
+    private final Map<String, String> symbols;
+
+    SemanticResult(List<String> errors, Map<String, String> symbols) {
+        this.errors = ResultCodec.readOnly(errors);
+        this.symbols = Collections.unmodifiableMap(symbols);
+    }
+
+    @Override
+    public boolean isPassed() { return errors.isEmpty(); }
+
+    @Override
+    public List<String> getErrors() { return errors; }
+
+    // Declared variables in declaration order, mapped to their type name
+    public Map<String, String> getSymbols() { return symbols; }
+
+    @Override
+    public String getReport() {
+        StringBuilder result = new StringBuilder();
+        if (errors.isEmpty()) {
+            result.append("SEMANTIC ANALYSIS PASSED\n");
+        } else {
+            result.append("SEMANTIC ANALYSIS FAILED\n\nErrors:\n");
+            for (String err : errors) result.append(err).append('\n');
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,279 @@
+package Model;
+
+import java.util.Arrays;
+
+// Single-pass, table-driven scanner. Each character is classified once through
+// CHAR_CLASS; identifier and number runs are driven by the NEXT transition table,
+// so no regex and no substring is involved in producing a token.
+public class SourceScanner {
+
+    // Character classes
+    private static final byte C_SPACE = 0;
+    private static final byte C_LETTER = 1;    // A-Z a-z _ $ (except e/E)
+    private static final byte C_EXP = 2;       // e E
+    private static final byte C_DIGIT = 3;
+    private static final byte C_DOT = 4;
+    private static final byte C_SIGN = 5;      // + -
+    private static final byte C_DQUOTE = 6;
+    private static final byte C_SQUOTE = 7;
+    private static final byte C_PUNCT = 8;
+    private static final byte C_OTHER = 9;
+
+    // Word states; S_DONE ends the current run
+    private static final byte S_DONE = -1;
+    private static final byte S_IDENT = 0;
+    private static final byte S_INT = 1;
+    private static final byte S_DOT = 2;
+    private static final byte S_FRAC = 3;
+    private static final byte S_EXP_MARK = 4;
+    private static final byte S_EXP_SIGN = 5;
+    private static final byte S_EXP = 6;
+    private static final byte S_JUNK = 7;
+
+    private static final byte[] CHAR_CLASS = new byte[128];
+    private static final TokenKind[] PUNCT_KIND = new TokenKind[128];
+
+    //                                    LETTER      EXP         DIGIT       DOT         SIGN
+    private static final byte[][] NEXT = {
+        /* S_IDENT    */ {S_IDENT,    S_IDENT,    S_IDENT,    S_DONE,     S_DONE},
+        /* S_INT      */ {S_JUNK,     S_EXP_MARK, S_INT,      S_DOT,      S_DONE},
+        /* S_DOT      */ {S_JUNK,     S_JUNK,     S_FRAC,     S_JUNK,     S_DONE},
+        /* S_FRAC     */ {S_JUNK,     S_EXP_MARK, S_FRAC,     S_JUNK,     S_DONE},
+        /* S_EXP_MARK */ {S_JUNK,     S_JUNK,     S_EXP,      S_JUNK,     S_EXP_SIGN},
+        /* S_EXP_SIGN */ {S_JUNK,     S_JUNK,     S_EXP,      S_JUNK,     S_DONE},
+        /* S_EXP      */ {S_JUNK,     S_JUNK,     S_EXP,      S_JUNK,     S_DONE},
+        /* S_JUNK     */ {S_JUNK,     S_JUNK,     S_JUNK,     S_JUNK,     S_DONE},
+    };
+
+    private static final TokenKind[] ACCEPT = {
+        TokenKind.IDENTIFIER, TokenKind.INT_LITERAL, TokenKind.NUMBER_LITERAL, TokenKind.FLOAT_LITERAL,
+        TokenKind.NUMBER_LITERAL, TokenKind.NUMBER_LITERAL, TokenKind.FLOAT_LITERAL, TokenKind.NUMBER_LITERAL
+    };
+
+    static {
+        Arrays.fill(CHAR_CLASS, C_OTHER);
+        for (int c = 0; c <= ' '; c++) CHAR_CLASS[c] = C_SPACE;
+        for (int c = 'a'; c <= 'z'; c++) CHAR_CLASS[c] = C_LETTER;
+        for (int c = 'A'; c <= 'Z'; c++) CHAR_CLASS[c] = C_LETTER;
+        for (int c = '0'; c <= '9'; c++) CHAR_CLASS[c] = C_DIGIT;
+        CHAR_CLASS['_'] = C_LETTER;
+        CHAR_CLASS['$'] = C_LETTER;
+        CHAR_CLASS['e'] = C_EXP;
+        CHAR_CLASS['E'] = C_EXP;
+        CHAR_CLASS['.'] = C_DOT;
+        CHAR_CLASS['+'] = C_SIGN;
+        CHAR_CLASS['-'] = C_SIGN;
+        CHAR_CLASS['"'] = C_DQUOTE;
+        CHAR_CLASS['\''] = C_SQUOTE;
+
+        punct('=', TokenKind.ASSIGN);
+        punct(';', TokenKind.SEMICOLON);
+        punct(',', TokenKind.COMMA);
+        punct('(', TokenKind.LPAREN);
+        punct(')', TokenKind.RPAREN);
+        punct('[', TokenKind.LBRACKET);
+        punct(']', TokenKind.RBRACKET);
+        punct('{', TokenKind.LBRACE);
+        punct('}', TokenKind.RBRACE);
+        punct('<', TokenKind.LESS);
+        punct('>', TokenKind.GREATER);
+        punct('*', TokenKind.STAR);
+        punct('/', TokenKind.SLASH);
+        punct('%', TokenKind.PERCENT);
+        punct('!', TokenKind.BANG);
+        punct('&', TokenKind.AMP);
+        punct('|', TokenKind.PIPE);
+        punct('^', TokenKind.CARET);
+        punct('~', TokenKind.TILDE);
+        punct('?', TokenKind.QUESTION);
+        punct(':', TokenKind.COLON);
+    }
+
+    private static void punct(char c, TokenKind kind) {
+        CHAR_CLASS[c] = C_PUNCT;
+        PUNCT_KIND[c] = kind;
+    }
+
+    // In legacy mode string literals follow the old regex lexer ("[^"]*"|\S+): a quote
+    // only opens a string at the start of a whitespace-separated lexeme, and the string
+    // ends at the next quote on the line with no escape handling.
+    private final boolean legacyQuotes;
+
+    public SourceScanner() {
+        this(false);
+    }
+
+    public SourceScanner(boolean legacyQuotes) {
+        this.legacyQuotes = legacyQuotes;
+    }
+
+    public TokenStream scan(String sourceCode) {
+        char[] src = sourceCode.toCharArray();
+        return scan(src, 0, src.length, 1);
+    }
+
+    public TokenStream scan(char[] src, int from, int to, int firstLine) {
+        TokenStream out = new TokenStream(src, from, to, firstLine);
+        int line = firstLine;
+        out.addLineStart(from);
+
+        // Strings opened before this index run unclosed to the end of their line
+        int unclosedUntil = from;
+        int i = from;
+        while (i < to) {
+            char c = src[i];
+            byte cls = c < 128 ? CHAR_CLASS[c] : C_OTHER;
+
+            switch (cls) {
+                case C_SPACE:
+                    if (c == '\n') {
+                        line++;
+                        out.addLineStart(i + 1);
+                    }
+                    i++;
+                    break;
+
+                case C_LETTER:
+                case C_EXP:
+                case C_DIGIT: {
+                    int state = cls == C_DIGIT ? S_INT : S_IDENT;
+                    int j = i + 1;
+                    while (j < to) {
+                        char d = src[j];
+                        byte dc = d < 128 ? CHAR_CLASS[d] : C_OTHER;
+                        if (dc < C_LETTER || dc > C_SIGN) break;
+                        byte next = NEXT[state][dc - C_LETTER];
+                        if (next == S_DONE) break;
+                        state = next;
+                        j++;
+                    }
+                    out.add(ACCEPT[state], i, j - i, line);
+                    i = j;
+                    break;
+                }
+
+                case C_DQUOTE: {
+                    // A quote after one whose string ran unclosed to the end of the line was
+                    // stepped over by that scan, which went on just past it where this one
+                    // would start; so this string is unclosed too and is not scanned again
+                    int close;
+                    if (legacyQuotes) {
+                        close = legacyStringEnd(src, from, i, to, out);
+                    } else if (i < unclosedUntil) {
+                        close = -1;
+                    } else {
+                        close = stringEnd(src, i, to);
+                        if (close < 0) unclosedUntil = lineEnd(src, i, to);
+                    }
+                    if (close < 0) {
+                        out.add(TokenKind.OTHER, i, 1, line);
+                        i++;
+                    } else {
+                        out.add(TokenKind.STRING_LITERAL, i, close + 1 - i, line);
+                        i = close + 1;
+                    }
+                    break;
+                }
+
+                case C_SQUOTE: {
+                    int len = charLiteralLength(src, i, to);
+                    out.add(len > 0 ? TokenKind.CHAR_LITERAL : TokenKind.OTHER, i, len > 0 ? len : 1, line);
+                    i += len > 0 ? len : 1;
+                    break;
+                }
+
+                case C_SIGN:
+                    out.add(c == '+' ? TokenKind.PLUS : TokenKind.MINUS, i, 1, line);
+                    i++;
+                    break;
+
+                case C_DOT:
+                    out.add(TokenKind.DOT, i, 1, line);
+                    i++;
+                    break;
+
+                case C_PUNCT: {
+                    char d = i + 1 < to ? src[i + 1] : '\0';
+                    TokenKind pair = pairKind(c, d);
+                    if (pair != null) {
+                        out.add(pair, i, 2, line);
+                        i += 2;
+                    } else {
+                        out.add(PUNCT_KIND[c], i, 1, line);
+                        i++;
+                    }
+                    break;
+                }
+
+                default:
+                    out.add(TokenKind.OTHER, i, 1, line);
+                    i++;
+            }
+        }
+        return out;
+    }
+
+    private static TokenKind pairKind(char c, char d) {
+        if (d == '=') {
+            switch (c) {
+                case '=': return TokenKind.EQUAL_EQUAL;
+                case '!': return TokenKind.NOT_EQUAL;
+                case '<': return TokenKind.LESS_EQUAL;
+                case '>': return TokenKind.GREATER_EQUAL;
+                default: return null;
+            }
+        }
+        if (c == '&' && d == '&') return TokenKind.AND_AND;
+        if (c == '|' && d == '|') return TokenKind.OR_OR;
+        return null;
+    }
+
+    // Index of the closing quote of the string opened at i, honouring backslash
+    // escapes, or -1 when the line ends first.
+    private static int stringEnd(char[] src, int i, int to) {
+        int j = i + 1;
+        while (j < to) {
+            char c = src[j];
+            if (c == '"') return j;
+            if (c == '\n') return -1;
+            j += (c == '\\' && j + 1 < to && src[j + 1] != '\n') ? 2 : 1;
+        }
+        return -1;
+    }
+
+    // Index of the '\n' ending the line that i is on, or to
+    private static int lineEnd(char[] src, int i, int to) {
+        while (i < to && src[i] != '\n') i++;
+        return i;
+    }
+
+    private static int legacyStringEnd(char[] src, int from, int i, int to, TokenStream out) {
+        int n = out.size();
+        boolean lexemeStart = i == from || src[i - 1] <= ' '
+                || (n > 0 && out.kind(n - 1) == TokenKind.STRING_LITERAL && out.end(n - 1) == i);
+        if (!lexemeStart) return -1;
+        for (int j = i + 1; j < to; j++) {
+            if (src[j] == '"') return j;
+            if (src[j] == '\n') return -1;
+        }
+        return -1;
+    }
+
+    // Length of the char literal starting at i ('x', '\x' or an octal escape up to '\377'), or 0
+    // if there is none. Whitespace is never accepted inside, so ' ' stays two separate quote tokens.
+    private static int charLiteralLength(char[] src, int i, int to) {
+        if (i + 3 < to && src[i + 1] == '\\' && src[i + 2] >= '0' && src[i + 2] <= '7') {
+            int j = i + 3;
+            int end = i + (src[i + 2] <= '3' ? 5 : 4);
+            while (j < end && j < to && src[j] >= '0' && src[j] <= '7') j++;
+            if (j < to && src[j] == '\'') return j - i + 1;
+        }
+        if (i + 2 < to && src[i + 1] > ' ' && src[i + 1] != '\\' && src[i + 1] != '\'' && src[i + 2] == '\'') {
+            return 3;
+        }
+        if (i + 3 < to && src[i + 1] == '\\' && src[i + 2] > ' ' && src[i + 3] == '\'') {
+            return 4;
+        }
+        return 0;
+    }
+}
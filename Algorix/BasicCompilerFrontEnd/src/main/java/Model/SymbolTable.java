@@ -0,0 +1,280 @@
+package Model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+// Open-addressing symbol table keyed by name. Each name is copied once into a shared pool
+// (one byte per char while every name is Latin-1, two bytes after that) and gets an id in
+// declaration order, so a symbol costs a slot, an offset and a type byte instead of a map
+// entry, a String and its array. Lookups hash the caller's chars in place and allocate nothing.
+// The hash is seeded per JVM rather than String.hashCode, under which names built from "Aa"
+// and "BB" all collide and a file of them would take quadratic time to declare.
+// Not thread-safe; a finished table may be read from any thread.
+public final class SymbolTable {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final long SEED = new SplittableRandom().nextLong();
+
+    private long[] slots;       // hash of the name that went there << 32 | its id + 1, 0 when free
+    private int[] starts;       // name id spans [starts[id], starts[id + 1]) of the pool, in chars
+    private byte[] types;
+    private byte[] pool;
+    private boolean wide;       // two bytes per char in the pool
+    private int size;
+
+    public SymbolTable() {
+        this(16);
+    }
+
+    public SymbolTable(int expected) {
+        slots = new long[capacityFor(Math.max(expected, 1))];
+        starts = new int[Math.max(expected, 1) + 1];
+        types = new byte[Math.max(expected, 1)];
+        pool = new byte[Math.max(expected, 1) * 8];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Id of the name in src[from, to), or -1
+    public int find(char[] src, int from, int to) {
+        int mask = slots.length - 1;
+        int h = hash(src, from, to);
+        for (int s = h & mask; ; s = (s + 1) & mask) {
+            long slot = slots[s];
+            if (slot == 0) return -1;
+            if ((int) (slot >>> 32) == h && matches(id(slot), src, from, to)) return id(slot);
+        }
+    }
+
+    public int find(String name) {
+        int mask = slots.length - 1;
+        int h = hash(name);
+        for (int s = h & mask; ; s = (s + 1) & mask) {
+            long slot = slots[s];
+            if (slot == 0) return -1;
+            if ((int) (slot >>> 32) == h && matches(id(slot), name)) return id(slot);
+        }
+    }
+
+    // Declares the name with the given type; a name already present keeps its id and takes the type
+    public int put(char[] src, int from, int to, byte type) {
+        int mask = slots.length - 1;
+        int h = hash(src, from, to);
+        int s = h & mask;
+        for (; slots[s] != 0; s = (s + 1) & mask) {
+            int id = id(slots[s]);
+            if ((int) (slots[s] >>> 32) == h && matches(id, src, from, to)) {
+                types[id] = type;
+                return id;
+            }
+        }
+        int id = append(to - from, type);
+        for (int i = from; i < to; i++) setChar(starts[id] + i - from, src[i]);
+        return insert(s, h, id);
+    }
+
+    public int put(String name, byte type) {
+        int mask = slots.length - 1;
+        int h = hash(name);
+        int s = h & mask;
+        for (; slots[s] != 0; s = (s + 1) & mask) {
+            int id = id(slots[s]);
+            if ((int) (slots[s] >>> 32) == h && matches(id, name)) {
+                types[id] = type;
+                return id;
+            }
+        }
+        int id = append(name.length(), type);
+        for (int i = 0; i < name.length(); i++) setChar(starts[id] + i, name.charAt(i));
+        return insert(s, h, id);
+    }
+
+    public byte type(int id) {
+        return types[id];
+    }
+
+    public String name(int id) {
+        int start = starts[id];
+        int length = starts[id + 1] - start;
+        if (!wide) return new String(pool, start, length, StandardCharsets.ISO_8859_1);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) chars[i] = charAt(start + i);
+        return new String(chars);
+    }
+
+    // Read-only view in declaration order, with each type byte shown as typeNames[type]
+    public Map<String, String> asMap(String[] typeNames) {
+        return new AbstractMap<>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public String get(Object key) {
+                int id = key instanceof String name ? find(name) : -1;
+                return id < 0 ? null : typeNames[types[id]];
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key instanceof String name && find(name) >= 0;
+            }
+
+            @Override
+            public Set<Entry<String, String>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public int size() {
+                        return size;
+                    }
+
+                    @Override
+                    public Iterator<Entry<String, String>> iterator() {
+                        return new Iterator<>() {
+                            int next;
+
+                            @Override
+                            public boolean hasNext() {
+                                return next < size;
+                            }
+
+                            @Override
+                            public Entry<String, String> next() {
+                                if (next >= size) throw new NoSuchElementException();
+                                int id = next++;
+                                return new SimpleImmutableEntry<>(name(id), typeNames[types[id]]);
+                            }
+                        };
+                    }
+                };
+            }
+        };
+    }
+
+    // Reserves pool space for a new name and returns its id
+    private int append(int length, byte type) {
+        int id = size;
+        if (id + 2 > starts.length) {
+            int grown = Math.max(id + 2, starts.length + (starts.length >> 1));
+            starts = Arrays.copyOf(starts, grown);
+            types = Arrays.copyOf(types, grown - 1);
+        }
+        int end = starts[id] + length;
+        ensurePool(wide ? 2L * end : end);
+        starts[id + 1] = end;
+        types[id] = type;
+        return id;
+    }
+
+    private int insert(int slot, int h, int id) {
+        slots[slot] = (long) h << 32 | id + 1;
+        size++;
+        if (size > slots.length / 4 * 3 && slots.length < MAX_CAPACITY) rehash(slots.length * 2);
+        return id;
+    }
+
+    // Slots keep their hash, so growing never reads the pool
+    private void rehash(int capacity) {
+        long[] grown = new long[capacity];
+        int mask = capacity - 1;
+        for (long slot : slots) {
+            if (slot == 0) continue;
+            int s = (int) (slot >>> 32) & mask;
+            while (grown[s] != 0) s = (s + 1) & mask;
+            grown[s] = slot;
+        }
+        slots = grown;
+    }
+
+    private static int id(long slot) {
+        return (int) slot - 1;
+    }
+
+    private void setChar(int index, char c) {
+        if (c > 0xFF && !wide) widen();
+        if (wide) {
+            ensurePool(2L * index + 2);
+            pool[2 * index] = (byte) (c >>> 8);
+            pool[2 * index + 1] = (byte) c;
+        } else {
+            pool[index] = (byte) c;
+        }
+    }
+
+    private char charAt(int index) {
+        if (!wide) return (char) (pool[index] & 0xFF);
+        return (char) ((pool[2 * index] & 0xFF) << 8 | pool[2 * index + 1] & 0xFF);
+    }
+
+    // The first name outside Latin-1 switches the whole pool to two bytes per char
+    private void widen() {
+        int used = starts[size + 1];
+        byte[] two = new byte[Math.max(2 * used, pool.length)];
+        for (int i = used - 1; i >= 0; i--) {
+            two[2 * i + 1] = pool[i];
+        }
+        pool = two;
+        wide = true;
+    }
+
+    private void ensurePool(long bytes) {
+        if (bytes > pool.length) pool = Arrays.copyOf(pool, (int) Math.min(Integer.MAX_VALUE - 8,
+                Math.max(bytes, pool.length + (long) (pool.length >> 1))));
+    }
+
+    private boolean matches(int id, char[] src, int from, int to) {
+        int start = starts[id];
+        if (starts[id + 1] - start != to - from) return false;
+        for (int i = from; i < to; i++) {
+            if (charAt(start + i - from) != src[i]) return false;
+        }
+        return true;
+    }
+
+    private boolean matches(int id, String name) {
+        int start = starts[id];
+        if (starts[id + 1] - start != name.length()) return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (charAt(start + i) != name.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static int hash(char[] src, int from, int to) {
+        long h = SEED;
+        for (int i = from; i < to; i++) h = mix(h, src[i]);
+        return finish(h);
+    }
+
+    private static int hash(String name) {
+        long h = SEED;
+        for (int i = 0; i < name.length(); i++) h = mix(h, name.charAt(i));
+        return finish(h);
+    }
+
+    // The rotation carries high bits back down, so every char reaches the bits a slot is picked by
+    private static long mix(long h, char c) {
+        return Long.rotateLeft((h ^ c) * 0x9E3779B97F4A7C15L, 29);
+    }
+
+    private static int finish(long h) {
+        h = (h ^ (h >>> 32)) * 0xBF58476D1CE4E5B9L;
+        return (int) (h ^ (h >>> 31));
+    }
+
+    private static int capacityFor(int expected) {
+        int capacity = 16;
+        while (capacity < MAX_CAPACITY && capacity / 4 * 3 < expected) capacity <<= 1;
+        return capacity;
+    }
+}
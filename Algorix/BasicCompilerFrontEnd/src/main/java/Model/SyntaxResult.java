@@ -0,0 +1,45 @@
+package Model;
+
+import java.util.List;
+
+// Immutable outcome of one syntax analysis
+public final class SyntaxResult implements AnalysisResult {
+
+    private final List<String> errors;
+    private final ParseTree tree;
+
+    SyntaxResult(List<String> errors, ParseTree tree) {
+        this.errors = ResultCodec.readOnly(errors);
+        this.tree = tree;
+    }
+
+    @Override
+    public boolean isPassed() {
+        return errors.isEmpty();
+    }
+
+    @Override
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    // The parsed statements, for the semantic phase; null for streamed or incremental input
+    public ParseTree getTree() {
+        return tree;
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder result = new StringBuilder();
+        if (errors.isEmpty()) {
+            result.append("SYNTAX ANALYSIS PASSED\n\n");
+        } else {
+            result.append("SYNTAX ANALYSIS FAILED\n\n");
+            result.append("Errors:\n");
+            for (int i = 0; i < errors.size(); i++) {
+                result.append(errors.get(i)).append("\n");
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package Model;
+
+public enum TokenKind {
+    IDENTIFIER,
+    INT_LITERAL,        // [0-9]+
+    FLOAT_LITERAL,      // [0-9]+.[0-9]+ with optional exponent, or [0-9]+ with exponent
+    NUMBER_LITERAL,     // any other digit-led run: hex, suffixed (10L, 1.5f) or malformed
+    STRING_LITERAL,
+    CHAR_LITERAL,
+    ASSIGN,
+    EQUAL_EQUAL,
+    NOT_EQUAL,
+    LESS_EQUAL,
+    GREATER_EQUAL,
+    AND_AND,
+    OR_OR,
+    SEMICOLON,
+    COMMA,
+    DOT,
+    LPAREN,
+    RPAREN,
+    LBRACKET,
+    RBRACKET,
+    LBRACE,
+    RBRACE,
+    LESS,
+    GREATER,
+    PLUS,
+    MINUS,
+    STAR,
+    SLASH,
+    PERCENT,
+    BANG,
+    AMP,
+    PIPE,
+    CARET,
+    TILDE,
+    QUESTION,
+    COLON,
+    OTHER;              // any single character the scanner has no rule for
+
+    static final TokenKind[] VALUES = values();
+}
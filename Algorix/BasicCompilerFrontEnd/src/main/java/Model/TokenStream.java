@@ -0,0 +1,108 @@
+package Model;
+
+import java.util.Arrays;
+
+// Tokens produced by SourceScanner, stored column-wise in primitive arrays so a
+// stream of millions of tokens costs a handful of arrays instead of objects.
+// Token text is never copied: offsets and lengths index into the shared source.
+public class TokenStream {
+
+    private final char[] source;
+    private final int sourceStart;
+    private final int sourceEnd;
+
+    private byte[] kinds;
+    private int[] offsets;
+    private int[] lengths;
+    private int[] lines;
+    private int size;
+
+    private int[] lineStarts;
+    private int firstLine;
+    private int lineCount;
+
+    TokenStream(char[] source, int sourceStart, int sourceEnd, int firstLine) {
+        this.source = source;
+        this.sourceStart = sourceStart;
+        this.sourceEnd = sourceEnd;
+        this.firstLine = firstLine;
+
+        int capacity = Math.max(16, (sourceEnd - sourceStart) / 4);
+        kinds = new byte[capacity];
+        offsets = new int[capacity];
+        lengths = new int[capacity];
+        lines = new int[capacity];
+        lineStarts = new int[Math.max(16, (sourceEnd - sourceStart) / 32)];
+    }
+
+    void add(TokenKind kind, int offset, int length, int line) {
+        if (size == kinds.length) {
+            int capacity = size + (size >> 1);
+            kinds = Arrays.copyOf(kinds, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+        }
+        kinds[size] = (byte) kind.ordinal();
+        offsets[size] = offset;
+        lengths[size] = length;
+        lines[size] = line;
+        size++;
+    }
+
+    void addLineStart(int offset) {
+        if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount + (lineCount >> 1));
+        }
+        lineStarts[lineCount++] = offset;
+    }
+
+    public int size() { return size; }
+
+    public TokenKind kind(int i) { return TokenKind.VALUES[kinds[i]]; }
+
+    public int offset(int i) { return offsets[i]; }
+
+    public int length(int i) { return lengths[i]; }
+
+    public int end(int i) { return offsets[i] + lengths[i]; }
+
+    public int line(int i) { return lines[i]; }
+
+    public int column(int i) { return offsets[i] - lineStarts[lines[i] - firstLine] + 1; }
+
+    public char[] source() { return source; }
+
+    public int sourceStart() { return sourceStart; }
+
+    public int sourceEnd() { return sourceEnd; }
+
+    public int firstLine() { return firstLine; }
+
+    public int lineCount() { return lineCount; }
+
+    public char charAt(int offset) { return source[offset]; }
+
+    // True when token i directly follows token i - 1 with no whitespace in between.
+    public boolean isGlued(int i) {
+        return i > 0 && offsets[i] == offsets[i - 1] + lengths[i - 1];
+    }
+
+    public boolean textEquals(int i, String s) {
+        int len = lengths[i];
+        if (len != s.length()) return false;
+        int off = offsets[i];
+        for (int k = 0; k < len; k++) {
+            if (source[off + k] != s.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    public String text(int i) {
+        return new String(source, offsets[i], lengths[i]);
+    }
+
+    public String text(int from, int to) {
+        return new String(source, from, to - from);
+    }
+}
@@ -0,0 +1,187 @@
+package com.compiler.frontend;
+
+import Controller.BatchAnalyzer;
+import Controller.BatchReport;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Thin client of AnalysisDaemon for CI steps. Sends the paths of files and directories for the
+// daemon to read, or with --content reads the files here and sends their text, and prints the
+// same JSON report and summary as CompilerCLI with the same exit status. --stop asks the
+// daemon to exit.
+// Usage: AnalysisClient [--socket PATH] [--ext .java] [--content] [--report FILE] <path>... | --stop
+public class AnalysisClient implements Closeable {
+
+    private static final String USAGE =
+            "Usage: AnalysisClient [--socket PATH] [--ext .java] [--content] [--report FILE] <path>... | --stop\n"
+            + "  --socket PATH  socket of the daemon (default: " + DaemonProtocol.defaultSocket() + ")\n"
+            + "  --ext EXT      file name suffix to analyze below directories (default: .java)\n"
+            + "  --content      send the text of the files instead of their paths\n"
+            + "  --report FILE  write the JSON report to FILE instead of standard output\n"
+            + "  --stop         ask the daemon to exit";
+
+    private final SocketChannel channel;
+
+    // Connects to the daemon listening on socket. Throws AccessDeniedException when the socket
+    // belongs to another user, whose daemon would be handed the files to read.
+    public AnalysisClient(Path socket) throws IOException {
+        if (Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) DaemonProtocol.checkOwner(socket);
+        channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+        Path socket = DaemonProtocol.defaultSocket();
+        String extension = ".java";
+        boolean content = false;
+        boolean stop = false;
+        Path report = null;
+        List<Path> paths = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--socket" -> socket = Path.of(value(args, ++i));
+                    case "--ext" -> extension = value(args, ++i);
+                    case "--content" -> content = true;
+                    case "--report" -> report = Path.of(value(args, ++i));
+                    case "--stop" -> stop = true;
+                    case "-h", "--help" -> {
+                        System.out.println(USAGE);
+                        return CompilerCLI.EXIT_PASSED;
+                    }
+                    default -> {
+                        if (args[i].startsWith("--")) throw new IllegalArgumentException("Unexpected argument '" + args[i] + "'");
+                        paths.add(Path.of(args[i]));
+                    }
+                }
+            }
+            if (stop != paths.isEmpty()) throw new IllegalArgumentException(stop ? "--stop takes no paths" : "Missing path");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return CompilerCLI.EXIT_ERROR;
+        }
+
+        for (Path path : paths) {
+            if (!Files.exists(path)) {
+                System.err.println("No such file or directory: " + path);
+                return CompilerCLI.EXIT_ERROR;
+            }
+        }
+
+        AnalysisClient client;
+        try {
+            client = new AnalysisClient(socket);
+        } catch (AccessDeniedException e) {
+            System.err.printf("Not connecting to %s: %s%n", socket, e.getReason());
+            return CompilerCLI.EXIT_ERROR;
+        } catch (IOException e) {
+            System.err.printf("No analysis daemon on %s (%s); start one with AnalysisDaemon%n", socket, e.getMessage());
+            return CompilerCLI.EXIT_ERROR;
+        }
+        try (client) {
+            if (stop) {
+                client.stop();
+                return CompilerCLI.EXIT_PASSED;
+            }
+            long start = System.nanoTime();
+            Response response;
+            if (content) {
+                List<Path> files = new ArrayList<>();
+                for (Path path : paths) files.addAll(BatchAnalyzer.findSources(path, extension));
+                List<String> sources = new ArrayList<>(files.size());
+                for (Path file : files) sources.add(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                response = client.analyzeSources(files, sources);
+            } else {
+                response = client.analyze(paths, extension);
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            Path root = paths.size() == 1 ? paths.get(0) : Path.of("").toAbsolutePath();
+            BatchReport batchReport = new BatchReport(root, response.results(), response.threads(), elapsedMillis);
+            if (report != null) {
+                try (Writer out = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+                    batchReport.writeJson(out);
+                }
+            } else {
+                Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                batchReport.writeJson(out);
+            }
+
+            int failed = batchReport.getFailedCount();
+            System.err.printf("%d files, %d passed, %d failed in %d ms (daemon)%n",
+                    response.results().size(), response.results().size() - failed, failed, elapsedMillis);
+            return failed == 0 ? CompilerCLI.EXIT_PASSED : CompilerCLI.EXIT_FAILED;
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return CompilerCLI.EXIT_ERROR;
+        }
+    }
+
+    // Results in the order the daemon found the files, with its parallelism
+    public record Response(int threads, List<BatchAnalyzer.FileResult> results) {
+    }
+
+    // Files and directories the daemon reads itself; below directories, files ending in extension
+    public Response analyze(List<Path> paths, String extension) throws IOException {
+        DaemonProtocol.Output request = DaemonProtocol.request(DaemonProtocol.ANALYZE);
+        request.string(extension);
+        request.varint(paths.size());
+        for (Path path : paths) request.string(path.toAbsolutePath().toString());
+        return exchange(request);
+    }
+
+    // Texts sent with the names of their files, for a daemon that cannot read them
+    public Response analyzeSources(List<Path> files, List<String> sources) throws IOException {
+        if (files.size() != sources.size()) throw new IllegalArgumentException("Need one source per file");
+        DaemonProtocol.Output request = DaemonProtocol.request(DaemonProtocol.SOURCES);
+        request.varint(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            request.string(files.get(i).toAbsolutePath().toString());
+            request.string(sources.get(i));
+        }
+        return exchange(request);
+    }
+
+    // The daemon stops accepting clients and exits once those connected are done
+    public void stop() throws IOException {
+        exchange(DaemonProtocol.request(DaemonProtocol.STOP));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Throws IOException with the daemon's message when it could not answer
+    private Response exchange(DaemonProtocol.Output request) throws IOException {
+        DaemonProtocol.write(channel, request);
+        DaemonProtocol.Input response = DaemonProtocol.read(channel);
+        if (response == null) throw new IOException("The daemon closed the connection");
+        if (response.u1() != DaemonProtocol.OK) throw new IOException(response.string());
+        int threads = (int) response.varint();
+        return new Response(threads, DaemonProtocol.results(response));
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+}
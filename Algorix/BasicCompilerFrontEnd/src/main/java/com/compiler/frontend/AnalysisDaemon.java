@@ -0,0 +1,304 @@
+package com.compiler.frontend;
+
+import Controller.BatchAnalyzer;
+import Model.Limits;
+import Model.Metrics;
+import Model.ResultCache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Serves analysis requests from one long-lived JVM over a Unix domain socket, so a CI step
+// that runs AnalysisClient pays for a small request instead of JVM startup and JIT warm-up.
+// The analyzers are warmed on a generated source at start. Each connection is served on its
+// own virtual thread, and each file of a request is analyzed on another, at most one per
+// processor at a time. Results of content seen before come from an in-memory cache. Once no
+// client has been connected for the idle timeout, the daemon closes and removes its socket.
+// Usage: AnalysisDaemon [--socket PATH] [--idle-timeout SECONDS] [--max-line-length N] [--max-nesting N]
+//                       [--max-string-chars N]
+public class AnalysisDaemon implements Closeable {
+
+    private static final String USAGE =
+            "Usage: AnalysisDaemon [--socket PATH] [--idle-timeout SECONDS] " + LimitOptions.SYNOPSIS + "\n"
+            + "  --socket PATH            Unix domain socket to listen on (default: " + DaemonProtocol.defaultSocket() + ")\n"
+            + "  --idle-timeout SECONDS   exit after this long without clients, 0 for never (default: 900)\n"
+            + LimitOptions.usage(27);
+
+    // Runs of the warm-up source; enough for the analyzers' hot methods to be compiled by C2
+    private static final int WARM_UP_RUNS = 600;
+
+    private final Path socket;
+    private final long idleNanos;
+    private final Limits limits;
+    private final ServerSocketChannel server;
+    private final ResultCache cache = new ResultCache(ResultCache.DEFAULT_MEMORY_BYTES);
+    private final int parallelism = Runtime.getRuntime().availableProcessors();
+    private final Semaphore workers = new Semaphore(parallelism);
+    private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger clients = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile long lastActive = System.nanoTime();
+
+    public AnalysisDaemon(Path socket, long idleTimeoutMillis) throws IOException {
+        this(socket, idleTimeoutMillis, Limits.DEFAULT);
+    }
+
+    // Binds socket, replacing a file left behind by a daemon that is gone; throws
+    // IllegalStateException when another daemon is listening on it. Every file is analyzed
+    // under limits.
+    public AnalysisDaemon(Path socket, long idleTimeoutMillis, Limits limits) throws IOException {
+        if (idleTimeoutMillis < 0) throw new IllegalArgumentException("idleTimeoutMillis must not be negative");
+        this.socket = socket;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.limits = limits;
+        if (Files.exists(socket)) {
+            boolean listening;
+            try {
+                SocketChannel.open(UnixDomainSocketAddress.of(socket)).close();
+                listening = true;
+            } catch (IOException e) {
+                listening = false;
+            }
+            if (listening) throw new IllegalStateException("A daemon is already listening on " + socket);
+            Files.delete(socket);
+        }
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            // Clients name files the daemon reads for them: only its own user may connect
+            Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system; the directory's permissions apply
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) {
+        Path socket = DaemonProtocol.defaultSocket();
+        boolean defaultSocket = true;
+        long idleSeconds = 900;
+        Limits limits = Limits.DEFAULT;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--socket" -> {
+                        socket = Path.of(value(args, ++i));
+                        defaultSocket = false;
+                    }
+                    case "--idle-timeout" -> idleSeconds = Long.parseLong(value(args, ++i));
+                    case "--max-line-length", "--max-nesting", "--max-string-chars" ->
+                            limits = LimitOptions.apply(limits, args[i], value(args, ++i));
+                    case "-h", "--help" -> {
+                        System.out.println(USAGE);
+                        return;
+                    }
+                    default -> throw new IllegalArgumentException("Unexpected argument '" + args[i] + "'");
+                }
+            }
+            if (idleSeconds < 0) throw new IllegalArgumentException("--idle-timeout must not be negative");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(CompilerCLI.EXIT_ERROR);
+        }
+        try {
+            // A socket given is in a directory of the caller's choosing; the default one's is ours
+            if (defaultSocket) DaemonProtocol.privateDirectory(socket.getParent());
+            try (AnalysisDaemon daemon = new AnalysisDaemon(socket, TimeUnit.SECONDS.toMillis(idleSeconds), limits)) {
+                System.err.printf("Listening on %s%n", socket);
+                daemon.warmUp();
+                daemon.serve();
+                System.err.printf("Stopped: %s%n", daemon.cache);
+            }
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(CompilerCLI.EXIT_ERROR);
+        }
+    }
+
+    // Analyzes a generated source on a virtual thread, uncached, while no client is connected
+    public void warmUp() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            source.append("int a").append(i).append(" = ").append(i).append(" * (3 + ").append(i).append(") % 7;\n")
+                    .append("double b").append(i).append(" = a").append(i).append(" / 2.5 - 1e3;\n")
+                    .append("String c").append(i).append(" = \"v\" + b").append(i).append(";\n")
+                    .append("boolean d").append(i).append(" = a").append(i).append(" > 3 && !false || c").append(i).append(" == \"x\";\n");
+        }
+        String passing = source.toString();
+        String failing = passing + "int a0 = 1;\nchar e = 'x' + 1.5;\n";
+        Path name = Path.of("warm-up");
+        threads.submit(() -> {
+            // Virtual threads are not preempted, so a run only starts while no client is
+            // connected; one that arrives meanwhile waits for a run, not the rest
+            for (int run = 0; run < WARM_UP_RUNS && !closed.get(); run++) {
+                while (clients.get() > 0 && !closed.get()) Thread.sleep(5);
+                BatchAnalyzer.analyzeSource(name, run % 2 == 0 ? passing : failing, null, Metrics.NONE, limits);
+            }
+            return null;
+        });
+    }
+
+    // Accepts clients until the idle timeout expires or a client asks to stop
+    public void serve() throws IOException {
+        Thread watchdog = idleNanos > 0 ? Thread.ofVirtual().name("idle-timeout").start(this::expire) : null;
+        try {
+            while (true) {
+                SocketChannel client;
+                try {
+                    client = server.accept();
+                } catch (ClosedChannelException e) {
+                    break;
+                }
+                clients.incrementAndGet();
+                threads.submit(() -> session(client));
+            }
+        } finally {
+            if (watchdog != null) watchdog.interrupt();
+            threads.close();
+        }
+    }
+
+    // Stops accepting clients; those connected finish their requests. The socket file goes
+    // first, so it is gone once serve returns, and only on the first call, since by a later
+    // one it may belong to a new daemon.
+    @Override
+    public void close() throws IOException {
+        if (!closed.compareAndSet(false, true)) return;
+        try {
+            Files.deleteIfExists(socket);
+        } finally {
+            server.close();
+        }
+    }
+
+    private void expire() {
+        try {
+            while (true) {
+                long wait = lastActive + idleNanos - System.nanoTime();
+                if (wait <= 0 && clients.get() == 0) {
+                    close();
+                    return;
+                }
+                TimeUnit.NANOSECONDS.sleep(wait > 0 ? wait : idleNanos);
+            }
+        } catch (InterruptedException | IOException e) {
+            // serving has ended
+        }
+    }
+
+    // Requests of one connection, answered in turn until the client closes it
+    private void session(SocketChannel channel) {
+        try (channel) {
+            DaemonProtocol.Input request;
+            while ((request = DaemonProtocol.read(channel)) != null) {
+                DaemonProtocol.write(channel, respond(request));
+                lastActive = System.nanoTime();
+            }
+        } catch (IOException e) {
+            // the client went away or sent something that is not a frame
+        } finally {
+            lastActive = System.nanoTime();
+            clients.decrementAndGet();
+        }
+    }
+
+    private DaemonProtocol.Output respond(DaemonProtocol.Input request) {
+        try {
+            int operation = request.u1();
+            switch (operation) {
+                case DaemonProtocol.ANALYZE -> {
+                    String extension = request.string();
+                    int count = request.count();
+                    List<Path> files = new ArrayList<>();
+                    for (int i = 0; i < count; i++) {
+                        Path path = Path.of(request.string());
+                        if (!Files.exists(path)) return DaemonProtocol.error("No such file or directory: " + path);
+                        files.addAll(BatchAnalyzer.findSources(path, extension));
+                    }
+                    return DaemonProtocol.results(parallelism, analyze(files, null));
+                }
+                case DaemonProtocol.SOURCES -> {
+                    int count = request.count();
+                    List<Path> names = new ArrayList<>();
+                    List<String> sources = new ArrayList<>();
+                    for (int i = 0; i < count; i++) {
+                        names.add(Path.of(request.string()));
+                        sources.add(request.string());
+                    }
+                    return DaemonProtocol.results(parallelism, analyze(names, sources));
+                }
+                case DaemonProtocol.STOP -> {
+                    close();
+                    return DaemonProtocol.results(parallelism, List.of());
+                }
+                default -> {
+                    return DaemonProtocol.error("Unknown operation " + operation);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return DaemonProtocol.error(String.valueOf(e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return DaemonProtocol.error("Interrupted");
+        }
+    }
+
+    // Files, or the texts of sources named by files when sources is not null, each on its own
+    // virtual thread; results come back in the order of files
+    private List<BatchAnalyzer.FileResult> analyze(List<Path> files, List<String> sources) throws InterruptedException {
+        if (files.size() == 1) return List.of(analyze(files.get(0), sources != null ? sources.get(0) : null));
+        List<Future<BatchAnalyzer.FileResult>> futures = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            String source = sources != null ? sources.get(i) : null;
+            futures.add(threads.submit(() -> analyze(file, source)));
+        }
+        List<BatchAnalyzer.FileResult> results = new ArrayList<>(files.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                results.add(new BatchAnalyzer.FileResult(files.get(i), -1, List.of(), String.valueOf(e.getCause())));
+            }
+        }
+        return results;
+    }
+
+    // Holds a worker permit, so a large request reads no more files at once than can be analyzed
+    private BatchAnalyzer.FileResult analyze(Path file, String source) throws InterruptedException {
+        workers.acquire();
+        try {
+            return source != null
+                    ? BatchAnalyzer.analyzeSource(file, source, cache, Metrics.NONE, limits)
+                    : BatchAnalyzer.analyzeFile(file, cache, Metrics.NONE, limits);
+        } finally {
+            workers.release();
+        }
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+}
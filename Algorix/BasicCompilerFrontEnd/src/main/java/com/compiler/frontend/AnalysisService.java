@@ -0,0 +1,61 @@
+package com.compiler.frontend;
+
+import Model.ProgressListener;
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Runs one analysis at a time off the FX thread, on virtual threads. Starting a run cancels
+// the one in flight; a superseded or cancelled run never reaches its completion callback.
+class AnalysisService extends Service<AnalysisService.Outcome> {
+
+    // The report is split into lines on the worker so the output list only has to show them
+    record Outcome(boolean passed, List<String> lines) {
+    }
+
+    @FunctionalInterface
+    interface Job {
+        Outcome run(ProgressListener progress) throws Exception;
+    }
+
+    private Job job;
+    private Consumer<Outcome> onDone;
+    private boolean restarting;
+
+    AnalysisService() {
+        setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        setOnSucceeded(event -> onDone.accept(getValue()));
+    }
+
+    // Must be called on the FX thread
+    void start(Job job, Consumer<Outcome> onDone) {
+        this.job = job;
+        this.onDone = onDone;
+        restarting = true;
+        try {
+            restart();
+        } finally {
+            restarting = false;
+        }
+    }
+
+    // True while start() cancels the previous run, so its cancellation is not reported as the user's
+    boolean isRestarting() {
+        return restarting;
+    }
+
+    @Override
+    protected Task<Outcome> createTask() {
+        Job current = job;
+        return new Task<>() {
+            @Override
+            protected Outcome call() throws Exception {
+                updateProgress(-1, 1);
+                return current.run(this::updateProgress);
+            }
+        };
+    }
+}
@@ -0,0 +1,242 @@
+package com.compiler.frontend;
+
+import Controller.BatchAnalyzer;
+import Controller.BatchReport;
+import Controller.SourceWatcher;
+import Model.ClassGeneration;
+import Model.Evaluation;
+import Model.EvaluationResult;
+import Model.Limits;
+import Model.MappedSource;
+import Model.Metrics;
+import Model.RecordingMetrics;
+import Model.ResultCache;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+// Headless entry point: runs all three phases over every matching file under a directory and,
+// with --classes, compiles the values of each file that passed into a class. With --watch it
+// then keeps running, printing the results of files as they change.
+// Exit status is 0 when every file passes, 1 when any file fails, 2 on usage or I/O errors.
+public class CompilerCLI {
+
+    static final int EXIT_PASSED = 0;
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_ERROR = 2;
+
+    // Errors printed per file in watch mode
+    private static final int MAX_PRINTED_ERRORS = 20;
+
+    private static final String USAGE =
+            "Usage: CompilerCLI [--threads N] [--ext .java] [--report FILE] [--cache DIR] [--metrics] [--classes DIR] [--watch] [--debounce MS] "
+            + LimitOptions.SYNOPSIS + " <directory>\n"
+            + "  --threads N           worker threads (default: available processors)\n"
+            + "  --ext EXT             file name suffix to analyze (default: .java)\n"
+            + "  --report FILE         write the JSON report to FILE instead of standard output\n"
+            + "  --cache DIR           reuse results of unchanged files from earlier runs, stored in DIR\n"
+            + "  --metrics             print per-phase times and counts after the summary\n"
+            + "  --classes DIR         write a class of the declared values of each passing file to DIR\n"
+            + "  --watch               keep running and print the results of files as they change\n"
+            + "  --debounce MS         with --watch, wait until files have been quiet for MS ms (default: 100)\n"
+            + LimitOptions.usage(24);
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String extension = ".java";
+        Path report = null;
+        Path cacheDirectory = null;
+        boolean showMetrics = false;
+        Path classDirectory = null;
+        boolean watch = false;
+        long debounceMillis = 100;
+        Limits limits = Limits.DEFAULT;
+        Path root = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads" -> threads = Integer.parseInt(value(args, ++i));
+                    case "--ext" -> extension = value(args, ++i);
+                    case "--report" -> report = Path.of(value(args, ++i));
+                    case "--cache" -> cacheDirectory = Path.of(value(args, ++i));
+                    case "--metrics" -> showMetrics = true;
+                    case "--classes" -> classDirectory = Path.of(value(args, ++i));
+                    case "--watch" -> watch = true;
+                    case "--debounce" -> debounceMillis = Long.parseLong(value(args, ++i));
+                    case "--max-line-length", "--max-nesting", "--max-string-chars" ->
+                            limits = LimitOptions.apply(limits, args[i], value(args, ++i));
+                    case "-h", "--help" -> {
+                        System.out.println(USAGE);
+                        return EXIT_PASSED;
+                    }
+                    default -> {
+                        if (args[i].startsWith("--") || root != null) {
+                            throw new IllegalArgumentException("Unexpected argument '" + args[i] + "'");
+                        }
+                        root = Path.of(args[i]);
+                    }
+                }
+            }
+            if (root == null) throw new IllegalArgumentException("Missing directory");
+            if (threads < 1) throw new IllegalArgumentException("--threads must be at least 1");
+            if (debounceMillis < 0) throw new IllegalArgumentException("--debounce must not be negative");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return EXIT_ERROR;
+        }
+
+        if (!Files.exists(root)) {
+            System.err.println("No such file or directory: " + root);
+            return EXIT_ERROR;
+        }
+
+        try {
+            long start = System.nanoTime();
+            ResultCache cache = cacheDirectory != null
+                    ? ResultCache.open(ResultCache.DEFAULT_MEMORY_BYTES, cacheDirectory) : null;
+            Metrics metrics = showMetrics ? new RecordingMetrics() : Metrics.NONE;
+            BatchAnalyzer analyzer = new BatchAnalyzer(threads, cache, metrics, limits);
+            List<BatchAnalyzer.FileResult> results = analyzer.analyze(BatchAnalyzer.findSources(root, extension));
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            BatchReport batchReport = new BatchReport(root, results, threads, elapsedMillis);
+            if (report != null) {
+                try (Writer out = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+                    batchReport.writeJson(out);
+                }
+            } else {
+                Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                batchReport.writeJson(out);
+            }
+
+            int failed = batchReport.getFailedCount();
+            System.err.printf("%d files, %d passed, %d failed in %d ms (%d threads)%n",
+                    results.size(), results.size() - failed, failed, elapsedMillis, threads);
+            if (cache != null) System.err.println("Cache: " + cache);
+            if (showMetrics) System.err.println(metrics);
+            if (classDirectory != null) failed += writeClasses(root, results, classDirectory, limits);
+            if (watch) {
+                Path watched = root;
+                try (SourceWatcher watcher = new SourceWatcher(root, extension, debounceMillis, analyzer)) {
+                    watcher.seed(results);
+                    System.err.printf("Watching %s for changes%n", root);
+                    watcher.watch(changes -> printChanges(watched, changes));
+                }
+            }
+            return failed == 0 ? EXIT_PASSED : EXIT_FAILED;
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return EXIT_ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return EXIT_ERROR;
+        }
+    }
+
+    // A line per changed file, followed by the first errors of a file that fails
+    private static void printChanges(Path root, List<SourceWatcher.Change> changes) {
+        StringBuilder out = new StringBuilder();
+        out.append(LocalTime.now().truncatedTo(ChronoUnit.SECONDS)).append(' ')
+                .append(changes.size()).append(changes.size() == 1 ? " file changed\n" : " files changed\n");
+        for (SourceWatcher.Change change : changes) {
+            BatchAnalyzer.FileResult result = change.result();
+            out.append("  ").append(BatchReport.relative(root, change.file())).append(": ");
+            if (result == null) {
+                out.append("removed\n");
+            } else if (result.error() != null) {
+                out.append(result.error()).append('\n');
+            } else if (result.isPassed()) {
+                out.append("passed\n");
+            } else {
+                for (BatchAnalyzer.PhaseResult phase : result.phases()) {
+                    if (phase.status() != BatchAnalyzer.Status.FAILED) continue;
+                    out.append(phase.phase()).append(" failed\n");
+                    List<String> errors = phase.errors();
+                    for (int i = 0; i < Math.min(errors.size(), MAX_PRINTED_ERRORS); i++) {
+                        out.append("    ").append(errors.get(i)).append('\n');
+                    }
+                    if (errors.size() > MAX_PRINTED_ERRORS) {
+                        out.append("    ... ").append(errors.size() - MAX_PRINTED_ERRORS).append(" more\n");
+                    }
+                }
+            }
+        }
+        System.out.print(out);
+        System.out.flush();
+    }
+
+    // Evaluates each file that passed and writes its class, named after its path under root, to
+    // directory; returns how many could not be compiled
+    private static int writeClasses(Path root, List<BatchAnalyzer.FileResult> results, Path directory, Limits limits)
+            throws IOException {
+        Evaluation evaluation = new Evaluation(limits);
+        ClassGeneration generation = new ClassGeneration();
+        int written = 0;
+        int failed = 0;
+        for (BatchAnalyzer.FileResult result : results) {
+            if (!result.isPassed()) continue;
+            EvaluationResult values;
+            try (MappedSource source = MappedSource.open(result.file(), limits)) {
+                values = evaluation.evaluate(source);
+            }
+            if (!values.isPassed()) {
+                for (String error : values.getErrors()) System.err.println(result.file() + ": " + error);
+                failed++;
+                continue;
+            }
+            String className = className(root, result.file());
+            byte[] bytes;
+            try {
+                bytes = generation.generate(className, values);
+            } catch (IllegalStateException e) {
+                System.err.println(result.file() + ": " + e.getMessage());
+                failed++;
+                continue;
+            }
+            Path file = directory.resolve(className.replace('.', File.separatorChar) + ".class");
+            Files.createDirectories(file.getParent());
+            Files.write(file, bytes);
+            written++;
+        }
+        System.err.printf("Classes: %d written to %s, %d failed%n", written, directory, failed);
+        return failed;
+    }
+
+    // "config/app-limits.java" under root becomes config.app_limits
+    static String className(Path root, Path file) {
+        Path base = root.toAbsolutePath().normalize();
+        Path path = file.toAbsolutePath().normalize();
+        Path relative = path.startsWith(base) && !path.equals(base) ? base.relativize(path) : path.getFileName();
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < relative.getNameCount(); i++) {
+            String part = relative.getName(i).toString();
+            if (i == relative.getNameCount() - 1 && part.lastIndexOf('.') > 0) part = part.substring(0, part.lastIndexOf('.'));
+            if (i > 0) name.append('.');
+            if (part.isEmpty() || !Character.isJavaIdentifierStart(part.charAt(0))) name.append('_');
+            for (int c = 0; c < part.length(); c++) {
+                name.append(Character.isJavaIdentifierPart(part.charAt(c)) ? part.charAt(c) : '_');
+            }
+        }
+        return name.toString();
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+}
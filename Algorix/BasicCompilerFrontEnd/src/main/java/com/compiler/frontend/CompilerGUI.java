@@ -1,21 +1,71 @@
 package com.compiler.frontend;
 
 import Controller.FileChooser;
+import Model.AnalysisResult;
+import Model.IncrementalAnalysis;
 import Model.LexicalAnalysis;
+import Model.MappedSource;
+import Model.Metrics;
+import Model.RecordingMetrics;
+import Model.ResultCache;
 import Model.SemanticAnalysis;
 import Model.SyntaxAnalysis;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
 public class CompilerGUI extends Application {
     private TextArea mainTextArea;
-    private TextArea resultTextArea;
+    private ListView<String> resultList;
+
+    // The analyzers are stateless, so one instance of each serves every run
+    private final LexicalAnalysis lexical = new LexicalAnalysis();
+    private final SyntaxAnalysis syntax = new SyntaxAnalysis();
+    private final SemanticAnalysis semantic = new SemanticAnalysis();
+
+    // Per-line results of the editor text; each click re-analyzes only the lines edited since the last one.
+    // A superseded run may still be updating it, so runs take editorLock first.
+    private IncrementalAnalysis incremental = new IncrementalAnalysis();
+    private final ReentrantLock editorLock = new ReentrantLock();
+
+    // Results of editor texts analyzed before, so clicking a phase again on the same text is a lookup
+    private static final long RESULT_CACHE_BYTES = 32L << 20;
+    private final ResultCache results = new ResultCache(RESULT_CACHE_BYTES);
+
+    private final AnalysisService analysis = new AnalysisService();
+
+    // Every phase run of this session, cache hits included; shown in the statistics panel
+    private final RecordingMetrics metrics = new RecordingMetrics();
+    private Label statsLabel;
+
+    // Report lines are added to the output list in batches so no single pulse blocks the FX thread
+    private static final int OUTPUT_BATCH_LINES = 4096;
+    private int outputGeneration;
+
+    // Set when the opened file is too large to load into the editor; phases stream it from disk
+    private Path largeFile;
 
     @Override
     public void start(Stage primaryStage) {
@@ -56,14 +106,32 @@ public class CompilerGUI extends Application {
         Button syntaxBtn = new Button("Syntax Analysis");
         Button semanticBtn = new Button("Semantic Analysis");
         Button clearBtn = new Button("Clear");
+        Button cancelBtn = new Button("Cancel");
+
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setMaxWidth(Double.MAX_VALUE);
+        progressBar.progressProperty().bind(analysis.progressProperty());
+        progressBar.visibleProperty().bind(analysis.runningProperty());
+        cancelBtn.disableProperty().bind(analysis.runningProperty().not());
+        cancelBtn.setOnAction(event -> analysis.cancel());
+
+        analysis.setOnCancelled(event -> {
+            if (!analysis.isRestarting()) showReport("Analysis cancelled.");
+        });
+        analysis.setOnFailed(event -> showReport("Error: " + analysis.getException().getMessage()));
 
         lexicalBtn.setDisable(true);
         syntaxBtn.setDisable(true);
         semanticBtn.setDisable(true);
 
         clearBtn.setOnAction(event -> {
+            analysis.cancel();
+            outputGeneration++;
             mainTextArea.clear();
-            resultTextArea.clear();
+            resultList.getItems().clear();
+            incremental = new IncrementalAnalysis();
+            largeFile = null;
+            mainTextArea.setEditable(true);
             lexicalBtn.setDisable(true);
             syntaxBtn.setDisable(true);
             semanticBtn.setDisable(true);
@@ -72,67 +140,80 @@ public class CompilerGUI extends Application {
 
         openFileBtn.setOnAction(event -> {
             FileChooser fileChooser = new FileChooser();
-            String fileContent = fileChooser.openFile();
+            File file = fileChooser.chooseFile();
+            if (file == null) {
+                return;
+            }
+            analysis.cancel();
 
+            if (fileChooser.isLargeFile(file)) {
+                largeFile = file.toPath();
+                mainTextArea.setText("Large file opened (" + (file.length() >> 20) + " MB): "
+                        + file.getAbsolutePath() + "\n\nIt is analyzed directly from disk and is not loaded into the editor.");
+                mainTextArea.setEditable(false);
+                openFileBtn.setDisable(true);
+                lexicalBtn.setDisable(false);
+                syntaxBtn.setDisable(true);
+                semanticBtn.setDisable(true);
+                showReport("");
+                return;
+            }
+
+            String fileContent = fileChooser.readFile(file);
             if (fileContent != null && !fileContent.isEmpty()) {
                 mainTextArea.setText(fileContent);
                 openFileBtn.setDisable(true);
                 lexicalBtn.setDisable(false);
                 syntaxBtn.setDisable(true);
                 semanticBtn.setDisable(true);
-                resultTextArea.clear();
+                showReport("");
             }
         });
 
         lexicalBtn.setOnAction(event -> {
             String sourceCode = mainTextArea.getText();
-            if (sourceCode == null || sourceCode.trim().isEmpty()) {
-                resultTextArea.setText("Error: Please load a file or enter source code first.");
+            if (largeFile == null && (sourceCode == null || sourceCode.trim().isEmpty())) {
+                showReport("Error: Please load a file or enter source code first.");
                 syntaxBtn.setDisable(true);
             } else {
-                LexicalAnalysis lexical = new LexicalAnalysis();
-                String result = lexical.analyze(sourceCode);
-                resultTextArea.setText(result);
-
-                if (lexical.isPassed()) {
-                    syntaxBtn.setDisable(false);
-                    lexicalBtn.setDisable(true);
-                } else {
-                    syntaxBtn.setDisable(true);
-                }
+                runPhase(sourceCode, ResultCache.Phase.LEXICAL, lexical::analyze, IncrementalAnalysis::lexicalResult, passed -> {
+                    if (passed) {
+                        syntaxBtn.setDisable(false);
+                        lexicalBtn.setDisable(true);
+                    } else {
+                        syntaxBtn.setDisable(true);
+                    }
+                });
             }
         });
 
         syntaxBtn.setOnAction(event -> {
             String sourceCode = mainTextArea.getText();
-            if (sourceCode == null || sourceCode.trim().isEmpty()) {
-                resultTextArea.setText("Error: Please load a file or enter source code first.");
+            if (largeFile == null && (sourceCode == null || sourceCode.trim().isEmpty())) {
+                showReport("Error: Please load a file or enter source code first.");
                 semanticBtn.setDisable(true);
             } else {
-                SyntaxAnalysis syntax = new SyntaxAnalysis();
-                String result = syntax.analyze(sourceCode);
-                resultTextArea.setText(result);
-
-                if (syntax.isPassed()) {
-                    semanticBtn.setDisable(false);
-                    syntaxBtn.setDisable(true);
-                } else {
-                    semanticBtn.setDisable(true);
-                }
+                runPhase(sourceCode, ResultCache.Phase.SYNTAX, syntax::analyze, IncrementalAnalysis::syntaxResult, passed -> {
+                    if (passed) {
+                        semanticBtn.setDisable(false);
+                        syntaxBtn.setDisable(true);
+                    } else {
+                        semanticBtn.setDisable(true);
+                    }
+                });
             }
         });
 
         semanticBtn.setOnAction(event -> {
             String sourceCode = mainTextArea.getText();
-            if (sourceCode == null || sourceCode.trim().isEmpty()) {
-                resultTextArea.setText("Error: Please load a file or enter source code first.");
+            if (largeFile == null && (sourceCode == null || sourceCode.trim().isEmpty())) {
+                showReport("Error: Please load a file or enter source code first.");
             } else {
-                SemanticAnalysis semantic = new SemanticAnalysis();
-                String result = semantic.analyze(sourceCode);
-                resultTextArea.setText(result);
-                if (semantic.isPassed()) {
-                    semanticBtn.setDisable(true);
-                }
+                runPhase(sourceCode, ResultCache.Phase.SEMANTIC, semantic::analyze, IncrementalAnalysis::semanticResult, passed -> {
+                    if (passed) {
+                        semanticBtn.setDisable(true);
+                    }
+                });
             }
         });
 
@@ -141,12 +222,148 @@ public class CompilerGUI extends Application {
         syntaxBtn.setMaxWidth(Double.MAX_VALUE);
         semanticBtn.setMaxWidth(Double.MAX_VALUE);
         clearBtn.setMaxWidth(Double.MAX_VALUE);
+        cancelBtn.setMaxWidth(Double.MAX_VALUE);
 
-        leftPanel.getChildren().addAll(openFileBtn, lexicalBtn, syntaxBtn, semanticBtn, clearBtn);
+        statsLabel = new Label();
+        statsLabel.getStyleClass().add("stats-label");
+        TitledPane statsPane = new TitledPane("Statistics", statsLabel);
+        statsPane.setExpanded(false);
+        showStats();
+
+        leftPanel.getChildren().addAll(openFileBtn, lexicalBtn, syntaxBtn, semanticBtn, clearBtn, cancelBtn, progressBar, statsPane);
 
         return leftPanel;
     }
 
+    private interface StreamedPhase {
+        AnalysisResult analyze(MappedSource source) throws IOException;
+    }
+
+    // Starts the phase in the background, streaming the large file if one is open and otherwise
+    // looking the text up in the result cache, then re-analyzing the edited lines.
+    // onPassed gets the verdict once the report is shown.
+    private void runPhase(String sourceCode, ResultCache.Phase phase, StreamedPhase streamed,
+                          Function<IncrementalAnalysis, AnalysisResult> editorPhase, Consumer<Boolean> onPassed) {
+        Path file = largeFile;
+        IncrementalAnalysis editor = incremental;
+        AnalysisService.Job job;
+        if (file != null) {
+            job = progress -> {
+                Metrics.Timer timer = metrics.phase(file.toString(), phase, Files.size(file));
+                try (MappedSource source = MappedSource.open(file)) {
+                    source.setProgressListener(progress);
+                    AnalysisResult result = streamed.analyze(source);
+                    timer.stop(result);
+                    return outcome(result);
+                }
+            };
+        } else {
+            job = progress -> {
+                Metrics.Timer timer = metrics.phase("editor", phase, sourceCode.length());
+                ResultCache.Key key = ResultCache.key(sourceCode);
+                AnalysisResult cached = results.get(key, phase);
+                if (cached != null) {
+                    timer.stop(cached);
+                    return outcome(cached);
+                }
+                editorLock.lockInterruptibly();
+                try {
+                    editor.update(sourceCode, progress);
+                    if (Thread.interrupted()) throw new InterruptedException();
+                    AnalysisResult result = editorPhase.apply(editor);
+                    results.put(key, phase, result);
+                    timer.stop(result);
+                    return outcome(result);
+                } finally {
+                    editorLock.unlock();
+                }
+            };
+        }
+        showReport("");
+        analysis.start(job, outcome -> {
+            showLines(outcome.lines());
+            showStats();
+            onPassed.accept(outcome.passed());
+        });
+    }
+
+    // Runs and totals of each phase so far, with the counters that phase produces
+    private void showStats() {
+        StringBuilder sb = new StringBuilder();
+        for (ResultCache.Phase phase : ResultCache.Phase.values()) {
+            long runs = metrics.getRuns(phase);
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(String.format("%-9s %d run%s, %.1f ms", phase.name().toLowerCase(), runs,
+                    runs == 1 ? "" : "s", metrics.getNanos(phase) / 1e6));
+            for (Metrics.Counter counter : Metrics.Counter.values()) {
+                long value = metrics.get(phase, counter);
+                if (counter == Metrics.Counter.BYTES) {
+                    sb.append("\n  ").append(value >> 10).append(" KB");
+                } else if (value > 0 || counter == Metrics.Counter.ERRORS) {
+                    sb.append(", ").append(value).append(' ').append(counter.name().toLowerCase());
+                }
+            }
+        }
+        statsLabel.setText(sb.toString());
+    }
+
+    private static AnalysisService.Outcome outcome(AnalysisResult result) {
+        return new AnalysisService.Outcome(result.isPassed(), lines(result.getReport()));
+    }
+
+    private static List<String> lines(String report) {
+        List<String> lines = new ArrayList<>(Arrays.asList(report.split("\n", -1)));
+        if (!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty()) lines.remove(lines.size() - 1);
+        return lines;
+    }
+
+    private void showReport(String report) {
+        showLines(lines(report));
+    }
+
+    private void showLines(List<String> lines) {
+        int generation = ++outputGeneration;
+        resultList.getItems().clear();
+        appendLines(lines, 0, generation);
+    }
+
+    // Adds one batch, then queues the next behind any pending UI events; a newer report stops it
+    private void appendLines(List<String> lines, int from, int generation) {
+        if (generation != outputGeneration) return;
+        int to = Math.min(lines.size(), from + OUTPUT_BATCH_LINES);
+        resultList.getItems().addAll(lines.subList(from, to));
+        if (to < lines.size()) {
+            Platform.runLater(() -> appendLines(lines, to, generation));
+        }
+    }
+
+    // Double-clicking a "Line N: ..." diagnostic moves the editor caret to line N
+    private void jumpToDiagnostic(String item) {
+        if (item == null || largeFile != null || !item.startsWith("Line ")) return;
+        int end = 5;
+        while (end < item.length() && Character.isDigit(item.charAt(end))) end++;
+        if (end == 5) return;
+        int line = Integer.parseInt(item.substring(5, end));
+
+        String text = mainTextArea.getText();
+        int offset = 0;
+        for (int i = 1; i < line && offset >= 0; i++) {
+            offset = text.indexOf('\n', offset);
+            if (offset >= 0) offset++;
+        }
+        if (offset < 0) return;
+        mainTextArea.requestFocus();
+        mainTextArea.positionCaret(offset);
+    }
+
+    private void copySelectedLines() {
+        List<String> selected = resultList.getSelectionModel().getSelectedItems();
+        if (selected.isEmpty()) return;
+        ClipboardContent content = new ClipboardContent();
+        content.putString(String.join("\n", selected));
+        Clipboard.getSystemClipboard().setContent(content);
+    }
+
     private VBox createRightPanel() {
         VBox rightPanel = new VBox(10);
         rightPanel.setPadding(new Insets(10));
@@ -156,35 +373,24 @@ public class CompilerGUI extends Application {
         resultPane.setCollapsible(false);
         resultPane.getStyleClass().add("result-pane");
 
-        resultTextArea = new TextArea();
-        resultTextArea.setEditable(false);
-        resultTextArea.setWrapText(true);
-        resultTextArea.getStyleClass().add("compiler-result-area");
-        resultPane.setContent(resultTextArea);
+        // Only the visible rows of the output are ever rendered
+        resultList = new ListView<>();
+        resultList.getStyleClass().add("compiler-result-list");
+        resultList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        resultList.setOnMouseClicked(event -> {
+            if (event.getClickCount() == 2) jumpToDiagnostic(resultList.getSelectionModel().getSelectedItem());
+        });
+        KeyCombination copy = new KeyCodeCombination(KeyCode.C, KeyCombination.SHORTCUT_DOWN);
+        resultList.setOnKeyPressed(event -> {
+            if (copy.match(event)) copySelectedLines();
+        });
+        resultPane.setContent(resultList);
 
+        // Wrapping is off so every editor line is exactly one gutter row
         mainTextArea = new TextArea();
-        mainTextArea.setWrapText(true);
-
-        TextArea lineNumbers = new TextArea();
-        lineNumbers.setEditable(false);
-        lineNumbers.setWrapText(false);
-        lineNumbers.setPrefWidth(55);
-        lineNumbers.getStyleClass().add("line-numbers");
-
-        // Sync line numbers
-        mainTextArea.textProperty().addListener((obs, oldVal, newVal) -> {
-            int lines = newVal.split("\n", -1).length;
-            StringBuilder lineNumbersText = new StringBuilder();
-            for (int i = 1; i <= lines; i++) {
-                lineNumbersText.append(i).append("\n");
-            }
-            lineNumbers.setText(lineNumbersText.toString());
-        });
+        mainTextArea.setWrapText(false);
 
-        // Sync scrolling
-        mainTextArea.scrollTopProperty().addListener((obs, oldVal, newVal) ->
-                lineNumbers.setScrollTop(newVal.doubleValue())
-        );
+        LineNumberGutter lineNumbers = new LineNumberGutter(mainTextArea);
 
         HBox textAreaContainer = new HBox(0);
         textAreaContainer.getChildren().addAll(lineNumbers, mainTextArea);
@@ -0,0 +1,277 @@
+package com.compiler.frontend;
+
+import Controller.BatchAnalyzer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Frames exchanged by AnalysisClient and AnalysisDaemon over a Unix domain socket. A frame is
+// a four-byte big-endian length and that many bytes. Both directions start with the magic
+// "ALDQ" and a version byte. A request then holds an operation: ANALYZE with an extension and
+// the paths the daemon reads itself, SOURCES with names and texts, or STOP. A response holds
+// OK, the daemon's parallelism and the files' results, or ERROR and a message. Counts and
+// sizes are unsigned LEB128 varints and strings are UTF-8 after their length, so a file that
+// passes costs its name and a few bytes.
+final class DaemonProtocol {
+
+    static final int MAGIC = 0x414C4451;
+    static final int VERSION = 1;
+
+    // Operations
+    static final int ANALYZE = 1;
+    static final int SOURCES = 2;
+    static final int STOP = 3;
+
+    // Response status
+    static final int OK = 0;
+    static final int ERROR = 1;
+
+    static final int MAX_FRAME = 1 << 30;
+
+    private static final BatchAnalyzer.Status[] STATUSES = BatchAnalyzer.Status.values();
+
+    private DaemonProtocol() {
+    }
+
+    // algorix.sock in $XDG_RUNTIME_DIR, or else in algorix-<user> in the temporary directory: a
+    // directory only its user may enter, so no one else can put a socket where clients look
+    static Path defaultSocket() {
+        String runtime = System.getenv("XDG_RUNTIME_DIR");
+        Path directory = runtime != null && !runtime.isEmpty() && Path.of(runtime).isAbsolute()
+                ? Path.of(runtime)
+                : Path.of(System.getProperty("java.io.tmpdir"), "algorix-" + System.getProperty("user.name"));
+        return directory.resolve("algorix.sock");
+    }
+
+    // Creates directory with access for the current user only, or checks that the one there is
+    // theirs and closed to others; throws AccessDeniedException when it is not
+    static void privateDirectory(Path directory) throws IOException {
+        boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+        if (Files.notExists(directory, LinkOption.NOFOLLOW_LINKS)) {
+            try {
+                if (posix) {
+                    Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+                } else {
+                    Files.createDirectory(directory);
+                }
+            } catch (FileAlreadyExistsException e) {
+                // made meanwhile, by another daemon or someone else: checked like any other
+            }
+        }
+        if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)) {
+            throw new AccessDeniedException(directory.toString(), null, "not a directory");
+        }
+        checkOwner(directory);
+        if (posix) {
+            for (PosixFilePermission permission : Files.getPosixFilePermissions(directory, LinkOption.NOFOLLOW_LINKS)) {
+                if (!permission.name().startsWith("OWNER_")) {
+                    throw new AccessDeniedException(directory.toString(), null, "open to other users");
+                }
+            }
+        }
+    }
+
+    // Throws AccessDeniedException unless file, not what it links to, belongs to the user
+    // running this JVM. Nothing is checked where the file system has no owners.
+    static void checkOwner(Path file) throws IOException {
+        UserPrincipal owner;
+        try {
+            owner = Files.getOwner(file, LinkOption.NOFOLLOW_LINKS);
+        } catch (UnsupportedOperationException e) {
+            return;
+        }
+        UserPrincipal user = file.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!owner.equals(user)) {
+            throw new AccessDeniedException(file.toString(), null, "owned by " + owner.getName() + ", not " + user.getName());
+        }
+    }
+
+    // The next frame, or null when the peer closed the connection between frames
+    static Input read(ReadableByteChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        if (!fill(channel, header, true)) return null;
+        int length = header.getInt(0);
+        if (length < 0 || length > MAX_FRAME) throw new IOException("Frame of " + Integer.toUnsignedString(length) + " bytes");
+        ByteBuffer body = ByteBuffer.allocate(length);
+        fill(channel, body, false);
+        return new Input(body.flip());
+    }
+
+    static void write(WritableByteChannel channel, Output frame) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(frame.bytes, 0, frame.size);
+        buffer.putInt(0, frame.size - 4);
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    static Output request(int operation) {
+        Output out = new Output();
+        out.u1(operation);
+        return out;
+    }
+
+    static Output error(String message) {
+        Output out = new Output();
+        out.u1(ERROR);
+        out.string(message);
+        return out;
+    }
+
+    static Output results(int threads, List<BatchAnalyzer.FileResult> results) {
+        Output out = new Output();
+        out.u1(OK);
+        out.varint(threads);
+        out.varint(results.size());
+        for (BatchAnalyzer.FileResult result : results) {
+            out.string(result.file().toString());
+            if (result.error() != null) {
+                out.u1(1);
+                out.string(result.error());
+                continue;
+            }
+            out.u1(0);
+            out.varint(result.bytes());
+            out.varint(result.phases().size());
+            for (BatchAnalyzer.PhaseResult phase : result.phases()) {
+                out.string(phase.phase());
+                out.u1(phase.status().ordinal());
+                out.varint(phase.errors().size());
+                for (String error : phase.errors()) out.string(error);
+            }
+        }
+        return out;
+    }
+
+    // The results of an OK response whose status and parallelism have been read
+    static List<BatchAnalyzer.FileResult> results(Input in) throws IOException {
+        int count = in.count();
+        List<BatchAnalyzer.FileResult> results = new ArrayList<>(Math.min(count, 1 << 16));
+        for (int i = 0; i < count; i++) {
+            Path file = Path.of(in.string());
+            if (in.u1() != 0) {
+                results.add(new BatchAnalyzer.FileResult(file, -1, List.of(), in.string()));
+                continue;
+            }
+            long bytes = in.varint();
+            int phaseCount = in.count();
+            List<BatchAnalyzer.PhaseResult> phases = new ArrayList<>(Math.min(phaseCount, 16));
+            for (int p = 0; p < phaseCount; p++) {
+                String phase = in.string();
+                int status = in.u1();
+                if (status >= STATUSES.length) throw new IOException("Unknown status " + status);
+                int errorCount = in.count();
+                List<String> errors = new ArrayList<>(Math.min(errorCount, 1 << 16));
+                for (int e = 0; e < errorCount; e++) errors.add(in.string());
+                phases.add(new BatchAnalyzer.PhaseResult(phase, STATUSES[status], List.copyOf(errors)));
+            }
+            results.add(new BatchAnalyzer.FileResult(file, bytes, List.copyOf(phases), null));
+        }
+        return results;
+    }
+
+    private static boolean fill(ReadableByteChannel channel, ByteBuffer buffer, boolean endAllowed) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (endAllowed && buffer.position() == 0) return false;
+                throw new EOFException("Connection closed inside a frame");
+            }
+        }
+        return true;
+    }
+
+    // A frame being written, with room for its length and the magic and version already in it
+    static final class Output {
+        private byte[] bytes = new byte[256];
+        private int size = 4;
+
+        Output() {
+            u1(MAGIC >>> 24);
+            u1(MAGIC >>> 16);
+            u1(MAGIC >>> 8);
+            u1(MAGIC);
+            u1(VERSION);
+        }
+
+        void u1(int v) {
+            if (size == bytes.length) grow(1);
+            bytes[size++] = (byte) v;
+        }
+
+        void varint(long v) {
+            while ((v & ~0x7FL) != 0) {
+                u1((int) (v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            u1((int) v);
+        }
+
+        void string(String s) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length);
+            if (size + utf8.length > bytes.length) grow(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        private void grow(int needed) {
+            if ((long) size + needed > MAX_FRAME) throw new IllegalStateException("Frame larger than " + MAX_FRAME + " bytes");
+            bytes = Arrays.copyOf(bytes, (int) Math.min(MAX_FRAME, Math.max((long) size + needed, 2L * bytes.length)));
+        }
+    }
+
+    // A frame being read, whose magic and version have been checked
+    static final class Input {
+        private final ByteBuffer buffer;
+
+        Input(ByteBuffer buffer) throws IOException {
+            this.buffer = buffer;
+            if (buffer.remaining() < 5 || buffer.getInt() != MAGIC) throw new IOException("Not an analysis daemon frame");
+            int version = u1();
+            if (version != VERSION) throw new IOException("Unsupported protocol version " + version);
+        }
+
+        int u1() throws IOException {
+            if (!buffer.hasRemaining()) throw new EOFException("Frame ends too soon");
+            return buffer.get() & 0xFF;
+        }
+
+        long varint() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = u1();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        // A count or length, which cannot exceed what is left of the frame
+        int count() throws IOException {
+            long v = varint();
+            if (v > buffer.remaining()) throw new EOFException("Frame ends too soon");
+            return (int) v;
+        }
+
+        String string() throws IOException {
+            int length = count();
+            String s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return s;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.compiler.frontend;
+
+import Controller.BatchReport;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// The little JSON the language server needs. Parsed objects are maps, arrays are lists, whole
+// numbers are longs and other numbers doubles; write takes the same shapes back.
+final class Json {
+
+    private final String s;
+    private int pos;
+
+    private Json(String s) {
+        this.s = s;
+    }
+
+    static Object parse(String s) {
+        Json json = new Json(s);
+        Object value = json.value();
+        json.skipSpace();
+        if (json.pos != s.length()) throw json.error("Unexpected text after the value");
+        return value;
+    }
+
+    static String write(Object value) {
+        StringBuilder sb = new StringBuilder();
+        write(sb, value);
+        return sb.toString();
+    }
+
+    static void write(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof String string) {
+            BatchReport.quote(sb, string);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else if (value instanceof Map<?, ?> map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                if (!first) sb.append(',');
+                first = false;
+                BatchReport.quote(sb, e.getKey().toString());
+                sb.append(':');
+                write(sb, e.getValue());
+            }
+            sb.append('}');
+        } else if (value instanceof List<?> list) {
+            sb.append('[');
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) sb.append(',');
+                write(sb, list.get(i));
+            }
+            sb.append(']');
+        } else {
+            throw new IllegalArgumentException("Not a JSON value: " + value.getClass().getName());
+        }
+    }
+
+    private Object value() {
+        skipSpace();
+        if (pos >= s.length()) throw error("Unexpected end of input");
+        char c = s.charAt(pos);
+        switch (c) {
+            case '{': return object();
+            case '[': return array();
+            case '"': return string();
+            case 't': return literal("true", Boolean.TRUE);
+            case 'f': return literal("false", Boolean.FALSE);
+            case 'n': return literal("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) return number();
+                throw error("Unexpected '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        pos++;
+        skipSpace();
+        if (peek('}')) return map;
+        do {
+            skipSpace();
+            if (pos >= s.length() || s.charAt(pos) != '"') throw error("Expected a member name");
+            String key = string();
+            skipSpace();
+            expect(':');
+            map.put(key, value());
+            skipSpace();
+        } while (peek(','));
+        expect('}');
+        return map;
+    }
+
+    private List<Object> array() {
+        List<Object> list = new ArrayList<>();
+        pos++;
+        skipSpace();
+        if (peek(']')) return list;
+        do {
+            list.add(value());
+            skipSpace();
+        } while (peek(','));
+        expect(']');
+        return list;
+    }
+
+    private String string() {
+        pos++;
+        StringBuilder sb = null;
+        int start = pos;
+        while (true) {
+            if (pos >= s.length()) throw error("Unterminated string");
+            char c = s.charAt(pos);
+            if (c == '"') break;
+            if (c != '\\') {
+                pos++;
+                continue;
+            }
+            if (sb == null) sb = new StringBuilder();
+            sb.append(s, start, pos);
+            if (pos + 1 >= s.length()) throw error("Unterminated string");
+            char e = s.charAt(pos + 1);
+            pos += 2;
+            switch (e) {
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if (pos + 4 > s.length()) throw error("Truncated \\u escape");
+                    try {
+                        sb.append((char) Integer.parseInt(s, pos, pos + 4, 16));
+                    } catch (NumberFormatException ex) {
+                        throw error("Invalid \\u escape");
+                    }
+                    pos += 4;
+                    break;
+                default: sb.append(e);
+            }
+            start = pos;
+        }
+        String value = sb == null ? s.substring(start, pos) : sb.append(s, start, pos).toString();
+        pos++;
+        return value;
+    }
+
+    private Object number() {
+        int start = pos;
+        boolean whole = true;
+        if (s.charAt(pos) == '-') pos++;
+        while (pos < s.length()) {
+            char c = s.charAt(pos);
+            if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                whole = false;
+            } else if (c < '0' || c > '9') {
+                break;
+            }
+            pos++;
+        }
+        try {
+            return whole ? (Object) Long.parseLong(s, start, pos, 10) : (Object) Double.parseDouble(s.substring(start, pos));
+        } catch (NumberFormatException e) {
+            throw error("Invalid number '" + s.substring(start, pos) + "'");
+        }
+    }
+
+    private Object literal(String word, Object value) {
+        if (!s.startsWith(word, pos)) throw error("Unexpected '" + s.charAt(pos) + "'");
+        pos += word.length();
+        return value;
+    }
+
+    private boolean peek(char c) {
+        if (pos < s.length() && s.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!peek(c)) throw error("Expected '" + c + "'");
+    }
+
+    private void skipSpace() {
+        while (pos < s.length()) {
+            char c = s.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') break;
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + pos);
+    }
+}
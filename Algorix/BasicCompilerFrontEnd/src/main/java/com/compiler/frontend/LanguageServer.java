@@ -0,0 +1,423 @@
+package com.compiler.frontend;
+
+import Model.Diagnostics;
+import Model.IncrementalAnalysis;
+import Model.Limits;
+import Model.ResultCache;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Language Server Protocol over standard input and output, so editors show the same errors as
+// the GUI while the text is typed. Documents are synced incrementally. Each change restarts a
+// short debounce; when it expires, the text is analyzed on one background thread by the
+// document's IncrementalAnalysis, which re-checks only the edited lines, and the errors of the
+// first phase that fails are published. A result for a version the editor has already moved
+// past is dropped, since a newer analysis is on its way.
+// Usage: LanguageServer [--max-line-length N] [--max-nesting N] [--max-string-chars N]
+public class LanguageServer {
+
+    private static final String USAGE = "Usage: LanguageServer " + LimitOptions.SYNOPSIS + "\n" + LimitOptions.usage(24);
+
+    public static final long DEBOUNCE_MILLIS = 20;
+
+    private static final int PARSE_ERROR = -32700;
+    private static final int INVALID_REQUEST = -32600;
+    private static final int METHOD_NOT_FOUND = -32601;
+    private static final int INVALID_PARAMS = -32602;
+    private static final int SERVER_NOT_INITIALIZED = -32002;
+
+    private static final int SEVERITY_ERROR = 1;
+    private static final int SYNC_INCREMENTAL = 2;
+
+    private static final byte[] CONTENT_LENGTH = "Content-Length".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ResultCache.Phase[] PHASES = ResultCache.Phase.values();
+
+    // Edited by the reading thread while it holds the server's lock; the analysis thread takes
+    // snapshots under the same lock
+    private static final class Document {
+        final String uri;
+        final TextDocument text;
+        final IncrementalAnalysis analysis;   // used on the analysis thread only
+        ScheduledFuture<?> pending;
+
+        Document(String uri, TextDocument text, Limits limits) {
+            this.uri = uri;
+            this.text = text;
+            this.analysis = new IncrementalAnalysis(limits);
+        }
+    }
+
+    // One entry of contentChanges: start line and character, end line and character, or null
+    // when the change replaces the whole text
+    private record Edit(int[] range, String text) {
+    }
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final Limits limits;
+    private final Map<String, Document> documents = new HashMap<>();
+    private final ScheduledExecutorService analyzer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "algorix-analysis");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean initialized;
+    private boolean shutdown;
+
+    public LanguageServer(InputStream in, OutputStream out) {
+        this(in, out, Limits.DEFAULT);
+    }
+
+    // Every document is analyzed under limits
+    public LanguageServer(InputStream in, OutputStream out, Limits limits) {
+        this.in = new BufferedInputStream(in);
+        this.out = out;
+        this.limits = limits;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Limits limits = Limits.DEFAULT;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--max-line-length", "--max-nesting", "--max-string-chars" -> {
+                        if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + args[i]);
+                        limits = LimitOptions.apply(limits, args[i], args[++i]);
+                    }
+                    case "-h", "--help" -> {
+                        System.out.println(USAGE);
+                        return;
+                    }
+                    default -> throw new IllegalArgumentException("Unexpected argument '" + args[i] + "'");
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(CompilerCLI.EXIT_ERROR);
+        }
+        System.exit(new LanguageServer(System.in, System.out, limits).run());
+    }
+
+    // Serves until exit or the end of input; returns the exit status LSP asks for
+    public int run() throws IOException {
+        try {
+            while (true) {
+                String content = readMessage();
+                if (content == null) return shutdown ? 0 : 1;
+                Object message;
+                try {
+                    message = Json.parse(content);
+                } catch (IllegalArgumentException e) {
+                    sendError(null, PARSE_ERROR, e.getMessage());
+                    continue;
+                }
+                if (!(message instanceof Map<?, ?> map)) {
+                    sendError(null, INVALID_REQUEST, "Message is not an object");
+                    continue;
+                }
+                if ("exit".equals(map.get("method"))) return shutdown ? 0 : 1;
+                synchronized (this) {
+                    handle(map);
+                }
+            }
+        } finally {
+            analyzer.shutdownNow();
+        }
+    }
+
+    private void handle(Map<?, ?> message) throws IOException {
+        Object id = message.get("id");
+        Object method = message.get("method");
+        if (!(method instanceof String name)) {
+            // A response to a request of ours; the server sends none that need one
+            if (id == null) sendError(null, INVALID_REQUEST, "Missing method");
+            return;
+        }
+        Map<?, ?> params = message.get("params") instanceof Map<?, ?> p ? p : Map.of();
+        try {
+            if (!initialized && !name.equals("initialize")) {
+                if (id != null) sendError(id, SERVER_NOT_INITIALIZED, "Server not initialized");
+                return;
+            }
+            switch (name) {
+                case "initialize" -> {
+                    initialized = true;
+                    Map<String, Object> sync = new LinkedHashMap<>();
+                    sync.put("openClose", true);
+                    sync.put("change", SYNC_INCREMENTAL);
+                    Map<String, Object> info = new LinkedHashMap<>();
+                    info.put("name", "algorix");
+                    info.put("version", ResultCache.ANALYZER_VERSION);
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("capabilities", Map.of("textDocumentSync", sync));
+                    result.put("serverInfo", info);
+                    sendResult(id, result);
+                }
+                case "shutdown" -> {
+                    shutdown = true;
+                    sendResult(id, null);
+                }
+                case "textDocument/didOpen" -> didOpen(object(params, "textDocument"));
+                case "textDocument/didChange" -> didChange(object(params, "textDocument"), list(params, "contentChanges"));
+                case "textDocument/didClose" -> didClose(string(object(params, "textDocument"), "uri"));
+                default -> {
+                    // Notifications the server does not handle, such as initialized, are ignored
+                    if (id != null) sendError(id, METHOD_NOT_FOUND, "Unsupported method '" + name + "'");
+                }
+            }
+        } catch (IllegalArgumentException | ClassCastException e) {
+            if (id != null) sendError(id, INVALID_PARAMS, e.getMessage());
+        }
+    }
+
+    private void didOpen(Map<?, ?> item) {
+        String uri = string(item, "uri");
+        Document document = new Document(uri, new TextDocument(string(item, "text"), version(item)), limits);
+        Document old = documents.put(uri, document);
+        if (old != null && old.pending != null) old.pending.cancel(false);
+        schedule(document, 0);
+    }
+
+    private void didChange(Map<?, ?> item, List<?> changes) {
+        Document document = documents.get(string(item, "uri"));
+        if (document == null) throw new IllegalArgumentException("Document is not open");
+        // Every change is read before any is applied, so one the editor got wrong leaves the text whole
+        List<Edit> edits = new ArrayList<>(changes.size());
+        for (Object change : changes) {
+            if (!(change instanceof Map<?, ?> edit)) throw new IllegalArgumentException("Content change is not an object");
+            String newText = string(edit, "text");
+            if (edit.get("range") == null) {
+                edits.add(new Edit(null, newText));
+                continue;
+            }
+            Map<?, ?> range = object(edit, "range");
+            Map<?, ?> start = object(range, "start");
+            Map<?, ?> end = object(range, "end");
+            edits.add(new Edit(new int[] {number(start, "line"), number(start, "character"),
+                    number(end, "line"), number(end, "character")}, newText));
+        }
+        TextDocument text = document.text;
+        for (Edit edit : edits) {
+            int[] r = edit.range();
+            if (r == null) {
+                text.replaceAll(edit.text());
+            } else {
+                text.replace(r[0], r[1], r[2], r[3], edit.text());
+            }
+        }
+        text.setVersion(version(item));
+        schedule(document, DEBOUNCE_MILLIS);
+    }
+
+    private void didClose(String uri) throws IOException {
+        Document document = documents.remove(uri);
+        if (document == null) return;
+        if (document.pending != null) document.pending.cancel(false);
+        publish(uri, null, List.of());
+    }
+
+    // Restarts the debounce; the analysis then works on the text as it is when the delay ends
+    private void schedule(Document document, long delayMillis) {
+        if (document.pending != null) document.pending.cancel(false);
+        document.pending = analyzer.schedule(() -> analyze(document), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // On the analysis thread
+    private void analyze(Document document) {
+        TextDocument snapshot;
+        synchronized (this) {
+            if (documents.get(document.uri) != document) return;
+            snapshot = document.text.snapshot();
+        }
+        document.analysis.update(snapshot.text(), snapshot.unchangedPrefix(), snapshot.unchangedSuffix());
+        Diagnostics errors = null;
+        for (ResultCache.Phase phase : PHASES) {
+            errors = document.analysis.errors(phase);
+            if (!errors.isEmpty()) break;
+        }
+        List<Object> diagnostics = new ArrayList<>(errors.size());
+        for (int i = 0; i < errors.size(); i++) diagnostics.add(diagnostic(snapshot, errors, i));
+        try {
+            synchronized (this) {
+                if (documents.get(document.uri) != document || document.text.version() != snapshot.version()) return;
+            }
+            publish(document.uri, snapshot.version(), diagnostics);
+        } catch (IOException e) {
+            // The editor has gone; the reading thread sees the end of input
+        }
+    }
+
+    // The range is the text the diagnostic points at, or its whole line when it points at none
+    private static Map<String, Object> diagnostic(TextDocument text, Diagnostics errors, int i) {
+        int line = Math.min(errors.line(i) - 1, text.lineCount() - 1);
+        Map<String, Object> start;
+        Map<String, Object> end;
+        if (line < 0) {
+            start = end = position(0, 0);
+        } else if (errors.column(i) > 0) {
+            int from = text.offset(line, errors.column(i) - 1);
+            int to = Math.min(text.length(), from + errors.span(i));
+            int endLine = text.lineOf(to);
+            start = position(line, from - text.lineStart(line));
+            end = position(endLine, to - text.lineStart(endLine));
+        } else {
+            start = position(line, 0);
+            end = position(line, text.lineLength(line));
+        }
+        Map<String, Object> range = new LinkedHashMap<>();
+        range.put("start", start);
+        range.put("end", end);
+        Map<String, Object> diagnostic = new LinkedHashMap<>();
+        diagnostic.put("range", range);
+        diagnostic.put("severity", SEVERITY_ERROR);
+        diagnostic.put("code", errors.code(i).name());
+        diagnostic.put("source", "algorix");
+        diagnostic.put("message", errors.message(i));
+        return diagnostic;
+    }
+
+    private static Map<String, Object> position(int line, int character) {
+        Map<String, Object> position = new LinkedHashMap<>();
+        position.put("line", line);
+        position.put("character", character);
+        return position;
+    }
+
+    private void publish(String uri, Integer version, List<Object> diagnostics) throws IOException {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("uri", uri);
+        if (version != null) params.put("version", version);
+        params.put("diagnostics", diagnostics);
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("method", "textDocument/publishDiagnostics");
+        message.put("params", params);
+        send(message);
+    }
+
+    private void sendResult(Object id, Object result) throws IOException {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("id", id);
+        message.put("result", result);
+        send(message);
+    }
+
+    private void sendError(Object id, int code, String text) throws IOException {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("code", code);
+        error.put("message", text);
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("id", id);
+        message.put("error", error);
+        send(message);
+    }
+
+    // Both threads send, so each message goes out whole
+    private void send(Map<String, Object> message) throws IOException {
+        byte[] body = Json.write(message).getBytes(StandardCharsets.UTF_8);
+        byte[] header = ("Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        synchronized (out) {
+            out.write(header);
+            out.write(body);
+            out.flush();
+        }
+    }
+
+    // The content of the next message, or null at the end of input. A message whose length is
+    // not a number is logged and skipped: its body is passed over up to the next Content-Length.
+    private String readMessage() throws IOException {
+        int length = -1;
+        String malformed = null;
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        while (true) {
+            int b = in.read();
+            if (b < 0) {
+                if (line.size() == 0 && length < 0) return null;
+                throw new EOFException("Input ended inside a message header");
+            }
+            if (b != '\n') {
+                if (b != '\r') line.write(b);
+                continue;
+            }
+            String header = line.toString(StandardCharsets.US_ASCII);
+            line.reset();
+            if (header.isEmpty()) {
+                if (length >= 0) break;
+                if (malformed == null) continue;
+                System.err.printf("Skipping message with Content-Length '%s'%n", malformed);
+                malformed = null;
+                if (!skipTo(CONTENT_LENGTH)) return null;
+                line.write(CONTENT_LENGTH);
+                continue;
+            }
+            int colon = header.indexOf(':');
+            if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+                String value = header.substring(colon + 1).trim();
+                try {
+                    length = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    length = -1;
+                }
+                if (length < 0) malformed = value;
+            }
+        }
+        byte[] content = in.readNBytes(length);
+        if (content.length < length) throw new EOFException("Input ended inside a message");
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    // Reads up to and including the next occurrence of marker; false at the end of input. The
+    // marker begins with a byte it holds only once, so a failed match restarts at most there.
+    private boolean skipTo(byte[] marker) throws IOException {
+        int matched = 0;
+        while (matched < marker.length) {
+            int b = in.read();
+            if (b < 0) return false;
+            matched = b == marker[matched] ? matched + 1 : b == marker[0] ? 1 : 0;
+        }
+        return true;
+    }
+
+    private static Map<?, ?> object(Map<?, ?> map, String key) {
+        if (map.get(key) instanceof Map<?, ?> value) return value;
+        throw new IllegalArgumentException("Missing object '" + key + "'");
+    }
+
+    private static List<?> list(Map<?, ?> map, String key) {
+        if (map.get(key) instanceof List<?> value) return value;
+        throw new IllegalArgumentException("Missing array '" + key + "'");
+    }
+
+    private static String string(Map<?, ?> map, String key) {
+        if (map.get(key) instanceof String value) return value;
+        throw new IllegalArgumentException("Missing string '" + key + "'");
+    }
+
+    private static int number(Map<?, ?> map, String key) {
+        if (map.get(key) instanceof Number value) return value.intValue();
+        throw new IllegalArgumentException("Missing number '" + key + "'");
+    }
+
+    private static int version(Map<?, ?> item) {
+        return item.get("version") instanceof Number value ? value.intValue() : 0;
+    }
+}
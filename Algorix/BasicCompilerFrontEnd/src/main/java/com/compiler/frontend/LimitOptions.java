@@ -0,0 +1,42 @@
+package com.compiler.frontend;
+
+import Model.Limits;
+
+// The options CompilerCLI, AnalysisDaemon and LanguageServer share to analyze under other
+// limits than Limits.DEFAULT. Each sets one field; the others keep their value.
+final class LimitOptions {
+
+    static final String SYNOPSIS = "[--max-line-length N] [--max-nesting N] [--max-string-chars N]";
+
+    private LimitOptions() {
+    }
+
+    // Usage lines with the descriptions starting at column
+    static String usage(int column) {
+        String line = "  %-" + (column - 2) + "s%s";
+        return String.format(line + "\n" + line + "\n" + line,
+                "--max-line-length N", "longer lines are a lexical error (default: " + Limits.DEFAULT.maxLineLength() + ")",
+                "--max-nesting N", "deeper nesting is a syntax error (default: " + Limits.DEFAULT.maxNesting() + ")",
+                "--max-string-chars N", "String chars built per evaluation (default: " + Limits.DEFAULT.maxStringChars() + ")");
+    }
+
+    // limits with option set to value; throws IllegalArgumentException naming the option
+    static Limits apply(Limits limits, String option, String value) {
+        int n = Integer.parseInt(value);
+        return switch (option) {
+            case "--max-line-length" -> {
+                if (n < 1) throw new IllegalArgumentException(option + " must be at least 1");
+                yield new Limits(n, limits.maxNesting(), limits.maxStringChars());
+            }
+            case "--max-nesting" -> {
+                if (n < 1) throw new IllegalArgumentException(option + " must be at least 1");
+                yield new Limits(limits.maxLineLength(), n, limits.maxStringChars());
+            }
+            case "--max-string-chars" -> {
+                if (n < 0) throw new IllegalArgumentException(option + " must not be negative");
+                yield new Limits(limits.maxLineLength(), limits.maxNesting(), n);
+            }
+            default -> throw new IllegalArgumentException("Unexpected argument '" + option + "'");
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package com.compiler.frontend;
+
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextFormatter;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Line numbers for a TextArea. The line count is kept up to date from each edit's own text
+// (a TextFormatter filter sees every change, setText included), so typing costs O(edit)
+// rather than O(document), and only the rows in view are laid out.
+class LineNumberGutter extends Region {
+
+    private static final double PADDING = 8;
+
+    private final TextArea area;
+    private final List<Text> rows = new ArrayList<>();
+    private int lineCount = 1;
+
+    private Font font;
+    private double lineHeight;
+    private double baselineOffset;
+
+    LineNumberGutter(TextArea area) {
+        this.area = area;
+        getStyleClass().add("line-number-gutter");
+
+        Rectangle clip = new Rectangle();
+        clip.widthProperty().bind(widthProperty());
+        clip.heightProperty().bind(heightProperty());
+        setClip(clip);
+
+        area.setTextFormatter(new TextFormatter<String>(this::track));
+        area.scrollTopProperty().addListener((obs, oldVal, newVal) -> requestLayout());
+        area.heightProperty().addListener((obs, oldVal, newVal) -> requestLayout());
+    }
+
+    int getLineCount() {
+        return lineCount;
+    }
+
+    private TextFormatter.Change track(TextFormatter.Change change) {
+        if (change.isContentChange()) {
+            int removed = countNewlines(change.getControlText(), change.getRangeStart(), change.getRangeEnd());
+            int added = countNewlines(change.getText(), 0, change.getText().length());
+            if (removed != added) {
+                int digits = digits(lineCount);
+                lineCount = Math.max(1, lineCount - removed + added);
+                if (digits(lineCount) != digits) requestParentLayout();
+                requestLayout();
+            }
+        }
+        return change;
+    }
+
+    @Override
+    protected double computePrefWidth(double height) {
+        measure();
+        Text probe = new Text("0".repeat(digits(lineCount)));
+        probe.setFont(font);
+        return Math.ceil(probe.getLayoutBounds().getWidth()) + 2 * PADDING;
+    }
+
+    @Override
+    protected void layoutChildren() {
+        measure();
+        // Rows move with the editor's scroll position; the text starts below the content padding
+        double top = contentTop() - area.getScrollTop();
+        int first = Math.max(0, (int) Math.floor(-top / lineHeight));
+        int visible = Math.min(lineCount - first, (int) Math.ceil(getHeight() / lineHeight) + 1);
+
+        while (rows.size() < visible) {
+            Text row = new Text();
+            row.getStyleClass().add("line-number");
+            row.setFont(font);
+            rows.add(row);
+            getChildren().add(row);
+        }
+        double right = getWidth() - PADDING;
+        for (int i = 0; i < rows.size(); i++) {
+            Text row = rows.get(i);
+            if (i >= visible) {
+                row.setVisible(false);
+                continue;
+            }
+            row.setVisible(true);
+            row.setText(Integer.toString(first + i + 1));
+            row.setLayoutX(right - row.getLayoutBounds().getWidth());
+            row.setLayoutY(top + (first + i) * lineHeight + baselineOffset);
+        }
+    }
+
+    // Line metrics of the editor's own font, which comes from CSS once its skin exists
+    private void measure() {
+        Font areaFont = editorFont();
+        if (areaFont.equals(font)) return;
+        font = areaFont;
+        Text one = new Text("0");
+        one.setFont(font);
+        Text two = new Text("0\n0");
+        two.setFont(font);
+        lineHeight = two.getLayoutBounds().getHeight() - one.getLayoutBounds().getHeight();
+        baselineOffset = one.getBaselineOffset();
+        for (Text row : rows) row.setFont(font);
+    }
+
+    private Font editorFont() {
+        return area.lookup(".text") instanceof Text text ? text.getFont() : area.getFont();
+    }
+
+    private double contentTop() {
+        double top = area.snappedTopInset();
+        if (area.lookup(".content") instanceof Region content) top += content.snappedTopInset();
+        return top;
+    }
+
+    private static int digits(int n) {
+        return Integer.toString(n).length();
+    }
+
+    private static int countNewlines(String s, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == '\n') count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,138 @@
+package com.compiler.frontend;
+
+import java.util.Arrays;
+
+// An open editor buffer and where each of its lines starts. Edits address the text by line and
+// UTF-16 character, as LSP positions do; the line starts are patched rather than recounted, so
+// an edit costs the size of the change plus one shift of the starts below it. The document also
+// tracks how much of its start and end no edit has touched since the last snapshot, so the
+// analysis only has to compare the middle.
+// Not thread-safe: the language server reads a snapshot off the thread that edits.
+final class TextDocument {
+
+    private final StringBuilder text;
+    private int[] lineStarts;
+    private int lines;
+    private int version;
+    private int unchangedPrefix;
+    private int unchangedSuffix;
+
+    TextDocument(String text, int version) {
+        this.text = new StringBuilder(text);
+        this.version = version;
+        lineStarts = new int[16];
+        lines = 1;
+        addLineStarts(text, 0, 1);
+    }
+
+    private TextDocument(TextDocument other) {
+        text = new StringBuilder(other.text);
+        lineStarts = Arrays.copyOf(other.lineStarts, other.lines);
+        lines = other.lines;
+        version = other.version;
+        unchangedPrefix = other.unchangedPrefix;
+        unchangedSuffix = other.unchangedSuffix;
+    }
+
+    // A copy that later edits leave alone. Its unchanged prefix and suffix are those since the
+    // previous snapshot; this document starts counting again from the whole text.
+    TextDocument snapshot() {
+        TextDocument snapshot = new TextDocument(this);
+        unchangedPrefix = unchangedSuffix = text.length();
+        return snapshot;
+    }
+
+    int unchangedPrefix() {
+        return unchangedPrefix;
+    }
+
+    int unchangedSuffix() {
+        return unchangedSuffix;
+    }
+
+    String text() {
+        return text.toString();
+    }
+
+    int length() {
+        return text.length();
+    }
+
+    int version() {
+        return version;
+    }
+
+    void setVersion(int version) {
+        this.version = version;
+    }
+
+    int lineCount() {
+        return lines;
+    }
+
+    void replaceAll(String newText) {
+        unchangedPrefix = unchangedSuffix = 0;
+        text.setLength(0);
+        text.append(newText);
+        lines = 1;
+        addLineStarts(newText, 0, 1);
+    }
+
+    // Replaces the text between two positions; positions past the end of a line or of the text are clamped
+    void replace(int startLine, int startChar, int endLine, int endChar, String newText) {
+        int from = offset(startLine, startChar);
+        int to = Math.max(from, offset(endLine, endChar));
+        int first = lineOf(from);
+        int last = lineOf(to);
+        unchangedPrefix = Math.min(unchangedPrefix, from);
+        unchangedSuffix = Math.min(unchangedSuffix, text.length() - to);
+        text.replace(from, to, newText);
+
+        int added = 0;
+        for (int i = 0; i < newText.length(); i++) {
+            if (newText.charAt(i) == '\n') added++;
+        }
+        int tail = lines - last - 1;
+        int grown = first + 1 + added + tail;
+        if (grown > lineStarts.length) lineStarts = Arrays.copyOf(lineStarts, Math.max(grown, lineStarts.length * 2));
+        int delta = newText.length() - (to - from);
+        System.arraycopy(lineStarts, last + 1, lineStarts, first + 1 + added, tail);
+        for (int i = first + 1 + added; i < grown; i++) lineStarts[i] += delta;
+        lines = first + 1;
+        addLineStarts(newText, from, first + 1);
+        lines = grown;
+    }
+
+    // Offset of a position, clamped to the end of its line and to the end of the text
+    int offset(int line, int character) {
+        if (line < 0) return 0;
+        if (line >= lines) return text.length();
+        return lineStarts[line] + Math.min(Math.max(character, 0), lineLength(line));
+    }
+
+    // Line holding offset, 0-based
+    int lineOf(int offset) {
+        int i = Arrays.binarySearch(lineStarts, 0, lines, offset);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    int lineStart(int line) {
+        return lineStarts[line];
+    }
+
+    // Chars on line, not counting its line break
+    int lineLength(int line) {
+        int end = line + 1 < lines ? lineStarts[line + 1] - 1 : text.length();
+        if (end > lineStarts[line] && text.charAt(end - 1) == '\r' && line + 1 < lines) end--;
+        return end - lineStarts[line];
+    }
+
+    // Records the lines starting after each '\n' of s, which sits at offset base, from index at
+    private void addLineStarts(String s, int base, int at) {
+        for (int i = s.indexOf('\n'); i >= 0; i = s.indexOf('\n', i + 1)) {
+            if (at == lineStarts.length) lineStarts = Arrays.copyOf(lineStarts, at * 2);
+            lineStarts[at++] = base + i + 1;
+        }
+        if (at > lines) lines = at;
+    }
+}
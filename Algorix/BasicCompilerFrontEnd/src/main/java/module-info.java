@@ -1,6 +1,7 @@
 module com.compiler.frontend {
     requires javafx.controls;
     requires javafx.fxml;
+    requires jdk.jfr;
 
 
     opens com.compiler.frontend to javafx.fxml;
@@ -0,0 +1,200 @@
+package Controller;
+
+import Model.RecordingMetrics;
+import Model.ResultCache;
+import Model.SourceGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Drives a SourceWatcher over a temporary tree and checks what each kind of change reports:
+// an edit, a rewrite with the same content (not analyzed again), an edit that changes no
+// result (analyzed, not reported), a burst of saves (merged, the last content wins), new files
+// in a new directory and deletions. Also checks that the watching thread uses no CPU while the
+// tree is idle. Reports are checked for what they say once the tree is quiet rather than for
+// when they come, so a slow machine that delivers one save's events apart does not fail them.
+class SourceWatcherTest {
+
+    private static final long DEBOUNCE = 100;
+
+    @TempDir
+    Path root;
+
+    private final List<Path> files = new ArrayList<>();
+    private final BlockingQueue<List<SourceWatcher.Change>> bursts = new LinkedBlockingQueue<>();
+    private final RecordingMetrics metrics = new RecordingMetrics();
+    // While set, the listener keeps the watching thread until it is counted down, so saves
+    // meanwhile can only pile up; entered is released as it starts waiting
+    private volatile CountDownLatch held;
+    private final Semaphore entered = new Semaphore(0);
+    private SourceWatcher watcher;
+    private Thread thread;
+
+    @BeforeEach
+    void watch() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            Path file = root.resolve("dir" + i % 4).resolve("file" + i + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, SourceGenerator.declarations(50, 3));
+            files.add(file);
+        }
+        BatchAnalyzer analyzer = new BatchAnalyzer(2, null, metrics);
+        watcher = new SourceWatcher(root, ".java", DEBOUNCE, analyzer);
+        watcher.seed(analyzer.analyze(BatchAnalyzer.findSources(root, ".java")));
+        thread = new Thread(() -> {
+            try {
+                watcher.watch(changes -> {
+                    bursts.add(changes);
+                    CountDownLatch latch = held;
+                    if (latch == null) return;
+                    entered.release();
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "watcher");
+        thread.start();
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        watcher.close();
+        thread.join(5000);
+    }
+
+    @Test
+    void reportsEditAndEditBack() throws Exception {
+        Path edited = files.get(0);
+        String source = Files.readString(edited);
+        Files.writeString(edited, "int broken = ;\n", StandardOpenOption.APPEND);
+        expect(edited, "failed");
+        Files.writeString(edited, source);
+        expect(edited, "passed");
+    }
+
+    @Test
+    void ignoresRewriteWithSameContent() throws Exception {
+        long runs = metrics.getRuns(ResultCache.Phase.LEXICAL);
+        Files.writeString(files.get(0), Files.readString(files.get(0)));
+        expectNothing();
+        assertEquals(runs, metrics.getRuns(ResultCache.Phase.LEXICAL), "analyzed again");
+    }
+
+    @Test
+    void analyzesButDoesNotReportSameResult() throws Exception {
+        long runs = metrics.getRuns(ResultCache.Phase.LEXICAL);
+        Files.writeString(files.get(1), Files.readString(files.get(1)) + "\n\n");
+        expectNothing();
+        assertEquals(runs + 1, metrics.getRuns(ResultCache.Phase.LEXICAL), "not analyzed");
+    }
+
+    // Saves made while the watcher is busy are merged however far apart they come: the
+    // results in between, alternately passed and failed, are never reported
+    @Test
+    void mergesBurstOfSaves() throws Exception {
+        Path file = files.get(2);
+        CountDownLatch release = new CountDownLatch(1);
+        held = release;
+        Files.writeString(file, "int v = ;\n");
+        assertTrue(entered.tryAcquire(DEBOUNCE + 5000, TimeUnit.MILLISECONDS), "first save not reported");
+        held = null;
+        for (int i = 0; i <= 50; i++) {
+            Files.writeString(file, "int v = " + i + ";\n" + (i % 2 == 1 ? "int v = 1;\n" : ""));
+        }
+        release.countDown();
+
+        List<String> reports = drain();
+        assertEquals(file + " failed", reports.get(0), "first save");
+        assertEquals(file + " passed", reports.get(reports.size() - 1), "last save");
+        assertTrue(reports.size() <= 3, "saves reported one by one: " + reports);
+    }
+
+    @Test
+    void reportsCreatedAndDeletedFiles() throws Exception {
+        Path created = root.resolve("new").resolve("deeper").resolve("created.java");
+        Files.createDirectories(created.getParent());
+        Files.writeString(created, "double created = 1.5;\n");
+        expect(created, "passed");
+
+        Files.delete(files.get(3));
+        expect(files.get(3), "removed");
+
+        try (Stream<Path> paths = Files.walk(root.resolve("new"))) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+        expect(created, "removed");
+    }
+
+    // Between bursts the watching thread blocks, so an idle second costs it next to no CPU
+    @Test
+    void usesNoCpuWhileIdle() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Thread.sleep(200);
+        long cpu = threads.getThreadCpuTime(thread.getId());
+        Thread.sleep(1000);
+        long idle = threads.getThreadCpuTime(thread.getId()) - cpu;
+        assertTrue(idle < 10_000_000, "watcher thread used " + idle / 1_000_000 + " ms of CPU");
+    }
+
+    // Reports of file only, the last with the given outcome. One save is one report, unless
+    // its events arrive further apart than the debounce window.
+    private void expect(Path file, String outcome) throws InterruptedException {
+        List<String> reports = drain();
+        assertFalse(reports.isEmpty(), "nothing reported for " + file.getFileName());
+        for (String report : reports) assertEquals(file.toString(), report.substring(0, report.lastIndexOf(' ')));
+        assertEquals(file + " " + outcome, reports.get(reports.size() - 1));
+        assertTrue(reports.size() <= 2, "save reported in pieces: " + reports);
+    }
+
+    // The reports that come until the tree has been quiet for a while, described
+    private List<String> drain() throws InterruptedException {
+        List<String> reports = new ArrayList<>();
+        List<SourceWatcher.Change> changes = bursts.poll(DEBOUNCE + 5000, TimeUnit.MILLISECONDS);
+        while (changes != null) {
+            reports.add(describe(changes));
+            changes = bursts.poll(3 * DEBOUNCE + 300, TimeUnit.MILLISECONDS);
+        }
+        return reports;
+    }
+
+    private void expectNothing() throws InterruptedException {
+        List<SourceWatcher.Change> changes = bursts.poll(3 * DEBOUNCE + 500, TimeUnit.MILLISECONDS);
+        assertNull(changes, "reported " + describe(changes));
+    }
+
+    private static String describe(List<SourceWatcher.Change> changes) {
+        if (changes == null) return "nothing";
+        List<String> described = new ArrayList<>();
+        for (SourceWatcher.Change change : changes) {
+            String outcome = change.result() == null ? "removed" : change.result().isPassed() ? "passed" : "failed";
+            described.add(change.file() + " " + outcome);
+        }
+        return String.join(", ", described);
+    }
+}
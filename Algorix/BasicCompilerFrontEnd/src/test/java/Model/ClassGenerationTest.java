@@ -0,0 +1,140 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Loads the classes ClassGeneration writes, with the verifier on, and compares every field
+// with the value Evaluation computed: edge values of each type, random initializers, a large
+// file, and enough Strings too long for the constant pool that <clinit> is split across methods.
+// Declarations it must refuse, arrays and too many constants, fail with an exception instead.
+class ClassGenerationTest {
+
+    private static final Pattern LINE = Pattern.compile("^Line (\\d+): ");
+
+    @Test
+    void edgeValuesOfEachType() throws Exception {
+        compare("int a = -2147483648; int b = 2147483647; int c = -1; int d = 5; int e = 6; int f = -129; int g = 32768;\n"
+                + "long h = -9223372036854775808L; long i = 1; long j = 2147483648L; long k = -7;\n"
+                + "double l = -0.0; double m = 0.0 / 0.0; double n = 1.0 / 0; double o = 0.1; double p = 1e300 * 10;\n"
+                + "double q = 0.5; double r = 1; double s = -2147483648.0; double t = 4.9e-324;\n"
+                + "float u = -0.0f; float v = 0.0f / 0; float w = 2; float x = 32768; float y = 0.1f; float z = -32768;\n"
+                + "boolean aa = true; boolean ab;\n"
+                + "char ac = '\\0'; char ad = (char) 65535; char ae = 'x';\n"
+                + "byte af = -128; byte ag = 127; short ah = -32768; short ai = 32767;\n"
+                + "String aj = \"\"; String ak; String al = \"nul \\0 \\u00e9 \\u20ac \\ud83d\\ude00 \\\" \\\\\";\n");
+    }
+
+    @Test
+    void randomInitializers() throws Exception {
+        for (long seed = 1; seed <= 4; seed++) compare(randomSource(3000, seed));
+    }
+
+    @Test
+    void longStrings() throws Exception {
+        compare(longStrings(16, 1));
+    }
+
+    @Test
+    void splitsInitializerOfManyLongStrings() throws Exception {
+        Class<?> constants = compare(longStrings(12, 12_000));
+        assertTrue(constants.getDeclaredMethods().length > 0, "<clinit> was not split");
+    }
+
+    @Test
+    void largeSource() throws Exception {
+        compare(SourceGenerator.constants(10_000, 7));
+    }
+
+    // More constants than a class can hold must fail with a message, not a broken class file
+    @Test
+    void rejectsTooManyConstants() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 40_000; i++) source.append("long y").append(i).append(" = ").append(10_000_000_000L + i).append("L;\n");
+        EvaluationResult result = new Evaluation().evaluate(source.toString());
+        assertThrows(IllegalStateException.class, () -> new ClassGeneration().generate("generated.TooLarge", result));
+    }
+
+    // An array has no constant value, so its declarations never reach a class file
+    @Test
+    void refusesArrayDeclarators() {
+        for (String source : new String[] {"int[] a = {1, 2};", "int b[] = 6;", "long c = 1, d[];"}) {
+            EvaluationResult result = new Evaluation().evaluate(source);
+            assertThrows(IllegalArgumentException.class, () -> new ClassGeneration().generate("generated.Arrays", result), source);
+        }
+    }
+
+    // s0 is 16 chars, each next one twice the last, and copies declarations read the last one
+    private static String longStrings(int doublings, int copies) {
+        StringBuilder source = new StringBuilder("String s0 = \"0123456789abcd\\u20ac\\0\";\n");
+        for (int i = 1; i <= doublings; i++) source.append("String s").append(i).append(" = s").append(i - 1).append(" + s").append(i - 1).append(";\n");
+        for (int i = 0; i < copies; i++) source.append("String c").append(i).append(" = s").append(doublings).append(";\n");
+        return source.toString();
+    }
+
+    // Random declarations with those that overflow, and those reading them, left out
+    private static String randomSource(int count, long seed) {
+        Random random = new Random(seed);
+        List<List<String>> vars = new ArrayList<>();
+        for (int t = 0; t < RandomInitializer.TYPES.length; t++) vars.add(new ArrayList<>());
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int t = random.nextInt(RandomInitializer.TYPES.length);
+            String type = RandomInitializer.TYPES[t];
+            String name = "v" + i;
+            lines.add(type + ' ' + name + " = " + new RandomInitializer(random, vars).of(type, 3) + ";");
+            vars.get(t).add(name);
+        }
+        while (true) {
+            List<String> errors = new Evaluation().evaluate(String.join("\n", lines)).getErrors();
+            if (errors.isEmpty()) return String.join("\n", lines);
+            for (String error : errors) {
+                Matcher line = LINE.matcher(error);
+                if (line.find()) lines.set(Integer.parseInt(line.group(1)) - 1, "");
+            }
+        }
+    }
+
+    private static Class<?> compare(String source) throws Exception {
+        EvaluationResult result = new Evaluation().evaluate(source);
+        assertTrue(result.isPassed(), String.valueOf(result.getErrors()));
+        Class<?> constants = new Loader().load("generated.Constants", new ClassGeneration().generate("generated.Constants", result));
+        // Many fields may hold the same long String, whose intern() is slow, so each is checked once
+        Set<Object> interned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (int id = 0; id < result.size(); id++) {
+            String name = result.getName(id);
+            Field field = constants.getField(name);
+            String type = field.getType() == String.class ? "String" : field.getType().getName();
+            Object loaded = field.get(null);
+            String value = String.valueOf(loaded);
+            assertTrue(Modifier.isStatic(field.getModifiers()) && Modifier.isFinal(field.getModifiers()), name + " is not static final");
+            // Strings are interned, as javac's constants are
+            if (loaded instanceof String && interned.add(loaded)) assertTrue(loaded == value.intern(), name + " is not interned");
+            assertEquals(result.getType(id), type, name);
+            assertEquals(result.getValueText(id), value, name);
+        }
+        return constants;
+    }
+
+    // Defines one class and runs its static initializer
+    private static final class Loader extends ClassLoader {
+        Class<?> load(String name, byte[] bytes) throws ClassNotFoundException {
+            defineClass(name, bytes, 0, bytes.length);
+            return Class.forName(name, true, this);
+        }
+    }
+}
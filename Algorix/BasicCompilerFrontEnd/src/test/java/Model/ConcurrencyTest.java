@@ -0,0 +1,69 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Shares one instance of each analyzer between many threads and checks every result
+// against a sequential run on fresh instances.
+class ConcurrencyTest {
+
+    private static final String[] BROKEN_LINES = {
+            "int a = \"text\";", "String s == \"x\";", "boolean b = 1.5;", "int = 4;",
+            "double d = undefinedVar + 1;", "char c = ;", "x = 5;", "long l = 3"
+    };
+
+    @Test
+    void sharedAnalyzersMatchSequentialRuns() throws Exception {
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            String source = SourceGenerator.declarations(4_000 + 200 * i, i);
+            // Every other source fails somewhere, so error paths race as well
+            if (i % 2 == 1) source += BROKEN_LINES[i / 2 % BROKEN_LINES.length] + "\n";
+            sources.add(source);
+        }
+
+        List<String> expected = new ArrayList<>();
+        for (String source : sources) {
+            expected.add(describe(new LexicalAnalysis().analyze(source),
+                    new SyntaxAnalysis().analyze(source), new SemanticAnalysis().analyze(source)));
+        }
+
+        LexicalAnalysis lexical = new LexicalAnalysis();
+        SyntaxAnalysis syntax = new SyntaxAnalysis();
+        SemanticAnalysis semantic = new SemanticAnalysis();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 20; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<String>> futures = new ArrayList<>();
+                for (String source : sources) {
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        LexicalResult lex = lexical.analyze(source);
+                        return describe(lex, syntax.analyze(lex.getTokens()), semantic.analyze(lex.getTokens()));
+                    }));
+                }
+                start.countDown();
+                for (int i = 0; i < futures.size(); i++) {
+                    assertEquals(expected.get(i), futures.get(i).get(), "round " + round + ", source " + i);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String describe(LexicalResult lexical, SyntaxResult syntax, SemanticResult semantic) {
+        return lexical.getReport() + lexical.getTokenCount()
+                + syntax.getReport() + semantic.getReport() + semantic.getSymbols();
+    }
+}
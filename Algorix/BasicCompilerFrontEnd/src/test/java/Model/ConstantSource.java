@@ -0,0 +1,117 @@
+package Model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// Files of constant declarations, written with the values Java computes for them.
+public class ConstantSource {
+
+    private static final String[] TYPES = RandomInitializer.TYPES;
+
+    // One constant declaration per line whose values stay small, so none overflows; each reads
+    // variables among the last window declared of their kind. Returns a checksum of the values
+    // as Java computes them.
+    public static long write(Path file, int lines, int window, long seed) throws IOException {
+        Random random = new Random(seed);
+        long[] longs = new long[lines];
+        double[] doubles = new double[lines];
+        boolean[] booleans = new boolean[lines];
+        int[] integral = new int[lines];
+        int[] floating = new int[lines];
+        int[] logical = new int[lines];
+        int integralCount = 0;
+        int floatingCount = 0;
+        int logicalCount = 0;
+        long checksum = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < lines; i++) {
+                // The first lines are literals, so every later one has variables to read
+                String type = TYPES[i < TYPES.length ? i : random.nextInt(TYPES.length)];
+                int a = i < TYPES.length ? -1 : recent(integral, integralCount, window, random);
+                int b = i < TYPES.length ? -1 : recent(integral, integralCount, window, random);
+                int f = i < TYPES.length ? -1 : recent(floating, floatingCount, window, random);
+                int c = i < TYPES.length ? -1 : recent(logical, logicalCount, window, random);
+                out.write(type);
+                out.write(" v" + i + " = ");
+                String value;
+                if (a < 0) {
+                    String literal = switch (type) {
+                        case "boolean" -> "true";
+                        case "char" -> "'q'";
+                        case "String" -> "\"k\"";
+                        case "double", "float" -> "2.5";
+                        default -> "7";
+                    };
+                    out.write(literal);
+                    value = literal.replace("'", "").replace("\"", "");
+                    longs[i] = type.equals("char") ? 'q' : 7;
+                    doubles[i] = 2.5;
+                    booleans[i] = true;
+                } else {
+                    long x = longs[a];
+                    long y = longs[b];
+                    switch (type) {
+                        case "int" -> {
+                            out.write("(v" + a + " % 1000) * (v" + b + " % 1000) + " + (i % 97));
+                            longs[i] = (x % 1000) * (y % 1000) + i % 97;
+                        }
+                        case "long" -> {
+                            out.write("(v" + a + " % 100000) * 1000L + v" + b + " % 1000");
+                            longs[i] = (x % 100000) * 1000L + y % 1000;
+                        }
+                        case "short" -> {
+                            out.write("(short) (v" + a + " * 3)");
+                            longs[i] = (short) (x * 3);
+                        }
+                        case "byte" -> {
+                            out.write("(byte) (v" + a + " ^ v" + b + ")");
+                            longs[i] = (byte) (x ^ y);
+                        }
+                        case "char" -> {
+                            out.write("(char) ('a' + v" + a + " % 26)");
+                            longs[i] = (char) ('a' + x % 26);
+                        }
+                        case "double" -> {
+                            out.write("v" + f + " * 0.5 + v" + a + " / 4.0");
+                            doubles[i] = doubles[f] * 0.5 + x / 4.0;
+                        }
+                        case "float" -> {
+                            out.write("(float) v" + f + " / 3 + 1.5f");
+                            doubles[i] = (float) doubles[f] / 3 + 1.5f;
+                        }
+                        case "boolean" -> {
+                            out.write("v" + a + " < v" + b + " || !v" + c);
+                            booleans[i] = x < y || !booleans[c];
+                        }
+                        default -> out.write("\"k\" + v" + a + " % 100");
+                    }
+                    value = switch (type) {
+                        case "char" -> String.valueOf((char) longs[i]);
+                        case "double" -> Double.toString(doubles[i]);
+                        case "float" -> Float.toString((float) doubles[i]);
+                        case "boolean" -> Boolean.toString(booleans[i]);
+                        case "String" -> "k" + x % 100;
+                        default -> Long.toString(longs[i]);
+                    };
+                }
+                out.write(";\n");
+                checksum = 31 * checksum + value.hashCode();
+                switch (type) {
+                    case "int", "long", "short", "byte", "char" -> integral[integralCount++] = i;
+                    case "double", "float" -> floating[floatingCount++] = i;
+                    case "boolean" -> logical[logicalCount++] = i;
+                    default -> { }
+                }
+            }
+        }
+        return checksum;
+    }
+
+    private static int recent(int[] ids, int count, int window, Random random) {
+        return ids[count - 1 - random.nextInt(Math.min(count, window))];
+    }
+}
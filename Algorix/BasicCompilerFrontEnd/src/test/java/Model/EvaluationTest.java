@@ -0,0 +1,198 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Checks Evaluation three ways: hand-picked cases with known values and errors; tricky and
+// random typed initializers compared with the constants javac folds from the same
+// declarations; and a generated file of constant declarations, whose values are also computed
+// while it is written, evaluated from a MappedSource.
+class EvaluationTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void foldsValuesAsJavaDoes() {
+        expect("int a = 5; long b = a * 1000000000L;", "b", "5000000000");
+        expect("int c = -2147483648;", "c", "-2147483648");
+        expect("long c = -9223372036854775808L;", "c", "-9223372036854775808");
+        expect("int p = 0xFFFFFFFF;", "p", "-1");
+        expect("int r = 017 << 2 >>> 1;", "r", "30");
+        expect("byte e = 100 + 27;", "e", "127");
+        expect("char g = 'a' + 1;", "g", "b");
+        expect("char g = 'a'; String h = \"x\\ty\" + g + 1.5f + 2L;", "h", "x\tya1.52");
+        expect("String q = \"\\012\\1\\7x\\377\\400\";", "q", "\n\1\7x\377\40" + "0");
+        expect("char y = '\\7' + 59;", "y", "B");
+        expect("char w = '\\101';", "w", "A");
+        expect("float j = 1 / 3f;", "j", "0.33333334");
+        expect("double d = 1e308 * 10;", "d", "Infinity");
+        expect("float m = 0.0e-50f; double n = 1e-320; float z = 1.4e-45f;", "z", "1.4E-45");
+        expect("short o = (short) 70000;", "o", "4464");
+        expect("char s = (char) 66.7;", "s", "B");
+        expect("boolean k = false && 1 / 0 > 0;", "k", "false");
+        expect("int l = true ? 1 : 1 / 0;", "l", "1");
+        expect("boolean x = \"ab\" == \"a\" + \"b\";", "x", "true");
+        expect("int t;", "t", "0");
+        expect("String u;", "u", "null");
+    }
+
+    @Test
+    void reportsOverflowRangeAndDivisionErrors() {
+        expectErrors("int d = 2147483647 + 1;", "Line 1: Operator '+' overflows int in 'd'");
+        expectErrors("long z = 9223372036854775807L * 2;", "Line 1: Operator '*' overflows long in 'z'");
+        expectErrors("int n = -(-2147483648);", "Line 1: Operator '-' overflows int in 'n'");
+        expectErrors("byte f = 100 + 28;", "Line 1: 128 is out of range for byte in 'f'");
+        expectErrors("int v = 2147483648;", "Line 1: 2147483648 is out of range for int in 'v'");
+        expectErrors("int v = -(2147483648);", "Line 1: 2147483648 is out of range for int in 'v'");
+        expectErrors("float s = 1e-50f;", "Line 1: 1e-50f is out of range for float in 's'");
+        expectErrors("double s = 2.5e-400;", "Line 1: 2.5e-400 is out of range for double in 's'");
+        expectErrors("float s = 3.5e38f;", "Line 1: 3.5e38f is out of range for float in 's'");
+        expectErrors("double s = 1e309;", "Line 1: 1e309 is out of range for double in 's'");
+        expectErrors("long v = -(9223372036854775808L);", "Line 1: 9223372036854775808L is out of range for long in 'v'");
+        expectErrors("int m = 1 % 0;", "Line 1: Division by zero in 'm'");
+        expectErrors("int m = 1 / 0;\nint n = m + 1;",
+                "Line 1: Division by zero in 'm'", "Line 2: Variable 'm' in 'n' has no value");
+        expectErrors("double w = Math.PI;", "Line 1: Initializer of 'w' is not a constant expression");
+        expectErrors("char e = '\\400';", "Line 1: Initializer of 'e' is not a constant expression");
+        expectErrors("String f = \"\\8\";", "Line 1: Initializer of 'f' is not a constant expression");
+    }
+
+    // Arrays are never constants, and commas inside braces or parentheses do not end a declarator
+    @Test
+    void rejectsArraysAsNotConstant() {
+        expectErrors("int[] a = 5;", "Line 1: Initializer of 'a' is not a constant expression");
+        expectErrors("int b[] = 6, c = 7;", "Line 1: Initializer of 'b' is not a constant expression");
+        expectErrors("long[] d;", "Line 1: Initializer of 'd' is not a constant expression");
+        expectErrors("int e = {1, 2};", "Line 1: Initializer of 'e' is not a constant expression");
+        assertEquals(1, new Evaluation().evaluate("int e = {1, 2};").size());
+        expectErrors("int f = (1, 2), g = 3;", "Line 1: Initializer of 'f' is not a constant expression");
+        expect("int h = (1) + 1, i = h * 2;", "i", "4");
+    }
+
+    // Declarations whose typing or literals are easy to get wrong, folded by both
+    @Test
+    void trickyConstantsMatchJavac() throws Exception {
+        String source = String.join("\n",
+                "String a = \"\" + (true ? 'b' : 0);",
+                "String b = \"\" + (true ? 1 : 'a');",
+                "String c = \"\" + (false ? 'b' : 70000) + (true ? (byte) -1 : 200);",
+                "String d = \"\" + (true ? (byte) 1 : 'a') + (true ? (byte) 1 : (short) 2);",
+                "char e = true ? 'b' : 0;",
+                "String f = \"\\012\\1\\7x\\377\\400\" + '\\101';",
+                "int g = -2147483648;",
+                "long h = -9223372036854775808L;") + "\n";
+        EvaluationResult result = new Evaluation().evaluate(source);
+        assertTrue(result.isPassed(), String.valueOf(result.getErrors()));
+        Class<?> folded = compile(source.replaceAll("(?m)^", "static final "), 0);
+        for (int id = 0; id < result.size(); id++) {
+            Field field = folded.getDeclaredField(result.getName(id));
+            field.setAccessible(true);
+            assertEquals(String.valueOf(field.get(null)), result.getValueText(id), result.getName(id));
+        }
+    }
+
+    // Random declarations javac accepts as constants, folded by both. Where Java's int or long
+    // arithmetic wraps, Evaluation reports an overflow instead; those and the declarations
+    // that read them are not compared.
+    @Test
+    void randomInitializersMatchJavac() throws Exception {
+        for (long seed = 1; seed <= 4; seed++) {
+            Random random = new Random(seed);
+            List<List<String>> vars = new ArrayList<>();
+            for (int t = 0; t < RandomInitializer.TYPES.length; t++) vars.add(new ArrayList<>());
+            StringBuilder source = new StringBuilder();
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < 1500; i++) {
+                int t = random.nextInt(RandomInitializer.TYPES.length);
+                String name = "v" + i;
+                source.append(RandomInitializer.TYPES[t]).append(' ').append(name).append(" = ")
+                        .append(new RandomInitializer(random, vars).of(RandomInitializer.TYPES[t], 3)).append(";\n");
+                vars.get(t).add(name);
+                names.add(name);
+            }
+
+            String label = "seed " + seed;
+            SemanticResult checked = new SemanticAnalysis().analyze(source.toString());
+            assertTrue(checked.isPassed(), label + ": " + checked.getErrors());
+            EvaluationResult result = new Evaluation().evaluate(source.toString());
+            Class<?> folded = compile(source.toString().replaceAll("(?m)^", "static final "), seed);
+
+            for (String name : names) {
+                int id = result.find(name);
+                if (!result.hasValue(id)) continue;
+                Field field = folded.getDeclaredField(name);
+                field.setAccessible(true);
+                assertEquals(String.valueOf(field.get(null)), result.getValueText(id), label + ", " + name);
+            }
+            for (String error : result.getErrors()) {
+                assertTrue(error.contains("overflows") || error.contains("has no value"), label + ": " + error);
+            }
+        }
+    }
+
+    @Test
+    void mappedConstantsMatchJava() throws IOException {
+        for (int window : new int[] {1000, Integer.MAX_VALUE}) {
+            Path file = directory.resolve("constants" + window + ".java");
+            int declarations = 100_000;
+            long expected = ConstantSource.write(file, declarations, window, 42);
+            EvaluationResult result;
+            try (MappedSource source = MappedSource.open(file, 1 << 16)) {
+                result = new Evaluation().evaluate(source);
+            }
+            assertTrue(result.isPassed(), String.valueOf(result.getErrors()));
+            assertEquals(declarations, result.size());
+            long actual = 0;
+            for (int id = 0; id < result.size(); id++) actual = 31 * actual + String.valueOf(result.getValueText(id)).hashCode();
+            assertEquals(expected, actual, "checksum of the values, window " + window);
+        }
+    }
+
+    private static void expect(String source, String name, String value) {
+        EvaluationResult result = new Evaluation().evaluate(source);
+        assertTrue(result.isPassed(), source + ": " + result.getErrors());
+        int id = result.find(name);
+        assertEquals(value, id < 0 ? null : result.getValueText(id), source);
+    }
+
+    private static void expectErrors(String source, String... expected) {
+        assertEquals(List.of(expected), new Evaluation().evaluate(source).getErrors(), source);
+    }
+
+    // The declarations as the static fields of a class compiled in the temporary directory
+    private Class<?> compile(String fields, long seed) throws Exception {
+        Path classes = Files.createDirectories(directory.resolve("folded" + seed));
+        Path file = classes.resolve("Folded.java");
+        Files.writeString(file, "class Folded {\n" + fields + "}\n");
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int status = javac.run(null, null, errors, "-nowarn", "-d", classes.toString(), file.toString());
+        assertEquals(0, status, errors.toString(StandardCharsets.UTF_8));
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {classes.toUri().toURL()})) {
+            Class<?> folded = Class.forName("Folded", true, loader);
+            for (Field field : folded.getDeclaredFields()) {
+                field.setAccessible(true);
+                field.get(null);
+            }
+            return folded;
+        }
+    }
+}
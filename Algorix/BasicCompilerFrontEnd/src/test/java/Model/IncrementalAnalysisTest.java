@@ -0,0 +1,63 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Applies random edits to a buffer and checks IncrementalAnalysis against a full analysis
+// of the same text after every edit.
+class IncrementalAnalysisTest {
+
+    @Test
+    void randomEditsMatchFullAnalysis() {
+        Random random = new Random(7);
+        List<String> lines = new ArrayList<>(List.of(SourceGenerator.declarations(20_000, 3).split("\n", -1)));
+        IncrementalAnalysis incremental = new IncrementalAnalysis();
+
+        for (int e = 0; e < 500; e++) {
+            edit(lines, random);
+            String text = String.join("\n", lines);
+            incremental.update(text);
+
+            String expected = new LexicalAnalysis().analyze(text).getReport()
+                    + new SyntaxAnalysis().analyze(text).getReport()
+                    + describe(new SemanticAnalysis().analyze(text));
+            String actual = incremental.lexicalResult().getReport()
+                    + incremental.syntaxResult().getReport()
+                    + describe(incremental.semanticResult());
+            assertEquals(expected, actual, "edit " + e);
+        }
+    }
+
+    private static void edit(List<String> lines, Random random) {
+        int i = random.nextInt(lines.size());
+        int v = random.nextInt(lines.size() + 10);
+        String[] types = {"int", "double", "String", "boolean", "char"};
+        String type = types[random.nextInt(types.length)];
+        switch (random.nextInt(9)) {
+            case 0 -> lines.remove(i);
+            case 1 -> lines.add(i, type + " v" + v + " = v" + random.nextInt(lines.size()) + ";");
+            case 2 -> lines.set(i, type + " v" + v + " = " + (random.nextBoolean() ? "1" : "\"s\"") + ";");
+            case 3 -> lines.set(i, "int v" + v + " = v" + random.nextInt(lines.size()) + " + v" + random.nextInt(lines.size()) + ";");
+            case 4 -> lines.set(i, lines.get(i) + " ");
+            case 5 -> lines.set(i, "");
+            case 6 -> lines.add(i, "int a" + v + ", b" + v + " = a" + v + ", v" + v + ";");
+            case 7 -> {
+                // A multi-line paste
+                lines.add(i, "double v" + v + " = 2.5;");
+                lines.add(i, "v" + v + " = 3;");
+                lines.add(i, "String v" + v + " = \"x\" + v" + random.nextInt(lines.size()) + ";");
+            }
+            default -> lines.set(i, lines.get(i).replace(';', ' '));
+        }
+        if (lines.isEmpty()) lines.add("");
+    }
+
+    private static String describe(SemanticResult result) {
+        return result.getReport() + result.getSymbols();
+    }
+}
@@ -0,0 +1,30 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Lexing in parallel chunks must report exactly what the sequential lexer does.
+class LexicalAnalysisTest {
+
+    @Test
+    void parallelChunksMatchSequentialRun() {
+        LexicalAnalysis lexical = new LexicalAnalysis();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (double errorRate : new double[] {0, 0.01, 0.2}) {
+                String source = SourceGenerator.declarations(40_000, 60, 4, errorRate, 42);
+                LexicalResult expected = lexical.analyze(source);
+                LexicalResult actual = lexical.analyze(source, pool);
+                String label = "errorRate " + errorRate;
+                assertEquals(expected.getTokenCount(), actual.getTokenCount(), label);
+                assertEquals(expected.getErrors(), actual.getErrors(), label);
+                assertEquals(expected.getTokenizedLines(), actual.getTokenizedLines(), label);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Reads sources through a MappedSource with chunks much smaller than their statements and
+// checks that every phase reports what it reports for the same text in memory: a statement
+// continued over many lines, generated declarations broken after their operators, and lines
+// too long for the buffer, which must stay within its bound and shrink back afterwards.
+class MappedSourceTest {
+
+    private static final int CHUNK_CHARS = 64;
+    private static final Limits SHORT_LINES = new Limits(100, 256, 1 << 24);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void statementSpanningChunksIsParsedWhole() throws IOException {
+        String source = "int a = 1;\nint b =\n" + "1 +\n".repeat(40) + "2;\nint c = b * 2;\n";
+        assertSameResults(source, "continued");
+    }
+
+    @Test
+    void generatedContinuedLinesMatchInMemory() throws IOException {
+        for (long seed = 0; seed < 5; seed++) {
+            String declarations = SourceGenerator.declarations(300, 60, 3, seed == 4 ? 0.05 : 0, seed);
+            assertSameResults(breakLines(declarations, new Random(seed)), "seed " + seed);
+        }
+    }
+
+    // Lines the buffer cannot hold are reported as the in-memory lexer reports them, and the
+    // next line is read as carrying on the long one or not as it would be there
+    @Test
+    void tooLongLinesAreSkippedWithinBound() throws IOException {
+        String source = "int a = 1;\n"
+                + "int b = " + "1 + ".repeat(2_000) + "1;\n"
+                + "int c = 2;\n"
+                + "int d = " + "1 + ".repeat(2_000) + "\n1;\n"
+                + " ".repeat(5_000) + "int e = 3;\n"
+                + "int f = 4;" + " ".repeat(5_000) + "\n"
+                + "int g = 5;" + " ".repeat(5_000) + "int h = 6;\n"
+                + "int i = 7;\n".repeat(50)
+                + "String j = \"" + "x".repeat(5_000);
+        Path file = directory.resolve("Long.java");
+        Files.writeString(file, source);
+        try (MappedSource mapped = MappedSource.open(file, CHUNK_CHARS, SHORT_LINES)) {
+            List<String> errors = new LexicalAnalysis(SHORT_LINES).analyze(mapped).getErrors();
+            assertEquals(new LexicalAnalysis(SHORT_LINES).analyze(source).getErrors(), errors);
+            assertEquals(4, errors.stream().filter(e -> e.contains("longer than 100")).count(), String.valueOf(errors));
+        }
+
+        int largest = 0;
+        boolean shrunk = false;
+        try (MappedSource mapped = MappedSource.open(file, CHUNK_CHARS, SHORT_LINES)) {
+            while (mapped.nextChunk() != null) {
+                largest = Math.max(largest, mapped.capacity());
+                if (largest > CHUNK_CHARS && mapped.capacity() == CHUNK_CHARS) shrunk = true;
+            }
+        }
+        assertTrue(largest <= CHUNK_CHARS + 2 * SHORT_LINES.maxLineLength(), "buffer grew to " + largest);
+        assertTrue(shrunk, "buffer not shrunk after the long lines");
+    }
+
+    // Lines between the chunk size and the cap are held whole, so every phase matches
+    @Test
+    void linesLongerThanChunkMatchInMemory() throws IOException {
+        String source = "int a = " + "1 + ".repeat(20) + "1;\n"
+                + " ".repeat(1_000) + "int b = a;\n"
+                + "int c = b;" + " ".repeat(1_000) + "\n"
+                + "int d =" + " 2 +".repeat(20) + "\n c;\n";
+        assertSameResults(source, "long lines", SHORT_LINES);
+    }
+
+    private void assertSameResults(String source, String label) throws IOException {
+        assertSameResults(source, label, Limits.DEFAULT);
+    }
+
+    private void assertSameResults(String source, String label, Limits limits) throws IOException {
+        Path file = directory.resolve("Source.java");
+        Files.writeString(file, source);
+        try (MappedSource mapped = MappedSource.open(file, CHUNK_CHARS, limits)) {
+            assertEquals(new LexicalAnalysis(limits).analyze(source).getErrors(),
+                    new LexicalAnalysis(limits).analyze(mapped).getErrors(), label + ", lexical");
+        }
+        try (MappedSource mapped = MappedSource.open(file, CHUNK_CHARS, limits)) {
+            assertEquals(new SyntaxAnalysis(limits).analyze(source).getErrors(),
+                    new SyntaxAnalysis(limits).analyze(mapped).getErrors(), label + ", syntax");
+        }
+        try (MappedSource mapped = MappedSource.open(file, CHUNK_CHARS, limits)) {
+            assertEquals(new SemanticAnalysis(limits).analyze(source).getErrors(),
+                    new SemanticAnalysis(limits).analyze(mapped).getErrors(), label + ", semantic");
+        }
+        EvaluationResult expected = new Evaluation(limits).evaluate(source);
+        EvaluationResult actual;
+        try (MappedSource mapped = MappedSource.open(file, CHUNK_CHARS, limits)) {
+            actual = new Evaluation(limits).evaluate(mapped);
+        }
+        assertEquals(expected.getErrors(), actual.getErrors(), label + ", evaluation");
+        assertEquals(values(expected), values(actual), label + ", values");
+    }
+
+    // Breaks lines after some of their binary operators and '=', so the statement carries on
+    private static String breakLines(String source, Random random) {
+        StringBuilder out = new StringBuilder(source.length() + source.length() / 8);
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            out.append(c);
+            if ((c == '+' || c == '*' || c == '=') && i + 1 < source.length() && source.charAt(i + 1) == ' '
+                    && random.nextInt(3) == 0) {
+                out.append('\n');
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    private static List<String> values(EvaluationResult result) {
+        List<String> values = new ArrayList<>();
+        for (int id = 0; id < result.size(); id++) values.add(result.getValueText(id));
+        return values;
+    }
+}
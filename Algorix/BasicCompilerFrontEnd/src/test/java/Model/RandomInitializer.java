@@ -0,0 +1,82 @@
+package Model;
+
+import java.util.List;
+import java.util.Random;
+
+// A random initializer of a given type, built only from operations javac folds. Leaves read
+// the variables already declared of their type, listed per index of TYPES in vars.
+final class RandomInitializer {
+
+    static final String[] TYPES = {"int", "long", "double", "float", "boolean", "char", "byte", "short", "String"};
+
+    final Random random;
+    final List<List<String>> vars;
+
+    RandomInitializer(Random random, List<List<String>> vars) {
+        this.random = random;
+        this.vars = vars;
+    }
+
+    String of(String type, int depth) {
+        if (depth == 0 || random.nextInt(3) == 0) return leaf(type);
+        int d = depth - 1;
+        switch (type) {
+            case "int":
+                switch (random.nextInt(6)) {
+                    case 0: return "(" + of("int", d) + pick(" + ", " - ", " * ", " & ", " | ", " ^ ") + of("int", d) + ")";
+                    case 1: return "(" + of("int", d) + pick(" << ", " >> ", " >>> ") + of("int", d) + ")";
+                    case 2: return "(" + of("int", d) + pick(" / ", " % ") + (1 + random.nextInt(50)) + ")";
+                    case 3: return "(" + pick("-", "~", "+") + of("int", d) + ")";
+                    case 4: return "(" + of("boolean", d) + " ? " + of("int", d) + " : " + of("int", d) + ")";
+                    default: return "(int) (" + of(pick("long", "double", "float", "char", "byte", "short"), d) + ")";
+                }
+            case "long":
+                switch (random.nextInt(4)) {
+                    case 0: return "(" + of("long", d) + pick(" + ", " - ", " * ", " & ", " ^ ", " << ", " >>> ") + of(pick("long", "int"), d) + ")";
+                    case 1: return "(" + of("long", d) + pick(" / ", " % ") + (1 + random.nextInt(50)) + "L)";
+                    case 2: return "(" + of("boolean", d) + " ? " + of("long", d) + " : " + of("int", d) + ")";
+                    default: return "(long) (" + of(pick("double", "float"), d) + ")";
+                }
+            case "double":
+            case "float":
+                switch (random.nextInt(3)) {
+                    case 0: return "(" + of(type, d) + pick(" + ", " - ", " * ", " / ", " % ") + of(pick(type, "int", "long"), d) + ")";
+                    case 1: return "(" + pick("-", "+") + of(type, d) + ")";
+                    default: return "(" + type + ") (" + of(pick("double", "float", "long", "int"), d) + ")";
+                }
+            case "boolean":
+                switch (random.nextInt(4)) {
+                    case 0: {
+                        String numeric = pick("int", "long", "double", "float", "char");
+                        return "(" + of(numeric, d) + pick(" < ", " > ", " <= ", " >= ", " == ", " != ") + of(numeric, d) + ")";
+                    }
+                    case 1: return "(" + of("boolean", d) + pick(" && ", " || ", " & ", " | ", " ^ ", " == ", " != ") + of("boolean", d) + ")";
+                    case 2: return "(!" + of("boolean", d) + ")";
+                    default: return "(" + of("boolean", d) + " ? " + of("boolean", d) + " : " + of("boolean", d) + ")";
+                }
+            case "String":
+                return "(" + of("String", d) + " + " + of(pick(TYPES), d) + ")";
+            default:
+                return "(" + type + ") (" + of("int", d) + ")";
+        }
+    }
+
+    String leaf(String type) {
+        List<String> declared = vars.get(List.of(TYPES).indexOf(type));
+        if (!declared.isEmpty() && random.nextInt(3) > 0) return declared.get(random.nextInt(declared.size()));
+        switch (type) {
+            case "int": return pick(String.valueOf(random.nextInt(1000)), "2147483647", "0x7FFFFFFF", "0xFFFF0000", "017", "(-2147483648)");
+            case "long": return pick(random.nextInt(100000) + "L", "9223372036854775807L", "0xFFFFFFFFFFL", "(-9223372036854775808L)");
+            case "double": return pick(random.nextInt(1000) + "." + random.nextInt(100), "2.5e3", "1e-3", "3d");
+            case "float": return pick(random.nextInt(1000) + "." + random.nextInt(100) + "f", "0.1f", "3f");
+            case "boolean": return pick("true", "false");
+            case "char": return pick("'" + (char) ('a' + random.nextInt(26)) + "'", "'\\n'", "'\\''", "'Z'");
+            case "String": return pick("\"s" + random.nextInt(100) + "\"", "\"tab\\t\"", "\"q\\\"\"", "\"\"");
+            default: return String.valueOf(random.nextInt(100));
+        }
+    }
+
+    private String pick(String... choices) {
+        return choices[random.nextInt(choices.length)];
+    }
+}
@@ -0,0 +1,121 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the phases of the same sources on many threads through one cache with a directory, as
+// BatchAnalyzer does for files with equal content, and reads every phase back from the disk.
+// Also checks that opening the directory under a budget deletes the least recently used
+// entries and the temporary files of runs that died.
+class ResultCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void phasesPutConcurrentlyAllReachDisk() throws Exception {
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            String source = SourceGenerator.declarations(200, i);
+            // Some fail in each phase, so the last phase put is not always SEMANTIC
+            if (i % 4 == 1) source += "int x = \"text;\n";
+            if (i % 4 == 2) source += "int = 4;\n";
+            if (i % 4 == 3) source += "int y = undefined + 1;\n";
+            sources.add(source);
+        }
+
+        ResultCache cache = ResultCache.open(ResultCache.DEFAULT_MEMORY_BYTES, directory);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (String source : sources) analyze(cache, source);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) future.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        // No memory budget, so every phase comes from its file
+        ResultCache reopened = ResultCache.open(0, directory);
+        for (String source : sources) {
+            ResultCache.Key key = ResultCache.key(source);
+            LexicalResult lexical = new LexicalAnalysis().analyze(source);
+            assertEquals(lexical.getErrors(), phase(reopened, key, ResultCache.Phase.LEXICAL).getErrors());
+            if (!lexical.isPassed()) continue;
+            SyntaxResult syntax = new SyntaxAnalysis().analyze(source);
+            assertEquals(syntax.getErrors(), phase(reopened, key, ResultCache.Phase.SYNTAX).getErrors());
+            if (!syntax.isPassed()) continue;
+            assertEquals(new SemanticAnalysis().analyze(source).getErrors(),
+                    phase(reopened, key, ResultCache.Phase.SEMANTIC).getErrors());
+        }
+        assertEquals(0, reopened.getMisses());
+    }
+
+    @Test
+    void openingKeepsMostRecentlyUsedWithinBudget() throws Exception {
+        ResultCache cache = ResultCache.open(0, directory);
+        List<Path> files = new ArrayList<>();
+        List<ResultCache.Key> keys = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            String source = "int a" + i + " = " + i + ";\n";
+            ResultCache.Key key = ResultCache.key(source);
+            cache.put(key, ResultCache.Phase.SEMANTIC, new SemanticAnalysis().analyze(source));
+            Path file = directory.resolve(key + ".result");
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now - 100_000 + 1000 * i));
+            keys.add(key);
+            files.add(file);
+        }
+        Path staleTemp = Files.createFile(directory.resolve("stale.tmp"));
+        Files.setLastModifiedTime(staleTemp, FileTime.fromMillis(now - 2 * 3600_000));
+        Path freshTemp = Files.createFile(directory.resolve("fresh.tmp"));
+
+        // A hit makes the oldest entry the most recently used
+        assertNotNull(ResultCache.open(0, directory).get(keys.get(0), ResultCache.Phase.SEMANTIC));
+        long budget = Files.size(files.get(0));
+        for (int i = 7; i < 10; i++) budget += Files.size(files.get(i));
+        ResultCache.open(0, directory, budget);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i == 0 || i >= 7, Files.exists(files.get(i)), "entry " + i);
+        }
+        assertFalse(Files.exists(staleTemp), "temporary file of a dead run kept");
+        assertTrue(Files.exists(freshTemp), "temporary file being written deleted");
+    }
+
+    private static void analyze(ResultCache cache, String source) {
+        ResultCache.Key key = ResultCache.key(source);
+        LexicalResult lexical = cache.lexical(key, () -> new LexicalAnalysis().analyze(source));
+        if (!lexical.isPassed()) return;
+        SyntaxResult syntax = cache.syntax(key, () -> new SyntaxAnalysis().analyze(source));
+        if (syntax.isPassed()) cache.semantic(key, () -> new SemanticAnalysis().analyze(source));
+    }
+
+    private static AnalysisResult phase(ResultCache cache, ResultCache.Key key, ResultCache.Phase phase) {
+        AnalysisResult result = cache.get(key, phase);
+        assertNotNull(result, phase + " of " + key + " not on disk");
+        return result;
+    }
+}
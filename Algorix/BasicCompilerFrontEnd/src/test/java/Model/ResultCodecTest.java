@@ -0,0 +1,85 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Round-trips phase results and token streams through ResultCodec and a mapped file; every
+// report, symbol and token must come back unchanged.
+class ResultCodecTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void generatedSourcesRoundTrip() throws IOException {
+        for (double errorRate : new double[] {0, 0.01, 0.2}) {
+            roundTrip(SourceGenerator.declarations(50_000, 60, 4, errorRate, 7), "errorRate " + errorRate);
+        }
+    }
+
+    @Test
+    void emptySourceRoundTrips() throws IOException {
+        roundTrip("", "empty source");
+    }
+
+    @Test
+    void nonAsciiSourceRoundTrips() throws IOException {
+        roundTrip("int x = 1;\r\n\n  Line 2: é \"中\" 😀\n", "non-ASCII source");
+    }
+
+    private void roundTrip(String source, String label) throws IOException {
+        TokenStream tokens = new SourceScanner().scan(source);
+        List<AnalysisResult> expected = List.of(new LexicalAnalysis().analyze(tokens), new SyntaxAnalysis().analyze(tokens),
+                new SemanticAnalysis().analyze(tokens));
+        Path binary = directory.resolve("results.bin");
+        try (FileChannel channel = open(binary)) {
+            ResultCodec.write(channel, expected);
+        }
+        List<AnalysisResult> actual = ResultCodec.read(map(binary));
+        assertEquals(expected.size(), actual.size(), label);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(describe(expected.get(i)), describe(actual.get(i)),
+                    label + ", " + expected.get(i).getClass().getSimpleName());
+        }
+
+        Path tokenFile = directory.resolve("tokens.bin");
+        try (FileChannel channel = open(tokenFile)) {
+            ResultCodec.writeTokens(channel, tokens);
+        }
+        TokenStream read = ResultCodec.readTokens(map(tokenFile));
+        assertEquals(tokens.size(), read.size(), label);
+        assertEquals(tokens.firstLine(), read.firstLine(), label);
+        assertEquals(tokens.lineCount(), read.lineCount(), label);
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = label + ", token " + i;
+            assertEquals(tokens.kind(i), read.kind(i), token);
+            assertEquals(tokens.line(i), read.line(i), token);
+            assertEquals(tokens.column(i), read.column(i), token);
+            assertEquals(tokens.text(i), read.text(i), token);
+        }
+    }
+
+    private static String describe(AnalysisResult result) {
+        String symbols = result instanceof SemanticResult semantic ? semantic.getSymbols().toString() : "";
+        return result.getReport() + result.getErrors() + symbols;
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The two-pass parallel semantic analysis must report what the sequential one does, including
+// for sources that redeclare names whose first declaration failed.
+class SemanticAnalysisTest {
+
+    @Test
+    void parallelPassesMatchSequentialRun() {
+        SemanticAnalysis semantic = new SemanticAnalysis();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (double errorRate : new double[] {0, 0.01, 0.2}) {
+                check(semantic, pool, SourceGenerator.declarations(60_000, 60, 4, errorRate, 7), "errorRate " + errorRate);
+            }
+            check(semantic, pool, redeclarations(60_000), "redeclarations");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void check(SemanticAnalysis semantic, ForkJoinPool pool, String source, String label) {
+        TokenStream tokens = new SourceScanner().scan(source);
+        ParseTree tree = new SyntaxAnalysis().analyze(tokens).getTree();
+        assertSame(semantic.analyze(tokens), semantic.analyze(tokens, pool), label + ", token stream");
+        assertSame(semantic.analyze(tree), semantic.analyze(tree, pool), label + ", parse tree");
+    }
+
+    private static void assertSame(SemanticResult expected, SemanticResult actual, String label) {
+        assertEquals(expected.getErrors(), actual.getErrors(), label);
+        assertEquals(new ArrayList<>(expected.getSymbols().entrySet()), new ArrayList<>(actual.getSymbols().entrySet()), label);
+    }
+
+    // A few names declared over and over with mismatched initializers, so the first declaration
+    // of a name often fails and a later one becomes the one that counts
+    private static String redeclarations(int lines) {
+        String[] types = {"int", "double", "boolean", "String"};
+        String[] values = {"1", "2.5", "true", "\"s\"", "a0", "a1 + a2", "a3"};
+        Random random = new Random(3);
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < lines; n++) {
+            sb.append(types[random.nextInt(types.length)]).append(" a").append(random.nextInt(50))
+                    .append(" = ").append(values[random.nextInt(values.length)]).append(";\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,122 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Builds synthetic declaration files in the shape of our generated sources:
+// one declaration per line, mixing literals, references to earlier variables and strings.
+public class SourceGenerator {
+
+    private static final String[] TYPES = {"int", "double", "float", "boolean", "char", "long", "byte", "short", "String"};
+
+    public static String declarations(int targetChars, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(targetChars + 64);
+        int n = 0;
+        while (sb.length() < targetChars) {
+            String type = TYPES[random.nextInt(TYPES.length)];
+            sb.append(type).append(" v").append(n).append(" = ");
+            literal(sb, type, n, random);
+            sb.append(";\n");
+            n++;
+        }
+        return sb.toString();
+    }
+
+    // Declarations of a chosen shape. Names are padded so lines come out near lineLength chars,
+    // each initializer reads complexity earlier variables of a compatible type, and about
+    // errorRate of the lines carry a lexical, syntax or semantic error and declare nothing.
+    public static String declarations(int lines, int lineLength, int complexity, double errorRate, long seed) {
+        Random random = new Random(seed);
+        int nameWidth = Math.max(2, (lineLength - 12 - 3 * complexity) / (complexity + 1));
+        List<String> integral = new ArrayList<>();
+        List<String> floating = new ArrayList<>();
+        List<String> strings = new ArrayList<>();
+        List<String> booleans = new ArrayList<>();
+
+        StringBuilder sb = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8, (long) lines * (lineLength + 1)));
+        for (int n = 0; n < lines; n++) {
+            String type = TYPES[random.nextInt(TYPES.length)];
+            String name = name(n, nameWidth);
+            if (random.nextDouble() < errorRate) {
+                switch (random.nextInt(4)) {
+                    case 0 -> sb.append("return ").append(name);                        // not a declaration
+                    case 1 -> sb.append(type).append(' ').append(name).append(" = 1");  // no semicolon
+                    case 2 -> sb.append("int ").append(name).append(" = \"text\";");    // type mismatch
+                    default -> sb.append("double ").append(name).append(" = ").append(name(n, nameWidth).replace('v', 'u'))
+                            .append(" + 1;");                                              // undefined variable
+                }
+                sb.append('\n');
+                continue;
+            }
+
+            sb.append(type).append(' ').append(name).append(" = ");
+            List<String> reads;
+            String operator;
+            switch (type) {
+                case "String" -> { reads = strings; operator = " + "; }
+                case "boolean" -> { reads = booleans; operator = " && "; }
+                case "double", "float" -> { reads = random.nextBoolean() ? floating : integral; operator = " * "; }
+                default -> { reads = integral; operator = " + "; }
+            }
+            if (complexity == 0 || reads.isEmpty()) {
+                literal(sb, type, n, random);
+            } else {
+                for (int k = 0; k < complexity; k++) {
+                    if (k > 0) sb.append(operator);
+                    sb.append(reads.get(random.nextInt(reads.size())));
+                }
+            }
+            sb.append(";\n");
+
+            switch (type) {
+                case "String" -> strings.add(name);
+                case "boolean" -> booleans.add(name);
+                case "double", "float" -> floating.add(name);
+                case "char" -> { }
+                default -> integral.add(name);
+            }
+        }
+        return sb.toString();
+    }
+
+    // Constant declarations x0..x<count-1> that all evaluate: mixed literals, and in one line of
+    // eight a String joining its index to one of the hundred variables before it
+    public static String constants(int count, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            String previous = "x" + (i - 1 - random.nextInt(Math.max(1, Math.min(i, 100))));
+            switch (i == 0 ? 0 : random.nextInt(8)) {
+                case 0 -> sb.append("long x").append(i).append(" = ").append(random.nextLong()).append("L;\n");
+                case 1 -> sb.append("double x").append(i).append(" = ").append(random.nextDouble()).append(";\n");
+                case 2 -> sb.append("int x").append(i).append(" = ").append(random.nextInt()).append(";\n");
+                case 3 -> sb.append("String x").append(i).append(" = \"").append(Long.toString(random.nextLong(), 36)).append("\";\n");
+                case 4 -> sb.append("float x").append(i).append(" = ").append(random.nextFloat()).append("f;\n");
+                case 5 -> sb.append("short x").append(i).append(" = ").append((short) random.nextInt()).append(";\n");
+                case 6 -> sb.append("boolean x").append(i).append(" = ").append(random.nextBoolean()).append(";\n");
+                default -> sb.append("String x").append(i).append(" = \"").append(i).append("\" + ")
+                        .append(previous).append(";\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void literal(StringBuilder sb, String type, int n, Random random) {
+        switch (type) {
+            case "String" -> sb.append("\"value ").append(n).append('"');
+            case "boolean" -> sb.append(random.nextBoolean());
+            case "char" -> sb.append('\'').append((char) ('a' + random.nextInt(26))).append('\'');
+            case "double", "float" -> sb.append(random.nextInt(1000)).append('.').append(random.nextInt(100));
+            default -> sb.append(random.nextInt(1000));
+        }
+    }
+
+    // v<n> followed by x's up to width chars
+    private static String name(int n, int width) {
+        StringBuilder sb = new StringBuilder(width).append('v').append(n);
+        while (sb.length() < width) sb.append('x');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,253 @@
+package Model;
+
+import Controller.BatchAnalyzer;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Feeds every phase generated pathological sources: deep nesting of each kind, long runs of
+// prefix operators and casts, long lines, unbalanced and escaped quotes, names that collide
+// under String.hashCode, and Strings that double from one declaration to the next. Each source
+// is analyzed at two sizes, the second eight times the first, on a thread with a 1 MB stack.
+// Every phase must finish without an Error, and its best of five warm runs on the larger source
+// may take at most three times eight times the CPU of its best on the smaller, where quadratic
+// work takes sixty-four. Sources past a limit must report it. Lower limits passed to the
+// analyzers must take effect.
+class StressTest {
+
+    private static final int CHARS = 20_000;
+    private static final int GROWTH = 8;
+    private static final int RUNS = 5;
+    // Below this a pause for garbage can outweigh the run, so its ratio tells nothing. Quadratic
+    // work on the larger sources takes seconds.
+    private static final long NOISE_NANOS = 100_000_000;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final String NESTED = "Nested deeper than " + Limits.DEFAULT.maxNesting() + " levels";
+    private static final String STRINGS = "String values exceed " + Limits.DEFAULT.maxStringChars() + " characters";
+
+    // A source whose larger size the named phase must report with an error containing expected
+    private record Source(String name, IntFunction<String> generator, String phase, String expected) {
+    }
+
+    private record Phase(String name, Function<String, Object> run) {
+    }
+
+    @Test
+    void everyPhaseStaysLinearOnPathologicalSources() throws Throwable {
+        List<String> failures = onSmallStack(StressTest::run);
+        assertEquals(List.of(), failures);
+    }
+
+    // Each limit set low fails a source the defaults accept, and nothing else
+    @Test
+    void lowerLimitsTakeEffect() {
+        Limits low = new Limits(40, 8, 100);
+        limit(new LexicalAnalysis(low)::analyze, new LexicalAnalysis()::analyze,
+                "int a = " + "1 + ".repeat(10) + "1;\n", "Line longer than 40 characters");
+        limit(new SyntaxAnalysis(low)::analyze, new SyntaxAnalysis()::analyze,
+                "int a = " + "(".repeat(9) + "1" + ")".repeat(9) + ";\n", "Nested deeper than 8 levels in 'a'");
+        limit(new SemanticAnalysis(low)::analyze, new SemanticAnalysis()::analyze,
+                "int a = " + "(".repeat(9) + "1" + ")".repeat(9) + ";\n", "Nested deeper than 8 levels in 'a'");
+        limit(new SyntaxAnalysis(low)::analyze, new SyntaxAnalysis()::analyze,
+                "List<".repeat(9) + "String" + ">".repeat(9) + " a;\n", "Nested deeper than 8 levels in 'List'");
+        limit(new Evaluation(low)::evaluate, new Evaluation()::evaluate,
+                "String a = \"" + "x".repeat(60) + "\";\nString b = a + a;\n", "String values exceed 100 characters in 'b'");
+        limit(new SyntaxAnalysis(low)::analyze, new SyntaxAnalysis()::analyze,
+                "int a = " + "(".repeat(8) + "1" + ")".repeat(8) + ";\n", null);
+    }
+
+    private static List<String> run() {
+        List<Source> sources = sources();
+        List<Phase> phases = phases(Limits.DEFAULT);
+
+        // Compiled before anything is timed
+        for (Source source : sources) {
+            String text = source.generator().apply(CHARS);
+            for (Phase phase : phases) {
+                attempt(phase, text);
+                attempt(phase, text);
+            }
+        }
+
+        List<String> failures = new ArrayList<>();
+        for (Source source : sources) {
+            String small = source.generator().apply(CHARS);
+            String large = source.generator().apply(GROWTH * CHARS);
+            for (Phase phase : phases) {
+                long smallNanos = Long.MAX_VALUE;
+                long largeNanos = Long.MAX_VALUE;
+                Object result = null;
+                for (int run = 0; run < RUNS; run++) {
+                    long start = cpuNanos();
+                    attempt(phase, small);
+                    smallNanos = Math.min(smallNanos, cpuNanos() - start);
+                    start = cpuNanos();
+                    result = attempt(phase, large);
+                    largeNanos = Math.min(largeNanos, cpuNanos() - start);
+                }
+                String label = source.name() + ", " + phase.name() + ": ";
+                if (result instanceof Throwable t) {
+                    failures.add(label + t);
+                } else if (largeNanos > 3 * GROWTH * smallNanos && largeNanos > NOISE_NANOS) {
+                    failures.add(label + String.format("%.1f ms grew x%.1f from %.1f ms",
+                            largeNanos / 1e6, (double) largeNanos / Math.max(1, smallNanos), smallNanos / 1e6));
+                } else if (phase.name().equals(source.phase()) && !reports(result, source.expected())) {
+                    failures.add(label + "no error with '" + source.expected() + "'");
+                }
+            }
+        }
+        return failures;
+    }
+
+    private static List<Source> sources() {
+        List<Source> sources = new ArrayList<>();
+        sources.add(new Source("long line", k -> "int a = " + repeat("1 + ", k) + "1;\n", null, null));
+        sources.add(new Source("open quote", k -> "String s = \"" + repeat("ab ", k) + ";\n", null, null));
+        sources.add(new Source("quotes", k -> "String s = " + repeat("\"", k) + ";\n", null, null));
+        // Each quote escaped from the one before, so no string on the line ever closes
+        sources.add(new Source("escaped quotes", k -> "String s = \"" + repeat("\\\"", k) + ";\n", null, null));
+        sources.add(new Source("quote lines", k -> repeat("String s = \"abc;\n", k), null, null));
+        sources.add(new Source("parens", k -> "int a = " + nest("(", "1", ")", k) + ";\n", "syntax", NESTED));
+        sources.add(new Source("open parens", k -> "int a = " + repeat("(", k) + "1;\n", "syntax", NESTED));
+        sources.add(new Source("braces", k -> "int[] a = " + nest("{", "1", "}", k) + ";\n", "syntax", NESTED));
+        sources.add(new Source("calls", k -> "int a = " + nest("f(", "1", ")", k) + ";\n", "syntax", NESTED));
+        sources.add(new Source("indexes", k -> "int a = " + nest("x[", "1", "]", k) + ";\n", "syntax", NESTED));
+        sources.add(new Source("conditionals", k -> "int a = " + nest("true ? ", "1", " : 1", k) + ";\n", "syntax", NESTED));
+        sources.add(new Source("else chain", k -> "int a = " + repeat("false ? 1 : ", k) + "1;\n", "syntax", NESTED));
+        sources.add(new Source("generics", k -> nest("List<", "String", ">", k) + " a;\n", "syntax", NESTED));
+        sources.add(new Source("array braces", k -> "int[] a = new int[]" + nest("{", "", "}", k) + ";\n", "syntax", NESTED));
+        // Every operator at each level, so each level of parens also climbs every precedence
+        sources.add(new Source("precedence", k -> "int a = "
+                + nest("(1 || 1 && 1 | 1 ^ 1 & 1 == 1 < 1 << 1 + 1 * ", "1", ")", k) + ";\n", "syntax", NESTED));
+        // Type arguments of a cast that turns out to be comparisons in parentheses
+        sources.add(new Source("comparisons", k -> "boolean a = (b" + repeat(" < b", k) + ");\n", null, null));
+        sources.add(new Source("prefixes", k -> "int a = " + repeat("- ~", k) + "1;\n", null, null));
+        sources.add(new Source("casts", k -> "int a = " + repeat("(int) ", k) + "1;\n", null, null));
+        sources.add(new Source("qualified", k -> "int a = x" + repeat(".y", k) + ";\n", null, null));
+        sources.add(new Source("dimensions", k -> "int" + repeat("[]", k) + " a;\n", null, null));
+        sources.add(new Source("shifts", k -> "int a = 1 " + repeat(">", k) + " 2;\n", null, null));
+        sources.add(new Source("long name", k -> "int " + repeat("a", k) + " = 1;\n", null, null));
+        sources.add(new Source("comment", k -> "int a = 1; // " + repeat("x\"", k) + "\n", null, null));
+        sources.add(new Source("block comment", k -> "/* " + repeat("x ", k) + "\n", null, null));
+        sources.add(new Source("error lines", k -> repeat("int = ;\n", k), null, null));
+        sources.add(new Source("concatenation", k -> "String a = " + repeat("\"x\" + ", k) + "\"x\";\n", null, null));
+        sources.add(new Source("colliding names", StressTest::collidingNames, null, null));
+        sources.add(new Source("doubling", StressTest::doubling, "evaluate", STRINGS));
+        return sources;
+    }
+
+    private static List<Phase> phases(Limits limits) {
+        LexicalAnalysis lexical = new LexicalAnalysis(limits);
+        SyntaxAnalysis syntax = new SyntaxAnalysis(limits);
+        SemanticAnalysis semantic = new SemanticAnalysis(limits);
+        Evaluation evaluation = new Evaluation(limits);
+        return List.of(
+                new Phase("lexical", lexical::analyze),
+                new Phase("syntax", syntax::analyze),
+                new Phase("semantic", semantic::analyze),
+                new Phase("evaluate", evaluation::evaluate),
+                new Phase("incremental", text -> {
+                    IncrementalAnalysis incremental = new IncrementalAnalysis(limits);
+                    incremental.update(text);
+                    return incremental.semanticResult();
+                }),
+                new Phase("batch", text -> BatchAnalyzer.analyzeSource(Path.of("stress.java"), text, null, Metrics.NONE)));
+    }
+
+    // The parsers' recursion is bounded by maxNesting, so a small stack must do
+    private static List<String> onSmallStack(Supplier<List<String>> task) throws Throwable {
+        List<List<String>> result = new ArrayList<>();
+        Throwable[] thrown = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                result.add(task.get());
+            } catch (Throwable t) {
+                thrown[0] = t;
+            }
+        }, "stress", 1 << 20);
+        thread.start();
+        thread.join();
+        if (thrown[0] != null) throw thrown[0];
+        return result.get(0);
+    }
+
+    // CPU time of every live thread, so work handed to a pool counts and time spent waiting for
+    // a processor does not
+    private static long cpuNanos() {
+        long total = 0;
+        for (long id : THREADS.getAllThreadIds()) total += Math.max(0, THREADS.getThreadCpuTime(id));
+        return total;
+    }
+
+    // The phase's result, or the Error or exception it threw
+    private static Object attempt(Phase phase, String text) {
+        try {
+            return phase.run().apply(text);
+        } catch (Throwable t) {
+            return t;
+        }
+    }
+
+    private static boolean reports(Object result, String message) {
+        if (!(result instanceof AnalysisResult analysis)) return false;
+        for (String error : analysis.getErrors()) {
+            if (error.contains(message)) return true;
+        }
+        return false;
+    }
+
+    private static void limit(Function<String, AnalysisResult> limited, Function<String, AnalysisResult> unlimited,
+                              String text, String expected) {
+        List<String> errors = limited.apply(text).getErrors();
+        if (expected == null) {
+            assertEquals(List.of(), errors, text);
+        } else {
+            assertTrue(errors.size() == 1 && errors.get(0).contains(expected), expected + " expected, got " + errors);
+        }
+        assertTrue(unlimited.apply(text).isPassed(), "defaults fail " + text);
+    }
+
+    // About chars chars of unit repeated
+    private static String repeat(String unit, int chars) {
+        return unit.repeat(Math.max(1, chars / unit.length()));
+    }
+
+    // open, inner and close nested about chars chars deep
+    private static String nest(String open, String inner, String close, int chars) {
+        int depth = Math.max(1, chars / (open.length() + close.length()));
+        return open.repeat(depth) + inner + close.repeat(depth);
+    }
+
+    // Names spelled with "Aa" and "BB", which all have the same String.hashCode
+    private static String collidingNames(int chars) {
+        int bits = 1;
+        while ((1 << bits) * (2 * bits + 12) < chars) bits++;
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 1 << bits; i++) {
+            source.append("int ");
+            for (int b = bits - 1; b >= 0; b--) source.append((i >> b & 1) == 0 ? "Aa" : "BB");
+            source.append(" = 1;\n");
+        }
+        return source.toString();
+    }
+
+    // Each String twice the one before, from a two-char start
+    private static String doubling(int chars) {
+        StringBuilder source = new StringBuilder("String s0 = \"ab\";\n");
+        for (int i = 1; source.length() < chars; i++) {
+            source.append("String s").append(i).append(" = s").append(i - 1).append(" + s").append(i - 1).append(";\n");
+        }
+        return source.toString();
+    }
+}
@@ -0,0 +1,37 @@
+package Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Checks where SyntaxAnalysis stops at Limits.maxNesting: deep parentheses, type arguments and
+// array braces are reported, while a long run of '<' that only looks like type arguments of a
+// cast is parsed as the comparisons it is.
+class SyntaxAnalysisTest {
+
+    private static final Limits LIMITS = new Limits(1 << 20, 16, 1 << 24);
+
+    @Test
+    void comparisonsThatLookLikeCastAreNotTooDeep() {
+        assertEquals(List.of(), errors("boolean x = (a" + " < a".repeat(40) + ");"));
+        assertEquals(List.of(), errors("boolean x = (a" + " < a".repeat(40) + ") == (b < c);"));
+        assertEquals(List.of(), errors("boolean x = (a" + " < a".repeat(40) + ") && ((a" + " < a".repeat(40) + "));"));
+    }
+
+    @Test
+    void reportsNestingPastLimit() {
+        assertEquals(List.of("Line 1: Nested deeper than 16 levels in 'y'"),
+                errors("int y = " + "(".repeat(17) + "1" + ")".repeat(17) + ";"));
+        assertEquals(List.of(), errors("int y = " + "(".repeat(16) + "1" + ")".repeat(16) + ";"));
+        assertEquals(List.of("Line 1: Nested deeper than 16 levels in 'z'"),
+                errors("int[] z = " + "{".repeat(17) + "1" + "}".repeat(17) + ";"));
+        assertEquals(List.of("Line 1: Nested deeper than 16 levels in 'List'"),
+                errors("List" + "<List".repeat(17) + ">".repeat(17) + " w;"));
+    }
+
+    private static List<String> errors(String source) {
+        return new SyntaxAnalysis(LIMITS).analyze(source).getErrors();
+    }
+}
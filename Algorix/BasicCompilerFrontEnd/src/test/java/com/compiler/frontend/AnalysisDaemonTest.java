@@ -0,0 +1,198 @@
+package com.compiler.frontend;
+
+import Controller.BatchAnalyzer;
+import Model.Limits;
+import Model.Metrics;
+import Model.SourceGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs an AnalysisDaemon in this JVM and compares what clients get back with BatchAnalyzer's
+// results: a tree sent as paths and as content, many clients at once on virtual threads, and
+// garbage on one connection while another is served. Also checks that a second daemon cannot
+// take the socket, that the socket's directory is private, that the daemon exits once idle for
+// its timeout and that it analyzes under the limits it was started with.
+class AnalysisDaemonTest {
+
+    @TempDir
+    Path root;
+
+    private Path socket;
+    private final List<Path> files = new ArrayList<>();
+    private final List<BatchAnalyzer.FileResult> expected = new ArrayList<>();
+    private AnalysisDaemon daemon;
+    private Thread serving;
+
+    @BeforeEach
+    void generate() throws IOException {
+        socket = root.resolve("daemon.sock");
+        for (int i = 0; i < 60; i++) {
+            Path file = root.resolve("dir" + i % 6).resolve("file" + i + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, SourceGenerator.declarations(40, 60, 3, i % 3 == 0 ? 0.05 : 0, i));
+            files.add(file);
+        }
+        files.sort(null);
+        for (Path file : files) expected.add(BatchAnalyzer.analyzeFile(file));
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        if (daemon != null) daemon.close();
+        if (serving != null) serving.join(5000);
+    }
+
+    @Test
+    void answersPathsAndContentAsBatchAnalyzerDoes() throws Exception {
+        serve(0);
+        try (AnalysisClient client = new AnalysisClient(socket)) {
+            assertEquals(expected, client.analyze(List.of(root), ".java").results(), "paths");
+            assertEquals(expected, client.analyzeSources(files, read(files)).results(), "content");
+            assertEquals(expected, client.analyze(List.of(root), ".java").results(), "again, cached");
+        }
+    }
+
+    @Test
+    void reportsMissingPathAndKeepsConnection() throws Exception {
+        serve(0);
+        try (AnalysisClient client = new AnalysisClient(socket)) {
+            assertThrows(IOException.class, () -> client.analyze(List.of(root.resolve("missing.java")), ".java"));
+            assertEquals(expected.subList(0, 1), client.analyze(files.subList(0, 1), ".java").results());
+        }
+    }
+
+    // A frame that is not the protocol's ends its own connection only
+    @Test
+    void closesConnectionThatSendsGarbage() throws Exception {
+        serve(0);
+        try (AnalysisClient client = new AnalysisClient(socket)) {
+            try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+                channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 8, 'n', 'o', 't', ' ', 'a', 'l', 'd', 'q'}));
+                assertEquals(-1, channel.read(ByteBuffer.allocate(16)), "connection kept open");
+            }
+            assertEquals(expected.subList(0, 1), client.analyze(files.subList(0, 1), ".java").results());
+        }
+    }
+
+    // Each client on its own virtual thread and connection asks for random files
+    @Test
+    void servesManyClientsAtOnce() throws Exception {
+        serve(0);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < 32; c++) {
+                long seed = c;
+                futures.add(clients.submit(() -> {
+                    Random random = new Random(seed);
+                    try (AnalysisClient client = new AnalysisClient(socket)) {
+                        for (int r = 0; r < 20; r++) {
+                            int from = random.nextInt(files.size());
+                            int to = Math.min(files.size(), from + 1 + random.nextInt(8));
+                            List<Path> asked = files.subList(from, to);
+                            List<BatchAnalyzer.FileResult> results = r % 2 == 0
+                                    ? client.analyze(asked, ".java").results()
+                                    : client.analyzeSources(asked, read(asked)).results();
+                            assertEquals(expected.subList(from, to), results, "client " + seed + ", request " + r);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        }
+    }
+
+    @Test
+    void secondDaemonCannotTakeSocket() throws Exception {
+        serve(0);
+        assertThrows(IllegalStateException.class, () -> new AnalysisDaemon(socket, 0).close());
+        try (AnalysisClient client = new AnalysisClient(socket)) {
+            assertEquals(expected.subList(0, 1), client.analyze(files.subList(0, 1), ".java").results());
+        }
+    }
+
+    // The default socket's directory is made for its user only, and refused once open to others
+    @Test
+    void socketDirectoryIsPrivate() throws Exception {
+        Path directory = root.resolve("run");
+        DaemonProtocol.privateDirectory(directory);
+        assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(directory));
+        DaemonProtocol.privateDirectory(directory);
+        Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwxrwxr-x"));
+        assertThrows(AccessDeniedException.class, () -> DaemonProtocol.privateDirectory(directory));
+        serve(0);
+        DaemonProtocol.checkOwner(socket);
+    }
+
+    @Test
+    void exitsOnceIdle() throws Exception {
+        long idleMillis = 500;
+        long start = System.nanoTime();
+        serve(idleMillis);
+        try (AnalysisClient client = new AnalysisClient(socket)) {
+            client.analyze(files.subList(0, 1), ".java");
+        }
+        serving.join(idleMillis + 5000);
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        assertFalse(serving.isAlive(), "daemon still serving");
+        assertFalse(Files.exists(socket), "socket left behind");
+        assertTrue(elapsed >= idleMillis, "exited after " + elapsed + " ms");
+    }
+
+    @Test
+    void analyzesUnderItsLimits() throws Exception {
+        Limits strict = new Limits(40, 256, 1 << 24);
+        List<BatchAnalyzer.FileResult> strictExpected = new ArrayList<>();
+        for (Path file : files) strictExpected.add(BatchAnalyzer.analyzeFile(file, null, Metrics.NONE, strict));
+        assertNotEquals(expected, strictExpected, "limits had no effect");
+        serve(0, strict);
+        try (AnalysisClient client = new AnalysisClient(socket)) {
+            assertEquals(strictExpected, client.analyze(List.of(root), ".java").results(), "paths");
+            assertEquals(strictExpected, client.analyzeSources(files, read(files)).results(), "content");
+        }
+    }
+
+    private void serve(long idleMillis) throws IOException {
+        serve(idleMillis, Limits.DEFAULT);
+    }
+
+    private void serve(long idleMillis, Limits limits) throws IOException {
+        daemon = new AnalysisDaemon(socket, idleMillis, limits);
+        serving = Thread.ofPlatform().name("daemon").start(() -> {
+            try {
+                daemon.serve();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private static List<String> read(List<Path> files) throws IOException {
+        List<String> sources = new ArrayList<>();
+        for (Path file : files) sources.add(Files.readString(file));
+        return sources;
+    }
+}
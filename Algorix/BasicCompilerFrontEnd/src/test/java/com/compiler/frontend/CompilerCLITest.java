@@ -0,0 +1,48 @@
+package com.compiler.frontend;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs CompilerCLI with the --max-* options: a file that passes under the default limits fails
+// under a lower nesting limit, also when both runs share a --cache directory, and values the
+// limits reject are usage errors.
+class CompilerCLITest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void cacheKeepsResultsUnderOtherLimitsApart() throws IOException {
+        Path sources = root.resolve("src");
+        Files.createDirectories(sources);
+        Files.writeString(sources.resolve("Deep.java"), "int y = " + "(".repeat(20) + "1" + ")".repeat(20) + ";\n");
+        String cache = root.resolve("cache").toString();
+        String report = root.resolve("report.json").toString();
+
+        assertEquals(CompilerCLI.EXIT_PASSED, run("--cache", cache, "--report", report, sources.toString()));
+        assertEquals(CompilerCLI.EXIT_FAILED,
+                run("--cache", cache, "--report", report, "--max-nesting", "16", sources.toString()));
+        assertEquals(CompilerCLI.EXIT_PASSED, run("--cache", cache, "--report", report, sources.toString()));
+        assertEquals(CompilerCLI.EXIT_FAILED,
+                run("--cache", cache, "--report", report, "--max-line-length", "20", sources.toString()));
+    }
+
+    @Test
+    void rejectsLimitsOutOfRange() {
+        String sources = root.toString();
+        assertEquals(CompilerCLI.EXIT_ERROR, run("--max-nesting", "0", sources));
+        assertEquals(CompilerCLI.EXIT_ERROR, run("--max-line-length", "many", sources));
+        assertEquals(CompilerCLI.EXIT_ERROR, run("--max-string-chars", "-1", sources));
+        assertEquals(CompilerCLI.EXIT_ERROR, run(sources, "--max-nesting"));
+    }
+
+    private static int run(String... args) {
+        return CompilerCLI.run(args);
+    }
+}
@@ -0,0 +1,202 @@
+package com.compiler.frontend;
+
+import Model.Limits;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Drives a LanguageServer over in-memory pipes the way an editor would: initializes it, opens
+// one document and sends ranged edits to it, and reads back what the server publishes.
+public class LanguageServerClient implements Closeable {
+
+    public static final String URI = "file:///check/Generated.java";
+    private static final Pattern VERSION = Pattern.compile("\"version\":(\\d+)");
+    private static final Pattern DIAGNOSTIC = Pattern.compile("\\{\"range\":\\{\"start\":\\{\"line\":(\\d+),"
+            + "\"character\":\\d+\\},\"end\":\\{\"line\":\\d+,\"character\":\\d+\\}\\},\"severity\":1,"
+            + "\"code\":\"\\w+\",\"source\":\"algorix\",\"message\":\"((?:[^\"\\\\]|\\\\.)*)\"\\}");
+
+    private final OutputStream toServer;
+    private final BlockingQueue<String> fromServer = new LinkedBlockingQueue<>();
+    private final Thread server;
+    private int skipped;
+
+    public LanguageServerClient() throws IOException, InterruptedException {
+        this(Limits.DEFAULT);
+    }
+
+    public LanguageServerClient(Limits limits) throws IOException, InterruptedException {
+        PipedOutputStream clientOut = new PipedOutputStream();
+        PipedInputStream serverIn = new PipedInputStream(clientOut, 1 << 20);
+        PipedOutputStream serverOut = new PipedOutputStream();
+        PipedInputStream clientIn = new PipedInputStream(serverOut, 1 << 20);
+        server = new Thread(() -> {
+            try {
+                new LanguageServer(serverIn, serverOut, limits).run();
+                serverOut.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "server");
+        server.start();
+        toServer = clientOut;
+        Thread reader = new Thread(() -> readAll(clientIn), "client");
+        reader.setDaemon(true);
+        reader.start();
+
+        send("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"capabilities\":{}}}");
+        await("\"id\":1");
+        send("{\"jsonrpc\":\"2.0\",\"method\":\"initialized\",\"params\":{}}");
+    }
+
+    public void open(String text) throws IOException {
+        send("{\"jsonrpc\":\"2.0\",\"method\":\"textDocument/didOpen\",\"params\":{\"textDocument\":{\"uri\":\""
+                + URI + "\",\"languageId\":\"java\",\"version\":1,\"text\":" + quote(text) + "}}}");
+    }
+
+    // change is one entry of contentChanges, such as edit returns
+    public void change(int version, String change) throws IOException {
+        send(didChange(version, change));
+    }
+
+    // The didChange notification carrying changes, entries of contentChanges separated by commas
+    public static String didChange(int version, String changes) {
+        return "{\"jsonrpc\":\"2.0\",\"method\":\"textDocument/didChange\",\"params\":{\"textDocument\":{\"uri\":\""
+                + URI + "\",\"version\":" + version + "},\"contentChanges\":[" + changes + "]}}";
+    }
+
+    // The diagnostics published for version; earlier versions published on the way are counted
+    public String awaitVersion(int version) throws InterruptedException {
+        while (true) {
+            String message = await("publishDiagnostics");
+            Matcher m = VERSION.matcher(message);
+            if (m.find() && Integer.parseInt(m.group(1)) == version) return message;
+            skipped++;
+        }
+    }
+
+    // Versions published before the one each awaitVersion waited for
+    public int skipped() {
+        return skipped;
+    }
+
+    // The published diagnostics as "Line N: message", as the analyzers report errors
+    public static List<String> errors(String published) {
+        List<String> errors = new ArrayList<>();
+        Matcher m = DIAGNOSTIC.matcher(published);
+        while (m.find()) {
+            errors.add("Line " + (Integer.parseInt(m.group(1)) + 1) + ": " + m.group(2).replace("\\\"", "\"").replace("\\\\", "\\"));
+        }
+        return errors;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            send("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"shutdown\"}");
+            await("\"id\":2");
+            send("{\"jsonrpc\":\"2.0\",\"method\":\"exit\"}");
+            server.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Replaces one line, inserts lines or joins two, in text and as a content change; about one
+    // edit in four breaks a declaration
+    public static String edit(List<String> text, Random random) {
+        int line = random.nextInt(text.size() - 1);
+        String old = text.get(line);
+        String replacement;
+        int endLine = line;
+        int endChar = old.length();
+        switch (random.nextInt(4)) {
+            case 0 -> replacement = "int e" + random.nextInt(1_000_000) + " = " + random.nextInt(100) + ";";
+            case 1 -> replacement = old + "\nboolean b" + random.nextInt(1_000_000) + " = true;\ndouble d = 1.5;";
+            case 2 -> {
+                replacement = old + " ";
+                endLine = line + 1;
+                endChar = 0;
+            }
+            default -> replacement = "int = " + random.nextInt(100) + ";";
+        }
+        String range = "{\"start\":{\"line\":" + line + ",\"character\":0},\"end\":{\"line\":" + endLine
+                + ",\"character\":" + endChar + "}}";
+        List<String> lines = List.of(replacement.split("\n", -1));
+        if (endLine > line) {
+            text.set(line, replacement + text.get(endLine));
+            text.remove(endLine);
+        } else {
+            text.remove(line);
+            text.addAll(line, lines);
+        }
+        return "{\"range\":" + range + ",\"text\":" + quote(replacement) + "}";
+    }
+
+    public void send(String content) throws IOException {
+        send(String.valueOf(content.getBytes(StandardCharsets.UTF_8).length), content);
+    }
+
+    // Sends content under a Content-Length of length, which need not be its size or a number
+    public void send(String length, String content) throws IOException {
+        byte[] body = content.getBytes(StandardCharsets.UTF_8);
+        toServer.write(("Content-Length: " + length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        toServer.write(body);
+        toServer.flush();
+    }
+
+    private String await(String marker) throws InterruptedException {
+        while (true) {
+            String message = fromServer.poll(30, TimeUnit.SECONDS);
+            if (message == null) throw new IllegalStateException("No reply containing " + marker);
+            if (message.contains(marker)) return message;
+        }
+    }
+
+    private void readAll(InputStream in) {
+        try {
+            while (true) {
+                StringBuilder header = new StringBuilder();
+                int b;
+                while ((b = in.read()) >= 0) {
+                    header.append((char) b);
+                    if (header.length() >= 4 && header.lastIndexOf("\r\n\r\n") == header.length() - 4) break;
+                }
+                if (b < 0) return;
+                int colon = header.indexOf(":");
+                int length = Integer.parseInt(header.substring(colon + 1, header.indexOf("\r")).trim());
+                fromServer.add(new String(in.readNBytes(length), StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            // The server closed its output
+        }
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 16).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,102 @@
+package com.compiler.frontend;
+
+import Model.AnalysisResult;
+import Model.LexicalAnalysis;
+import Model.LexicalResult;
+import Model.Limits;
+import Model.SemanticAnalysis;
+import Model.SourceGenerator;
+import Model.SyntaxAnalysis;
+import Model.SyntaxResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Sends random ranged edits one at a time and in a burst; the last published diagnostics must
+// be what a full analysis of the edited text reports. Also checks that a server started with
+// other limits analyzes under them, that a message with a malformed length is skipped and that
+// a change list with an invalid range changes nothing.
+class LanguageServerTest {
+
+    @Test
+    void incrementalDiagnosticsMatchFullAnalysis() throws Exception {
+        List<String> text = new ArrayList<>(Arrays.asList(SourceGenerator.declarations(5_000, 60, 4, 0.0, 3).split("\n", -1)));
+        try (LanguageServerClient client = new LanguageServerClient()) {
+            client.open(String.join("\n", text));
+            client.awaitVersion(1);
+
+            Random random = new Random(5);
+            int version = 1;
+            String published = null;
+            for (int e = 0; e < 100; e++) {
+                client.change(++version, LanguageServerClient.edit(text, random));
+                published = client.awaitVersion(version);
+            }
+            assertEquals(expected(String.join("\n", text)), LanguageServerClient.errors(published), "after single edits");
+
+            // Faster than the debounce, so only some versions are analyzed
+            for (int k = 0; k < 20; k++) client.change(++version, LanguageServerClient.edit(text, random));
+            published = client.awaitVersion(version);
+            assertEquals(expected(String.join("\n", text)), LanguageServerClient.errors(published), "after a burst");
+        }
+    }
+
+    @Test
+    void analyzesUnderItsLimits() throws Exception {
+        String text = "int x = 1;\nint y = " + "(".repeat(17) + "1" + ")".repeat(17) + ";\n";
+        try (LanguageServerClient client = new LanguageServerClient(new Limits(1 << 20, 16, 1 << 24))) {
+            client.open(text);
+            assertEquals(List.of("Line 2: Nested deeper than 16 levels in 'y'"),
+                    LanguageServerClient.errors(client.awaitVersion(1)));
+        }
+        try (LanguageServerClient client = new LanguageServerClient()) {
+            client.open(text);
+            assertEquals(List.of(), LanguageServerClient.errors(client.awaitVersion(1)));
+        }
+    }
+
+    // A message whose length is not a number is skipped, and the server reads on from the next
+    @Test
+    void skipsMessageWithMalformedLength() throws Exception {
+        try (LanguageServerClient client = new LanguageServerClient()) {
+            client.open("int x = 1;\n");
+            client.awaitVersion(1);
+            String broken = "{\"range\":{\"start\":{\"line\":0,\"character\":0},\"end\":{\"line\":0,\"character\":0}},"
+                    + "\"text\":\"int = ;\\n\"}";
+            client.send("abc", LanguageServerClient.didChange(2, broken));
+            client.send("-5", LanguageServerClient.didChange(3, broken));
+            client.change(4, "{\"range\":{\"start\":{\"line\":1,\"character\":0},\"end\":{\"line\":1,\"character\":0}},"
+                    + "\"text\":\"int y = 2;\\n\"}");
+            assertEquals(List.of(), LanguageServerClient.errors(client.awaitVersion(4)));
+        }
+    }
+
+    // A change list with one bad range is refused whole: the good change before it is not applied
+    @Test
+    void refusesChangesIfAnyRangeIsInvalid() throws Exception {
+        try (LanguageServerClient client = new LanguageServerClient()) {
+            client.open("int x = 1;\n");
+            client.awaitVersion(1);
+            client.change(2, "{\"range\":{\"start\":{\"line\":0,\"character\":0},\"end\":{\"line\":0,\"character\":0}},"
+                    + "\"text\":\"int = ;\\n\"},{\"range\":{\"start\":{\"line\":0,\"character\":0}},\"text\":\"\"}");
+            client.change(3, "{\"range\":{\"start\":{\"line\":1,\"character\":0},\"end\":{\"line\":1,\"character\":0}},"
+                    + "\"text\":\"int y = 2;\\n\"}");
+            assertEquals(List.of(), LanguageServerClient.errors(client.awaitVersion(3)));
+        }
+    }
+
+    // Errors of the first phase that fails, as the GUI and the batch analyzer gate them
+    private static List<String> expected(String source) {
+        LexicalResult lexical = new LexicalAnalysis().analyze(source);
+        if (!lexical.isPassed()) return lexical.getErrors();
+        SyntaxResult syntax = new SyntaxAnalysis().analyze(lexical.getTokens());
+        if (!syntax.isPassed()) return syntax.getErrors();
+        AnalysisResult semantic = new SemanticAnalysis().analyze(syntax.getTree());
+        return semantic.getErrors();
+    }
+}